@@ -0,0 +1,296 @@
+package cn.emay.socket.blocking;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 阻塞式链接[每个链接一个]
+ * <p>
+ * 收到的消息不再交给业务回调，而是放入链接上的接收队列，由业务线程以receive()按顺序取出；send()等待消息写出，request()发送后等待下一条消息。
+ * 积压达到容量时暂停读取，取到一半以下时恢复。等待只使用LockSupport[CompletableFuture、ReentrantLock、LinkedBlockingQueue]，
+ * 不使用synchronized和Netty的Future.await()，在虚拟线程中等待时不占用载体线程。不能在IO线程中调用
+ * <p>
+ * 引用计数的消息[如ByteBuf]取出后由调用方释放
+ *
+ * @author Frank
+ */
+public class BlockingChannel implements Closeable {
+
+    /**
+     * 默认接收队列容量
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * 链接上的阻塞式链接
+     */
+    private static final AttributeKey<BlockingChannel> BLOCKING_CHANNEL = AttributeKey.newInstance("BLOCKING_CHANNEL");
+
+    /**
+     * 链接关闭标记
+     */
+    private static final Object CLOSED = new Object();
+
+    /**
+     * 链接
+     */
+    private final Channel channel;
+
+    /**
+     * 发送消息[经过框架的发送流程]
+     */
+    private final Function<Object, ChannelFuture> sender;
+
+    /**
+     * 接收队列容量
+     */
+    private final int capacity;
+
+    /**
+     * 接收队列
+     */
+    private final LinkedBlockingQueue<Object> inbound = new LinkedBlockingQueue<>();
+
+    /**
+     * 请求与应答成对进行
+     */
+    private final ReentrantLock requestLock = new ReentrantLock();
+
+    /**
+     * 链接是否已关闭
+     */
+    private volatile boolean closed;
+
+    /**
+     * 是否已由业务关闭[之后收到的消息直接释放]
+     */
+    private volatile boolean discarded;
+
+    /**
+     * @param channel  链接
+     * @param sender   发送消息
+     * @param capacity 接收队列容量
+     */
+    private BlockingChannel(Channel channel, Function<Object, ChannelFuture> sender, int capacity) {
+        this.channel = channel;
+        this.sender = sender;
+        this.capacity = capacity;
+    }
+
+    /**
+     * 将链接改为阻塞式接收[之后收到的消息进入接收队列]
+     *
+     * @param channel  链接
+     * @param sender   发送消息
+     * @param capacity 接收队列容量
+     * @return 阻塞式链接[已经是阻塞式时返回原有的]
+     */
+    public static BlockingChannel attach(Channel channel, Function<Object, ChannelFuture> sender, int capacity) {
+        if (channel == null || sender == null) {
+            throw new NullPointerException("channel or sender is null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        BlockingChannel created = new BlockingChannel(channel, sender, capacity);
+        BlockingChannel exists = channel.attr(BLOCKING_CHANNEL).setIfAbsent(created);
+        if (exists != null) {
+            return exists;
+        }
+        if (!channel.isActive()) {
+            created.closed();
+        }
+        return created;
+    }
+
+    /**
+     * 获取链接上的阻塞式链接
+     *
+     * @param channel 链接
+     * @return 阻塞式链接[未启用为null]
+     */
+    public static BlockingChannel of(Channel channel) {
+        return channel.hasAttr(BLOCKING_CHANNEL) ? channel.attr(BLOCKING_CHANNEL).get() : null;
+    }
+
+    /**
+     * 放入收到的消息[IO线程，消息的引用由接收队列持有]
+     *
+     * @param msg 消息
+     */
+    public void offer(Object msg) {
+        if (discarded) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        inbound.offer(msg);
+        if (inbound.size() >= capacity && channel.config().isAutoRead()) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    /**
+     * 链接已关闭[IO线程，已收到的消息仍可取出]
+     */
+    public void closed() {
+        closed = true;
+        inbound.offer(CLOSED);
+    }
+
+    /**
+     * 等待下一条消息
+     *
+     * @return 消息
+     * @throws ClosedChannelException 链接已关闭且消息已取完
+     * @throws InterruptedException   等待被中断
+     */
+    public Object receive() throws ClosedChannelException, InterruptedException {
+        checkThread();
+        return received(inbound.take());
+    }
+
+    /**
+     * 等待下一条消息
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 消息[超时为null]
+     * @throws ClosedChannelException 链接已关闭且消息已取完
+     * @throws InterruptedException   等待被中断
+     */
+    public Object receive(long timeout, TimeUnit unit) throws ClosedChannelException, InterruptedException {
+        checkThread();
+        Object msg = inbound.poll(timeout, unit);
+        return msg == null ? null : received(msg);
+    }
+
+    /**
+     * 发送消息并等待写出
+     *
+     * @param message 消息
+     * @throws IOException          发送失败[链接已关闭为ClosedChannelException]
+     * @throws InterruptedException 等待被中断
+     */
+    public void send(Object message) throws IOException, InterruptedException {
+        checkThread();
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        sender.apply(message).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                written.complete(null);
+            } else {
+                written.completeExceptionally(future.cause());
+            }
+        });
+        try {
+            written.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException("send message error", cause);
+        }
+    }
+
+    /**
+     * 发送请求并等待下一条消息作为应答
+     * <p>
+     * 多个线程在同一链接上请求时依次进行；应答按顺序对应请求，服务端需对每个请求只回复一条消息
+     *
+     * @param message 请求
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 应答
+     * @throws IOException          发送失败或链接已关闭
+     * @throws TimeoutException     超时未收到应答
+     * @throws InterruptedException 等待被中断
+     */
+    public Object request(Object message, long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
+        requestLock.lockInterruptibly();
+        try {
+            send(message);
+            Object reply = receive(timeout, unit);
+            if (reply == null) {
+                throw new TimeoutException("no reply in " + unit.toMillis(timeout) + " ms");
+            }
+            return reply;
+        } finally {
+            requestLock.unlock();
+        }
+    }
+
+    /**
+     * 链接是否已关闭
+     *
+     * @return 是否已关闭
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 链接
+     *
+     * @return 链接
+     */
+    public Channel channel() {
+        return channel;
+    }
+
+    /**
+     * 关闭链接并释放未取出的消息
+     */
+    @Override
+    public void close() {
+        discarded = true;
+        channel.close();
+        Object msg;
+        while ((msg = inbound.poll()) != null) {
+            if (msg == CLOSED) {
+                // 保留关闭标记，之后的receive立即返回
+                inbound.offer(CLOSED);
+                break;
+            }
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    /**
+     * 取出消息后恢复读取
+     */
+    private Object received(Object msg) throws ClosedChannelException {
+        if (msg == CLOSED) {
+            // 其他等待的线程同样返回
+            inbound.offer(CLOSED);
+            throw new ClosedChannelException();
+        }
+        if (!channel.config().isAutoRead() && inbound.size() <= capacity / 2) {
+            channel.config().setAutoRead(true);
+        }
+        return msg;
+    }
+
+    /**
+     * 在IO线程中等待会阻塞该线程上的全部链接
+     */
+    private void checkThread() {
+        if (channel.eventLoop().inEventLoop()) {
+            throw new IllegalStateException("blocking call in event loop");
+        }
+    }
+
+}
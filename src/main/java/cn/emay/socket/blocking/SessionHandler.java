@@ -0,0 +1,22 @@
+package cn.emay.socket.blocking;
+
+/**
+ * 一个链接一个线程的业务处理
+ * <p>
+ * 链接建立后在独立的线程中调用一次，以阻塞方式顺序收发，返回或抛出异常后关闭链接；链接断开时receive抛出ClosedChannelException。
+ * Java 21及以上运行时为虚拟线程，可以承载大量链接，否则为普通线程
+ *
+ * @author Frank
+ */
+@FunctionalInterface
+public interface SessionHandler {
+
+    /**
+     * 处理一个链接
+     *
+     * @param channel 阻塞式链接
+     * @throws Exception 处理异常[交给exceptionHandle]
+     */
+    void handle(BlockingChannel channel) throws Exception;
+
+}
@@ -0,0 +1,38 @@
+package cn.emay.socket.blocking;
+
+/**
+ * 链接线程
+ * <p>
+ * Java 8 版本使用普通的守护线程；Multi-Release JAR 中 META-INF/versions/21 下的版本使用虚拟线程
+ *
+ * @author Frank
+ */
+public final class SessionThreads {
+
+    private SessionThreads() {
+    }
+
+    /**
+     * 是否使用虚拟线程
+     *
+     * @return 是否使用虚拟线程
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+
+    /**
+     * 启动一个链接线程
+     *
+     * @param name 线程名
+     * @param task 任务
+     * @return 线程
+     */
+    public static Thread start(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+}
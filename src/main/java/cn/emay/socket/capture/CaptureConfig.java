@@ -0,0 +1,121 @@
+package cn.emay.socket.capture;
+
+import java.nio.file.Path;
+
+/**
+ * 服务端接收流量的抓取配置
+ * <p>
+ * 按链接抽样，抽中的链接从建立到断开收到的原始字节[解码前]连同时间戳、链接序号写入内存映射的抓取文件，
+ * 文件写满后轮转，只保留最近的若干个文件。抓取结果可由TrafficReplayer重放
+ *
+ * @author Frank
+ */
+public class CaptureConfig {
+
+    /**
+     * 抓取目录
+     */
+    private final Path directory;
+
+    /**
+     * 每个抓取文件的大小[字节]
+     */
+    private int fileBytes = 64 * 1024 * 1024;
+
+    /**
+     * 保留的文件数
+     */
+    private int maxFiles = 16;
+
+    /**
+     * 链接抽样比例
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * @param directory 抓取目录[不存在时创建]
+     */
+    public CaptureConfig(Path directory) {
+        if (directory == null) {
+            throw new NullPointerException();
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * 获取抓取目录
+     *
+     * @return 目录
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 设置每个抓取文件的大小[默认64MB]
+     * <p>
+     * 一次读取的数据超过一个文件时不抓取
+     *
+     * @param fileBytes 字节数
+     */
+    public void setFileBytes(int fileBytes) {
+        if (fileBytes < 64 * 1024) {
+            throw new IllegalArgumentException("fileBytes: " + fileBytes + " (expected: >= 65536)");
+        }
+        this.fileBytes = fileBytes;
+    }
+
+    /**
+     * 获取每个抓取文件的大小
+     *
+     * @return 字节数
+     */
+    public int getFileBytes() {
+        return fileBytes;
+    }
+
+    /**
+     * 设置保留的文件数[默认16，超过时删除最早的文件]
+     *
+     * @param maxFiles 文件数
+     */
+    public void setMaxFiles(int maxFiles) {
+        if (maxFiles <= 0) {
+            throw new IllegalArgumentException("maxFiles: " + maxFiles + " (expected: > 0)");
+        }
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * 获取保留的文件数
+     *
+     * @return 文件数
+     */
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    /**
+     * 设置链接抽样比例[默认全部抓取]
+     * <p>
+     * 按链接抽样而不是按数据抽样，抽中的链接完整抓取，重放时字节流保持完整
+     *
+     * @param sampleRate 比例[0到1]
+     */
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate: " + sampleRate + " (expected: 0-1)");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * 获取链接抽样比例
+     *
+     * @return 比例
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+}
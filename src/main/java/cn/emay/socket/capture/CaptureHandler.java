@@ -0,0 +1,65 @@
+package cn.emay.socket.capture;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+import java.util.function.Function;
+
+/**
+ * 抓取链接收到的原始字节[每个链接一个，位于链接处理器之后、解码之前]
+ *
+ * @author Frank
+ */
+public class CaptureHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * 写入
+     */
+    private final CaptureWriter writer;
+
+    /**
+     * 获取链接的Session ID
+     */
+    private final Function<ChannelHandlerContext, String> sessionIds;
+
+    /**
+     * 链接序号[未抽中为-1]
+     */
+    private long connection = -1;
+
+    /**
+     * @param writer     写入
+     * @param sessionIds 获取链接的Session ID
+     */
+    public CaptureHandler(CaptureWriter writer, Function<ChannelHandlerContext, String> sessionIds) {
+        this.writer = writer;
+        this.sessionIds = sessionIds;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        connection = writer.sample();
+        if (connection < 0) {
+            ctx.pipeline().remove(this);
+        } else {
+            writer.open(connection, sessionIds.apply(ctx));
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof ByteBuf && ((ByteBuf) msg).isReadable()) {
+            writer.write(CaptureRecord.TYPE_DATA, connection, (ByteBuf) msg);
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        writer.write(CaptureRecord.TYPE_CLOSE, connection, null);
+        super.channelInactive(ctx);
+    }
+
+}
@@ -0,0 +1,117 @@
+package cn.emay.socket.capture;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按时间顺序读取抓取目录中的记录[非线程安全]
+ * <p>
+ * 每个文件内的记录按时间排列，多个写入线程的文件按记录的时间戳合并
+ *
+ * @author Frank
+ */
+public class CaptureReader implements Closeable {
+
+    /**
+     * 未读完的文件
+     */
+    private final List<Cursor> cursors = new ArrayList<>();
+
+    /**
+     * @param directory 抓取目录
+     * @throws IOException 读取目录或文件失败
+     */
+    public CaptureReader(Path directory) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + CaptureWriter.SUFFIX)) {
+            for (Path file : stream) {
+                try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+                    Cursor cursor = new Cursor(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()));
+                    if (cursor.hasNext()) {
+                        cursors.add(cursor);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取下一条记录[时间最早的]
+     *
+     * @return 记录[没有更多记录为null]
+     */
+    public CaptureRecord next() {
+        Cursor earliest = null;
+        for (Cursor cursor : cursors) {
+            if (earliest == null || cursor.timestamp() < earliest.timestamp()) {
+                earliest = cursor;
+            }
+        }
+        if (earliest == null) {
+            return null;
+        }
+        CaptureRecord record = earliest.next();
+        if (!earliest.hasNext()) {
+            cursors.remove(earliest);
+        }
+        return record;
+    }
+
+    @Override
+    public void close() {
+        cursors.clear();
+    }
+
+    /**
+     * 一个文件的读取位置
+     */
+    private static class Cursor {
+
+        /**
+         * 文件
+         */
+        private final MappedByteBuffer buffer;
+
+        /**
+         * 读取位置
+         */
+        private int position;
+
+        Cursor(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean hasNext() {
+            if (position + CaptureWriter.HEADER_LENGTH > buffer.capacity()) {
+                return false;
+            }
+            int field = buffer.getInt(position);
+            return field > 0 && position + CaptureWriter.HEADER_LENGTH + field - 1 <= buffer.capacity();
+        }
+
+        long timestamp() {
+            return buffer.getLong(position + 5);
+        }
+
+        CaptureRecord next() {
+            int field = buffer.getInt(position);
+            int start = position + CaptureWriter.HEADER_LENGTH;
+            ByteBuf content = Unpooled.wrappedBuffer(buffer).slice(start, field - 1).asReadOnly();
+            CaptureRecord record = new CaptureRecord(buffer.get(position + 4), timestamp(), buffer.getLong(position + 13), content);
+            position = start + field - 1;
+            return record;
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package cn.emay.socket.capture;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 一条抓取记录
+ *
+ * @author Frank
+ */
+public class CaptureRecord {
+
+    /**
+     * 链接建立[内容为服务端的Session ID]
+     */
+    public static final byte TYPE_OPEN = 1;
+
+    /**
+     * 收到数据[内容为原始字节]
+     */
+    public static final byte TYPE_DATA = 2;
+
+    /**
+     * 链接断开[没有内容]
+     */
+    public static final byte TYPE_CLOSE = 3;
+
+    /**
+     * 类型
+     */
+    private final byte type;
+
+    /**
+     * 时间戳[微秒]
+     */
+    private final long timestampMicros;
+
+    /**
+     * 链接序号[抓取内唯一]
+     */
+    private final long connection;
+
+    /**
+     * 内容[只读，随读取器关闭失效]
+     */
+    private final ByteBuf content;
+
+    /**
+     * @param type            类型
+     * @param timestampMicros 时间戳[微秒]
+     * @param connection      链接序号
+     * @param content         内容
+     */
+    public CaptureRecord(byte type, long timestampMicros, long connection, ByteBuf content) {
+        this.type = type;
+        this.timestampMicros = timestampMicros;
+        this.connection = connection;
+        this.content = content;
+    }
+
+    /**
+     * 获取类型
+     *
+     * @return TYPE_OPEN、TYPE_DATA或TYPE_CLOSE
+     */
+    public byte getType() {
+        return type;
+    }
+
+    /**
+     * 获取时间戳
+     *
+     * @return 微秒[墙上时间]
+     */
+    public long getTimestampMicros() {
+        return timestampMicros;
+    }
+
+    /**
+     * 获取链接序号
+     *
+     * @return 序号
+     */
+    public long getConnection() {
+        return connection;
+    }
+
+    /**
+     * 获取内容
+     *
+     * @return 内容[只读，随读取器关闭失效]
+     */
+    public ByteBuf getContent() {
+        return content;
+    }
+
+}
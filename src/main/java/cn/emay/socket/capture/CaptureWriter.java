@@ -0,0 +1,334 @@
+package cn.emay.socket.capture;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 抓取文件的写入[所有链接共用，线程安全]
+ * <p>
+ * 每个写入线程[IO线程]写各自的文件，互不等待，同一链接的记录在同一文件中按顺序排列，读取时按时间戳合并；
+ * 文件名为 创建时间(毫秒)-序号.capture；每条记录为 长度+1(int) + 类型(byte) + 时间戳微秒(long) + 链接序号(long) + 内容，
+ * 长度字段为0表示文件结束。保留的文件数包括目录中之前运行留下的文件
+ *
+ * @author Frank
+ */
+public class CaptureWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaptureWriter.class);
+
+    /**
+     * 文件后缀
+     */
+    static final String SUFFIX = ".capture";
+
+    /**
+     * 记录头长度
+     */
+    static final int HEADER_LENGTH = 21;
+
+    /**
+     * 配置
+     */
+    private final CaptureConfig config;
+
+    /**
+     * 写满的文件[按创建顺序，包括之前运行留下的文件]
+     */
+    private final ArrayDeque<Path> files = new ArrayDeque<>();
+
+    /**
+     * 全部写入线程的文件
+     */
+    private final List<Lane> lanes = new CopyOnWriteArrayList<>();
+
+    /**
+     * 当前线程的文件
+     */
+    private final FastThreadLocal<Lane> currentLane = new FastThreadLocal<Lane>() {
+        @Override
+        protected Lane initialValue() {
+            Lane lane = new Lane();
+            lanes.add(lane);
+            return lane;
+        }
+    };
+
+    /**
+     * 起始墙上时间[微秒]
+     */
+    private final long baseMicros = System.currentTimeMillis() * 1000;
+
+    /**
+     * 起始单调时间[纳秒]
+     */
+    private final long baseNanos = System.nanoTime();
+
+    /**
+     * 文件序号
+     */
+    private final AtomicInteger fileIndex = new AtomicInteger();
+
+    /**
+     * 链接序号
+     */
+    private final AtomicLong connections = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * @param config 配置
+     * @throws IOException 创建或读取目录失败
+     */
+    public CaptureWriter(CaptureConfig config) throws IOException {
+        this.config = config;
+        Files.createDirectories(config.getDirectory());
+        List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(config.getDirectory(), "*" + SUFFIX)) {
+            for (Path file : stream) {
+                existing.add(file);
+            }
+        }
+        existing.sort(Comparator.comparing(file -> file.getFileName().toString()));
+        files.addAll(existing);
+        retain(0);
+    }
+
+    /**
+     * 按抽样比例决定是否抓取一个新链接
+     *
+     * @return 链接序号[不抓取为-1]
+     */
+    public long sample() {
+        double rate = config.getSampleRate();
+        if (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate) {
+            return -1;
+        }
+        return connections.incrementAndGet();
+    }
+
+    /**
+     * 写入一条记录[写入当前线程的文件]
+     *
+     * @param type       类型
+     * @param connection 链接序号
+     * @param content    内容[可为null，不释放]
+     */
+    public void write(byte type, long connection, ByteBuf content) {
+        if (closed) {
+            return;
+        }
+        currentLane.get().write(type, connection, content);
+    }
+
+    /**
+     * 写入链接建立记录
+     *
+     * @param connection 链接序号
+     * @param sessionId  Session ID[可为null]
+     */
+    public void open(long connection, String sessionId) {
+        ByteBuf content = sessionId == null ? null : Unpooled.wrappedBuffer(sessionId.getBytes(StandardCharsets.UTF_8));
+        write(CaptureRecord.TYPE_OPEN, connection, content);
+    }
+
+    /**
+     * 登记写满的文件，超过保留数时删除最早的文件[写入中的文件计入保留数]
+     *
+     * @param full 写满的文件[没有为null]
+     */
+    private void rolled(Path full) throws IOException {
+        synchronized (files) {
+            if (full != null) {
+                files.add(full);
+            }
+            retain(lanes.size());
+        }
+    }
+
+    /**
+     * 删除最早的文件直到不超过保留数
+     *
+     * @param writing 写入中的文件数
+     */
+    private void retain(int writing) throws IOException {
+        while (!files.isEmpty() && files.size() + writing > config.getMaxFiles()) {
+            Files.deleteIfExists(files.poll());
+        }
+    }
+
+    /**
+     * 关闭
+     */
+    public void close() {
+        closed = true;
+        for (Lane lane : lanes) {
+            lane.close();
+        }
+    }
+
+    /**
+     * 获取抓取的链接数
+     *
+     * @return 链接数
+     */
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * 获取写入的记录数
+     *
+     * @return 记录数
+     */
+    public long getRecordCount() {
+        long records = 0;
+        for (Lane lane : lanes) {
+            records += lane.records;
+        }
+        return records;
+    }
+
+    /**
+     * 获取写入的数据字节数
+     *
+     * @return 字节数
+     */
+    public long getByteCount() {
+        long bytes = 0;
+        for (Lane lane : lanes) {
+            bytes += lane.bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * 获取未能写入的记录数
+     *
+     * @return 记录数
+     */
+    public long getDroppedCount() {
+        long dropped = 0;
+        for (Lane lane : lanes) {
+            dropped += lane.dropped;
+        }
+        return dropped;
+    }
+
+    /**
+     * 一个写入线程的文件[锁只在写入与关闭之间使用，没有竞争]
+     */
+    private class Lane {
+
+        /**
+         * 写入中的文件
+         */
+        private Path file;
+
+        /**
+         * 写入中的文件映射
+         */
+        private MappedByteBuffer buffer;
+
+        /**
+         * 写入位置
+         */
+        private int position;
+
+        private volatile long records;
+
+        private volatile long bytes;
+
+        private volatile long dropped;
+
+        /**
+         * 是否已关闭
+         */
+        private boolean released;
+
+        synchronized void write(byte type, long connection, ByteBuf content) {
+            if (released) {
+                return;
+            }
+            int length = content == null ? 0 : content.readableBytes();
+            if (HEADER_LENGTH + length > config.getFileBytes()) {
+                dropped++;
+                return;
+            }
+            try {
+                if (buffer == null || position + HEADER_LENGTH + length > buffer.capacity()) {
+                    roll();
+                }
+            } catch (IOException e) {
+                dropped++;
+                logger.error("capture[" + config.getDirectory() + "] create file error", e);
+                return;
+            }
+            if (length > 0) {
+                ByteBuffer target = buffer.duplicate();
+                target.limit(position + HEADER_LENGTH + length).position(position + HEADER_LENGTH);
+                content.getBytes(content.readerIndex(), target);
+            }
+            buffer.put(position + 4, type);
+            buffer.putLong(position + 5, baseMicros + (System.nanoTime() - baseNanos) / 1000);
+            buffer.putLong(position + 13, connection);
+            buffer.putInt(position, length + 1);
+            position += HEADER_LENGTH + length;
+            records++;
+            bytes += length;
+        }
+
+        /**
+         * 新建文件
+         */
+        private void roll() throws IOException {
+            Path full = file;
+            release();
+            file = config.getDirectory().resolve(String.format("%013d-%06d%s", System.currentTimeMillis(), fileIndex.incrementAndGet(), SUFFIX));
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(config.getFileBytes());
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, config.getFileBytes());
+            }
+            position = 0;
+            rolled(full);
+        }
+
+        /**
+         * 释放写入中的文件[未写满的部分保持为0]
+         */
+        private void release() {
+            if (buffer != null) {
+                PlatformDependent.freeDirectBuffer(buffer);
+                buffer = null;
+            }
+        }
+
+        synchronized void close() {
+            released = true;
+            release();
+        }
+
+    }
+
+}
@@ -0,0 +1,309 @@
+package cn.emay.socket.capture;
+
+import cn.emay.socket.client.SocketClient;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 抓取流量的重放
+ * <p>
+ * 按抓取中的链接建立链接，按记录的时间间隔[除以倍速]原样写出收到的原始字节，抓取中断开的链接同样断开；
+ * 字节不经过编码，目标服务端的帧格式需与抓取时相同。服务端的响应直接丢弃
+ *
+ * @author Frank
+ */
+public class TrafficReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficReplayer.class);
+
+    /**
+     * 倍速为0时最多未写出的记录数
+     */
+    private static final int MAX_IN_FLIGHT = 1024;
+
+    /**
+     * 目标服务端地址
+     */
+    private final String address;
+
+    /**
+     * 抓取目录
+     */
+    private final Path directory;
+
+    /**
+     * 倍速
+     */
+    private double speed = 1.0;
+
+    /**
+     * 未写出的记录数
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private long records;
+
+    private long bytes;
+
+    private long connections;
+
+    private long maxLagMicros;
+
+    private long elapsedMillis;
+
+    /**
+     * @param address   目标服务端地址[格式同SocketClient]
+     * @param directory 抓取目录
+     */
+    public TrafficReplayer(String address, Path directory) {
+        if (address == null || directory == null) {
+            throw new NullPointerException();
+        }
+        this.address = address;
+        this.directory = directory;
+    }
+
+    /**
+     * 设置倍速[默认1，按原始速度]
+     *
+     * @param speed 倍速[大于1加速，为0不等待、尽快写出]
+     */
+    public void setSpeed(double speed) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("speed: " + speed + " (expected: >= 0)");
+        }
+        this.speed = speed;
+    }
+
+    /**
+     * 重放全部记录，写出完毕后返回
+     *
+     * @throws IOException 读取抓取文件失败
+     */
+    public void run() throws IOException {
+        ReplayClient client = new ReplayClient(address);
+        client.startup();
+        Map<Long, ChannelId> channels = new HashMap<>();
+        long startNanos = System.nanoTime();
+        long firstMicros = -1;
+        try (CaptureReader reader = new CaptureReader(directory)) {
+            CaptureRecord record;
+            while ((record = reader.next()) != null) {
+                if (firstMicros < 0) {
+                    firstMicros = record.getTimestampMicros();
+                }
+                pace(startNanos, record.getTimestampMicros() - firstMicros);
+                ChannelId channelId = channels.get(record.getConnection());
+                switch (record.getType()) {
+                    case CaptureRecord.TYPE_OPEN:
+                        channels.put(record.getConnection(), client.connect());
+                        connections++;
+                        break;
+                    case CaptureRecord.TYPE_DATA:
+                        if (channelId == null) {
+                            // 链接建立的记录已随文件轮转删除
+                            channelId = client.connect();
+                            channels.put(record.getConnection(), channelId);
+                            connections++;
+                        }
+                        send(client, channelId, record.getContent());
+                        break;
+                    case CaptureRecord.TYPE_CLOSE:
+                        if (channelId != null) {
+                            drain(0);
+                            client.disconnect(channelId);
+                            channels.remove(record.getConnection());
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                records++;
+            }
+            drain(0);
+        } finally {
+            elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            client.shutdown();
+        }
+        logger.info("traffic replay from " + directory + " to " + address + " : " + this);
+    }
+
+    /**
+     * 等待记录的时间点
+     *
+     * @param startNanos   开始时间
+     * @param offsetMicros 记录相对第一条记录的时间
+     */
+    private void pace(long startNanos, long offsetMicros) {
+        if (speed == 0) {
+            return;
+        }
+        long due = startNanos + (long) (offsetMicros * 1000 / speed);
+        long now = System.nanoTime();
+        if (due > now) {
+            LockSupport.parkNanos(due - now);
+        } else {
+            maxLagMicros = Math.max(maxLagMicros, (now - due) / 1000);
+        }
+    }
+
+    private void send(ReplayClient client, ChannelId channelId, ByteBuf content) {
+        drain(MAX_IN_FLIGHT);
+        bytes += content.readableBytes();
+        ChannelFuture future;
+        try {
+            future = client.sendMessageAsync(channelId, content.retainedDuplicate());
+        } catch (IllegalArgumentException e) {
+            // 服务端已关闭链接
+            return;
+        }
+        inFlight.incrementAndGet();
+        future.addListener((ChannelFutureListener) f -> inFlight.decrementAndGet());
+    }
+
+    /**
+     * 等待未写出的记录数降到上限以下
+     *
+     * @param max 上限
+     */
+    private void drain(int max) {
+        while (inFlight.get() > max) {
+            LockSupport.parkNanos(100000);
+        }
+    }
+
+    /**
+     * 获取重放的记录数
+     *
+     * @return 记录数
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * 获取写出的字节数
+     *
+     * @return 字节数
+     */
+    public long getByteCount() {
+        return bytes;
+    }
+
+    /**
+     * 获取建立的链接数
+     *
+     * @return 链接数
+     */
+    public long getConnectionCount() {
+        return connections;
+    }
+
+    /**
+     * 获取记录晚于预定时间写出的最大值[倍速过高时增大]
+     *
+     * @return 微秒
+     */
+    public long getMaxLagMicros() {
+        return maxLagMicros;
+    }
+
+    /**
+     * 获取重放耗时
+     *
+     * @return 毫秒
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "TrafficReplayer{records=" + records + ", bytes=" + bytes + ", connections=" + connections + ", maxLagMicros=" + maxLagMicros
+                + ", elapsedMillis=" + elapsedMillis + "}";
+    }
+
+    /**
+     * 命令行重放
+     *
+     * @param args 目标服务端地址 抓取目录 [倍速]
+     * @throws IOException 读取抓取文件失败
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: TrafficReplayer <address> <capture directory> [speed, 0 for max]");
+            return;
+        }
+        TrafficReplayer replayer = new TrafficReplayer(args[0], Paths.get(args[1]));
+        if (args.length > 2) {
+            replayer.setSpeed(Double.parseDouble(args[2]));
+        }
+        replayer.run();
+        System.out.println(replayer);
+    }
+
+    /**
+     * 原样写出字节、丢弃响应的客户端
+     */
+    static class ReplayClient extends SocketClient {
+
+        ReplayClient(String address) {
+            super("replay", address, 0, 0, 0, 0);
+        }
+
+        @Override
+        protected void connectHandle(ChannelHandlerContext ctx) {
+        }
+
+        @Override
+        protected void closedHandle(ChannelHandlerContext ctx) {
+        }
+
+        @Override
+        protected void exceptionHandle(ChannelHandlerContext ctx, Throwable cause) {
+            logger.warn("traffic replay channel[" + ctx.channel().id() + "] error : " + cause);
+        }
+
+        @Override
+        protected void readIdleHandle(ChannelHandlerContext ctx) {
+        }
+
+        @Override
+        protected void allIdleHandle(ChannelHandlerContext ctx) {
+        }
+
+        @Override
+        protected void writeIdleHandle(ChannelHandlerContext ctx) {
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) {
+            out.add(((ByteBuf) msg).retainedDuplicate());
+        }
+
+        @Override
+        protected void decodeHandle(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            in.skipBytes(in.readableBytes());
+        }
+
+        @Override
+        protected void businessHandle(ChannelHandlerContext ctx, Object msg) {
+        }
+    }
+
+}
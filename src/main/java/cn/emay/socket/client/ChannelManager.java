@@ -1,5 +1,6 @@
 package cn.emay.socket.client;
 
+import cn.emay.socket.heartbeat.HeartbeatHandler;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelId;
@@ -81,6 +82,30 @@ public class ChannelManager {
         }
     }
 
+    /**
+     * 选择RTT最小的活动链接[启用心跳]
+     * <p>
+     * 没有RTT样本的链接排在有样本的链接之后，都没有样本时随机选择
+     *
+     * @return 链接ID
+     */
+    public ChannelId fastestChannel() {
+        ChannelId fastest = null;
+        long fastestRtt = Long.MAX_VALUE;
+        for (Channel channel : channels.values()) {
+            if (!channel.isActive()) {
+                continue;
+            }
+            HeartbeatHandler handler = HeartbeatHandler.of(channel);
+            long rtt = handler == null ? -1 : handler.getRttMicros();
+            if (rtt >= 0 && rtt < fastestRtt) {
+                fastest = channel.id();
+                fastestRtt = rtt;
+            }
+        }
+        return fastest == null ? randomChannel() : fastest;
+    }
+
     /**
      * 删除并关闭一个链接
      *
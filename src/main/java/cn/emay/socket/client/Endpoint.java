@@ -0,0 +1,261 @@
+package cn.emay.socket.client;
+
+import cn.emay.socket.heartbeat.HeartbeatHandler;
+import io.netty.channel.Channel;
+
+import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务端节点[一个地址及其链接池]
+ *
+ * @author Frank
+ */
+public class Endpoint {
+
+    /**
+     * 地址描述
+     */
+    private final String name;
+
+    /**
+     * 地址
+     */
+    private final SocketAddress address;
+
+    /**
+     * 节点上的链接
+     */
+    private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 节点上链接的快照[链接建立或断开时更新，选择链接时不遍历集合]
+     */
+    private volatile Channel[] snapshot = new Channel[0];
+
+    /**
+     * 快照中各链接的心跳处理器[未启用框架帧的链接为null]
+     */
+    private volatile HeartbeatHandler[] heartbeats = new HeartbeatHandler[0];
+
+    /**
+     * 节点各链接平滑RTT的平均值[微秒，链接变化和心跳RTT更新时计算，没有样本为-1]
+     */
+    private volatile long rttMicros = -1;
+
+    /**
+     * 正在建立的链接数
+     */
+    final AtomicInteger connecting = new AtomicInteger();
+
+    /**
+     * 轮询计数
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * 是否可用
+     */
+    private volatile boolean up = false;
+
+    /**
+     * 是否曾经可用[首次可用不慢启动]
+     */
+    private volatile boolean everUp = false;
+
+    /**
+     * 恢复可用的时间[毫秒，为0不慢启动]
+     */
+    private volatile long upSince;
+
+    /**
+     * 连续建立链接失败的次数
+     */
+    private volatile int failures;
+
+    /**
+     * @param name    地址描述
+     * @param address 地址
+     */
+    Endpoint(String name, SocketAddress address) {
+        this.name = name;
+        this.address = address;
+    }
+
+    /**
+     * 链接建立
+     *
+     * @param channel 链接
+     * @param now     当前时间[毫秒]
+     * @return 是否新加入的链接
+     */
+    synchronized boolean onConnected(Channel channel, long now) {
+        if (!channels.add(channel)) {
+            return false;
+        }
+        HeartbeatHandler handler = HeartbeatHandler.of(channel);
+        if (handler != null) {
+            handler.setRttListener(this::refreshRtt);
+        }
+        refresh();
+        failures = 0;
+        if (!up) {
+            up = true;
+            upSince = everUp ? now : 0;
+            everUp = true;
+        }
+        return true;
+    }
+
+    /**
+     * 链接断开[没有活动链接时节点不可用]
+     *
+     * @param channel 链接
+     */
+    synchronized void onClosed(Channel channel) {
+        if (channels.remove(channel)) {
+            refresh();
+        }
+        if (channels.isEmpty()) {
+            up = false;
+        }
+    }
+
+    /**
+     * 建立链接失败
+     */
+    synchronized void onConnectFailed() {
+        failures++;
+        if (channels.isEmpty()) {
+            up = false;
+        }
+    }
+
+    /**
+     * 轮询选择一个活动链接
+     *
+     * @return 链接[没有活动链接为null]
+     */
+    Channel nextChannel() {
+        Channel[] current = snapshot;
+        int size = current.length;
+        if (size == 0) {
+            return null;
+        }
+        int start = (next.getAndIncrement() & Integer.MAX_VALUE) % size;
+        for (int i = 0; i < size; i++) {
+            Channel channel = current[(start + i) % size];
+            if (channel.isActive()) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 更新链接快照和RTT[链接建立或断开时]
+     */
+    private void refresh() {
+        Channel[] current = channels.toArray(new Channel[0]);
+        HeartbeatHandler[] handlers = new HeartbeatHandler[current.length];
+        for (int i = 0; i < current.length; i++) {
+            handlers[i] = HeartbeatHandler.of(current[i]);
+        }
+        snapshot = current;
+        heartbeats = handlers;
+        refreshRtt();
+    }
+
+    /**
+     * 重新计算各链接平滑RTT的平均值[心跳RTT更新时在IO线程中调用]
+     */
+    private void refreshRtt() {
+        long sum = 0;
+        int count = 0;
+        for (HeartbeatHandler handler : heartbeats) {
+            long rtt = handler == null ? -1 : handler.getRttMicros();
+            if (rtt >= 0) {
+                sum += rtt;
+                count++;
+            }
+        }
+        rttMicros = count == 0 ? -1 : sum / count;
+    }
+
+    /**
+     * 慢启动系数
+     *
+     * @param now             当前时间[毫秒]
+     * @param slowStartMillis 慢启动时长[毫秒]
+     * @return 系数(0, 1]
+     */
+    double slowStartFactor(long now, long slowStartMillis) {
+        long since = upSince;
+        if (since == 0 || slowStartMillis <= 0 || now - since >= slowStartMillis) {
+            return 1;
+        }
+        return Math.max(0.05, (double) (now - since) / slowStartMillis);
+    }
+
+    /**
+     * 获取地址描述
+     *
+     * @return 地址描述
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取地址
+     *
+     * @return 地址
+     */
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * 是否可用[至少有一个活动链接]
+     *
+     * @return 是否可用
+     */
+    public boolean isUp() {
+        return up;
+    }
+
+    /**
+     * 获取链接数[已建立且未断开]
+     *
+     * @return 链接数
+     */
+    public int getConnectionCount() {
+        return snapshot.length;
+    }
+
+    /**
+     * 获取连续建立链接失败的次数
+     *
+     * @return 次数
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * 获取节点各链接平滑RTT的平均值[启用心跳，链接变化和心跳RTT更新时计算]
+     *
+     * @return RTT[微秒，没有样本为-1]
+     */
+    public long getRttMicros() {
+        return rttMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "Endpoint{" + name + ", up=" + up + ", connections=" + getConnectionCount() + ", failures=" + failures + "}";
+    }
+
+}
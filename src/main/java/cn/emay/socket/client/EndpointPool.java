@@ -0,0 +1,164 @@
+package cn.emay.socket.client;
+
+import io.netty.channel.Channel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 服务端节点的选择
+ * <p>
+ * 只在可用节点间路由，按权重随机选择节点，节点内轮询链接。权重 = 链接池健康度 × 延迟系数 × 慢启动系数：
+ * 健康度为活动链接数与链接池大小之比；延迟系数为所有节点中最小RTT与本节点RTT之比[启用心跳]；
+ * 节点恢复可用后在慢启动时长内权重从5%线性升到100%，避免刚恢复的节点瞬间承接全部流量
+ *
+ * @author Frank
+ */
+public class EndpointPool {
+
+    /**
+     * 节点
+     */
+    private final List<Endpoint> endpoints;
+
+    /**
+     * 每个节点的链接池大小
+     */
+    private final int poolSize;
+
+    /**
+     * 慢启动时长[毫秒]
+     */
+    private final long slowStartMillis;
+
+    /**
+     * @param endpoints       节点
+     * @param poolSize        每个节点的链接池大小
+     * @param slowStartMillis 慢启动时长[毫秒]
+     */
+    EndpointPool(List<Endpoint> endpoints, int poolSize, long slowStartMillis) {
+        this.endpoints = Collections.unmodifiableList(new ArrayList<>(endpoints));
+        this.poolSize = poolSize;
+        this.slowStartMillis = slowStartMillis;
+    }
+
+    /**
+     * 选择一个链接[不分配对象，链接数和RTT取节点缓存的值]
+     *
+     * @return 链接[没有可用节点为null]
+     */
+    public Channel select() {
+        long now = System.currentTimeMillis();
+        int size = endpoints.size();
+        long minRtt = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get(i);
+            long rtt = endpoint.isUp() ? endpoint.getRttMicros() : -1;
+            if (rtt > 0 && rtt < minRtt) {
+                minRtt = rtt;
+            }
+        }
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get(i);
+            total += endpoint.isUp() ? weight(endpoint, now, minRtt) : 0;
+        }
+        if (total <= 0) {
+            return null;
+        }
+        // 第二遍重新计算权重[代价很小]，期间节点状态变化时落到最后一个节点或下面的退回逻辑
+        double point = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get(i);
+            point -= endpoint.isUp() ? weight(endpoint, now, minRtt) : 0;
+            if (point < 0 || i == size - 1) {
+                Channel channel = endpoint.nextChannel();
+                if (channel != null) {
+                    return channel;
+                }
+            }
+        }
+        // 选中的节点刚刚失去全部链接，退回到任一可用节点
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get(i);
+            Channel channel = endpoint.isUp() ? endpoint.nextChannel() : null;
+            if (channel != null) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 节点权重
+     *
+     * @param endpoint 节点
+     * @param now      当前时间[毫秒]
+     * @param minRtt   所有节点中最小的RTT[微秒]
+     * @return 权重
+     */
+    private double weight(Endpoint endpoint, long now, long minRtt) {
+        double weight = endpoint.slowStartFactor(now, slowStartMillis);
+        if (poolSize > 0) {
+            weight *= Math.min(1.0, (double) endpoint.getConnectionCount() / poolSize);
+        }
+        long rtt = endpoint.getRttMicros();
+        if (rtt > 0 && minRtt != Long.MAX_VALUE) {
+            weight *= Math.max(0.05, (double) minRtt / rtt);
+        }
+        return weight;
+    }
+
+    /**
+     * 建立链接的节点顺序[可用节点随机在前，不可用节点随机在后]
+     *
+     * @return 节点
+     */
+    List<Endpoint> connectOrder() {
+        List<Endpoint> up = new ArrayList<>();
+        List<Endpoint> down = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            (endpoint.isUp() ? up : down).add(endpoint);
+        }
+        Collections.shuffle(up, ThreadLocalRandom.current());
+        Collections.shuffle(down, ThreadLocalRandom.current());
+        up.addAll(down);
+        return up;
+    }
+
+    /**
+     * 获取所有节点
+     *
+     * @return 节点
+     */
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * 获取每个节点的链接池大小
+     *
+     * @return 链接池大小[为0不自动建立链接]
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * 可用节点数
+     *
+     * @return 节点数
+     */
+    public int getUpCount() {
+        int count = 0;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.isUp()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
@@ -1,20 +1,58 @@
 package cn.emay.socket.client;
 
+import cn.emay.socket.blocking.BlockingChannel;
+import cn.emay.socket.credit.CreditConfig;
+import cn.emay.socket.credit.CreditGrantHandler;
+import cn.emay.socket.credit.CreditHandler;
+import cn.emay.socket.frame.FrameSupport;
+import cn.emay.socket.frame.MuxFrame;
+import cn.emay.socket.heartbeat.HeartbeatConfig;
+import cn.emay.socket.heartbeat.HeartbeatHandler;
+import cn.emay.socket.heartbeat.HeartbeatTimeoutEvent;
+import cn.emay.socket.inbound.*;
+import cn.emay.socket.journal.JournalAckHandler;
+import cn.emay.socket.journal.JournalConfig;
+import cn.emay.socket.journal.JournalRecord;
+import cn.emay.socket.journal.JournalReplayer;
+import cn.emay.socket.journal.OutboundJournal;
+import cn.emay.socket.monitor.EventLoopMonitor;
+import cn.emay.socket.mux.*;
+import cn.emay.socket.outbound.*;
+import cn.emay.socket.pool.MessagePool;
+import cn.emay.socket.serialize.SerializeSupport;
+import cn.emay.socket.serialize.Serializer;
+import cn.emay.socket.stream.StreamInbound;
+import cn.emay.socket.stream.StreamSupport;
+import cn.emay.socket.trace.*;
+import cn.emay.socket.transport.TransportSupport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.ByteToMessageDecoder;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedStream;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ResourceLeakDetector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.InetSocketAddress;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Socket客户端
@@ -46,9 +84,39 @@ public abstract class SocketClient {
     private Bootstrap bootStrap;
 
     /**
-     * 服务端地址
+     * 服务端地址[多个节点时为第一个节点的地址，决定传输方式]
      */
-    private final InetSocketAddress address;
+    private final SocketAddress address;
+
+    /**
+     * 服务端节点
+     */
+    private final List<Endpoint> endpoints = new ArrayList<>();
+
+    /**
+     * 节点选择[启动后创建]
+     */
+    private volatile EndpointPool endpointPool;
+
+    /**
+     * 每个节点的链接池大小[为0不自动建立链接]
+     */
+    private int poolSize = 0;
+
+    /**
+     * 节点恢复后的慢启动时长[毫秒]
+     */
+    private long slowStartMillis = 30000;
+
+    /**
+     * 补齐链接池的间隔[毫秒]
+     */
+    private long reconnectIntervalMillis = 5000;
+
+    /**
+     * 补齐链接池的定时任务
+     */
+    private ScheduledFuture<?> reconnectTask;
 
     /**
      * 读超时时间[默认30秒]
@@ -65,6 +133,126 @@ public abstract class SocketClient {
      */
     private int allIdleTimeSeconds = 30;
 
+    /**
+     * 流式消息分块大小[字节]
+     */
+    private int streamChunkSize = 64 * 1024;
+
+    /**
+     * 发送文件是否允许零拷贝[sendfile]
+     */
+    private boolean fileZeroCopy = true;
+
+    /**
+     * JVM内通道是否直接传递消息对象[不经过encode/decode]
+     */
+    private boolean localPassThrough = false;
+
+    /**
+     * 是否启用框架帧[两端需同时启用]
+     */
+    private boolean framing = false;
+
+    /**
+     * 发送批量合并配置[为null不启用]
+     */
+    private LingerBatch lingerBatch;
+
+    /**
+     * 多路复用配置[为null不启用]
+     */
+    private MuxConfig muxConfig;
+
+    /**
+     * 心跳配置[为null不主动发送心跳]
+     */
+    private HeartbeatConfig heartbeatConfig;
+
+    /**
+     * 流控额度配置[为null不启用]
+     */
+    private CreditConfig creditConfig;
+
+    /**
+     * 业务线程池[为null在IO线程中处理]
+     */
+    private Executor businessExecutor;
+
+    /**
+     * 接收积压上限[为null不限制]
+     */
+    private InboundLimit inboundLimit;
+
+    /**
+     * 接收背压[启动后创建]
+     */
+    private InboundBackpressure backpressure;
+
+    /**
+     * 接收积压统计
+     */
+    private final InboundMetrics inboundMetrics = new InboundMetrics();
+
+    /**
+     * 发送日志配置[为null不启用]
+     */
+    private JournalConfig journalConfig;
+
+    /**
+     * 发送日志[启动后打开]
+     */
+    private volatile OutboundJournal journal;
+
+    /**
+     * 发送日志的重放[启动后创建]
+     */
+    private JournalReplayer replayer;
+
+    /**
+     * 业务线程健康监控[为null不启用]
+     */
+    private EventLoopMonitor eventLoopMonitor;
+
+    /**
+     * 消息耗时跟踪配置[为null不启用]
+     */
+    private TraceConfig traceConfig;
+
+    /**
+     * 消息耗时跟踪[启动后创建]
+     */
+    private volatile Tracer tracer;
+
+    /**
+     * 序列化器[为null使用encode/decode]
+     */
+    private Serializer serializer;
+
+    /**
+     * 序列化消息的最大帧长度[字节]
+     */
+    private int maxFrameLength = SerializeSupport.DEFAULT_MAX_FRAME_LENGTH;
+
+    /**
+     * 注册的消息对象池
+     */
+    private final List<MessagePool<?>> messagePools = new CopyOnWriteArrayList<>();
+
+    /**
+     * 发送队列配置[为null不启用]
+     */
+    private OutboundQueueConfig outboundQueueConfig;
+
+    /**
+     * 每个链接的发送积压上限[为null不限制]
+     */
+    private OutboundLimit outboundLimit;
+
+    /**
+     * 发送队列统计
+     */
+    private final OutboundMetrics outboundMetrics = new OutboundMetrics();
+
     /**
      * 链接等待时间秒[默认30秒]
      */
@@ -76,178 +264,1094 @@ public abstract class SocketClient {
     private final ChannelManager manager;
 
     /**
-     * @param name                  名字
-     * @param address               服务端地址
-     * @param connectWaitTime       链接等待时间[秒]
-     * @param readerIdleTimeSeconds 读超时时间[秒]
-     * @param writerIdleTimeSeconds 写超时时间[秒]
-     * @param allIdleTimeSeconds    全部超时时间[秒]
+     * @param name                  名字
+     * @param address               服务端地址[ip:port；unix:/path使用Unix domain socket(仅Linux)；local:name使用JVM内通道]
+     * @param connectWaitTime       链接等待时间[秒]
+     * @param readerIdleTimeSeconds 读超时时间[秒]
+     * @param writerIdleTimeSeconds 写超时时间[秒]
+     * @param allIdleTimeSeconds    全部超时时间[秒]
+     */
+    public SocketClient(String name, String address, int connectWaitTime, int readerIdleTimeSeconds, int writerIdleTimeSeconds,
+                        int allIdleTimeSeconds) {
+        this(name, Collections.singletonList(address), connectWaitTime, readerIdleTimeSeconds, writerIdleTimeSeconds, allIdleTimeSeconds);
+    }
+
+    /**
+     * @param name                  名字
+     * @param addresses             服务端节点地址[格式同单个地址，所有节点需使用同一种传输方式]
+     * @param connectWaitTime       链接等待时间[秒]
+     * @param readerIdleTimeSeconds 读超时时间[秒]
+     * @param writerIdleTimeSeconds 写超时时间[秒]
+     * @param allIdleTimeSeconds    全部超时时间[秒]
+     */
+    public SocketClient(String name, List<String> addresses, int connectWaitTime, int readerIdleTimeSeconds, int writerIdleTimeSeconds,
+                        int allIdleTimeSeconds) {
+        assertNull(name);
+        if (addresses == null || addresses.isEmpty()) {
+            throw new NullPointerException();
+        }
+        for (String address : addresses) {
+            assertNull(address);
+            SocketAddress endpoint = TransportSupport.parse(address);
+            if (!endpoints.isEmpty() && TransportSupport.channelClass(endpoint) != TransportSupport.channelClass(endpoints.get(0).getAddress())) {
+                throw new IllegalArgumentException("all endpoints must use the same transport : " + addresses);
+            }
+            endpoints.add(new Endpoint(address, endpoint));
+        }
+        this.address = endpoints.get(0).getAddress();
+        this.name = name;
+        this.connectWaitTime = connectWaitTime > 0 ? connectWaitTime * 1000 : this.connectWaitTime;
+        this.readerIdleTimeSeconds = readerIdleTimeSeconds > 0 ? readerIdleTimeSeconds : this.readerIdleTimeSeconds;
+        this.writerIdleTimeSeconds = writerIdleTimeSeconds > 0 ? writerIdleTimeSeconds : this.writerIdleTimeSeconds;
+        this.allIdleTimeSeconds = allIdleTimeSeconds > 0 ? allIdleTimeSeconds : this.allIdleTimeSeconds;
+        this.manager = new ChannelManager();
+        if (logger.isDebugEnabled()) {
+            logger.debug("socket client[" + name + "] inited");
+        }
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.ADVANCED);
+    }
+
+    /**
+     * 检测为空
+     *
+     * @param o 对象
+     */
+    private void assertNull(String o) {
+        if (o == null || o.trim().length() == 0) {
+            throw new NullPointerException();
+        }
+    }
+
+    /**
+     * 启动
+     */
+    public synchronized void startup() {
+        if (isStart) {
+            logger.info("socket client[" + name + "] has start , not need start again");
+            return;
+        }
+        bootStrap = new Bootstrap();
+        backpressure = inboundLimit == null ? null : new InboundBackpressure(inboundLimit, inboundMetrics);
+        tracer = traceConfig == null ? null : new Tracer(name, traceConfig);
+        final Tracer messageTracer = tracer;
+        if (localPassThrough && TransportSupport.isLocal(address) && (creditConfig != null || outboundLimit != null && outboundLimit.isByteLimited())) {
+            throw new IllegalArgumentException("socket client[" + name + "] credit and outbound byte limits need encoded messages, can not work with local pass-through");
+        }
+        if (journalConfig != null) {
+            if (localPassThrough && TransportSupport.isLocal(address)) {
+                throw new IllegalArgumentException("socket client[" + name + "] journal needs encoded messages, can not work with local pass-through");
+            }
+            if (!framing && muxConfig == null && heartbeatConfig == null && creditConfig == null) {
+                throw new IllegalArgumentException("socket client[" + name + "] journal needs acknowledgements, enable framing on both sides");
+            }
+            try {
+                journal = OutboundJournal.open(journalConfig);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("socket client[" + name + "] open journal error", e);
+            }
+            replayer = new JournalReplayer(journal, this::activeChannel, journalConfig);
+        }
+        final JournalReplayer journalReplayer = replayer;
+        workerGroup = TransportSupport.newGroup(address);
+        bootStrap.group(workerGroup);
+        if (eventLoopMonitor != null) {
+            eventLoopMonitor.start(workerGroup);
+        }
+        bootStrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectWaitTime);
+        bootStrap.channel(TransportSupport.channelClass(address));
+        if (outboundLimit != null && outboundLimit.getHighWaterMark() > 0) {
+            bootStrap.option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(outboundLimit.getLowWaterMark(), outboundLimit.getHighWaterMark()));
+        }
+        final OutboundQueueConfig queueConfig = outboundQueueConfig == null && outboundLimit != null ? new OutboundQueueConfig() : outboundQueueConfig;
+        bootStrap.handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                if (eventLoopMonitor != null) {
+                    eventLoopMonitor.register(ch);
+                }
+                ch.pipeline().addLast("IdleStateHandler", new IdleStateHandler(readerIdleTimeSeconds, writerIdleTimeSeconds, allIdleTimeSeconds));
+                ch.pipeline().addLast("ConnectHandler", new ConnectHandler());
+                if (messageTracer != null) {
+                    ch.pipeline().addLast("TraceReadHandler", new TraceReadHandler(messageTracer));
+                }
+                if (framing || muxConfig != null || heartbeatConfig != null || creditConfig != null) {
+                    FrameSupport.addFrameCodec(ch.pipeline(), FrameSupport.DEFAULT_MAX_FRAME_LENGTH);
+                    ch.pipeline().addLast("HeartbeatHandler", new HeartbeatHandler(heartbeatConfig));
+                    if (journalReplayer != null) {
+                        ch.pipeline().addLast("JournalAckHandler", new JournalAckHandler(journalReplayer::acknowledged));
+                    }
+                }
+                if (lingerBatch != null) {
+                    ch.pipeline().addLast("LingerBatchHandler", new LingerBatchHandler(lingerBatch, creditConfig == null));
+                }
+                if (creditConfig != null) {
+                    ch.pipeline().addLast("CreditHandler", new CreditHandler(creditConfig));
+                }
+                if (muxConfig != null) {
+                    ch.pipeline().addLast("MuxHandler", new MuxHandler(muxConfig, new MuxCallback(), true, businessExecutor));
+                }
+                if (queueConfig != null) {
+                    ch.pipeline().addLast("OutboundQueueHandler", new OutboundQueueHandler(queueConfig, outboundLimit, outboundMetrics));
+                }
+                ch.pipeline().addLast("EncodeHandler", new EncodeHandler());
+                ch.pipeline().addLast("DecodeHandler", new DecodeHandler());
+                ch.pipeline().addLast("BusinessHandler", new BusinessHandler());
+            }
+        });
+        endpointPool = new EndpointPool(endpoints, poolSize, slowStartMillis);
+        if (poolSize > 0) {
+            for (Endpoint endpoint : endpoints) {
+                for (int i = 0; i < poolSize; i++) {
+                    ChannelFuture future = connectAsync(endpoint).awaitUninterruptibly();
+                    if (future.isSuccess()) {
+                        register(endpoint, future.channel());
+                    }
+                }
+            }
+            reconnectTask = workerGroup.scheduleWithFixedDelay(this::fillPools, reconnectIntervalMillis, reconnectIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("socket client[" + name + "] start success");
+        }
+        isStart = true;
+    }
+
+    /**
+     * 向节点建立一个链接
+     *
+     * @param endpoint 节点
+     * @return 链接结果
+     */
+    private ChannelFuture connectAsync(Endpoint endpoint) {
+        endpoint.connecting.incrementAndGet();
+        return bootStrap.connect(endpoint.getAddress()).addListener((ChannelFutureListener) future -> {
+            endpoint.connecting.decrementAndGet();
+            if (!future.isSuccess()) {
+                endpoint.onConnectFailed();
+                logger.warn("socket client[" + name + "] connect to " + endpoint.getName() + " error : " + future.cause());
+                return;
+            }
+            register(endpoint, future.channel());
+        });
+    }
+
+    /**
+     * 登记节点上建立的链接[可重复调用]
+     *
+     * @param endpoint 节点
+     * @param channel  链接
+     */
+    private void register(Endpoint endpoint, Channel channel) {
+        if (!endpoint.onConnected(channel, System.currentTimeMillis())) {
+            return;
+        }
+        manager.addChannel(channel.id(), channel);
+        channel.closeFuture().addListener((ChannelFutureListener) closed -> {
+            endpoint.onClosed(channel);
+            manager.removeAndCloseChannel(channel.id());
+            if (replayer != null) {
+                replayer.closed(channel);
+                replayer.replay();
+            }
+        });
+        if (replayer != null) {
+            replayer.replay();
+        }
+    }
+
+    /**
+     * 选择一个活动链接
+     *
+     * @return 链接[没有活动链接为null]
+     */
+    private Channel activeChannel() {
+        Channel channel = manager.getChannel(selectChannel());
+        if (channel != null && channel.isActive()) {
+            return channel;
+        }
+        for (ChannelId channelId : manager.getAllChannelId()) {
+            channel = manager.getChannel(channelId);
+            if (channel != null && channel.isActive()) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 补齐各节点的链接池[不可用的节点在此重连，恢复后慢启动]
+     */
+    private void fillPools() {
+        for (Endpoint endpoint : endpoints) {
+            int missing = poolSize - endpoint.getConnectionCount() - endpoint.connecting.get();
+            for (int i = 0; i < missing; i++) {
+                connectAsync(endpoint);
+            }
+        }
+    }
+
+    /**
+     * 关闭
+     */
+    public synchronized void shutdown() {
+        if (!isStart) {
+            logger.info("socket client[" + name + "] has stop, not need stop again");
+            return;
+        }
+        if (reconnectTask != null) {
+            reconnectTask.cancel(false);
+            reconnectTask = null;
+        }
+        manager.removeAndCloseAll();
+        if (eventLoopMonitor != null) {
+            eventLoopMonitor.stop();
+        }
+        workerGroup.shutdownGracefully();
+        if (journal != null) {
+            journal.close();
+            journal = null;
+            replayer = null;
+        }
+        reportMessagePools();
+        if (logger.isDebugEnabled()) {
+            logger.debug("socket client[" + name + "] stoped");
+        }
+        isStart = false;
+    }
+
+    /**
+     * 新建一个连接
+     * <p>
+     * 多个节点时优先选择可用节点，链接失败依次尝试其他节点
+     *
+     * @return 链接ID
+     * @throws IllegalArgumentException 链接失败报错
+     */
+    public synchronized ChannelId connect() {
+        if (!isStart) {
+            throw new IllegalArgumentException("socketclient[" + name + "]  is stopped");
+        }
+        ChannelFuture syncresult = null;
+        for (Endpoint endpoint : endpointPool.connectOrder()) {
+            syncresult = connectAsync(endpoint).awaitUninterruptibly();
+            if (syncresult.isSuccess()) {
+                // 等待返回时链接结果的回调可能尚未执行
+                register(endpoint, syncresult.channel());
+                return syncresult.channel().id();
+            }
+        }
+        throw new IllegalArgumentException("socketclient[" + name + "] connect error", syncresult == null ? null : syncresult.cause());
+    }
+
+    /**
+     * 新建一个阻塞式链接
+     * <p>
+     * 之后收到的消息进入链接的接收队列，以receive()/request()按顺序取出，不再调用businessHandle；
+     * 在connect返回前已收到的消息仍交给businessHandle
+     *
+     * @return 阻塞式链接
+     * @throws IllegalArgumentException 链接失败报错
+     */
+    public BlockingChannel connectBlocking() {
+        return openBlocking(connect());
+    }
+
+    /**
+     * 将已有链接改为阻塞式[之后收到的消息进入接收队列，不再调用businessHandle]
+     *
+     * @param channelId 链接ID
+     * @return 阻塞式链接
+     * @throws IllegalArgumentException 链接不存在
+     */
+    public BlockingChannel openBlocking(ChannelId channelId) {
+        return openBlocking(channelId, BlockingChannel.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 将已有链接改为阻塞式[之后收到的消息进入接收队列，不再调用businessHandle]
+     *
+     * @param channelId 链接ID
+     * @param capacity  接收队列容量[积压达到容量时暂停读取该链接]
+     * @return 阻塞式链接
+     * @throws IllegalArgumentException 链接不存在
+     */
+    public BlockingChannel openBlocking(ChannelId channelId, int capacity) {
+        Channel channel = manager.getChannel(channelId);
+        if (channel == null) {
+            throw new IllegalArgumentException("channel is not found");
+        }
+        return BlockingChannel.attach(channel, message -> sendMessageAsync(channelId, message), capacity);
+    }
+
+    /**
+     * 按节点健康度、延迟和慢启动选择一个链接
+     *
+     * @return 链接ID[没有可用节点为null]
+     */
+    public ChannelId selectChannel() {
+        EndpointPool pool = endpointPool;
+        Channel channel = pool == null ? null : pool.select();
+        return channel == null ? null : channel.id();
+    }
+
+    /**
+     * 推送消息到任一可用节点
+     * <p>
+     * 按selectChannel()选择链接，选中的链接已断开时改选其他节点
+     *
+     * @param message      消息
+     * @param isWaitSendOk 是否确保消息已经推送出去
+     * @return 是否发送成功
+     */
+    public boolean sendBalanced(Object message, boolean isWaitSendOk) {
+        for (int i = 0; i <= endpoints.size(); i++) {
+            ChannelId channelId = selectChannel();
+            if (channelId == null) {
+                break;
+            }
+            Channel channel = manager.getChannel(channelId);
+            if (channel != null && channel.isActive()) {
+                return sendMessage(channelId, message, isWaitSendOk);
+            }
+        }
+        if (journal != null) {
+            return appendJournal(message);
+        }
+        logger.error("socket client[" + name + "] no endpoint is available");
+        return false;
+    }
+
+    /**
+     * 关闭一个连接
+     *
+     * @param channelId 链接ID
+     */
+    public synchronized void disconnect(ChannelId channelId) {
+        if (!isStart) {
+            logger.info("socketclient[" + name + "]  is stopped");
+            return;
+        }
+        if (channelId == null) {
+            return;
+        }
+        Channel channel = manager.getChannel(channelId);
+        if (channel == null) {
+            return;
+        }
+        manager.removeAndCloseChannel(channelId);
+    }
+
+    /**
+     * 推送消息,不等待消息真正发出去
+     *
+     * @param channelId 链接ID
+     * @param message   消息
+     * @return 是否发送成功
+     */
+    public boolean sendMessage(ChannelId channelId, Object message) {
+        return sendMessage(channelId, message, false);
+    }
+
+    /**
+     * 推送消息
+     *
+     * @param channelId    链接ID
+     * @param message      消息
+     * @param isWaitSendOk 是否确保消息已经推送出去
+     * @return 是否发送成功
+     */
+    public boolean sendMessage(ChannelId channelId, Object message, boolean isWaitSendOk) {
+        return sendMessage(channelId, message, MessagePriority.NORMAL, 0, isWaitSendOk);
+    }
+
+    /**
+     * 推送消息
+     *
+     * @param channelId     链接ID
+     * @param message       消息
+     * @param priority      优先级[未启用发送队列时忽略]
+     * @param timeoutMillis 超过多少毫秒未写出则丢弃[小于等于0不过期，未启用发送队列时忽略]
+     * @param isWaitSendOk  是否确保消息已经推送出去
+     * @return 是否发送成功[启用发送日志时，写入日志即为成功]
+     */
+    public boolean sendMessage(ChannelId channelId, Object message, MessagePriority priority, long timeoutMillis, boolean isWaitSendOk) {
+        if (!isStart) {
+            throw new IllegalArgumentException("channel is not start");
+        }
+        Channel channel = manager.getChannel(channelId);
+        OutboundJournal journal = this.journal;
+        // 日志中还有未确认的消息时，新消息排在其后，保持顺序
+        if (journal != null && (channel == null || !channel.isActive() || journal.hasPending())) {
+            return appendJournal(message);
+        }
+        if (channel == null) {
+            throw new IllegalArgumentException("channel is not found");
+        }
+        if (!channel.isActive()) {
+            throw new IllegalArgumentException("channel is stopped");
+        }
+        if (isOutboundFull(channel)) {
+            logger.error("socket client[" + name + "] ,channelId[" + channelId + "] outbound buffer is full");
+            return false;
+        }
+        CreditHandler credit = creditConfig == null ? null : CreditHandler.of(channel);
+        if (credit != null && !credit.acquire()) {
+            logger.error("socket client[" + name + "] ,channelId[" + channelId + "] no credit from server");
+            return false;
+        }
+        MessageTrace trace = tracer == null ? null : MessageTrace.current();
+        Object traced = trace == null ? message : new TracedMessage(message, trace);
+        Object outbound = outboundQueueConfig == null ? traced : OutboundMessage.wrap(traced, priority, timeoutMillis);
+        ChannelFuture result0 = channel.writeAndFlush(outbound);
+        if (credit != null) {
+            credit.releaseOnComplete(result0);
+        }
+        if (trace != null) {
+            trace.track(result0);
+        }
+
+        if (isWaitSendOk) {
+            result0 = result0.awaitUninterruptibly();
+            if (result0.isSuccess()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("socket client[" + name + "] ,channelId[" + channelId + "] send message ok");
+                }
+                return true;
+            } else {
+                logger.error("socket client[" + name + "] ,channelId[" + channelId + "] send message error", result0.cause());
+                return false;
+            }
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * 推送消息,返回该消息的发送结果
+     * <p>
+     * 启用发送批量合并时，结果在消息所在的批次写出后通知
+     *
+     * @param channelId 链接ID
+     * @param message   消息
+     * @return 发送结果
+     * @throws IllegalArgumentException 链接不存在或已关闭
+     */
+    public ChannelFuture sendMessageAsync(ChannelId channelId, Object message) {
+        if (!isStart) {
+            throw new IllegalArgumentException("channel is not start");
+        }
+        Channel channel = manager.getChannel(channelId);
+        if (channel == null) {
+            throw new IllegalArgumentException("channel is not found");
+        }
+        if (message == null) {
+            return channel.newFailedFuture(new NullPointerException("message is null"));
+        }
+        if (isOutboundFull(channel)) {
+            return channel.newFailedFuture(new RejectedExecutionException("outbound buffer is full"));
+        }
+        CreditHandler credit = creditConfig == null ? null : CreditHandler.of(channel);
+        if (credit != null && !credit.acquire()) {
+            return channel.newFailedFuture(new RejectedExecutionException("no credit from server"));
+        }
+        MessageTrace trace = tracer == null ? null : MessageTrace.current();
+        ChannelFuture future = channel.writeAndFlush(trace == null ? message : new TracedMessage(message, trace));
+        if (credit != null) {
+            credit.releaseOnComplete(future);
+        }
+        if (trace != null) {
+            trace.track(future);
+        }
+        return future;
+    }
+
+    /**
+     * 推送流式消息
+     * <p>
+     * 消息头由encode编码，消息体按分块大小读取后直接写出，不经过encode，且只在链接可写时读取下一块，内存占用以分块大小为界
+     *
+     * @param channelId    链接ID
+     * @param head         消息头[需自行在编码中写入消息体长度]
+     * @param body         消息体[发送完毕后关闭]
+     * @param isWaitSendOk 是否确保消息已经推送出去
+     * @return 是否发送成功
+     */
+    public boolean sendStream(ChannelId channelId, Object head, InputStream body, boolean isWaitSendOk) {
+        if (body == null) {
+            throw new IllegalArgumentException("stream body is null");
+        }
+        return sendStream(channelId, head, new ChunkedStream(body, streamChunkSize), isWaitSendOk);
+    }
+
+    /**
+     * 推送流式消息
+     *
+     * @param channelId    链接ID
+     * @param head         消息头[需自行在编码中写入消息体长度]
+     * @param body         消息体
+     * @param isWaitSendOk 是否确保消息已经推送出去
+     * @return 是否发送成功
+     */
+    public boolean sendStream(ChannelId channelId, Object head, ChunkedInput<ByteBuf> body, boolean isWaitSendOk) {
+        if (!isStart) {
+            throw new IllegalArgumentException("channel is not start");
+        }
+        if (head == null || body == null) {
+            throw new IllegalArgumentException("stream head or body is null");
+        }
+        Channel channel = manager.getChannel(channelId);
+        if (channel == null) {
+            throw new IllegalArgumentException("channel is not found");
+        }
+        if (!channel.isActive()) {
+            throw new IllegalArgumentException("channel is stopped");
+        }
+        StreamSupport.ensureChunkedWriteHandler(channel.pipeline());
+        channel.write(head);
+        ChannelFuture result0 = channel.writeAndFlush(body);
+        if (isWaitSendOk) {
+            result0 = result0.awaitUninterruptibly();
+            if (result0.isSuccess()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("socket client[" + name + "] ,channelId[" + channelId + "] send stream ok");
+                }
+                return true;
+            } else {
+                logger.error("socket client[" + name + "] ,channelId[" + channelId + "] send stream error", result0.cause());
+                return false;
+            }
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * 推送文件
+     * <p>
+     * 普通TCP链接使用FileRegion零拷贝(sendfile)，处理链中有需要读取字节的处理器时使用内存映射分块发送，均不经过encode；
+     * 返回的future可添加ChannelProgressiveFutureListener获取进度
+     *
+     * @param channelId 链接ID
+     * @param file      文件
+     * @param offset    开始位置
+     * @param length    长度[小于0表示到文件末尾]
+     * @return 发送结果[未启动、文件为null、链接已断开或打开文件失败时为失败的结果]
+     * @throws IllegalArgumentException 链接不存在
+     */
+    public ChannelProgressiveFuture sendFile(ChannelId channelId, Path file, long offset, long length) {
+        return sendFile(channelId, null, file, offset, length);
+    }
+
+    /**
+     * 推送文件
+     *
+     * @param channelId 链接ID
+     * @param head      消息头[可为null，需自行在编码中写入文件长度]
+     * @param file      文件
+     * @param offset    开始位置
+     * @param length    长度[小于0表示到文件末尾]
+     * @return 发送结果[未启动、文件为null、链接已断开或打开文件失败时为失败的结果]
+     * @throws IllegalArgumentException 链接不存在
+     */
+    public ChannelProgressiveFuture sendFile(ChannelId channelId, Object head, Path file, long offset, long length) {
+        Channel channel = manager.getChannel(channelId);
+        if (channel == null) {
+            throw new IllegalArgumentException("socket client[" + name + "] ,channelId[" + channelId + "] is not found");
+        }
+        ChannelProgressivePromise promise = channel.newProgressivePromise();
+        if (!isStart) {
+            return promise.setFailure(new IllegalStateException("socket client[" + name + "] is stopped"));
+        }
+        if (file == null) {
+            return promise.setFailure(new NullPointerException("file is null"));
+        }
+        if (!channel.isActive()) {
+            return promise.setFailure(new IllegalStateException("socket client[" + name + "] ,channelId[" + channelId + "] is stopped"));
+        }
+        Object region;
+        try {
+            region = StreamSupport.openFile(channel, file, offset, length, streamChunkSize, fileZeroCopy);
+        } catch (Exception e) {
+            logger.error("socket client[" + name + "] ,channelId[" + channelId + "] open file " + file + " error", e);
+            return promise.setFailure(e);
+        }
+        if (head != null) {
+            channel.write(head);
+        }
+        channel.writeAndFlush(region, promise);
+        return promise;
+    }
+
+    /**
+     * 启用按优先级调度的发送队列[启动前设置]
+     * <p>
+     * 启用后发送消息可指定优先级和截止时间，高优先级消息不再排在大量普通数据之后
+     *
+     * @param outboundQueueConfig 发送队列配置[为null不启用]
+     */
+    public void setOutboundQueue(OutboundQueueConfig outboundQueueConfig) {
+        this.outboundQueueConfig = outboundQueueConfig;
+    }
+
+    /**
+     * 启用框架帧[启动前设置，两端需同时启用]
+     * <p>
+     * 链接上的数据按帧传输，一个帧可以承载一批消息，接收端解开帧后交给decode，业务编解码不变；启用后发送文件不再使用零拷贝
+     *
+     * @param framing 是否启用
+     */
+    public void setFraming(boolean framing) {
+        this.framing = framing;
+    }
+
+    /**
+     * 是否启用框架帧
+     *
+     * @return 是否启用
+     */
+    public boolean isFraming() {
+        return framing;
+    }
+
+    /**
+     * 启用发送批量合并[启动前设置]
+     * <p>
+     * 小消息在链接上积攒到linger时间结束或达到批量上限后合并为一次写出，以少量延迟换取吞吐；
+     * 同时启用框架帧时一批消息封装为一个帧，服务端需同样启用框架帧
+     *
+     * @param lingerBatch 批量合并配置[为null不启用]
+     */
+    public void setLingerBatch(LingerBatch lingerBatch) {
+        this.lingerBatch = lingerBatch;
+    }
+
+    /**
+     * 启用逻辑流多路复用[启动前设置，两端需同时启用，自动启用框架帧]
+     * <p>
+     * 一个链接上可同时打开多个流，每个流独立解码、按序交付、独立流控，一个流的大消息或慢处理不阻塞其他流；
+     * 流上的消息不支持流式接收(StreamBegin)
+     *
+     * @param muxConfig 多路复用配置[为null不启用]
+     */
+    public void setMux(MuxConfig muxConfig) {
+        this.muxConfig = muxConfig;
+    }
+
+    /**
+     * 设置每个节点的链接池大小[启动前设置，默认0]
+     * <p>
+     * 大于0时启动即向每个节点建立链接，并定时补齐断开的链接，配合sendBalanced()使用
+     *
+     * @param poolSize 链接池大小
+     */
+    public void setPoolSize(int poolSize) {
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("pool size must not be negative");
+        }
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * 设置节点恢复后的慢启动时长[启动前设置，默认30000毫秒，为0不慢启动]
+     *
+     * @param slowStartMillis 慢启动时长[毫秒]
+     */
+    public void setSlowStartMillis(long slowStartMillis) {
+        if (slowStartMillis < 0) {
+            throw new IllegalArgumentException("slow start must not be negative");
+        }
+        this.slowStartMillis = slowStartMillis;
+    }
+
+    /**
+     * 设置补齐链接池的间隔[启动前设置，默认5000毫秒]
+     *
+     * @param reconnectIntervalMillis 间隔[毫秒]
+     */
+    public void setReconnectIntervalMillis(long reconnectIntervalMillis) {
+        if (reconnectIntervalMillis <= 0) {
+            throw new IllegalArgumentException("reconnect interval must be positive");
+        }
+        this.reconnectIntervalMillis = reconnectIntervalMillis;
+    }
+
+    /**
+     * 获取节点状态[启动后可用]
+     *
+     * @return 节点选择
+     */
+    public EndpointPool getEndpointPool() {
+        return endpointPool;
+    }
+
+    /**
+     * 启用心跳[启动前设置，自动启用框架帧，服务端需启用框架帧]
+     * <p>
+     * 框架按间隔发送PING并测量每个链接的RTT，连续多个PING未收到PONG时调用heartbeatTimeoutHandle并断开链接；
+     * 心跳对encode/decode透明，RTT可用于ChannelManager.fastestChannel()选择链接
+     *
+     * @param heartbeatConfig 心跳配置[为null不主动发送心跳，启用框架帧时仍回复对端的心跳]
+     */
+    public void setHeartbeat(HeartbeatConfig heartbeatConfig) {
+        this.heartbeatConfig = heartbeatConfig;
+    }
+
+    /**
+     * 启用基于额度的流控[启动前设置，服务端需同时启用，自动启用框架帧]
+     * <p>
+     * 只在服务端发放的额度内发送，额度用完时按策略等待、失败或排队，服务端处理慢时发送方被限速而不是服务端无限积压；
+     * 收到服务端的初始额度前没有额度
+     *
+     * @param creditConfig 流控配置[为null不启用]
+     */
+    public void setCredit(CreditConfig creditConfig) {
+        this.creditConfig = creditConfig;
+    }
+
+    /**
+     * 获取链接的平滑RTT[启用心跳]
+     *
+     * @param channelId 链接ID
+     * @return RTT[微秒，未启用心跳、链接不存在或没有样本为-1]
+     */
+    public long getRttMicros(ChannelId channelId) {
+        Channel channel = manager.getChannel(channelId);
+        HeartbeatHandler handler = channel == null ? null : HeartbeatHandler.of(channel);
+        return handler == null ? -1 : handler.getRttMicros();
+    }
+
+    /**
+     * 在链接上打开一个流
+     *
+     * @param channelId 链接ID
+     * @return 流
+     * @throws IllegalArgumentException 链接不存在或已关闭
+     * @throws IllegalStateException    未启用多路复用或流数量超过上限
+     */
+    public MuxStream openStream(ChannelId channelId) {
+        Channel channel = manager.getChannel(channelId);
+        if (channel == null || !channel.isActive()) {
+            throw new IllegalArgumentException("channel is not found or stopped");
+        }
+        MuxHandler handler = MuxHandler.of(channel);
+        if (handler == null) {
+            throw new IllegalStateException("socket client[" + name + "] mux is not enabled");
+        }
+        return handler.openStream();
+    }
+
+    /**
+     * 向流推送消息
+     *
+     * @param stream       流
+     * @param message      消息
+     * @param isWaitSendOk 是否确保消息已经推送出去
+     * @return 是否发送成功
+     */
+    public boolean sendMessage(MuxStream stream, Object message, boolean isWaitSendOk) {
+        if (message == null) {
+            logger.error("message is null");
+            return false;
+        }
+        if (!stream.isOpen()) {
+            logger.error("socket client[" + name + "] ,stream[" + stream.getId() + "] is closed");
+            return false;
+        }
+        ChannelFuture result0 = stream.write(message);
+        if (!isWaitSendOk) {
+            return true;
+        }
+        result0 = result0.awaitUninterruptibly();
+        if (!result0.isSuccess()) {
+            logger.error("socket client[" + name + "] ,stream[" + stream.getId() + "] send message error", result0.cause());
+        }
+        return result0.isSuccess();
+    }
+
+    /**
+     * 设置每个链接的发送积压上限[启动前设置]
+     * <p>
+     * 对端不读取数据时，积压超过上限的消息按策略拒绝或挤掉最早的消息，DISCONNECT策略下链接持续不可写超时后断开
+     *
+     * @param outboundLimit 发送积压上限[为null不限制]
+     */
+    public void setOutboundLimit(OutboundLimit outboundLimit) {
+        this.outboundLimit = outboundLimit;
+    }
+
+    /**
+     * 获取发送队列统计
+     *
+     * @return 发送队列统计
+     */
+    public OutboundMetrics getOutboundMetrics() {
+        return outboundMetrics;
+    }
+
+    /**
+     * 设置发送日志[启动前设置]
+     * <p>
+     * 启用后，链接不存在或已断开时sendMessage不再报错，消息编码后写入内存映射的日志文件，链接恢复后按顺序以发送日志帧重放，
+     * 服务端业务处理完成后回复确认，收到确认后才推进确认位置[至少一次，断线或进程重启后重放未确认的消息，服务端可能收到重复消息]。
+     * 需要两端启用框架帧。写入日志的消息在链接之外编码，encode收到的ctx为null
+     *
+     * @param journalConfig 发送日志配置[为null不启用]
+     */
+    public void setJournal(JournalConfig journalConfig) {
+        this.journalConfig = journalConfig;
+    }
+
+    /**
+     * 获取发送日志
+     *
+     * @return 发送日志[未启用或未启动为null]
+     */
+    public OutboundJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 编码消息并写入发送日志，随后尝试重放
+     *
+     * @param message 消息
+     * @return 是否写入成功
+     */
+    private boolean appendJournal(Object message) {
+        ByteBuf encoded = null;
+        try {
+            encoded = encodeDetached(message);
+            journal.append(encoded);
+        } catch (Exception e) {
+            logger.error("socket client[" + name + "] write journal error", e);
+            return false;
+        } finally {
+            ReferenceCountUtil.release(encoded);
+        }
+        replayer.replay();
+        return true;
+    }
+
+    /**
+     * 在链接之外编码消息[ctx为null，编码后释放消息]
+     *
+     * @param message 消息
+     * @return 编码后的消息
+     */
+    private ByteBuf encodeDetached(Object message) throws Exception {
+        try {
+            if (serializer != null) {
+                return SerializeSupport.encode(ByteBufAllocator.DEFAULT, serializer, message);
+            }
+            List<Object> segments = new ArrayList<>(4);
+            try {
+                encode(null, message, segments);
+            } catch (Exception e) {
+                SegmentSupport.release(segments);
+                throw e;
+            }
+            return SegmentSupport.compose(ByteBufAllocator.DEFAULT, segments);
+        } finally {
+            ReferenceCountUtil.release(message);
+        }
+    }
+
+    /**
+     * 启用IO线程健康监控[启动前设置]
+     * <p>
+     * 监控每个IO线程的调度延迟、待执行任务数和链接数，卡顿超过阈值时把IO线程的线程栈写入日志
+     *
+     * @param eventLoopMonitor 监控[为null不启用]
+     */
+    public void setEventLoopMonitor(EventLoopMonitor eventLoopMonitor) {
+        this.eventLoopMonitor = eventLoopMonitor;
+    }
+
+    /**
+     * 获取IO线程健康监控
+     *
+     * @return 监控[未启用为null]
+     */
+    public EventLoopMonitor getEventLoopMonitor() {
+        return eventLoopMonitor;
+    }
+
+    /**
+     * 启用消息耗时跟踪[启动前设置]
+     * <p>
+     * 抽中的消息记录读取、解码、业务开始与结束、业务中发送的消息编码与写出的时间，超过阈值时写入慢消息日志；
+     * 业务中通过sendMessage发送的消息计入跟踪
+     *
+     * @param traceConfig 跟踪配置[为null不启用]
+     */
+    public void setTrace(TraceConfig traceConfig) {
+        this.traceConfig = traceConfig;
+    }
+
+    /**
+     * 获取消息耗时跟踪
+     *
+     * @return 跟踪[未启用或未启动为null]
+     */
+    public Tracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * 设置业务线程池[启动前设置]
+     * <p>
+     * 设置后解码出的消息交给线程池处理，IO线程不被业务阻塞；同一个链接的消息仍按接收顺序串行处理。
+     * 逻辑流的消息按流内顺序串行处理，由流的窗口限制积压[处理完成后才归还窗口]，不计入接收积压
+     *
+     * @param businessExecutor 业务线程池[为null在IO线程中处理]
+     */
+    public void setBusinessExecutor(Executor businessExecutor) {
+        this.businessExecutor = businessExecutor;
+    }
+
+    /**
+     * 设置接收积压上限[启动前设置，配合业务线程池使用]
+     * <p>
+     * 交给业务线程池未处理完的消息超过高水位时暂停读取链接[或整个IO线程上的链接]，降到低水位时恢复，
+     * 由TCP流控使对端放慢发送，内存不随对端发送速度无限增长；同时启用流控额度时积压高于低水位期间暂缓归还额度
+     *
+     * @param inboundLimit 接收积压上限[为null不限制]
+     */
+    public void setInboundLimit(InboundLimit inboundLimit) {
+        this.inboundLimit = inboundLimit;
+    }
+
+    /**
+     * 获取接收积压统计
+     *
+     * @return 接收积压统计
+     */
+    public InboundMetrics getInboundMetrics() {
+        return inboundMetrics;
+    }
+
+    /**
+     * 链接的发送积压是否已满[挤掉最早消息的策略总是可以发送]
+     *
+     * @param channel 链接
+     * @return 是否已满
+     */
+    private boolean isOutboundFull(Channel channel) {
+        if (outboundLimit == null || outboundLimit.getPolicy() == OverflowPolicy.DROP_OLDEST) {
+            return false;
+        }
+        OutboundQueueHandler queue = OutboundQueueHandler.of(channel);
+        return queue != null && queue.isOverLimit();
+    }
+
+    /**
+     * 设置序列化器[启动前设置]
+     * <p>
+     * 设置后消息按4字节长度+序列化数据分帧，由序列化器直接读写ByteBuf，不再调用encode/decode
+     *
+     * @param serializer 序列化器[为null使用encode/decode]
+     */
+    public void setSerializer(Serializer serializer) {
+        setSerializer(serializer, SerializeSupport.DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * 设置序列化器[启动前设置]
+     *
+     * @param serializer     序列化器[为null使用encode/decode]
+     * @param maxFrameLength 最大帧长度[字节，超过时断开链接]
      */
-    public SocketClient(String name, String address, int connectWaitTime, int readerIdleTimeSeconds, int writerIdleTimeSeconds,
-                        int allIdleTimeSeconds) {
-        assertNull(address);
-        assertNull(name);
-        String[] addrs = address.split(":");
-        if (addrs.length != 2) {
-            throw new IllegalArgumentException("address is not be ip:port  ");
-        }
-        this.address = new InetSocketAddress(addrs[0], Integer.parseInt(addrs[1]));
-        this.name = name;
-        this.connectWaitTime = connectWaitTime > 0 ? connectWaitTime * 1000 : this.connectWaitTime;
-        this.readerIdleTimeSeconds = readerIdleTimeSeconds > 0 ? readerIdleTimeSeconds : this.readerIdleTimeSeconds;
-        this.writerIdleTimeSeconds = writerIdleTimeSeconds > 0 ? writerIdleTimeSeconds : this.writerIdleTimeSeconds;
-        this.allIdleTimeSeconds = allIdleTimeSeconds > 0 ? allIdleTimeSeconds : this.allIdleTimeSeconds;
-        this.manager = new ChannelManager();
-        if (logger.isDebugEnabled()) {
-            logger.debug("socket client[" + name + "] inited");
+    public void setSerializer(Serializer serializer, int maxFrameLength) {
+        if (maxFrameLength <= 0) {
+            throw new IllegalArgumentException("max frame length must be positive");
         }
-        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.ADVANCED);
+        this.serializer = serializer;
+        this.maxFrameLength = maxFrameLength;
     }
 
     /**
-     * 检测为空
+     * 获取序列化器
      *
-     * @param o 对象
+     * @return 序列化器
      */
-    private void assertNull(String o) {
-        if (o == null || o.trim().length() == 0) {
-            throw new NullPointerException();
-        }
+    public Serializer getSerializer() {
+        return serializer;
     }
 
     /**
-     * 启动
+     * 注册消息对象池
+     * <p>
+     * 解码时从池中获取的消息在业务处理结束后自动回收；关闭时检查调试模式的池是否有未回收的消息
+     *
+     * @param pool 消息对象池
      */
-    public synchronized void startup() {
-        if (isStart) {
-            logger.info("socket client[" + name + "] has start , not need start again");
-            return;
-        }
-        bootStrap = new Bootstrap();
-        bootStrap.remoteAddress(address);
-        workerGroup = new NioEventLoopGroup();
-        bootStrap.group(workerGroup);
-        bootStrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectWaitTime);
-        bootStrap.channel(NioSocketChannel.class);
-        bootStrap.handler(new ChannelInitializer<NioSocketChannel>() {
-            @Override
-            protected void initChannel(NioSocketChannel ch) {
-                ch.pipeline().addLast("IdleStateHandler", new IdleStateHandler(readerIdleTimeSeconds, writerIdleTimeSeconds, allIdleTimeSeconds));
-                ch.pipeline().addLast("ConnectHandler", new ConnectHandler());
-                ch.pipeline().addLast("EncodeHandler", new EncodeHandler());
-                ch.pipeline().addLast("DecodeHandler", new DecodeHandler());
-                ch.pipeline().addLast("BusinessHandler", new BusinessHandler());
-            }
-        });
-        if (logger.isDebugEnabled()) {
-            logger.debug("socket client[" + name + "] start success");
+    public void registerMessagePool(MessagePool<?> pool) {
+        if (pool == null) {
+            throw new NullPointerException();
         }
-        isStart = true;
+        messagePools.add(pool);
     }
 
     /**
-     * 关闭
+     * 获取注册的消息对象池
+     *
+     * @return 消息对象池
      */
-    public synchronized void shutdown() {
-        if (!isStart) {
-            logger.info("socket client[" + name + "] has stop, not need stop again");
-            return;
-        }
-        manager.removeAndCloseAll();
-        workerGroup.shutdownGracefully();
-        if (logger.isDebugEnabled()) {
-            logger.debug("socket client[" + name + "] stoped");
-        }
-        isStart = false;
+    public List<MessagePool<?>> getMessagePools() {
+        return messagePools;
     }
 
     /**
-     * 新建一个连接
-     *
-     * @return 链接ID
-     * @throws IllegalArgumentException 链接失败报错
+     * 输出调试模式的池中未回收的消息数
      */
-    public synchronized ChannelId connect() {
-        if (!isStart) {
-            throw new IllegalArgumentException("socketclient[" + name + "]  is stopped");
-        }
-        ChannelFuture channelFuture = bootStrap.connect();
-        ChannelFuture syncresult = channelFuture.awaitUninterruptibly();
-        if (!syncresult.isSuccess()) {
-            throw new IllegalArgumentException("socketclient[" + name + "] connect error", syncresult.cause());
+    private void reportMessagePools() {
+        for (MessagePool<?> pool : messagePools) {
+            if (pool.isDebug() && pool.getOutstanding() > 0) {
+                logger.error("socket client[" + name + "] message pool[" + pool.getName() + "] has " + pool.getOutstanding() + " messages not released");
+            }
         }
-        Channel channel = channelFuture.channel();
-        ChannelId channelId = channel.id();
-        manager.addChannel(channelId, channel);
-        return channelId;
     }
 
     /**
-     * 关闭一个连接
+     * 设置JVM内通道是否直接传递消息对象[启动前设置，仅对local:地址生效]
+     * <p>
+     * 启用后发送的消息不经过encode，对象本身交给对端的处理链，对端的decode只处理字节数据，因此对象直接到达业务处理；
+     * 发送后不可再修改消息对象。流式消息和文件的消息头同样不编码，需要按字节解析消息头时不要启用；
+     * 未编码的对象没有字节大小，启用流控、按字节的发送上限或发送日志时启动会失败
      *
-     * @param channelId 链接ID
+     * @param localPassThrough 是否直接传递消息对象
      */
-    public synchronized void disconnect(ChannelId channelId) {
-        if (!isStart) {
-            logger.info("socketclient[" + name + "]  is stopped");
-            return;
-        }
-        if (channelId == null) {
-            return;
-        }
-        Channel channel = manager.getChannel(channelId);
-        if (channel == null) {
-            return;
-        }
-        manager.removeAndCloseChannel(channelId);
+    public void setLocalPassThrough(boolean localPassThrough) {
+        this.localPassThrough = localPassThrough;
     }
 
     /**
-     * 推送消息,不等待消息真正发出去
+     * 设置发送文件是否允许零拷贝[默认允许，关闭后始终使用内存映射分块发送]
      *
-     * @param channelId 链接ID
-     * @param message   消息
-     * @return 是否发送成功
+     * @param fileZeroCopy 是否允许零拷贝
      */
-    public boolean sendMessage(ChannelId channelId, Object message) {
-        return sendMessage(channelId, message, false);
+    public void setFileZeroCopy(boolean fileZeroCopy) {
+        this.fileZeroCopy = fileZeroCopy;
     }
 
     /**
-     * 推送消息
+     * 设置流式消息分块大小[启动前设置]
      *
-     * @param channelId    链接ID
-     * @param message      消息
-     * @param isWaitSendOk 是否确保消息已经推送出去
-     * @return 是否发送成功
+     * @param streamChunkSize 分块大小[字节]
      */
-    public boolean sendMessage(ChannelId channelId, Object message, boolean isWaitSendOk) {
-        if (!isStart) {
-            throw new IllegalArgumentException("channel is not start");
-        }
-        Channel channel = manager.getChannel(channelId);
-        if (channel == null) {
-            throw new IllegalArgumentException("channel is not found");
-        }
-        if (!channel.isActive()) {
-            throw new IllegalArgumentException("channel is stopped");
+    public void setStreamChunkSize(int streamChunkSize) {
+        if (streamChunkSize <= 0) {
+            throw new IllegalArgumentException("stream chunk size must be positive");
         }
-        ChannelFuture result0 = channel.writeAndFlush(message);
+        this.streamChunkSize = streamChunkSize;
+    }
 
-        if (isWaitSendOk) {
-            result0 = result0.awaitUninterruptibly();
-            if (result0.isSuccess()) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("socket client[" + name + "] ,channelId[" + channelId + "] send message ok");
-                }
-                return true;
-            } else {
-                logger.error("socket client[" + name + "] ,channelId[" + channelId + "] send message error", result0.cause());
-                return false;
-            }
-        } else {
-            return true;
-        }
+    /**
+     * 获取流式消息分块大小
+     *
+     * @return 分块大小[字节]
+     */
+    public int getStreamChunkSize() {
+        return streamChunkSize;
     }
 
     /**
@@ -307,21 +1411,101 @@ public abstract class SocketClient {
      */
     protected abstract void writeIdleHandle(ChannelHandlerContext ctx) throws Exception;
 
+    /**
+     * 慢消费者处理[发送积压超过上限]
+     */
+    protected void slowConsumerHandle(ChannelHandlerContext ctx, SlowConsumerEvent event) throws Exception {
+        logger.warn("socket client[" + name + "] ,channelId[" + ctx.channel().id() + "] is slow consumer : " + event);
+    }
+
+    /**
+     * 心跳超时处理[链接随后被断开]
+     */
+    protected void heartbeatTimeoutHandle(ChannelHandlerContext ctx, HeartbeatTimeoutEvent event) throws Exception {
+        logger.warn("socket client[" + name + "] ,channelId[" + ctx.channel().id() + "] heartbeat timeout : " + event);
+    }
+
     /**
      * 编码
+     * <p>
+     * 覆盖encode(ctx, msg, out)或设置序列化器后不再被调用；三者都没有时抛出UnsupportedOperationException
+     */
+    protected byte[] encode(ChannelHandlerContext ctx, Object msg) throws Exception {
+        throw new UnsupportedOperationException("socket client[" + name + "] override encode(ctx, msg) or encode(ctx, msg, out)");
+    }
+
+    /**
+     * 分段编码
+     * <p>
+     * 默认调用encode(ctx, msg)；覆盖此方法可将消息头、消息体、消息尾分别放入out，框架组装为CompositeByteBuf写出，不拼接复制。
+     * 分段可以是byte[]、ByteBuffer或ByteBuf，ByteBuf由框架释放；消息本身在编码后会被释放，其中的ByteBuf作为分段时放入retainedDuplicate()
+     *
+     * @param ctx 链接
+     * @param msg 消息
+     * @param out 分段列表[只可添加，不可持有]
      */
-    protected abstract byte[] encode(ChannelHandlerContext ctx, Object msg) throws Exception;
+    protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+        byte[] bytes = encode(ctx, msg);
+        if (bytes != null) {
+            out.add(bytes);
+        }
+    }
 
     /**
      * 接收到数据的解码处理
+     * <p>
+     * 如需流式接收大消息，读取完消息头后将StreamBegin作为最后一个对象返回，业务随后依次收到StreamChunk、StreamEnd
+     * <p>
+     * 覆盖decodeHandle(ctx, in, out)或设置序列化器后不再被调用；三者都没有时抛出UnsupportedOperationException
+     */
+    protected List<Object> decodeHandle(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        throw new UnsupportedOperationException("socket client[" + name + "] override decodeHandle(ctx, in) or decodeHandle(ctx, in, out)");
+    }
+
+    /**
+     * 解码[直接输出到处理链]
+     * <p>
+     * 默认调用decodeHandle(ctx, in)并复制其结果；覆盖此方法可将解码出的对象直接放入out，不再为每次读取分配中间List
+     *
+     * @param ctx 链接
+     * @param in  已接收数据
+     * @param out 处理链的输出列表[只可添加，不可持有]
      */
-    protected abstract List<Object> decodeHandle(ChannelHandlerContext ctx, ByteBuf in) throws Exception;
+    protected void decodeHandle(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        List<Object> objs = decodeHandle(ctx, in);
+        if (objs != null) {
+            out.addAll(objs);
+        }
+    }
 
     /**
      * 经过decode以后的业务数据处理器
+     * <p>
+     * PooledMessage在处理结束后自动回收，异步使用需先retain
      */
     protected abstract void businessHandle(ChannelHandlerContext ctx, Object msg) throws Exception;
 
+    /**
+     * 流的业务数据处理器[启用多路复用]
+     * <p>
+     * 默认调用businessHandle(ctx, msg)；同一个流的消息按发送顺序交付
+     */
+    protected void businessHandle(ChannelHandlerContext ctx, MuxStream stream, Object msg) throws Exception {
+        businessHandle(ctx, msg);
+    }
+
+    /**
+     * 流打开[对端打开流]
+     */
+    protected void streamOpenedHandle(ChannelHandlerContext ctx, MuxStream stream) throws Exception {
+    }
+
+    /**
+     * 流关闭[任一端关闭流或链接断开]
+     */
+    protected void streamClosedHandle(ChannelHandlerContext ctx, MuxStream stream) throws Exception {
+    }
+
     /**
      * 链接处理器
      */
@@ -374,6 +1558,10 @@ public abstract class SocketClient {
                     default:
                         break;
                 }
+            } else if (evt instanceof SlowConsumerEvent) {
+                SocketClient.this.slowConsumerHandle(ctx, (SlowConsumerEvent) evt);
+            } else if (evt instanceof HeartbeatTimeoutEvent) {
+                SocketClient.this.heartbeatTimeoutHandle(ctx, (HeartbeatTimeoutEvent) evt);
             }
             super.userEventTriggered(ctx, evt);
         }
@@ -385,14 +1573,92 @@ public abstract class SocketClient {
      */
     class DecodeHandler extends ByteToMessageDecoder {
 
+        /**
+         * 正在接收的流式消息
+         */
+        private StreamInbound stream;
+
+        /**
+         * 是否已解码失败[之后的数据直接丢弃]
+         */
+        private boolean failed;
+
         @Override
         protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-            List<Object> objs = SocketClient.this.decodeHandle(ctx, in);
-            if (objs != null) {
-                out.addAll(objs);
+            if (failed) {
+                in.skipBytes(in.readableBytes());
+                return;
+            }
+            if (stream != null) {
+                if (stream.read(in, out)) {
+                    stream = null;
+                }
+                return;
+            }
+            if (serializer != null) {
+                SerializeSupport.decode(serializer, in, out, maxFrameLength);
+                return;
+            }
+            SocketClient.this.decodeHandle(ctx, in, out);
+            stream = StreamInbound.begin(out, streamChunkSize);
+        }
+
+        @Override
+        protected void decodeLast(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+            super.decodeLast(ctx, in, out);
+            if (stream != null) {
+                out.add(stream.abort());
+                stream = null;
+            }
+        }
+
+        /**
+         * 解码失败后数据已无法分帧，关闭链接，不再积累后续数据
+         */
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            if (!(cause instanceof DecoderException)) {
+                super.exceptionCaught(ctx, cause);
+                return;
+            }
+            if (!failed) {
+                failed = true;
+                logger.error("socket client[" + name + "] ,channelId[" + ctx.channel().id() + "] decode error, close it : " + cause.getMessage());
+                SocketClient.this.exceptionHandle(ctx, cause);
+            }
+            ctx.close();
+        }
+
+    }
+
+    /**
+     * 逻辑流的解码与业务处理
+     */
+    class MuxCallback implements MuxListener {
+
+        @Override
+        public void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+            if (serializer != null) {
+                SerializeSupport.decode(serializer, in, out, maxFrameLength);
+                return;
             }
+            SocketClient.this.decodeHandle(ctx, in, out);
+        }
+
+        @Override
+        public void opened(ChannelHandlerContext ctx, MuxStream stream) throws Exception {
+            SocketClient.this.streamOpenedHandle(ctx, stream);
+        }
+
+        @Override
+        public void message(ChannelHandlerContext ctx, MuxStream stream, Object msg) throws Exception {
+            SocketClient.this.businessHandle(ctx, stream, msg);
         }
 
+        @Override
+        public void closed(ChannelHandlerContext ctx, MuxStream stream) throws Exception {
+            SocketClient.this.streamClosedHandle(ctx, stream);
+        }
     }
 
     /**
@@ -400,9 +1666,106 @@ public abstract class SocketClient {
      */
     class BusinessHandler extends SimpleChannelInboundHandler<Object> {
 
+        /**
+         * 按顺序在业务线程池中处理[未设置业务线程池为null]
+         */
+        private SerialExecutor serial;
+
+        /**
+         * 链接所属的接收积压
+         */
+        private InboundBacklog backlog;
+
+        /**
+         * 读取跟踪[未启用跟踪为null]
+         */
+        private TraceReadHandler traceRead;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            traceRead = TraceReadHandler.of(ctx.channel());
+            if (businessExecutor != null) {
+                serial = new SerialExecutor(businessExecutor);
+                if (backpressure != null) {
+                    backlog = backpressure.register(ctx.channel());
+                    CreditGrantHandler grant = CreditGrantHandler.of(ctx.channel());
+                    if (grant != null) {
+                        grant.setBacklog(backlog);
+                    }
+                }
+            }
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (backlog != null) {
+                backpressure.unregister(ctx.channel(), backlog);
+            }
+            BlockingChannel blocking = BlockingChannel.of(ctx.channel());
+            if (blocking != null) {
+                blocking.closed();
+            }
+            super.channelInactive(ctx);
+        }
+
         @Override
         protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
-            SocketClient.this.businessHandle(ctx, msg);
+            BlockingChannel blocking = BlockingChannel.of(ctx.channel());
+            if (blocking != null) {
+                blocking.offer(ReferenceCountUtil.retain(msg));
+                return;
+            }
+            MessageTrace trace = traceRead == null ? null : traceRead.start(ctx.channel().id().asShortText());
+            if (serial == null) {
+                invoke(ctx, msg, trace);
+                return;
+            }
+            ReferenceCountUtil.retain(msg);
+            if (backlog != null) {
+                backlog.dispatched();
+            }
+            try {
+                serial.execute(() -> process(ctx, msg, trace));
+            } catch (RejectedExecutionException e) {
+                ReferenceCountUtil.release(msg);
+                if (backlog != null) {
+                    backlog.processed();
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 业务处理[抽中的消息记录业务开始和结束]
+         */
+        private void invoke(ChannelHandlerContext ctx, Object msg, MessageTrace trace) throws Exception {
+            if (trace == null) {
+                SocketClient.this.businessHandle(ctx, msg);
+                return;
+            }
+            trace.begin();
+            try {
+                SocketClient.this.businessHandle(ctx, msg);
+            } finally {
+                trace.end();
+            }
+        }
+
+        /**
+         * 在业务线程中处理[异常交给exceptionHandle]
+         */
+        private void process(ChannelHandlerContext ctx, Object msg, MessageTrace trace) {
+            try {
+                invoke(ctx, msg, trace);
+            } catch (Throwable e) {
+                ctx.pipeline().fireExceptionCaught(e);
+            } finally {
+                ReferenceCountUtil.release(msg);
+                if (backlog != null) {
+                    backlog.processed();
+                }
+            }
         }
 
     }
@@ -410,13 +1773,76 @@ public abstract class SocketClient {
     /**
      * 待发数据编码处理器
      */
-    class EncodeHandler extends MessageToByteEncoder<Object> {
+    class EncodeHandler extends MessageToMessageEncoder<Object> {
+
+        /**
+         * 分段编码结果[只在IO线程中使用，复用]
+         */
+        private final List<Object> segments = new ArrayList<>(4);
+
+        @Override
+        public boolean acceptOutboundMessage(Object msg) throws Exception {
+            if (localPassThrough && TransportSupport.isLocal(address)) {
+                return false;
+            }
+            return !(msg instanceof ChunkedInput) && !(msg instanceof FileRegion) && !(msg instanceof MuxFrame) && super.acceptOutboundMessage(msg);
+        }
 
         @Override
-        protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) throws Exception {
-            byte[] bytes = SocketClient.this.encode(ctx, msg);
-            if (bytes != null) {
-                out.writeBytes(bytes);
+        protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+            if (msg instanceof JournalRecord) {
+                // 已编码，由帧编码封装为带序号的发送日志帧
+                out.add(((JournalRecord) msg).retain());
+                return;
+            }
+            if (msg instanceof OutboundMessage) {
+                OutboundMessage message = (OutboundMessage) msg;
+                try {
+                    out.add(message.replace(encodeStream(ctx, message.getMessage())));
+                } finally {
+                    ReferenceCountUtil.release(message.getMessage());
+                }
+                return;
+            }
+            out.add(encodeStream(ctx, msg));
+        }
+
+        private Object encodeStream(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof TracedMessage) {
+                TracedMessage message = (TracedMessage) msg;
+                try {
+                    Object encoded = encodeStream(ctx, message.getMessage());
+                    message.getTrace().mark(TraceStage.ENCODED);
+                    return encoded;
+                } finally {
+                    ReferenceCountUtil.release(message.getMessage());
+                }
+            }
+            if (!(msg instanceof MuxMessage)) {
+                return encode0(ctx, msg);
+            }
+            MuxMessage message = (MuxMessage) msg;
+            try {
+                return new MuxFrame(FrameSupport.TYPE_STREAM_DATA, message.getStreamId(), encode0(ctx, message.getMessage()));
+            } finally {
+                ReferenceCountUtil.release(message.getMessage());
+            }
+        }
+
+        private ByteBuf encode0(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (serializer != null) {
+                return SerializeSupport.encode(ctx.alloc(), serializer, msg);
+            }
+            try {
+                try {
+                    SocketClient.this.encode(ctx, msg, segments);
+                } catch (Exception e) {
+                    SegmentSupport.release(segments);
+                    throw e;
+                }
+                return SegmentSupport.compose(ctx.alloc(), segments);
+            } finally {
+                segments.clear();
             }
         }
     }
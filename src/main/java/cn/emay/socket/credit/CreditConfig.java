@@ -0,0 +1,135 @@
+package cn.emay.socket.credit;
+
+/**
+ * 基于额度的端到端流控配置[两端需同时启用]
+ * <p>
+ * 接收端按处理能力给每个链接发放消息额度和字节额度，处理完的消息归还额度；发送端只在有额度时发出消息，
+ * 接收端积压的数据不会超过发放的额度。接收端使用initialMessages、initialBytes，发送端使用policy及其参数
+ *
+ * @author Frank
+ */
+public class CreditConfig {
+
+    /**
+     * 每个链接的消息额度[为0不限制消息数]
+     */
+    private int initialMessages = 1024;
+
+    /**
+     * 每个链接的字节额度[为0不限制字节数]
+     */
+    private int initialBytes = 4 * 1024 * 1024;
+
+    /**
+     * 额度用完时的处理策略
+     */
+    private CreditPolicy policy = CreditPolicy.WAIT;
+
+    /**
+     * WAIT策略的最长等待时间[毫秒]
+     */
+    private long waitTimeoutMillis = 30000;
+
+    /**
+     * QUEUE策略的最大排队消息数
+     */
+    private int maxQueuedMessages = 10000;
+
+    /**
+     * 设置每个链接的额度[接收端]
+     * <p>
+     * 额度即接收端每个链接最多积压的未处理数据，处理完一半额度后归还
+     *
+     * @param initialMessages 消息额度[为0不限制消息数]
+     * @param initialBytes    字节额度[为0不限制字节数]
+     */
+    public void setInitialCredit(int initialMessages, int initialBytes) {
+        if (initialMessages < 0 || initialBytes < 0 || (initialMessages == 0 && initialBytes == 0)) {
+            throw new IllegalArgumentException("initialMessages: " + initialMessages + ", initialBytes: " + initialBytes);
+        }
+        this.initialMessages = initialMessages;
+        this.initialBytes = initialBytes;
+    }
+
+    /**
+     * 获取每个链接的消息额度
+     *
+     * @return 消息数[为0不限制]
+     */
+    public int getInitialMessages() {
+        return initialMessages;
+    }
+
+    /**
+     * 获取每个链接的字节额度
+     *
+     * @return 字节数[为0不限制]
+     */
+    public int getInitialBytes() {
+        return initialBytes;
+    }
+
+    /**
+     * 设置额度用完时的处理策略[发送端，默认WAIT]
+     *
+     * @param policy 策略
+     */
+    public void setPolicy(CreditPolicy policy) {
+        if (policy == null) {
+            throw new NullPointerException();
+        }
+        this.policy = policy;
+    }
+
+    /**
+     * 获取额度用完时的处理策略
+     *
+     * @return 策略
+     */
+    public CreditPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 设置WAIT策略的最长等待时间[发送端，默认30000毫秒]
+     *
+     * @param waitTimeoutMillis 等待时间[毫秒]
+     */
+    public void setWaitTimeoutMillis(long waitTimeoutMillis) {
+        if (waitTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("wait timeout must be positive");
+        }
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * 获取WAIT策略的最长等待时间
+     *
+     * @return 等待时间[毫秒]
+     */
+    public long getWaitTimeoutMillis() {
+        return waitTimeoutMillis;
+    }
+
+    /**
+     * 设置QUEUE策略的最大排队消息数[发送端，默认10000]
+     *
+     * @param maxQueuedMessages 消息数
+     */
+    public void setMaxQueuedMessages(int maxQueuedMessages) {
+        if (maxQueuedMessages <= 0) {
+            throw new IllegalArgumentException("max queued messages must be positive");
+        }
+        this.maxQueuedMessages = maxQueuedMessages;
+    }
+
+    /**
+     * 获取QUEUE策略的最大排队消息数
+     *
+     * @return 消息数
+     */
+    public int getMaxQueuedMessages() {
+        return maxQueuedMessages;
+    }
+
+}
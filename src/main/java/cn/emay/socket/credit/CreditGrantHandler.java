@@ -0,0 +1,190 @@
+package cn.emay.socket.credit;
+
+import cn.emay.socket.frame.CreditFrame;
+import cn.emay.socket.inbound.InboundBacklog;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * 接收端发放额度[每个链接一个，紧接心跳之后]
+ * <p>
+ * 链接建立时发放初始额度；每个业务数据帧在后续处理链处理完成后归还一个消息额度和帧体长度的字节额度，
+ * 归还累计达到一半额度后发给发送端。使用业务线程池时，业务积压高于低水位期间暂缓归还，降到低水位后一并归还
+ *
+ * @author Frank
+ */
+public class CreditGrantHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * 不限制时发放的额度
+     */
+    static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * 配置
+     */
+    private final CreditConfig config;
+
+    /**
+     * 待归还的消息额度
+     */
+    private int returnedMessages;
+
+    /**
+     * 待归还的字节额度
+     */
+    private int returnedBytes;
+
+    /**
+     * 是否正在处理读取的数据[读取结束时统一flush]
+     */
+    private boolean reading;
+
+    /**
+     * 是否有未flush的额度帧
+     */
+    private boolean grantPending;
+
+    /**
+     * 暂缓归还的消息额度
+     */
+    private int heldMessages;
+
+    /**
+     * 暂缓归还的字节额度
+     */
+    private int heldBytes;
+
+    /**
+     * 业务积压[使用业务线程池时]
+     */
+    private InboundBacklog backlog;
+
+    /**
+     * 积压降到低水位时归还暂缓的额度
+     */
+    private final Runnable releaseHeld = () -> processed(0, 0);
+
+    /**
+     * 链接上下文
+     */
+    private ChannelHandlerContext ctx;
+
+    /**
+     * @param config 配置
+     */
+    public CreditGrantHandler(CreditConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 获取链接上的额度发放处理器
+     *
+     * @param channel 链接
+     * @return 处理器[未启用流控为null]
+     */
+    public static CreditGrantHandler of(Channel channel) {
+        return channel.pipeline().get(CreditGrantHandler.class);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        int messages = config.getInitialMessages() > 0 ? config.getInitialMessages() : UNLIMITED;
+        int bytes = config.getInitialBytes() > 0 ? config.getInitialBytes() : UNLIMITED;
+        ctx.writeAndFlush(new CreditFrame(messages, bytes));
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof ByteBuf)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        int bytes = ((ByteBuf) msg).readableBytes();
+        reading = true;
+        ctx.fireChannelRead(msg);
+        if (backlog != null && backlog.isAboveLowWater()) {
+            heldMessages++;
+            heldBytes += bytes;
+            return;
+        }
+        processed(1, bytes);
+    }
+
+    /**
+     * 关联业务积压[业务积压高于低水位时暂缓归还额度]
+     *
+     * @param backlog 业务积压[为null取消关联]
+     */
+    public void setBacklog(InboundBacklog backlog) {
+        if (this.backlog != null) {
+            this.backlog.removeLowWaterListener(releaseHeld);
+        }
+        this.backlog = backlog;
+        if (backlog != null) {
+            backlog.addLowWaterListener(releaseHeld);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        setBacklog(null);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        reading = false;
+        if (grantPending) {
+            grantPending = false;
+            ctx.flush();
+        }
+        super.channelReadComplete(ctx);
+    }
+
+    /**
+     * 归还额度[任意线程调用]
+     *
+     * @param messages 处理完的消息数
+     * @param bytes    处理完的字节数
+     */
+    public void processed(int messages, int bytes) {
+        if (!ctx.executor().inEventLoop()) {
+            ctx.executor().execute(() -> processed(messages, bytes));
+            return;
+        }
+        int releasedMessages = messages;
+        int releasedBytes = bytes;
+        if (heldMessages > 0 && (backlog == null || !backlog.isAboveLowWater())) {
+            releasedMessages += heldMessages;
+            releasedBytes += heldBytes;
+            heldMessages = 0;
+            heldBytes = 0;
+        }
+        if (config.getInitialMessages() > 0) {
+            returnedMessages += releasedMessages;
+        }
+        if (config.getInitialBytes() > 0) {
+            returnedBytes += releasedBytes;
+        }
+        if (returnedMessages >= (config.getInitialMessages() + 1) / 2 && returnedMessages > 0
+                || returnedBytes >= (config.getInitialBytes() + 1) / 2 && returnedBytes > 0) {
+            ctx.write(new CreditFrame(returnedMessages, returnedBytes));
+            returnedMessages = 0;
+            returnedBytes = 0;
+            if (reading) {
+                grantPending = true;
+            } else {
+                ctx.flush();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,371 @@
+package cn.emay.socket.credit;
+
+import cn.emay.socket.frame.CreditFrame;
+import cn.emay.socket.journal.JournalRecord;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 发送端遵守额度[每个链接一个，位于发送批量合并之后、发送队列之前]
+ * <p>
+ * 每条消息[一个业务数据帧或发送日志帧]消耗一个消息额度和帧体长度的字节额度，收到接收端的初始额度前没有额度；
+ * 发送线程通过acquire()按策略等待、失败或排队，额度不足的帧在此排队，额度到达后发出
+ *
+ * @author Frank
+ */
+public class CreditHandler extends ChannelDuplexHandler {
+
+    /**
+     * 配置
+     */
+    private final CreditConfig config;
+
+    /**
+     * 剩余消息额度
+     */
+    private volatile int messageCredits;
+
+    /**
+     * 剩余字节额度
+     */
+    private volatile int byteCredits;
+
+    /**
+     * 初始字节额度[超过剩余字节额度的帧在剩余额度不少于一半时发送]
+     */
+    private int byteCeiling = -1;
+
+    /**
+     * 等待额度的帧[只在IO线程中使用]
+     */
+    private final ArrayDeque<Object[]> pending = new ArrayDeque<>();
+
+    /**
+     * 等待额度的帧数
+     */
+    private volatile int pendingCount;
+
+    /**
+     * 已占用未写出的消息数[发送线程占用，发送结果通知后释放]
+     */
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    /**
+     * 等待额度的锁[不使用synchronized，虚拟线程等待时不占用载体线程]
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 等待额度的发送线程
+     */
+    private final Condition creditAvailable = lock.newCondition();
+
+    /**
+     * 等待额度的发送线程数
+     */
+    private volatile int waiters;
+
+    /**
+     * 释放占用的消息额度
+     */
+    private final ChannelFutureListener releaseListener = future -> {
+        reserved.decrementAndGet();
+        signal();
+    };
+
+    /**
+     * 链接上下文
+     */
+    private ChannelHandlerContext ctx;
+
+    /**
+     * @param config 配置
+     */
+    public CreditHandler(CreditConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 获取链接上的额度处理器
+     *
+     * @param channel 链接
+     * @return 处理器[未启用流控为null]
+     */
+    public static CreditHandler of(Channel channel) {
+        return channel.pipeline().get(CreditHandler.class);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof CreditFrame)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        CreditFrame frame = (CreditFrame) msg;
+        if (byteCeiling < 0) {
+            byteCeiling = frame.getBytes();
+        }
+        messageCredits = add(messageCredits, frame.getMessages());
+        byteCredits = add(byteCredits, frame.getBytes());
+        if (drain()) {
+            ctx.flush();
+        }
+        signal();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        int size = contentLength(msg);
+        if (size <= 0) {
+            ctx.write(msg, promise);
+            return;
+        }
+        if (pending.isEmpty() && allowed(size)) {
+            consume(size);
+            ctx.write(msg, promise);
+            return;
+        }
+        if (config.getPolicy() == CreditPolicy.FAIL) {
+            ReferenceCountUtil.release(msg);
+            promise.tryFailure(new RejectedExecutionException("no credit from peer"));
+            return;
+        }
+        pending.add(new Object[]{msg, promise});
+        pendingCount = pending.size();
+    }
+
+    /**
+     * 发送线程在发送前占用一个消息额度[发送结果通知后由releaseOnComplete释放]
+     * <p>
+     * 可用额度 = 剩余消息额度 - 已占用未写出的消息数。WAIT策略等待可用额度、字节额度且之前的帧不再等待额度，直到超时[在IO线程中调用时不等待]；
+     * FAIL策略没有可用额度时失败；QUEUE策略超出额度的消息数达到排队上限时失败
+     *
+     * @return 是否可以发送
+     */
+    public boolean acquire() {
+        switch (config.getPolicy()) {
+            case FAIL:
+                if (available() <= 0) {
+                    return false;
+                }
+                break;
+            case QUEUE:
+                if (available() <= -config.getMaxQueuedMessages()) {
+                    return false;
+                }
+                break;
+            default:
+                if (blocked() && !ctx.executor().inEventLoop() && !await()) {
+                    return false;
+                }
+                break;
+        }
+        reserved.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 发送结果通知后释放占用的消息额度
+     *
+     * @param future 发送结果
+     */
+    public void releaseOnComplete(ChannelFuture future) {
+        future.addListener(releaseListener);
+    }
+
+    /**
+     * 获取剩余消息额度
+     *
+     * @return 消息数
+     */
+    public int getMessageCredits() {
+        return messageCredits;
+    }
+
+    /**
+     * 获取剩余字节额度
+     *
+     * @return 字节数
+     */
+    public int getByteCredits() {
+        return byteCredits;
+    }
+
+    /**
+     * 获取等待额度的帧数
+     *
+     * @return 帧数
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        failAll();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        failAll();
+    }
+
+    /**
+     * 等待可用额度
+     *
+     * @return 是否等到
+     */
+    private boolean await() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getWaitTimeoutMillis());
+        lock.lock();
+        try {
+            waiters++;
+            while (blocked()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !ctx.channel().isActive()) {
+                    return false;
+                }
+                creditAvailable.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiters--;
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 可用额度
+     *
+     * @return 剩余消息额度 - 已占用未写出的消息数
+     */
+    private long available() {
+        return (long) messageCredits - reserved.get();
+    }
+
+    /**
+     * WAIT策略的发送线程是否需要等待[没有可用额度、字节额度用完或有帧在等待额度]
+     * <p>
+     * 只看消息额度时，字节额度用完后发送线程仍不断把帧放入等待队列，排队的数据不受限制
+     *
+     * @return 是否需要等待
+     */
+    private boolean blocked() {
+        return available() <= 0 || byteCredits <= 0 || pendingCount > 0;
+    }
+
+    /**
+     * 唤醒等待额度的发送线程
+     */
+    private void signal() {
+        if (waiters > 0) {
+            lock.lock();
+            try {
+                creditAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 帧是否可以发出
+     * <p>
+     * 超过剩余字节额度的帧在剩余额度不少于一半时发出[可能超出额度]。接收端归还累计达到一半额度才发给发送端，
+     * 等待全部额度归还时最后不足一半的部分永远不会归还
+     *
+     * @param size 帧体长度
+     * @return 是否可以发出
+     */
+    private boolean allowed(int size) {
+        return messageCredits > 0 && (byteCredits >= size || byteCredits >= byteCeiling / 2);
+    }
+
+    private void consume(int size) {
+        if (messageCredits != CreditGrantHandler.UNLIMITED) {
+            messageCredits--;
+        }
+        if (byteCredits != CreditGrantHandler.UNLIMITED) {
+            byteCredits -= size;
+        }
+    }
+
+    private static int add(int credits, int increment) {
+        if (credits == CreditGrantHandler.UNLIMITED || increment == CreditGrantHandler.UNLIMITED) {
+            return CreditGrantHandler.UNLIMITED;
+        }
+        return (int) Math.min(CreditGrantHandler.UNLIMITED - 1, (long) credits + increment);
+    }
+
+    /**
+     * 在额度内写出排队的帧
+     *
+     * @return 是否写出了帧
+     */
+    private boolean drain() {
+        boolean written = false;
+        Object[] entry;
+        while ((entry = pending.peek()) != null) {
+            int size = contentLength(entry[0]);
+            if (!allowed(size)) {
+                break;
+            }
+            pending.poll();
+            consume(size);
+            ctx.write(entry[0], (ChannelPromise) entry[1]);
+            written = true;
+        }
+        pendingCount = pending.size();
+        return written;
+    }
+
+    /**
+     * 消耗额度的帧体长度[业务数据帧和发送日志帧，其他帧不消耗额度为0]
+     *
+     * @param msg 消息
+     * @return 字节数
+     */
+    private static int contentLength(Object msg) {
+        if (msg instanceof ByteBuf) {
+            return ((ByteBuf) msg).readableBytes();
+        }
+        if (msg instanceof JournalRecord) {
+            return ((JournalRecord) msg).content().readableBytes();
+        }
+        return 0;
+    }
+
+    private void failAll() {
+        Object[] entry;
+        while ((entry = pending.poll()) != null) {
+            ReferenceCountUtil.release(entry[0]);
+            ((ChannelPromise) entry[1]).tryFailure(new ClosedChannelException());
+        }
+        pendingCount = 0;
+        signal();
+    }
+
+}
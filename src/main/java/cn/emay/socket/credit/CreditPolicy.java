@@ -0,0 +1,25 @@
+package cn.emay.socket.credit;
+
+/**
+ * 发送端额度用完时的处理策略
+ *
+ * @author Frank
+ */
+public enum CreditPolicy {
+
+    /**
+     * 发送线程等待额度[超时则发送失败；在IO线程中发送时排队]
+     */
+    WAIT,
+
+    /**
+     * 立即发送失败
+     */
+    FAIL,
+
+    /**
+     * 在发送端排队，额度到达后发出[超过排队上限则发送失败]
+     */
+    QUEUE
+
+}
@@ -0,0 +1,413 @@
+package cn.emay.socket.datagram;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ResourceLeakDetector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据报(UDP)客户端
+ * <p>
+ * 与SocketClient相同的编程模型，每个"链接"是一个connect到服务端地址的UDP socket，只接收服务端的数据
+ *
+ * @author Frank
+ */
+public abstract class DatagramClient {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * 名字
+     */
+    private final String name;
+
+    /**
+     * 是否启动
+     */
+    private boolean isStart = false;
+
+    /**
+     * 业务线程组
+     */
+    private EventLoopGroup workerGroup;
+
+    /**
+     * 启动器
+     */
+    private Bootstrap bootStrap;
+
+    /**
+     * 服务端地址
+     */
+    private final InetSocketAddress address;
+
+    /**
+     * 每次读取最多接收多少个数据报
+     */
+    private int batchSize = 16;
+
+    /**
+     * 单个数据报最大长度[字节]
+     */
+    private int maxDatagramSize = 2048;
+
+    /**
+     * 链接
+     */
+    private final Map<ChannelId, Channel> channels = new HashMap<>();
+
+    /**
+     * @param name    名字
+     * @param address 服务端地址[ip:port]
+     */
+    public DatagramClient(String name, String address) {
+        if (name == null || address == null) {
+            throw new NullPointerException();
+        }
+        String[] addrs = address.split(":");
+        if (addrs.length != 2) {
+            throw new IllegalArgumentException("address is not be ip:port  ");
+        }
+        this.address = new InetSocketAddress(addrs[0], Integer.parseInt(addrs[1]));
+        this.name = name;
+        if (logger.isDebugEnabled()) {
+            logger.debug("datagram client[" + name + "] inited");
+        }
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.ADVANCED);
+    }
+
+    /**
+     * 启动
+     */
+    public synchronized void startup() {
+        if (isStart) {
+            logger.info("datagram client[" + name + "] has start , not need start again");
+            return;
+        }
+        bootStrap = new Bootstrap();
+        bootStrap.remoteAddress(address);
+        workerGroup = DatagramSupport.newGroup(0);
+        bootStrap.group(workerGroup);
+        bootStrap.channel(DatagramSupport.channelClass());
+        bootStrap.option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(maxDatagramSize).maxMessagesPerRead(batchSize));
+        bootStrap.handler(new ChannelInitializer<DatagramChannel>() {
+            @Override
+            protected void initChannel(DatagramChannel ch) {
+                ch.pipeline().addLast("EncodeHandler", new EncodeHandler());
+                ch.pipeline().addLast("DatagramHandler", new DatagramHandler());
+            }
+        });
+        if (logger.isDebugEnabled()) {
+            logger.debug("datagram client[" + name + "] start success");
+        }
+        isStart = true;
+    }
+
+    /**
+     * 关闭
+     */
+    public synchronized void shutdown() {
+        if (!isStart) {
+            logger.info("datagram client[" + name + "] has stop, not need stop again");
+            return;
+        }
+        for (Channel channel : channels.values()) {
+            channel.close();
+        }
+        channels.clear();
+        workerGroup.shutdownGracefully();
+        if (logger.isDebugEnabled()) {
+            logger.debug("datagram client[" + name + "] stoped");
+        }
+        isStart = false;
+    }
+
+    /**
+     * 新建一个连接[绑定本地随机端口并connect到服务端地址]
+     *
+     * @return 链接ID
+     * @throws IllegalArgumentException 链接失败报错
+     */
+    public synchronized ChannelId connect() {
+        if (!isStart) {
+            throw new IllegalArgumentException("datagram client[" + name + "]  is stopped");
+        }
+        ChannelFuture channelFuture = bootStrap.connect().awaitUninterruptibly();
+        if (!channelFuture.isSuccess()) {
+            throw new IllegalArgumentException("datagram client[" + name + "] connect error", channelFuture.cause());
+        }
+        Channel channel = channelFuture.channel();
+        channels.put(channel.id(), channel);
+        return channel.id();
+    }
+
+    /**
+     * 关闭一个连接
+     *
+     * @param channelId 链接ID
+     */
+    public synchronized void disconnect(ChannelId channelId) {
+        if (channelId == null) {
+            return;
+        }
+        Channel channel = channels.remove(channelId);
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * 推送消息
+     *
+     * @param channelId    链接ID
+     * @param message      消息
+     * @param isWaitSendOk 是否确保消息已经推送出去
+     * @return 是否发送成功
+     */
+    public boolean sendMessage(ChannelId channelId, Object message, boolean isWaitSendOk) {
+        Channel channel = select(channelId, message);
+        if (channel == null) {
+            return false;
+        }
+        return await(channel.writeAndFlush(message), isWaitSendOk);
+    }
+
+    /**
+     * 批量推送消息
+     * <p>
+     * 每条消息编码为一个数据报，全部写入后只flush一次，epoll下使用sendmmsg一次系统调用发出
+     *
+     * @param channelId    链接ID
+     * @param messages     消息
+     * @param isWaitSendOk 是否确保消息已经推送出去
+     * @return 是否发送成功
+     */
+    public boolean sendMessages(ChannelId channelId, List<?> messages, boolean isWaitSendOk) {
+        if (messages == null || messages.isEmpty()) {
+            logger.error("messages is empty");
+            return false;
+        }
+        Channel channel = select(channelId, messages);
+        if (channel == null) {
+            return false;
+        }
+        ChannelFuture last = null;
+        for (Object message : messages) {
+            last = channel.write(message);
+        }
+        channel.flush();
+        return await(last, isWaitSendOk);
+    }
+
+    private synchronized Channel select(ChannelId channelId, Object message) {
+        if (!isStart) {
+            logger.info("datagram client[" + name + "]  is stopped");
+            return null;
+        }
+        if (message == null) {
+            logger.error("message is null");
+            return null;
+        }
+        Channel channel = channelId == null ? null : channels.get(channelId);
+        if (channel == null || !channel.isActive()) {
+            logger.error("datagram client[" + name + "] channel [ " + channelId + " ] is stopped");
+            return null;
+        }
+        return channel;
+    }
+
+    private boolean await(ChannelFuture future, boolean wait) {
+        if (!wait) {
+            return true;
+        }
+        future = future.awaitUninterruptibly();
+        if (future.isSuccess()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("datagram client[" + name + "]  send message ok");
+            }
+            return true;
+        } else {
+            logger.error("datagram client[" + name + "]  send message error", future.cause());
+            return false;
+        }
+    }
+
+    /**
+     * 设置每次读取最多接收的数据报数量[启动前设置，默认16]
+     *
+     * @param batchSize 数据报数量
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 设置单个数据报最大长度[启动前设置，默认2048，超过的数据报被截断]
+     *
+     * @param maxDatagramSize 最大长度[字节]
+     */
+    public void setMaxDatagramSize(int maxDatagramSize) {
+        if (maxDatagramSize <= 0 || maxDatagramSize > 65507) {
+            throw new IllegalArgumentException("max datagram size must be in (0, 65507]");
+        }
+        this.maxDatagramSize = maxDatagramSize;
+    }
+
+    /**
+     * 获取client名字
+     *
+     * @return client名字
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 是否启动
+     *
+     * @return 是否启动
+     */
+    public boolean isStart() {
+        return isStart;
+    }
+
+    /**
+     * 处理链接信息
+     */
+    protected abstract void connectHandle(ChannelHandlerContext ctx) throws Exception;
+
+    /**
+     * 处理断开链接信息
+     */
+    protected abstract void closedHandle(ChannelHandlerContext ctx) throws Exception;
+
+    /**
+     * 异常处理[解码或业务处理异常时丢弃该数据报，socket不关闭]
+     */
+    protected abstract void exceptionHandle(ChannelHandlerContext ctx, Throwable cause) throws Exception;
+
+    /**
+     * 编码
+     * <p>
+     * 编码结果为一个数据报；覆盖encode(ctx, msg, out)后不再被调用，两者都没有覆盖时抛出UnsupportedOperationException
+     */
+    protected byte[] encode(ChannelHandlerContext ctx, Object msg) throws Exception {
+        throw new UnsupportedOperationException("datagram client[" + name + "] override encode(ctx, msg) or encode(ctx, msg, out)");
+    }
+
+    /**
+     * 分段编码
+     * <p>
+     * 默认调用encode(ctx, msg)；分段的约定与SocketClient相同，所有分段组成一个数据报
+     *
+     * @param ctx 链接
+     * @param msg 消息
+     * @param out 分段列表[只可添加，不可持有]
+     */
+    protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+        byte[] bytes = encode(ctx, msg);
+        if (bytes != null) {
+            out.add(bytes);
+        }
+    }
+
+    /**
+     * 解码
+     * <p>
+     * in为一个完整的数据报，未读完的数据被丢弃
+     *
+     * @param ctx 链接
+     * @param in  数据报内容
+     * @param out 输出列表[只可添加，不可持有]
+     */
+    protected abstract void decodeHandle(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception;
+
+    /**
+     * 数据处理
+     * <p>
+     * 消息在处理结束后自动释放，异步使用需先retain
+     */
+    protected abstract void businessHandle(ChannelHandlerContext ctx, Object msg) throws Exception;
+
+    /**
+     * @author Frank
+     */
+    class EncodeHandler extends MessageToMessageEncoder<Object> {
+
+        /**
+         * 分段编码结果[只在IO线程中使用，复用]
+         */
+        private final List<Object> segments = new ArrayList<>(4);
+
+        @Override
+        public boolean acceptOutboundMessage(Object msg) throws Exception {
+            return !(msg instanceof ByteBuf) && !(msg instanceof AddressedEnvelope) && super.acceptOutboundMessage(msg);
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+            out.add(DatagramSupport.encode(ctx, msg, DatagramClient.this::encode, segments));
+        }
+    }
+
+    /**
+     * @author Frank
+     */
+    class DatagramHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+
+        /**
+         * 解码结果[只在IO线程中使用，复用]
+         */
+        private final List<Object> decoded = new ArrayList<>();
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            DatagramClient.this.connectHandle(ctx);
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            DatagramClient.this.closedHandle(ctx);
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) throws Exception {
+            try {
+                DatagramClient.this.decodeHandle(ctx, packet.content(), decoded);
+                for (int i = 0; i < decoded.size(); i++) {
+                    DatagramClient.this.businessHandle(ctx, decoded.get(i));
+                }
+            } catch (Exception e) {
+                DatagramClient.this.exceptionHandle(ctx, e);
+            } finally {
+                for (int i = 0; i < decoded.size(); i++) {
+                    ReferenceCountUtil.release(decoded.get(i));
+                }
+                decoded.clear();
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            DatagramClient.this.exceptionHandle(ctx, cause);
+        }
+    }
+
+}
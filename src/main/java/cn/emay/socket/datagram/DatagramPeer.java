@@ -0,0 +1,76 @@
+package cn.emay.socket.datagram;
+
+import io.netty.channel.ChannelHandlerContext;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 数据报对端[按来源地址识别的会话]
+ *
+ * @author Frank
+ */
+public class DatagramPeer {
+
+    /**
+     * sessionId
+     */
+    private final String sessionId;
+
+    /**
+     * 对端地址
+     */
+    private final InetSocketAddress address;
+
+    /**
+     * 接收该对端数据的链接[回复时使用同一socket]
+     */
+    private final ChannelHandlerContext ctx;
+
+    /**
+     * 最后收到数据的时间
+     */
+    private volatile long lastActiveTime;
+
+    /**
+     * @param sessionId sessionId
+     * @param address   对端地址
+     * @param ctx       接收该对端数据的链接
+     */
+    public DatagramPeer(String sessionId, InetSocketAddress address, ChannelHandlerContext ctx) {
+        this.sessionId = sessionId;
+        this.address = address;
+        this.ctx = ctx;
+        this.lastActiveTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 刷新最后活跃时间
+     *
+     * @param now 当前时间
+     */
+    void touch(long now) {
+        this.lastActiveTime = now;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    public ChannelHandlerContext getContext() {
+        return ctx;
+    }
+
+    public long getLastActiveTime() {
+        return lastActiveTime;
+    }
+
+    @Override
+    public String toString() {
+        return "DatagramPeer{sessionId=" + sessionId + ", address=" + address + "}";
+    }
+
+}
@@ -0,0 +1,519 @@
+package cn.emay.socket.datagram;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据报(UDP)服务端
+ * <p>
+ * 与SocketServer相同的编程模型：encode/decode编解码，businessLogic处理业务；
+ * 启用对端跟踪时按来源地址登记对端，首次收到数据调用connectHandle，空闲超时调用closedHandle。
+ * 每个数据报独立解码，一个数据报内可以包含多条消息，消息不跨数据报
+ *
+ * @author Frank
+ */
+public abstract class DatagramServer {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * 名字
+     */
+    private final String name;
+
+    /**
+     * 是否启动
+     */
+    private boolean isStart = false;
+
+    /**
+     * 线程组
+     */
+    private EventLoopGroup workerGroup;
+
+    /**
+     * 接收数据的socket
+     */
+    private Channel[] channels;
+
+    /**
+     * 服务端地址
+     */
+    private final InetSocketAddress address;
+
+    /**
+     * 对端空闲多久视为断开[秒，小于等于0不跟踪对端]
+     */
+    private final int peerIdleTimeSeconds;
+
+    /**
+     * 接收socket数量[epoll下使用SO_REUSEPORT绑定同一端口，由内核按来源分散到各个线程]
+     */
+    private int receiveSockets = 1;
+
+    /**
+     * 每次读取最多接收多少个数据报[一批数据报处理完后才合并发出回复]
+     */
+    private int batchSize = 16;
+
+    /**
+     * 单个数据报最大长度[字节]
+     */
+    private int maxDatagramSize = 2048;
+
+    /**
+     * 对端管理器
+     */
+    private PeerManager peerManager = new PeerManager(-1);
+
+    /**
+     * @param name                名字
+     * @param port                绑定port
+     * @param peerIdleTimeSeconds 对端空闲多久视为断开[秒，小于等于0不跟踪对端]
+     */
+    public DatagramServer(String name, int port, int peerIdleTimeSeconds) {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+        this.name = name;
+        this.address = new InetSocketAddress(port);
+        this.peerIdleTimeSeconds = peerIdleTimeSeconds;
+        if (logger.isDebugEnabled()) {
+            logger.debug("datagram server[" + name + "] inited");
+        }
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.ADVANCED);
+    }
+
+    /**
+     * 启动
+     */
+    public synchronized void startup() {
+        if (isStart) {
+            logger.info("datagram server[" + name + "] has start , not need start again");
+            return;
+        }
+        int sockets = receiveSockets;
+        if (sockets > 1 && !DatagramSupport.isEpoll()) {
+            logger.warn("datagram server[" + name + "] SO_REUSEPORT needs epoll, use 1 receive socket");
+            sockets = 1;
+        }
+        workerGroup = DatagramSupport.newGroup(sockets);
+        Bootstrap bootStrap = new Bootstrap();
+        bootStrap.group(workerGroup);
+        bootStrap.channel(DatagramSupport.channelClass());
+        if (DatagramSupport.isEpoll()) {
+            bootStrap.option(EpollChannelOption.SO_REUSEPORT, sockets > 1);
+        }
+        // 当前netty版本recvmmsg返回的来源地址不正确，不设置MAX_DATAGRAM_PAYLOAD_SIZE，每次读取循环接收多个数据报
+        bootStrap.option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(maxDatagramSize).maxMessagesPerRead(batchSize));
+        bootStrap.handler(new ChannelInitializer<DatagramChannel>() {
+            @Override
+            protected void initChannel(DatagramChannel ch) {
+                ch.pipeline().addLast("FlushConsolidationHandler", new FlushConsolidationHandler(batchSize));
+                ch.pipeline().addLast("EncodeHandler", new EncodeHandler());
+                ch.pipeline().addLast("DatagramHandler", new DatagramHandler());
+            }
+        });
+        channels = new Channel[sockets];
+        try {
+            for (int i = 0; i < sockets; i++) {
+                channels[i] = bootStrap.bind(address).sync().channel();
+            }
+        } catch (Exception e) {
+            for (Channel channel : channels) {
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+            workerGroup.shutdownGracefully();
+            throw new IllegalArgumentException(e);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("datagram server[" + name + "] start success with " + sockets + " receive sockets");
+        }
+        isStart = true;
+    }
+
+    /**
+     * 关闭
+     */
+    public synchronized void shutdown() {
+        if (!isStart) {
+            logger.info("datagram server[" + name + "] has stop, not need stop again");
+            return;
+        }
+        for (Channel channel : channels) {
+            channel.close().syncUninterruptibly();
+        }
+        workerGroup.shutdownGracefully();
+        peerManager.clear();
+        if (logger.isDebugEnabled()) {
+            logger.debug("datagram server[" + name + "] stoped");
+        }
+        isStart = false;
+    }
+
+    /**
+     * 向对端发送信息
+     *
+     * @param recipient 对端地址
+     * @param message   消息
+     * @param wait      是否等待消息真实发送出去
+     * @return 是否发送成功
+     */
+    public boolean sendMessage(InetSocketAddress recipient, Object message, boolean wait) {
+        Channel channel = select(recipient, message);
+        if (channel == null) {
+            return false;
+        }
+        return await(channel.writeAndFlush(new DefaultAddressedEnvelope<>(message, recipient)), wait);
+    }
+
+    /**
+     * 向对端发送信息
+     *
+     * @param sessionId sessionId
+     * @param message   消息
+     * @param wait      是否等待消息真实发送出去
+     * @return 是否发送成功
+     */
+    public boolean sendMessage(String sessionId, Object message, boolean wait) {
+        DatagramPeer peer = peerManager.getPeer(sessionId);
+        if (peer == null) {
+            logger.error("datagram server sessionId[" + sessionId + "]  is unkonw");
+            return false;
+        }
+        return sendMessage(peer.getAddress(), message, wait);
+    }
+
+    /**
+     * 向对端批量发送信息
+     * <p>
+     * 每条消息编码为一个数据报，全部写入后只flush一次，epoll下使用sendmmsg一次系统调用发出
+     *
+     * @param recipient 对端地址
+     * @param messages  消息
+     * @param wait      是否等待消息真实发送出去
+     * @return 是否发送成功
+     */
+    public boolean sendMessages(InetSocketAddress recipient, List<?> messages, boolean wait) {
+        if (messages == null || messages.isEmpty()) {
+            logger.error("messages is empty");
+            return false;
+        }
+        Channel channel = select(recipient, messages);
+        if (channel == null) {
+            return false;
+        }
+        ChannelFuture last = null;
+        for (Object message : messages) {
+            last = channel.write(new DefaultAddressedEnvelope<>(message, recipient));
+        }
+        channel.flush();
+        return await(last, wait);
+    }
+
+    /**
+     * 选择发送的socket[已登记的对端使用接收其数据的socket]
+     */
+    private Channel select(InetSocketAddress recipient, Object message) {
+        if (!isStart) {
+            logger.info("datagram server[" + name + "]  is stopped");
+            return null;
+        }
+        if (recipient == null || message == null) {
+            logger.error("recipient or message is null");
+            return null;
+        }
+        DatagramPeer peer = peerManager.getPeer(recipient);
+        if (peer != null) {
+            return peer.getContext().channel();
+        }
+        return channels[(recipient.hashCode() & Integer.MAX_VALUE) % channels.length];
+    }
+
+    private boolean await(ChannelFuture future, boolean wait) {
+        if (!wait) {
+            return true;
+        }
+        future = future.awaitUninterruptibly();
+        if (future.isSuccess()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("datagram server[" + name + "]  send message ok");
+            }
+            return true;
+        } else {
+            logger.error("datagram server[" + name + "]  send message error", future.cause());
+            return false;
+        }
+    }
+
+    /**
+     * 设置接收socket数量[启动前设置，默认1]
+     * <p>
+     * 大于1时需要epoll，多个socket使用SO_REUSEPORT绑定同一端口，各自一个线程，同一来源的数据总由同一socket接收
+     *
+     * @param receiveSockets 接收socket数量
+     */
+    public void setReceiveSockets(int receiveSockets) {
+        if (receiveSockets <= 0) {
+            throw new IllegalArgumentException("receive sockets must be positive");
+        }
+        this.receiveSockets = receiveSockets;
+    }
+
+    /**
+     * 设置每次读取最多接收的数据报数量[启动前设置，默认16]
+     * <p>
+     * 同时也是读取过程中合并flush的上限：业务处理中的回复在一批数据处理完后一起发出
+     *
+     * @param batchSize 数据报数量
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 设置单个数据报最大长度[启动前设置，默认2048，超过的数据报被截断]
+     *
+     * @param maxDatagramSize 最大长度[字节]
+     */
+    public void setMaxDatagramSize(int maxDatagramSize) {
+        if (maxDatagramSize <= 0 || maxDatagramSize > 65507) {
+            throw new IllegalArgumentException("max datagram size must be in (0, 65507]");
+        }
+        this.maxDatagramSize = maxDatagramSize;
+    }
+
+    /**
+     * 设置最多登记多少个对端[启动前设置，默认不限制，超过后新来源的数据报被丢弃]
+     *
+     * @param maxPeers 最多对端数[小于0不限制]
+     */
+    public void setMaxPeers(int maxPeers) {
+        this.peerManager = new PeerManager(maxPeers);
+    }
+
+    /**
+     * 获取对端管理器
+     *
+     * @return 对端管理器
+     */
+    public PeerManager getPeerManager() {
+        return peerManager;
+    }
+
+    /**
+     * 获取server名字
+     *
+     * @return server名字
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 是否启动
+     *
+     * @return 是否启动
+     */
+    public boolean isStart() {
+        return isStart;
+    }
+
+    /**
+     * 处理新对端[启用对端跟踪时，首次收到该地址的数据]
+     */
+    protected abstract void connectHandle(ChannelHandlerContext ctx, InetSocketAddress address) throws Exception;
+
+    /**
+     * 处理对端断开[启用对端跟踪时，对端空闲超时]
+     */
+    protected abstract void closedHandle(ChannelHandlerContext ctx, InetSocketAddress address) throws Exception;
+
+    /**
+     * 异常处理[解码或业务处理异常时丢弃该数据报，socket不关闭；address为null表示socket本身的异常]
+     */
+    protected abstract void exceptionHandle(ChannelHandlerContext ctx, InetSocketAddress address, Throwable cause) throws Exception;
+
+    /**
+     * 编码
+     * <p>
+     * 编码结果为一个数据报；覆盖encode(ctx, msg, out)后不再被调用，两者都没有覆盖时抛出UnsupportedOperationException
+     */
+    protected byte[] encode(ChannelHandlerContext ctx, Object msg) throws Exception {
+        throw new UnsupportedOperationException("datagram server[" + name + "] override encode(ctx, msg) or encode(ctx, msg, out)");
+    }
+
+    /**
+     * 分段编码
+     * <p>
+     * 默认调用encode(ctx, msg)；分段的约定与SocketServer相同，所有分段组成一个数据报
+     *
+     * @param ctx 链接
+     * @param msg 消息
+     * @param out 分段列表[只可添加，不可持有]
+     */
+    protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+        byte[] bytes = encode(ctx, msg);
+        if (bytes != null) {
+            out.add(bytes);
+        }
+    }
+
+    /**
+     * 解码
+     * <p>
+     * in为一个完整的数据报，未读完的数据被丢弃
+     *
+     * @param ctx 链接
+     * @param in  数据报内容
+     * @param out 输出列表[只可添加，不可持有]
+     */
+    protected abstract void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception;
+
+    /**
+     * 数据处理
+     * <p>
+     * 消息在处理结束后自动释放，异步使用需先retain；回复可调用sendMessage(sender, ...)
+     */
+    protected abstract void businessLogic(ChannelHandlerContext ctx, InetSocketAddress sender, Object msg) throws Exception;
+
+    /**
+     * @author Frank
+     */
+    class EncodeHandler extends MessageToMessageEncoder<AddressedEnvelope<Object, InetSocketAddress>> {
+
+        /**
+         * 分段编码结果[只在IO线程中使用，复用]
+         */
+        private final List<Object> segments = new ArrayList<>(4);
+
+        @Override
+        public boolean acceptOutboundMessage(Object msg) throws Exception {
+            return !(msg instanceof DatagramPacket) && super.acceptOutboundMessage(msg);
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, AddressedEnvelope<Object, InetSocketAddress> msg, List<Object> out) throws Exception {
+            ByteBuf content = DatagramSupport.encode(ctx, msg.content(), DatagramServer.this::encode, segments);
+            out.add(new DatagramPacket(content, msg.recipient()));
+        }
+    }
+
+    /**
+     * @author Frank
+     */
+    class DatagramHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+
+        /**
+         * 解码结果[只在IO线程中使用，复用]
+         */
+        private final List<Object> decoded = new ArrayList<>();
+
+        /**
+         * 空闲对端检查任务
+         */
+        private ScheduledFuture<?> idleTask;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            if (peerIdleTimeSeconds > 0) {
+                long period = Math.max(1000L, peerIdleTimeSeconds * 1000L / 2);
+                idleTask = ctx.executor().scheduleAtFixedRate(() -> removeIdle(ctx), period, period, TimeUnit.MILLISECONDS);
+            }
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (idleTask != null) {
+                idleTask.cancel(false);
+                idleTask = null;
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) throws Exception {
+            InetSocketAddress sender = packet.sender();
+            if (peerIdleTimeSeconds > 0 && !touch(ctx, sender)) {
+                return;
+            }
+            try {
+                DatagramServer.this.decode(ctx, packet.content(), decoded);
+                for (int i = 0; i < decoded.size(); i++) {
+                    DatagramServer.this.businessLogic(ctx, sender, decoded.get(i));
+                }
+            } catch (Exception e) {
+                DatagramServer.this.exceptionHandle(ctx, sender, e);
+            } finally {
+                for (int i = 0; i < decoded.size(); i++) {
+                    ReferenceCountUtil.release(decoded.get(i));
+                }
+                decoded.clear();
+            }
+        }
+
+        /**
+         * 刷新对端活跃时间，新对端先登记
+         *
+         * @return 是否接收该数据报
+         */
+        private boolean touch(ChannelHandlerContext ctx, InetSocketAddress sender) throws Exception {
+            DatagramPeer peer = peerManager.getPeer(sender);
+            if (peer != null) {
+                peer.touch(System.currentTimeMillis());
+                return true;
+            }
+            peer = peerManager.addPeer(sender, ctx);
+            if (peer == null) {
+                if (peerManager.getPeer(sender) != null) {
+                    return true;
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("datagram server[" + name + "] too many peers, drop datagram from " + sender);
+                }
+                return false;
+            }
+            DatagramServer.this.connectHandle(ctx, sender);
+            return true;
+        }
+
+        private void removeIdle(ChannelHandlerContext ctx) {
+            List<DatagramPeer> idles = peerManager.removeIdle(ctx, System.currentTimeMillis() - peerIdleTimeSeconds * 1000L);
+            for (DatagramPeer peer : idles) {
+                try {
+                    DatagramServer.this.closedHandle(ctx, peer.getAddress());
+                } catch (Exception e) {
+                    logger.error("datagram server[" + name + "] peer " + peer.getAddress() + " closed handle error", e);
+                }
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            DatagramServer.this.exceptionHandle(ctx, null, cause);
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package cn.emay.socket.datagram;
+
+import cn.emay.socket.outbound.SegmentSupport;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+
+import java.util.List;
+
+/**
+ * 数据报传输的选择与编码
+ * <p>
+ * Linux下使用epoll，支持SO_REUSEPORT多socket接收和sendmmsg批量发送；其它平台使用NIO
+ *
+ * @author Frank
+ */
+class DatagramSupport {
+
+    /**
+     * 是否使用epoll
+     *
+     * @return 是否使用epoll
+     */
+    static boolean isEpoll() {
+        return Epoll.isAvailable();
+    }
+
+    /**
+     * 创建线程组
+     *
+     * @param threads 线程数
+     * @return 线程组
+     */
+    static EventLoopGroup newGroup(int threads) {
+        return isEpoll() ? new EpollEventLoopGroup(threads) : new NioEventLoopGroup(threads);
+    }
+
+    /**
+     * 数据报通道类型
+     *
+     * @return 通道类型
+     */
+    static Class<? extends DatagramChannel> channelClass() {
+        return isEpoll() ? EpollDatagramChannel.class : NioDatagramChannel.class;
+    }
+
+    /**
+     * 分段编码并组装为一个数据报的内容
+     *
+     * @param ctx      链接
+     * @param msg      消息
+     * @param encoder  分段编码
+     * @param segments 分段列表[复用]
+     * @return 数据报内容
+     */
+    static ByteBuf encode(ChannelHandlerContext ctx, Object msg, SegmentEncoder encoder, List<Object> segments) throws Exception {
+        try {
+            try {
+                encoder.encode(ctx, msg, segments);
+            } catch (Exception e) {
+                SegmentSupport.release(segments);
+                throw e;
+            }
+            return SegmentSupport.compose(ctx.alloc(), segments);
+        } finally {
+            segments.clear();
+        }
+    }
+
+    /**
+     * 分段编码
+     */
+    interface SegmentEncoder {
+
+        void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception;
+
+    }
+
+}
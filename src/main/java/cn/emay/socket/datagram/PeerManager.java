@@ -0,0 +1,149 @@
+package cn.emay.socket.datagram;
+
+import io.netty.channel.ChannelHandlerContext;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 数据报对端管理器
+ * <p>
+ * 数据报没有链接，按来源地址登记对端并分配sessionId，超过空闲时间未收到数据的对端视为断开
+ *
+ * @author Frank
+ */
+public class PeerManager {
+
+    /**
+     * 最多登记多少个对端[小于0不限制]
+     */
+    private final int maxPeers;
+
+    /**
+     * 按地址索引的对端
+     */
+    private final Map<InetSocketAddress, DatagramPeer> peers = new ConcurrentHashMap<>();
+
+    /**
+     * 按sessionId索引的对端
+     */
+    private final Map<String, DatagramPeer> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxPeers 最多登记多少个对端[小于0不限制]
+     */
+    public PeerManager(int maxPeers) {
+        this.maxPeers = maxPeers;
+    }
+
+    /**
+     * 获取对端
+     *
+     * @param address 对端地址
+     * @return 对端[未登记返回null]
+     */
+    public DatagramPeer getPeer(InetSocketAddress address) {
+        if (address == null) {
+            return null;
+        }
+        return peers.get(address);
+    }
+
+    /**
+     * 获取对端
+     *
+     * @param sessionId sessionId
+     * @return 对端[未登记返回null]
+     */
+    public DatagramPeer getPeer(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        return sessions.get(sessionId);
+    }
+
+    /**
+     * 获取所有的session ID
+     *
+     * @return 所有的session ID
+     */
+    public Set<String> getAllSessionId() {
+        return sessions.keySet();
+    }
+
+    /**
+     * 对端数量
+     *
+     * @return 对端数量
+     */
+    public int size() {
+        return peers.size();
+    }
+
+    /**
+     * 登记对端
+     *
+     * @param address 对端地址
+     * @param ctx     接收该对端数据的链接
+     * @return 新登记的对端[已登记或超过上限返回null]
+     */
+    DatagramPeer addPeer(InetSocketAddress address, ChannelHandlerContext ctx) {
+        if (maxPeers >= 0 && peers.size() >= maxPeers) {
+            return null;
+        }
+        DatagramPeer peer = new DatagramPeer(UUID.randomUUID().toString().replace("-", ""), address, ctx);
+        if (peers.putIfAbsent(address, peer) != null) {
+            return null;
+        }
+        sessions.put(peer.getSessionId(), peer);
+        return peer;
+    }
+
+    /**
+     * 移除对端
+     *
+     * @param sessionId sessionId
+     * @return 移除的对端[未登记返回null]
+     */
+    public DatagramPeer removePeer(String sessionId) {
+        DatagramPeer peer = getPeer(sessionId);
+        if (peer == null) {
+            return null;
+        }
+        sessions.remove(sessionId);
+        peers.remove(peer.getAddress(), peer);
+        return peer;
+    }
+
+    /**
+     * 移除链接上空闲的对端
+     *
+     * @param ctx      接收数据的链接
+     * @param deadline 最后活跃时间早于此值视为空闲
+     * @return 移除的对端
+     */
+    List<DatagramPeer> removeIdle(ChannelHandlerContext ctx, long deadline) {
+        List<DatagramPeer> removed = new ArrayList<>();
+        for (DatagramPeer peer : peers.values()) {
+            if (peer.getContext() == ctx && peer.getLastActiveTime() < deadline && peers.remove(peer.getAddress(), peer)) {
+                sessions.remove(peer.getSessionId());
+                removed.add(peer);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 清空
+     */
+    void clear() {
+        peers.clear();
+        sessions.clear();
+    }
+
+}
@@ -0,0 +1,52 @@
+package cn.emay.socket.frame;
+
+/**
+ * 发送额度帧[帧体为4字节消息数 + 4字节字节数，由接收端发给发送端]
+ *
+ * @author Frank
+ */
+public class CreditFrame {
+
+    /**
+     * 帧体长度
+     */
+    public static final int CONTENT_LENGTH = 8;
+
+    /**
+     * 增加的消息额度
+     */
+    private final int messages;
+
+    /**
+     * 增加的字节额度
+     */
+    private final int bytes;
+
+    /**
+     * @param messages 增加的消息额度
+     * @param bytes    增加的字节额度
+     */
+    public CreditFrame(int messages, int bytes) {
+        this.messages = messages;
+        this.bytes = bytes;
+    }
+
+    /**
+     * 获取增加的消息额度
+     *
+     * @return 消息数
+     */
+    public int getMessages() {
+        return messages;
+    }
+
+    /**
+     * 获取增加的字节额度
+     *
+     * @return 字节数
+     */
+    public int getBytes() {
+        return bytes;
+    }
+
+}
@@ -0,0 +1,112 @@
+package cn.emay.socket.frame;
+
+import cn.emay.socket.journal.JournalRecord;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.util.List;
+
+/**
+ * 帧解码[业务数据帧输出帧体，交给DecodeHandler；逻辑流的帧输出MuxFrame；心跳帧输出HeartbeatFrame；额度帧输出CreditFrame；
+ * 发送日志帧输出JournalRecord，确认帧输出JournalAckFrame]
+ * <p>
+ * 帧头错误[长度为负、超过上限、类型未知]时数据已无法分帧，丢弃已接收的数据并关闭链接
+ *
+ * @author Frank
+ */
+public class FrameDecoder extends ByteToMessageDecoder {
+
+    /**
+     * 最大帧体长度
+     */
+    private final int maxFrameLength;
+
+    /**
+     * 是否已解码失败[之后的数据直接丢弃]
+     */
+    private boolean failed;
+
+    /**
+     * @param maxFrameLength 最大帧体长度[字节]
+     */
+    public FrameDecoder(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        if (failed) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+        try {
+            decodeFrames(in, out);
+        } catch (DecoderException e) {
+            failed = true;
+            in.skipBytes(in.readableBytes());
+            ctx.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 解码已接收数据中的完整帧
+     *
+     * @param in  已接收数据
+     * @param out 解码结果
+     */
+    private void decodeFrames(ByteBuf in, List<Object> out) {
+        while (in.readableBytes() >= FrameSupport.HEADER_LENGTH) {
+            int index = in.readerIndex();
+            int length = in.getInt(index);
+            if (length < 0) {
+                throw new CorruptedFrameException("negative frame length " + length);
+            }
+            if (length > maxFrameLength) {
+                throw new TooLongFrameException("frame length " + length + " exceeds " + maxFrameLength);
+            }
+            if (in.readableBytes() < FrameSupport.HEADER_LENGTH + length) {
+                return;
+            }
+            byte type = in.getByte(index + 4);
+            in.skipBytes(FrameSupport.HEADER_LENGTH);
+            if (type == FrameSupport.TYPE_DATA) {
+                out.add(in.readRetainedSlice(length));
+            } else if (type >= FrameSupport.TYPE_STREAM_OPEN && type <= FrameSupport.TYPE_STREAM_WINDOW) {
+                if (length < FrameSupport.STREAM_ID_LENGTH) {
+                    throw new CorruptedFrameException("stream frame length " + length + " too short");
+                }
+                int streamId = in.readInt();
+                out.add(new MuxFrame(type, streamId, in.readRetainedSlice(length - FrameSupport.STREAM_ID_LENGTH)));
+            } else if (type == FrameSupport.TYPE_PING || type == FrameSupport.TYPE_PONG) {
+                if (length != HeartbeatFrame.CONTENT_LENGTH) {
+                    throw new CorruptedFrameException("heartbeat frame length " + length + " is not " + HeartbeatFrame.CONTENT_LENGTH);
+                }
+                out.add(new HeartbeatFrame(type, in.readLong()));
+            } else if (type == FrameSupport.TYPE_CREDIT) {
+                if (length != CreditFrame.CONTENT_LENGTH) {
+                    throw new CorruptedFrameException("credit frame length " + length + " is not " + CreditFrame.CONTENT_LENGTH);
+                }
+                out.add(new CreditFrame(in.readInt(), in.readInt()));
+            } else if (type == FrameSupport.TYPE_JOURNAL) {
+                if (length < FrameSupport.SEQUENCE_LENGTH) {
+                    throw new CorruptedFrameException("journal frame length " + length + " too short");
+                }
+                long sequence = in.readLong();
+                out.add(new JournalRecord(sequence, in.readRetainedSlice(length - FrameSupport.SEQUENCE_LENGTH)));
+            } else if (type == FrameSupport.TYPE_JOURNAL_ACK) {
+                if (length != JournalAckFrame.CONTENT_LENGTH) {
+                    throw new CorruptedFrameException("journal ack frame length " + length + " is not " + JournalAckFrame.CONTENT_LENGTH);
+                }
+                out.add(new JournalAckFrame(in.readLong()));
+            } else {
+                throw new CorruptedFrameException("unknown frame type " + type);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package cn.emay.socket.frame;
+
+import cn.emay.socket.journal.JournalRecord;
+import cn.emay.socket.outbound.SegmentSupport;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 帧编码[编码后的消息或一批消息封装为一个业务数据帧，MuxFrame封装为逻辑流的帧，HeartbeatFrame、CreditFrame、JournalAckFrame封装为控制帧，
+ * JournalRecord封装为带序号的发送日志帧]
+ *
+ * @author Frank
+ */
+public class FrameEncoder extends MessageToMessageEncoder<Object> {
+
+    /**
+     * 帧头和帧体[只在IO线程中使用，复用]
+     */
+    private final List<Object> segments = new ArrayList<>(2);
+
+    @Override
+    public boolean acceptOutboundMessage(Object msg) {
+        return msg instanceof ByteBuf || msg instanceof MuxFrame || msg instanceof HeartbeatFrame || msg instanceof CreditFrame
+                || msg instanceof JournalRecord || msg instanceof JournalAckFrame;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) {
+        if (msg instanceof HeartbeatFrame) {
+            HeartbeatFrame frame = (HeartbeatFrame) msg;
+            ByteBuf buf = ctx.alloc().ioBuffer(FrameSupport.HEADER_LENGTH + HeartbeatFrame.CONTENT_LENGTH);
+            buf.writeInt(HeartbeatFrame.CONTENT_LENGTH);
+            buf.writeByte(frame.getType());
+            buf.writeLong(frame.getTimestamp());
+            out.add(buf);
+            return;
+        }
+        if (msg instanceof CreditFrame) {
+            CreditFrame frame = (CreditFrame) msg;
+            ByteBuf buf = ctx.alloc().ioBuffer(FrameSupport.HEADER_LENGTH + CreditFrame.CONTENT_LENGTH);
+            buf.writeInt(CreditFrame.CONTENT_LENGTH);
+            buf.writeByte(FrameSupport.TYPE_CREDIT);
+            buf.writeInt(frame.getMessages());
+            buf.writeInt(frame.getBytes());
+            out.add(buf);
+            return;
+        }
+        if (msg instanceof JournalAckFrame) {
+            ByteBuf buf = ctx.alloc().ioBuffer(FrameSupport.HEADER_LENGTH + JournalAckFrame.CONTENT_LENGTH);
+            buf.writeInt(JournalAckFrame.CONTENT_LENGTH);
+            buf.writeByte(FrameSupport.TYPE_JOURNAL_ACK);
+            buf.writeLong(((JournalAckFrame) msg).getSequence());
+            out.add(buf);
+            return;
+        }
+        ByteBuf header;
+        ByteBuf content;
+        if (msg instanceof MuxFrame) {
+            MuxFrame frame = (MuxFrame) msg;
+            content = frame.content();
+            header = ctx.alloc().ioBuffer(FrameSupport.HEADER_LENGTH + FrameSupport.STREAM_ID_LENGTH);
+            header.writeInt(FrameSupport.STREAM_ID_LENGTH + content.readableBytes());
+            header.writeByte(frame.getType());
+            header.writeInt(frame.getStreamId());
+        } else if (msg instanceof JournalRecord) {
+            JournalRecord record = (JournalRecord) msg;
+            content = record.content();
+            header = ctx.alloc().ioBuffer(FrameSupport.HEADER_LENGTH + FrameSupport.SEQUENCE_LENGTH);
+            header.writeInt(FrameSupport.SEQUENCE_LENGTH + content.readableBytes());
+            header.writeByte(FrameSupport.TYPE_JOURNAL);
+            header.writeLong(record.getSequence());
+        } else {
+            content = (ByteBuf) msg;
+            if (!content.isReadable()) {
+                out.add(content.retain());
+                return;
+            }
+            header = ctx.alloc().ioBuffer(FrameSupport.HEADER_LENGTH);
+            header.writeInt(content.readableBytes());
+            header.writeByte(FrameSupport.TYPE_DATA);
+        }
+        segments.add(header);
+        segments.add(content.retain());
+        try {
+            out.add(SegmentSupport.compose(ctx.alloc(), segments));
+        } finally {
+            segments.clear();
+        }
+    }
+
+}
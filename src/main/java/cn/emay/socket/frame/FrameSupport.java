@@ -0,0 +1,118 @@
+package cn.emay.socket.frame;
+
+import io.netty.channel.ChannelPipeline;
+
+/**
+ * 框架帧
+ * <p>
+ * 两端同时启用后，链接上的数据按帧传输：4字节帧体长度 + 1字节类型 + 帧体。
+ * 业务数据帧的帧体是一条或多条encode后的消息，接收端解开帧后交给decode，对业务编解码透明；
+ * 逻辑流的帧体以4字节流ID开头，由MuxFrame表示；心跳帧由HeartbeatFrame表示，发送额度帧由CreditFrame表示，均不经过业务处理；
+ * 发送日志重放的消息由JournalRecord表示，帧体在序号之后，对端处理后以JournalAckFrame确认
+ *
+ * @author Frank
+ */
+public class FrameSupport {
+
+    /**
+     * 帧头长度
+     */
+    public static final int HEADER_LENGTH = 5;
+
+    /**
+     * 业务数据帧
+     */
+    public static final byte TYPE_DATA = 1;
+
+    /**
+     * 打开逻辑流
+     */
+    public static final byte TYPE_STREAM_OPEN = 2;
+
+    /**
+     * 逻辑流的数据[一条encode后的消息]
+     */
+    public static final byte TYPE_STREAM_DATA = 3;
+
+    /**
+     * 关闭逻辑流
+     */
+    public static final byte TYPE_STREAM_CLOSE = 4;
+
+    /**
+     * 增加逻辑流的发送窗口[帧体为4字节增量]
+     */
+    public static final byte TYPE_STREAM_WINDOW = 5;
+
+    /**
+     * 心跳请求[帧体为8字节发送时间]
+     */
+    public static final byte TYPE_PING = 6;
+
+    /**
+     * 心跳应答[帧体为请求中的发送时间]
+     */
+    public static final byte TYPE_PONG = 7;
+
+    /**
+     * 发送额度[帧体为4字节消息数 + 4字节字节数]
+     */
+    public static final byte TYPE_CREDIT = 8;
+
+    /**
+     * 发送日志重放的消息[帧体为8字节序号 + 一条encode后的消息]
+     */
+    public static final byte TYPE_JOURNAL = 9;
+
+    /**
+     * 发送日志确认[帧体为8字节已处理的最大序号]
+     */
+    public static final byte TYPE_JOURNAL_ACK = 10;
+
+    /**
+     * 发送日志帧的序号长度
+     */
+    public static final int SEQUENCE_LENGTH = 8;
+
+    /**
+     * 逻辑流帧的流ID长度
+     */
+    public static final int STREAM_ID_LENGTH = 4;
+
+    /**
+     * 默认最大帧体长度[字节]
+     */
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * 帧编码处理器名字
+     */
+    public static final String FRAME_ENCODER = "FrameEncoder";
+
+    /**
+     * 帧解码处理器名字
+     */
+    public static final String FRAME_DECODER = "FrameDecoder";
+
+    /**
+     * 处理链是否启用了框架帧
+     *
+     * @param pipeline 处理链
+     * @return 是否启用
+     */
+    public static boolean isFramed(ChannelPipeline pipeline) {
+        return pipeline.get(FRAME_ENCODER) != null;
+    }
+
+    /**
+     * 在处理链中添加帧编解码[在ConnectHandler之后]
+     *
+     * @param pipeline       处理链
+     * @param maxFrameLength 最大帧体长度
+     */
+    public static void addFrameCodec(ChannelPipeline pipeline, int maxFrameLength) {
+        pipeline.addLast(FRAME_DECODER, new FrameDecoder(maxFrameLength));
+        pipeline.addLast(FRAME_ENCODER, new FrameEncoder());
+    }
+
+}
@@ -0,0 +1,81 @@
+package cn.emay.socket.frame;
+
+/**
+ * 心跳帧[帧体为8字节发送时间，PONG原样带回PING的发送时间]
+ *
+ * @author Frank
+ */
+public class HeartbeatFrame {
+
+    /**
+     * 帧体长度
+     */
+    public static final int CONTENT_LENGTH = 8;
+
+    /**
+     * 帧类型
+     */
+    private final byte type;
+
+    /**
+     * PING的发送时间[System.nanoTime()]
+     */
+    private final long timestamp;
+
+    /**
+     * @param type      帧类型
+     * @param timestamp PING的发送时间
+     */
+    public HeartbeatFrame(byte type, long timestamp) {
+        this.type = type;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * PING
+     *
+     * @param timestamp 发送时间
+     * @return 帧
+     */
+    public static HeartbeatFrame ping(long timestamp) {
+        return new HeartbeatFrame(FrameSupport.TYPE_PING, timestamp);
+    }
+
+    /**
+     * PONG
+     *
+     * @param timestamp 收到的PING的发送时间
+     * @return 帧
+     */
+    public static HeartbeatFrame pong(long timestamp) {
+        return new HeartbeatFrame(FrameSupport.TYPE_PONG, timestamp);
+    }
+
+    /**
+     * 是否PING
+     *
+     * @return 是否PING
+     */
+    public boolean isPing() {
+        return type == FrameSupport.TYPE_PING;
+    }
+
+    /**
+     * 获取帧类型
+     *
+     * @return 帧类型
+     */
+    public byte getType() {
+        return type;
+    }
+
+    /**
+     * 获取PING的发送时间
+     *
+     * @return 发送时间[System.nanoTime()]
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+}
@@ -0,0 +1,36 @@
+package cn.emay.socket.frame;
+
+/**
+ * 发送日志确认帧[帧体为8字节序号，由接收端发给重放发送日志的一端]
+ *
+ * @author Frank
+ */
+public class JournalAckFrame {
+
+    /**
+     * 帧体长度
+     */
+    public static final int CONTENT_LENGTH = FrameSupport.SEQUENCE_LENGTH;
+
+    /**
+     * 已处理的最大序号
+     */
+    private final long sequence;
+
+    /**
+     * @param sequence 已处理的最大序号
+     */
+    public JournalAckFrame(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * 获取已处理的最大序号
+     *
+     * @return 序号
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+}
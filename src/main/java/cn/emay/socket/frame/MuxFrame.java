@@ -0,0 +1,89 @@
+package cn.emay.socket.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.Unpooled;
+
+/**
+ * 逻辑流的帧[帧体前4字节为流ID]
+ *
+ * @author Frank
+ */
+public class MuxFrame extends DefaultByteBufHolder {
+
+    /**
+     * 帧类型
+     */
+    private final byte type;
+
+    /**
+     * 流ID
+     */
+    private final int streamId;
+
+    /**
+     * @param type     帧类型
+     * @param streamId 流ID
+     * @param content  帧内容[不含流ID]
+     */
+    public MuxFrame(byte type, int streamId, ByteBuf content) {
+        super(content);
+        this.type = type;
+        this.streamId = streamId;
+    }
+
+    /**
+     * 打开流
+     *
+     * @param streamId 流ID
+     * @return 帧
+     */
+    public static MuxFrame open(int streamId) {
+        return new MuxFrame(FrameSupport.TYPE_STREAM_OPEN, streamId, Unpooled.EMPTY_BUFFER);
+    }
+
+    /**
+     * 关闭流
+     *
+     * @param streamId 流ID
+     * @return 帧
+     */
+    public static MuxFrame close(int streamId) {
+        return new MuxFrame(FrameSupport.TYPE_STREAM_CLOSE, streamId, Unpooled.EMPTY_BUFFER);
+    }
+
+    /**
+     * 增加发送窗口
+     *
+     * @param streamId  流ID
+     * @param increment 增加的字节数
+     * @return 帧
+     */
+    public static MuxFrame window(int streamId, int increment) {
+        return new MuxFrame(FrameSupport.TYPE_STREAM_WINDOW, streamId, Unpooled.buffer(4, 4).writeInt(increment));
+    }
+
+    /**
+     * 获取帧类型
+     *
+     * @return 帧类型
+     */
+    public byte getType() {
+        return type;
+    }
+
+    /**
+     * 获取流ID
+     *
+     * @return 流ID
+     */
+    public int getStreamId() {
+        return streamId;
+    }
+
+    @Override
+    public MuxFrame replace(ByteBuf content) {
+        return new MuxFrame(type, streamId, content);
+    }
+
+}
@@ -0,0 +1,88 @@
+package cn.emay.socket.heartbeat;
+
+/**
+ * 心跳配置
+ *
+ * @author Frank
+ */
+public class HeartbeatConfig {
+
+    /**
+     * 发送PING的间隔[毫秒]
+     */
+    private long intervalMillis = 5000;
+
+    /**
+     * 连续多少个PING未收到PONG判定对端失效
+     */
+    private int maxMissed = 3;
+
+    /**
+     * RTT平滑系数[新样本的权重]
+     */
+    private double smoothing = 0.125;
+
+    /**
+     * 设置发送PING的间隔[默认5000毫秒]
+     *
+     * @param intervalMillis 间隔[毫秒]
+     */
+    public void setIntervalMillis(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * 获取发送PING的间隔
+     *
+     * @return 间隔[毫秒]
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * 设置连续多少个PING未收到PONG判定对端失效[默认3，失效后触发HeartbeatTimeoutEvent并断开链接]
+     *
+     * @param maxMissed 个数
+     */
+    public void setMaxMissed(int maxMissed) {
+        if (maxMissed <= 0) {
+            throw new IllegalArgumentException("max missed must be positive");
+        }
+        this.maxMissed = maxMissed;
+    }
+
+    /**
+     * 获取连续多少个PING未收到PONG判定对端失效
+     *
+     * @return 个数
+     */
+    public int getMaxMissed() {
+        return maxMissed;
+    }
+
+    /**
+     * 设置RTT平滑系数[默认0.125，越大越快反映最新的RTT]
+     *
+     * @param smoothing 系数(0, 1]
+     */
+    public void setSmoothing(double smoothing) {
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("smoothing must be in (0, 1]");
+        }
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * 获取RTT平滑系数
+     *
+     * @return 系数
+     */
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+}
@@ -0,0 +1,173 @@
+package cn.emay.socket.heartbeat;
+
+import cn.emay.socket.frame.HeartbeatFrame;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 心跳[每个链接一个，紧接框架帧编解码之后]
+ * <p>
+ * 按间隔发送PING，对端的同一处理器回复PONG，由往返时间计算平滑RTT；连续多个PING未收到PONG时触发HeartbeatTimeoutEvent并断开链接。
+ * 心跳帧不经过encode/decode，也不进入发送队列；未配置心跳的一端只回复PONG
+ *
+ * @author Frank
+ */
+public class HeartbeatHandler extends ChannelDuplexHandler {
+
+    /**
+     * 配置[为null只回复PONG]
+     */
+    private final HeartbeatConfig config;
+
+    /**
+     * 平滑RTT[纳秒，没有样本为-1]
+     */
+    private volatile double rttNanos = -1;
+
+    /**
+     * 最近一次RTT[纳秒，没有样本为-1]
+     */
+    private volatile long lastRttNanos = -1;
+
+    /**
+     * 未收到PONG的PING个数
+     */
+    private volatile int missed;
+
+    /**
+     * 发送PING的定时任务
+     */
+    private ScheduledFuture<?> pingTask;
+
+    /**
+     * RTT更新后的回调[为null不回调]
+     */
+    private volatile Runnable rttListener;
+
+    /**
+     * @param config 配置[为null只回复PONG]
+     */
+    public HeartbeatHandler(HeartbeatConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 获取链接上的心跳处理器
+     *
+     * @param channel 链接
+     * @return 处理器[未启用框架帧时为null]
+     */
+    public static HeartbeatHandler of(Channel channel) {
+        return channel.pipeline().get(HeartbeatHandler.class);
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (config != null) {
+            pingTask = ctx.executor().scheduleAtFixedRate(() -> ping(ctx), config.getIntervalMillis(), config.getIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        cancel();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        cancel();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof HeartbeatFrame)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        HeartbeatFrame frame = (HeartbeatFrame) msg;
+        if (frame.isPing()) {
+            ctx.writeAndFlush(HeartbeatFrame.pong(frame.getTimestamp()));
+            return;
+        }
+        long rtt = System.nanoTime() - frame.getTimestamp();
+        if (rtt < 0 || config == null) {
+            return;
+        }
+        lastRttNanos = rtt;
+        double smoothed = rttNanos;
+        rttNanos = smoothed < 0 ? rtt : smoothed + config.getSmoothing() * (rtt - smoothed);
+        missed = 0;
+        Runnable listener = rttListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 设置RTT更新后的回调[在IO线程中调用，不可阻塞]
+     *
+     * @param rttListener 回调[为null不回调]
+     */
+    public void setRttListener(Runnable rttListener) {
+        this.rttListener = rttListener;
+    }
+
+    /**
+     * 发送PING，超过未应答上限时判定对端失效
+     *
+     * @param ctx 链接
+     */
+    private void ping(ChannelHandlerContext ctx) {
+        if (missed >= config.getMaxMissed()) {
+            cancel();
+            ctx.pipeline().fireUserEventTriggered(new HeartbeatTimeoutEvent(missed, getRttMicros()));
+            ctx.close();
+            return;
+        }
+        missed++;
+        ctx.writeAndFlush(HeartbeatFrame.ping(System.nanoTime()));
+    }
+
+    private void cancel() {
+        if (pingTask != null) {
+            pingTask.cancel(false);
+            pingTask = null;
+        }
+    }
+
+    /**
+     * 获取平滑RTT
+     *
+     * @return RTT[微秒，没有样本为-1]
+     */
+    public long getRttMicros() {
+        double rtt = rttNanos;
+        return rtt < 0 ? -1 : (long) (rtt / 1000);
+    }
+
+    /**
+     * 获取最近一次RTT
+     *
+     * @return RTT[微秒，没有样本为-1]
+     */
+    public long getLastRttMicros() {
+        long rtt = lastRttNanos;
+        return rtt < 0 ? -1 : rtt / 1000;
+    }
+
+    /**
+     * 获取当前未收到PONG的PING个数
+     *
+     * @return 个数
+     */
+    public int getMissed() {
+        return missed;
+    }
+
+}
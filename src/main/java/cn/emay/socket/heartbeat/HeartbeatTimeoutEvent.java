@@ -0,0 +1,52 @@
+package cn.emay.socket.heartbeat;
+
+/**
+ * 心跳超时事件[连续多个PING未收到PONG，链接随后被断开]
+ *
+ * @author Frank
+ */
+public class HeartbeatTimeoutEvent {
+
+    /**
+     * 未收到PONG的PING个数
+     */
+    private final int missed;
+
+    /**
+     * 超时前的平滑RTT[微秒，没有样本为-1]
+     */
+    private final long rttMicros;
+
+    /**
+     * @param missed    未收到PONG的PING个数
+     * @param rttMicros 超时前的平滑RTT
+     */
+    public HeartbeatTimeoutEvent(int missed, long rttMicros) {
+        this.missed = missed;
+        this.rttMicros = rttMicros;
+    }
+
+    /**
+     * 获取未收到PONG的PING个数
+     *
+     * @return 个数
+     */
+    public int getMissed() {
+        return missed;
+    }
+
+    /**
+     * 获取超时前的平滑RTT
+     *
+     * @return RTT[微秒，没有样本为-1]
+     */
+    public long getRttMicros() {
+        return rttMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "HeartbeatTimeoutEvent{missed=" + missed + ", rttMicros=" + rttMicros + "}";
+    }
+
+}
@@ -0,0 +1,165 @@
+package cn.emay.socket.inbound;
+
+import io.netty.channel.Channel;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个统计单元[一个链接或一个IO线程]的接收积压
+ *
+ * @author Frank
+ */
+public class InboundBacklog {
+
+    /**
+     * 上限
+     */
+    private final InboundLimit limit;
+
+    /**
+     * 统计
+     */
+    private final InboundMetrics metrics;
+
+    /**
+     * 单元内的链接
+     */
+    final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 降到低水位时的回调
+     */
+    private final Set<Runnable> lowWaterListeners = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 积压的消息数
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * 是否已暂停读取
+     */
+    private volatile boolean paused;
+
+    /**
+     * @param limit   上限
+     * @param metrics 统计
+     */
+    InboundBacklog(InboundLimit limit, InboundMetrics metrics) {
+        this.limit = limit;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 交给业务线程池一条消息[IO线程调用]
+     */
+    public void dispatched() {
+        metrics.onDispatch();
+        if (pending.incrementAndGet() >= limit.getHighWaterMark() && !paused) {
+            pause();
+        }
+    }
+
+    /**
+     * 处理完一条消息[业务线程调用]
+     */
+    public void processed() {
+        metrics.onProcessed();
+        int current = pending.decrementAndGet();
+        // 低水位以下只要已暂停就恢复；pause()设置标记后也会复查，两边不会同时错过
+        if (current <= limit.getLowWaterMark() && paused) {
+            resume();
+        }
+        if (current == limit.getLowWaterMark()) {
+            for (Runnable listener : lowWaterListeners) {
+                listener.run();
+            }
+        }
+    }
+
+    /**
+     * 积压是否高于低水位
+     *
+     * @return 是否高于低水位
+     */
+    public boolean isAboveLowWater() {
+        return pending.get() > limit.getLowWaterMark();
+    }
+
+    /**
+     * 添加降到低水位时的回调
+     *
+     * @param listener 回调
+     */
+    public void addLowWaterListener(Runnable listener) {
+        lowWaterListeners.add(listener);
+    }
+
+    /**
+     * 删除降到低水位时的回调
+     *
+     * @param listener 回调
+     */
+    public void removeLowWaterListener(Runnable listener) {
+        lowWaterListeners.remove(listener);
+    }
+
+    private synchronized void pause() {
+        if (paused || pending.get() < limit.getHighWaterMark()) {
+            return;
+        }
+        paused = true;
+        for (Channel channel : channels) {
+            channel.config().setAutoRead(false);
+        }
+        metrics.onPaused();
+        // 检查后、设置标记前积压可能已降到低水位，处理线程看到未暂停不会恢复
+        if (pending.get() <= limit.getLowWaterMark()) {
+            resume();
+        }
+    }
+
+    private synchronized void resume() {
+        if (!paused || pending.get() > limit.getLowWaterMark()) {
+            return;
+        }
+        paused = false;
+        for (Channel channel : channels) {
+            channel.config().setAutoRead(true);
+        }
+        metrics.onResumed();
+    }
+
+    /**
+     * 新链接加入单元[单元已暂停时新链接也暂停读取]
+     *
+     * @param channel 链接
+     */
+    synchronized void add(Channel channel) {
+        channels.add(channel);
+        if (paused) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    /**
+     * 获取积压的消息数
+     *
+     * @return 消息数
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * 是否已暂停读取
+     *
+     * @return 是否暂停
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+}
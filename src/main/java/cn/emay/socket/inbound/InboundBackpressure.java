@@ -0,0 +1,69 @@
+package cn.emay.socket.inbound;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 接收背压[每个SocketServer、SocketClient一个]
+ * <p>
+ * 按InboundLimit的统计范围为每个链接或每个IO线程分配积压统计，积压超过高水位时关闭autoRead，降到低水位时恢复
+ *
+ * @author Frank
+ */
+public class InboundBackpressure {
+
+    /**
+     * 上限
+     */
+    private final InboundLimit limit;
+
+    /**
+     * 统计
+     */
+    private final InboundMetrics metrics;
+
+    /**
+     * 每个IO线程的积压[EVENT_LOOP范围]
+     */
+    private final Map<EventLoop, InboundBacklog> loops = new ConcurrentHashMap<>();
+
+    /**
+     * @param limit   上限
+     * @param metrics 统计
+     */
+    public InboundBackpressure(InboundLimit limit, InboundMetrics metrics) {
+        this.limit = limit;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 链接建立时登记
+     *
+     * @param channel 链接
+     * @return 链接所属的积压统计
+     */
+    public InboundBacklog register(Channel channel) {
+        InboundBacklog backlog;
+        if (limit.getScope() == InboundScope.EVENT_LOOP) {
+            backlog = loops.computeIfAbsent(channel.eventLoop(), loop -> new InboundBacklog(limit, metrics));
+        } else {
+            backlog = new InboundBacklog(limit, metrics);
+        }
+        backlog.add(channel);
+        return backlog;
+    }
+
+    /**
+     * 链接断开时注销[链接上尚未处理完的消息仍计入积压，处理完后减少]
+     *
+     * @param channel 链接
+     * @param backlog 链接所属的积压统计
+     */
+    public void unregister(Channel channel, InboundBacklog backlog) {
+        backlog.channels.remove(channel);
+    }
+
+}
@@ -0,0 +1,71 @@
+package cn.emay.socket.inbound;
+
+/**
+ * 接收积压上限
+ * <p>
+ * 积压 = 已解码、交给业务线程池但尚未处理完的消息数。超过高水位时暂停读取，TCP流控使对端放慢发送；降到低水位时恢复读取
+ *
+ * @author Frank
+ */
+public class InboundLimit {
+
+    /**
+     * 低水位[消息数]
+     */
+    private final int lowWaterMark;
+
+    /**
+     * 高水位[消息数]
+     */
+    private final int highWaterMark;
+
+    /**
+     * 统计范围
+     */
+    private final InboundScope scope;
+
+    /**
+     * @param lowWaterMark  低水位[消息数，降到此值恢复读取]
+     * @param highWaterMark 高水位[消息数，达到此值暂停读取]
+     * @param scope         统计范围
+     */
+    public InboundLimit(int lowWaterMark, int highWaterMark, InboundScope scope) {
+        if (scope == null) {
+            throw new NullPointerException();
+        }
+        if (lowWaterMark < 0 || highWaterMark <= lowWaterMark) {
+            throw new IllegalArgumentException("lowWaterMark: " + lowWaterMark + ", highWaterMark: " + highWaterMark);
+        }
+        this.lowWaterMark = lowWaterMark;
+        this.highWaterMark = highWaterMark;
+        this.scope = scope;
+    }
+
+    /**
+     * 获取低水位
+     *
+     * @return 消息数
+     */
+    public int getLowWaterMark() {
+        return lowWaterMark;
+    }
+
+    /**
+     * 获取高水位
+     *
+     * @return 消息数
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * 获取统计范围
+     *
+     * @return 统计范围
+     */
+    public InboundScope getScope() {
+        return scope;
+    }
+
+}
@@ -0,0 +1,90 @@
+package cn.emay.socket.inbound;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 接收积压统计[所有链接汇总]
+ *
+ * @author Frank
+ */
+public class InboundMetrics {
+
+    /**
+     * 积压中的消息数
+     */
+    private final LongAdder pending = new LongAdder();
+
+    /**
+     * 已处理的消息数
+     */
+    private final LongAdder processed = new LongAdder();
+
+    /**
+     * 暂停读取的次数
+     */
+    private final LongAdder paused = new LongAdder();
+
+    /**
+     * 恢复读取的次数
+     */
+    private final LongAdder resumed = new LongAdder();
+
+    void onDispatch() {
+        pending.increment();
+    }
+
+    void onProcessed() {
+        pending.decrement();
+        processed.increment();
+    }
+
+    void onPaused() {
+        paused.increment();
+    }
+
+    void onResumed() {
+        resumed.increment();
+    }
+
+    /**
+     * 获取积压中的消息数
+     *
+     * @return 消息数
+     */
+    public long getPending() {
+        return pending.sum();
+    }
+
+    /**
+     * 获取已处理的消息数
+     *
+     * @return 消息数
+     */
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    /**
+     * 获取暂停读取的次数
+     *
+     * @return 次数
+     */
+    public long getPaused() {
+        return paused.sum();
+    }
+
+    /**
+     * 获取恢复读取的次数
+     *
+     * @return 次数
+     */
+    public long getResumed() {
+        return resumed.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "InboundMetrics{pending=" + getPending() + ", processed=" + getProcessed() + ", paused=" + getPaused() + ", resumed=" + getResumed() + "}";
+    }
+
+}
@@ -0,0 +1,20 @@
+package cn.emay.socket.inbound;
+
+/**
+ * 接收积压的统计范围
+ *
+ * @author Frank
+ */
+public enum InboundScope {
+
+    /**
+     * 每个链接单独统计，只暂停积压的链接
+     */
+    CHANNEL,
+
+    /**
+     * 同一IO线程上的链接合并统计，超过上限时暂停该线程上的所有链接
+     */
+    EVENT_LOOP
+
+}
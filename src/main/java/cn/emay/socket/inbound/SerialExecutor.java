@@ -0,0 +1,80 @@
+package cn.emay.socket.inbound;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 按提交顺序串行执行任务[每个链接一个，共享业务线程池]
+ * <p>
+ * 同一个链接的消息按接收顺序处理，不同链接的消息在线程池中并行处理
+ *
+ * @author Frank
+ */
+public class SerialExecutor implements Executor {
+
+    /**
+     * 业务线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 待执行的任务
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 是否已提交到线程池
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * 依次执行任务
+     */
+    private final Runnable drain = this::drain;
+
+    /**
+     * @param executor 业务线程池
+     */
+    public SerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        try {
+            schedule();
+        } catch (RuntimeException e) {
+            tasks.remove(task);
+            throw e;
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(drain);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        } finally {
+            scheduled.set(false);
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package cn.emay.socket.journal;
+
+/**
+ * 发送日志消息的确认标记
+ * <p>
+ * 接收端解开发送日志帧后，在消息之后沿处理链传递，由业务处理器在之前的消息处理完成后调用complete()，向对端确认该序号
+ *
+ * @author Frank
+ */
+public class JournalAck {
+
+    /**
+     * 所属链接的确认处理器
+     */
+    private final JournalAckHandler handler;
+
+    /**
+     * 序号
+     */
+    private final long sequence;
+
+    /**
+     * @param handler  所属链接的确认处理器
+     * @param sequence 序号
+     */
+    JournalAck(JournalAckHandler handler, long sequence) {
+        this.handler = handler;
+        this.sequence = sequence;
+    }
+
+    /**
+     * 获取序号
+     *
+     * @return 序号
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * 消息已处理，向对端确认[可在任意线程调用]
+     */
+    public void complete() {
+        handler.processed(sequence);
+    }
+
+}
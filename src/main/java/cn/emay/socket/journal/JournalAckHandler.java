@@ -0,0 +1,97 @@
+package cn.emay.socket.journal;
+
+import cn.emay.socket.frame.JournalAckFrame;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * 发送日志的确认[每个链接一个，紧接心跳处理器之后]
+ * <p>
+ * 接收端：发送日志帧的消息交给后续处理器decode，随后传递JournalAck标记，业务处理完成后回复已处理的最大序号，
+ * 同一轮IO中的多次确认合并为一个确认帧；发送端：收到确认帧后交给重放确认日志
+ *
+ * @author Frank
+ */
+public class JournalAckHandler extends ChannelDuplexHandler {
+
+    /**
+     * 收到对端确认[不重放发送日志的一端为null]
+     */
+    private final LongConsumer acknowledged;
+
+    /**
+     * 已处理的最大序号
+     */
+    private final AtomicLong processed = new AtomicLong(-1);
+
+    /**
+     * 是否已安排发送确认帧
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * 链接
+     */
+    private ChannelHandlerContext ctx;
+
+    /**
+     * @param acknowledged 收到对端确认[不重放发送日志的一端为null]
+     */
+    public JournalAckHandler(LongConsumer acknowledged) {
+        this.acknowledged = acknowledged;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof JournalAckFrame) {
+            if (acknowledged != null) {
+                acknowledged.accept(((JournalAckFrame) msg).getSequence());
+            }
+            return;
+        }
+        if (!(msg instanceof JournalRecord)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        JournalRecord record = (JournalRecord) msg;
+        ctx.fireChannelRead(record.content());
+        if (acknowledged == null) {
+            ctx.fireChannelRead(new JournalAck(this, record.getSequence()));
+        }
+    }
+
+    /**
+     * 消息已处理，在IO线程中发送确认帧[可在任意线程调用]
+     *
+     * @param sequence 序号
+     */
+    void processed(long sequence) {
+        processed.accumulateAndGet(sequence, Math::max);
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            ctx.executor().execute(this::writeAck);
+        } catch (RejectedExecutionException e) {
+            // 线程组已关闭
+        }
+    }
+
+    private void writeAck() {
+        scheduled.set(false);
+        if (ctx.channel().isActive()) {
+            ctx.writeAndFlush(new JournalAckFrame(processed.get()));
+        }
+    }
+
+}
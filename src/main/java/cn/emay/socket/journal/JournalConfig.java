@@ -0,0 +1,177 @@
+package cn.emay.socket.journal;
+
+import java.nio.file.Path;
+
+/**
+ * 发送日志配置
+ * <p>
+ * 没有可用链接时，编码后的消息顺序写入内存映射的分段文件，不占用堆内存；链接恢复后按顺序重放，
+ * 写出成功后确认，确认位置持久化，进程重启后从未确认的消息继续重放[至少一次]
+ *
+ * @author Frank
+ */
+public class JournalConfig {
+
+    /**
+     * 日志目录
+     */
+    private final Path directory;
+
+    /**
+     * 每个分段文件的大小[字节]
+     */
+    private int segmentBytes = 64 * 1024 * 1024;
+
+    /**
+     * 日志占用的最大磁盘空间[字节，超过时丢弃最早的分段]
+     */
+    private long maxBytes = 1024L * 1024 * 1024;
+
+    /**
+     * 消息保留时间[毫秒，超时未发出的消息丢弃，为0不限制]
+     */
+    private long retentionMillis = 0;
+
+    /**
+     * 每批重放的消息数
+     */
+    private int replayBatchMessages = 256;
+
+    /**
+     * 重放失败后的重试间隔[毫秒]
+     */
+    private long retryIntervalMillis = 1000;
+
+    /**
+     * @param directory 日志目录[不存在时创建，一个目录只能被一个客户端使用]
+     */
+    public JournalConfig(Path directory) {
+        if (directory == null) {
+            throw new NullPointerException();
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * 获取日志目录
+     *
+     * @return 目录
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 设置每个分段文件的大小[默认64MB]
+     * <p>
+     * 单条消息不能超过一个分段
+     *
+     * @param segmentBytes 字节数
+     */
+    public void setSegmentBytes(int segmentBytes) {
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("segmentBytes: " + segmentBytes + " (expected: >= 4096)");
+        }
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * 获取每个分段文件的大小
+     *
+     * @return 字节数
+     */
+    public int getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    /**
+     * 设置日志占用的最大磁盘空间[默认1GB]
+     * <p>
+     * 新建分段将超过上限时，丢弃最早的分段[其中未发出的消息丢失]
+     *
+     * @param maxBytes 字节数
+     */
+    public void setMaxBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes: " + maxBytes + " (expected: > 0)");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取日志占用的最大磁盘空间
+     *
+     * @return 字节数
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 设置消息保留时间[默认不限制]
+     * <p>
+     * 写入日志超过此时间的消息在重放时跳过，全部超时的分段在新建分段时删除
+     *
+     * @param retentionMillis 毫秒[为0不限制]
+     */
+    public void setRetentionMillis(long retentionMillis) {
+        if (retentionMillis < 0) {
+            throw new IllegalArgumentException("retentionMillis: " + retentionMillis + " (expected: >= 0)");
+        }
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * 获取消息保留时间
+     *
+     * @return 毫秒[为0不限制]
+     */
+    public long getRetentionMillis() {
+        return retentionMillis;
+    }
+
+    /**
+     * 设置每批重放的消息数[默认256]
+     * <p>
+     * 一批写出完成后再读取下一批，链接不可写时重放随之放慢
+     *
+     * @param replayBatchMessages 消息数
+     */
+    public void setReplayBatchMessages(int replayBatchMessages) {
+        if (replayBatchMessages <= 0) {
+            throw new IllegalArgumentException("replayBatchMessages: " + replayBatchMessages + " (expected: > 0)");
+        }
+        this.replayBatchMessages = replayBatchMessages;
+    }
+
+    /**
+     * 获取每批重放的消息数
+     *
+     * @return 消息数
+     */
+    public int getReplayBatchMessages() {
+        return replayBatchMessages;
+    }
+
+    /**
+     * 设置重放失败后的重试间隔[默认1000毫秒]
+     *
+     * @param retryIntervalMillis 毫秒
+     */
+    public void setRetryIntervalMillis(long retryIntervalMillis) {
+        if (retryIntervalMillis <= 0) {
+            throw new IllegalArgumentException("retryIntervalMillis: " + retryIntervalMillis + " (expected: > 0)");
+        }
+        this.retryIntervalMillis = retryIntervalMillis;
+    }
+
+    /**
+     * 获取重放失败后的重试间隔
+     *
+     * @return 毫秒
+     */
+    public long getRetryIntervalMillis() {
+        return retryIntervalMillis;
+    }
+
+}
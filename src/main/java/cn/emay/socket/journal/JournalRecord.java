@@ -0,0 +1,41 @@
+package cn.emay.socket.journal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+/**
+ * 从发送日志读出的一条已编码消息[写出时不再经过encode]
+ *
+ * @author Frank
+ */
+public class JournalRecord extends DefaultByteBufHolder {
+
+    /**
+     * 序号
+     */
+    private final long sequence;
+
+    /**
+     * @param sequence 序号
+     * @param content  编码后的消息
+     */
+    public JournalRecord(long sequence, ByteBuf content) {
+        super(content);
+        this.sequence = sequence;
+    }
+
+    /**
+     * 获取序号
+     *
+     * @return 序号
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public JournalRecord replace(ByteBuf content) {
+        return new JournalRecord(sequence, content);
+    }
+
+}
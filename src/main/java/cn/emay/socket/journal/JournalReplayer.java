@@ -0,0 +1,204 @@
+package cn.emay.socket.journal;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 发送日志的重放
+ * <p>
+ * 同一时间只在一个链接上重放；在链接的IO线程中按批读取，以发送日志帧写出[带序号]，对端业务处理完成后回复确认帧，收到确认后推进确认位置。
+ * 已写出未确认的消息达到一批时等待确认再读取下一批。写出失败、链接断开或换到其他链接时回到确认位置重新写出[至少一次，对端可能收到重复消息]
+ *
+ * @author Frank
+ */
+public class JournalReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalReplayer.class);
+
+    /**
+     * 日志
+     */
+    private final OutboundJournal journal;
+
+    /**
+     * 选择可用链接[没有时返回null]
+     */
+    private final Supplier<Channel> channels;
+
+    /**
+     * 配置
+     */
+    private final JournalConfig config;
+
+    /**
+     * 是否正在重放
+     */
+    private boolean replaying;
+
+    /**
+     * 是否在等待对端确认
+     */
+    private boolean waiting;
+
+    /**
+     * 最近一次重放的链接[其上可能有未确认的消息]
+     */
+    private Channel current;
+
+    /**
+     * @param journal  日志
+     * @param channels 选择可用链接[没有时返回null]
+     * @param config   配置
+     */
+    public JournalReplayer(OutboundJournal journal, Supplier<Channel> channels, JournalConfig config) {
+        this.journal = journal;
+        this.channels = channels;
+        this.config = config;
+    }
+
+    /**
+     * 有未读取的消息且没有在重放时，选择可用链接开始重放[可在任意线程重复调用]
+     */
+    public void replay() {
+        if (!journal.hasUnread()) {
+            return;
+        }
+        Channel channel;
+        synchronized (this) {
+            if (replaying) {
+                return;
+            }
+            channel = channels.get();
+            if (channel == null) {
+                return;
+            }
+            if (channel != current) {
+                // 之前链接上已写出的消息不一定会被确认
+                journal.rewind();
+                current = channel;
+            }
+            replaying = true;
+            waiting = false;
+        }
+        try {
+            channel.eventLoop().execute(() -> next(channel));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                if (current == channel) {
+                    replaying = false;
+                    current = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 收到对端确认[链接的IO线程]
+     *
+     * @param sequence 对端已处理的最大序号
+     */
+    public void acknowledged(long sequence) {
+        journal.acknowledge(sequence);
+        Channel channel;
+        synchronized (this) {
+            if (!waiting) {
+                return;
+            }
+            waiting = false;
+            channel = current;
+        }
+        try {
+            channel.eventLoop().execute(() -> next(channel));
+        } catch (RejectedExecutionException e) {
+            stop(channel);
+        }
+    }
+
+    /**
+     * 链接已断开[链接的IO线程]，重放中或有未确认消息时回到确认位置
+     *
+     * @param channel 链接
+     */
+    public void closed(Channel channel) {
+        stop(channel);
+    }
+
+    /**
+     * 是否正在重放
+     *
+     * @return 是否正在重放
+     */
+    public synchronized boolean isReplaying() {
+        return replaying;
+    }
+
+    /**
+     * 写出下一批[IO线程]
+     */
+    private void next(Channel channel) {
+        if (!channel.isActive()) {
+            stop(channel);
+            return;
+        }
+        synchronized (this) {
+            if (current != channel || !replaying) {
+                return;
+            }
+            if (journal.getInFlightCount() >= config.getReplayBatchMessages()) {
+                waiting = true;
+                return;
+            }
+        }
+        List<JournalRecord> batch = journal.read(channel.alloc(), config.getReplayBatchMessages());
+        if (batch.isEmpty()) {
+            synchronized (this) {
+                replaying = false;
+            }
+            // 读完后到清除标记之间可能写入了新消息
+            replay();
+            return;
+        }
+        ChannelFuture last = null;
+        for (JournalRecord record : batch) {
+            last = channel.write(record);
+        }
+        channel.flush();
+        last.addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                next(channel);
+            } else {
+                logger.warn("journal replay on channel[" + channel.id() + "] error : " + future.cause());
+                stop(channel);
+            }
+        });
+    }
+
+    /**
+     * 回到确认位置，稍后重试[链接不是最近一次重放的链接时忽略]
+     */
+    private void stop(Channel channel) {
+        synchronized (this) {
+            if (current != channel) {
+                return;
+            }
+            current = null;
+            replaying = false;
+            waiting = false;
+            journal.rewind();
+        }
+        try {
+            channel.eventLoop().schedule(this::replay, config.getRetryIntervalMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 线程组已关闭
+        }
+    }
+
+}
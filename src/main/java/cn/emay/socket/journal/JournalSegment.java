@@ -0,0 +1,249 @@
+package cn.emay.socket.journal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 发送日志的一个分段文件[内存映射，只在持有OutboundJournal锁时访问]
+ * <p>
+ * 文件名为第一条消息的序号；每条记录为 长度+1(int) + 写入时间(long) + 消息，长度字段为0表示分段结束
+ *
+ * @author Frank
+ */
+class JournalSegment {
+
+    /**
+     * 文件后缀
+     */
+    static final String SUFFIX = ".journal";
+
+    /**
+     * 记录头长度
+     */
+    static final int HEADER_LENGTH = 12;
+
+    /**
+     * 第一条消息的序号
+     */
+    private final long baseSequence;
+
+    /**
+     * 文件
+     */
+    private final Path file;
+
+    /**
+     * 映射的文件内容
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * 消息数
+     */
+    private int count;
+
+    /**
+     * 写入位置
+     */
+    private int writePosition;
+
+    /**
+     * 最后一条消息的写入时间[毫秒]
+     */
+    private long lastTimestamp;
+
+    private JournalSegment(long baseSequence, Path file, MappedByteBuffer buffer) {
+        this.baseSequence = baseSequence;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    /**
+     * 新建分段
+     *
+     * @param directory    目录
+     * @param baseSequence 第一条消息的序号
+     * @param size         文件大小
+     * @return 分段
+     * @throws IOException 创建文件失败
+     */
+    static JournalSegment create(Path directory, long baseSequence, int size) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", baseSequence, SUFFIX));
+        return new JournalSegment(baseSequence, file, map(file, size));
+    }
+
+    /**
+     * 加载已有的分段并找到写入位置
+     *
+     * @param file 文件
+     * @return 分段
+     * @throws IOException 读取文件失败
+     */
+    static JournalSegment load(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        long baseSequence = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        JournalSegment segment = new JournalSegment(baseSequence, file, map(file, (int) Files.size(file)));
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER_LENGTH <= buffer.capacity()) {
+            int field = buffer.getInt(position);
+            if (field <= 0 || position + HEADER_LENGTH + field - 1 > buffer.capacity()) {
+                break;
+            }
+            segment.lastTimestamp = buffer.getLong(position + 4);
+            segment.count++;
+            position += HEADER_LENGTH + field - 1;
+        }
+        segment.writePosition = position;
+        return segment;
+    }
+
+    /**
+     * 判断是否分段文件
+     *
+     * @param file 文件
+     * @return 是否分段文件
+     */
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(SUFFIX) || name.length() == SUFFIX.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length() - SUFFIX.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * 追加一条消息
+     *
+     * @param message   编码后的消息
+     * @param timestamp 写入时间[毫秒]
+     * @return 是否写入[剩余空间不足为false]
+     */
+    boolean append(ByteBuf message, long timestamp) {
+        int length = message.readableBytes();
+        if (writePosition + HEADER_LENGTH + length > buffer.capacity()) {
+            return false;
+        }
+        ByteBuffer target = buffer.duplicate();
+        target.limit(writePosition + HEADER_LENGTH + length).position(writePosition + HEADER_LENGTH);
+        message.getBytes(message.readerIndex(), target);
+        buffer.putLong(writePosition + 4, timestamp);
+        // 长度最后写入，进程中断时不会留下不完整的记录
+        buffer.putInt(writePosition, length + 1);
+        writePosition += HEADER_LENGTH + length;
+        lastTimestamp = timestamp;
+        count++;
+        return true;
+    }
+
+    /**
+     * 查找一条消息的位置
+     *
+     * @param sequence 序号[在本分段内]
+     * @return 记录位置
+     */
+    int position(long sequence) {
+        int position = 0;
+        for (long i = baseSequence; i < sequence; i++) {
+            position += HEADER_LENGTH + length(position);
+        }
+        return position;
+    }
+
+    /**
+     * 获取记录中消息的长度
+     *
+     * @param position 记录位置
+     * @return 字节数
+     */
+    int length(int position) {
+        return buffer.getInt(position) - 1;
+    }
+
+    /**
+     * 获取记录的写入时间
+     *
+     * @param position 记录位置
+     * @return 毫秒
+     */
+    long timestamp(int position) {
+        return buffer.getLong(position + 4);
+    }
+
+    /**
+     * 读取记录中的消息
+     *
+     * @param position 记录位置
+     * @param target   目标
+     */
+    void read(int position, ByteBuf target) {
+        ByteBuffer source = buffer.duplicate();
+        source.limit(position + HEADER_LENGTH + length(position)).position(position + HEADER_LENGTH);
+        target.writeBytes(source);
+    }
+
+    long getBaseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * 获取最后一条消息的序号
+     *
+     * @return 序号[没有消息时为第一条消息的序号-1]
+     */
+    long getLastSequence() {
+        return baseSequence + count - 1;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    int getSize() {
+        return buffer.capacity();
+    }
+
+    /**
+     * 解除映射
+     */
+    void close() {
+        PlatformDependent.freeDirectBuffer(buffer);
+    }
+
+    /**
+     * 解除映射并删除文件
+     *
+     * @throws IOException 删除失败
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+}
@@ -0,0 +1,413 @@
+package cn.emay.socket.journal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 发送日志
+ * <p>
+ * 消息按序号顺序写入内存映射的分段文件；读取位置与确认位置分开，写出失败或链接断开时读取位置回到确认位置之后，
+ * 确认位置写入checkpoint文件，全部确认的分段被删除。所有方法线程安全
+ *
+ * @author Frank
+ */
+public class OutboundJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundJournal.class);
+
+    /**
+     * 确认位置文件
+     */
+    private static final String CHECKPOINT = "checkpoint";
+
+    /**
+     * 配置
+     */
+    private final JournalConfig config;
+
+    /**
+     * 分段[按序号排列，最后一个为写入分段]
+     */
+    private final List<JournalSegment> segments = new ArrayList<>();
+
+    /**
+     * 映射的确认位置
+     */
+    private final MappedByteBuffer checkpoint;
+
+    /**
+     * 最后写入的序号
+     */
+    private long lastSequence;
+
+    /**
+     * 已确认的序号[之前的消息都已确认]
+     */
+    private long ackedSequence;
+
+    /**
+     * 下一条读取的序号
+     */
+    private long readSequence;
+
+    /**
+     * 读取所在的分段[为null时按读取序号重新定位]
+     */
+    private JournalSegment readSegment;
+
+    /**
+     * 读取位置
+     */
+    private int readPosition;
+
+    private long appendedCount;
+
+    private long acknowledgedCount;
+
+    private long expiredCount;
+
+    private long droppedCount;
+
+    private boolean closed;
+
+    private OutboundJournal(JournalConfig config, MappedByteBuffer checkpoint) {
+        this.config = config;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * 打开日志目录并恢复未确认的消息
+     *
+     * @param config 配置
+     * @return 日志
+     * @throws IOException 读写目录失败
+     */
+    public static OutboundJournal open(JournalConfig config) throws IOException {
+        Path directory = config.getDirectory();
+        Files.createDirectories(directory);
+        MappedByteBuffer checkpoint;
+        try (RandomAccessFile raf = new RandomAccessFile(directory.resolve(CHECKPOINT).toFile(), "rw")) {
+            if (raf.length() < 8) {
+                raf.setLength(8);
+            }
+            checkpoint = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 8);
+        }
+        OutboundJournal journal = new OutboundJournal(config, checkpoint);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (JournalSegment.isSegment(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files, Comparator.comparing(file -> file.getFileName().toString()));
+        for (Path file : files) {
+            journal.segments.add(JournalSegment.load(file));
+        }
+        journal.recover();
+        return journal;
+    }
+
+    private void recover() throws IOException {
+        ackedSequence = checkpoint.getLong(0);
+        if (segments.isEmpty()) {
+            lastSequence = ackedSequence;
+        } else {
+            ackedSequence = Math.max(ackedSequence, segments.get(0).getBaseSequence() - 1);
+            lastSequence = segments.get(segments.size() - 1).getLastSequence();
+        }
+        readSequence = ackedSequence + 1;
+        deleteAcknowledged();
+        if (lastSequence > ackedSequence) {
+            logger.info("journal[" + config.getDirectory() + "] recovered " + (lastSequence - ackedSequence) + " unacknowledged messages");
+        }
+    }
+
+    /**
+     * 写入一条编码后的消息
+     *
+     * @param message 消息[不释放]
+     * @return 序号
+     * @throws IOException 新建分段失败
+     */
+    public synchronized long append(ByteBuf message) throws IOException {
+        if (closed) {
+            throw new IllegalArgumentException("journal is closed");
+        }
+        if (JournalSegment.HEADER_LENGTH + message.readableBytes() > config.getSegmentBytes()) {
+            throw new IllegalArgumentException("message length " + message.readableBytes() + " is larger than journal segment");
+        }
+        long now = System.currentTimeMillis();
+        JournalSegment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (active == null || !active.append(message, now)) {
+            active = roll(now);
+            active.append(message, now);
+        }
+        appendedCount++;
+        return ++lastSequence;
+    }
+
+    /**
+     * 新建写入分段，先按保留时间和磁盘空间丢弃最早的分段
+     */
+    private JournalSegment roll(long now) throws IOException {
+        if (config.getRetentionMillis() > 0) {
+            while (!segments.isEmpty() && segments.get(0).getLastTimestamp() < now - config.getRetentionMillis()) {
+                expiredCount += discard(segments.get(0));
+            }
+        }
+        long used = 0;
+        for (JournalSegment segment : segments) {
+            used += segment.getSize();
+        }
+        while (!segments.isEmpty() && used + config.getSegmentBytes() > config.getMaxBytes()) {
+            JournalSegment oldest = segments.get(0);
+            used -= oldest.getSize();
+            long lost = discard(oldest);
+            if (lost > 0) {
+                droppedCount += lost;
+                logger.warn("journal[" + config.getDirectory() + "] is full, dropped " + lost + " messages");
+            }
+        }
+        JournalSegment segment = JournalSegment.create(config.getDirectory(), lastSequence + 1, config.getSegmentBytes());
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * 丢弃最早的分段
+     *
+     * @return 其中未确认的消息数
+     */
+    private long discard(JournalSegment segment) throws IOException {
+        long lost = Math.max(0, segment.getLastSequence() - ackedSequence);
+        if (lost > 0) {
+            advance(segment.getLastSequence());
+        }
+        if (!segments.isEmpty() && segments.get(0) == segment) {
+            segments.remove(0);
+            segment.delete();
+        }
+        return lost;
+    }
+
+    /**
+     * 按顺序读取未读的消息[超过保留时间的消息跳过]
+     *
+     * @param alloc 分配器
+     * @param max   最多读取的消息数
+     * @return 消息[由调用方写出或释放]
+     */
+    public synchronized List<JournalRecord> read(ByteBufAllocator alloc, int max) {
+        if (closed || readSequence > lastSequence) {
+            return Collections.emptyList();
+        }
+        List<JournalRecord> records = new ArrayList<>(Math.min(max, (int) Math.min(Integer.MAX_VALUE, lastSequence - readSequence + 1)));
+        long expireBefore = config.getRetentionMillis() > 0 ? System.currentTimeMillis() - config.getRetentionMillis() : 0;
+        while (records.size() < max && readSequence <= lastSequence) {
+            if (readSegment == null || readSequence > readSegment.getLastSequence()) {
+                seek();
+            }
+            int length = readSegment.length(readPosition);
+            // 只有没有未确认的读出消息时才能确认跳过的消息
+            if (records.isEmpty() && readSequence == ackedSequence + 1 && readSegment.timestamp(readPosition) < expireBefore) {
+                readPosition += JournalSegment.HEADER_LENGTH + length;
+                expiredCount++;
+                advanceQuietly(readSequence++);
+                continue;
+            }
+            ByteBuf content = alloc.ioBuffer(length);
+            readSegment.read(readPosition, content);
+            records.add(new JournalRecord(readSequence++, content));
+            readPosition += JournalSegment.HEADER_LENGTH + length;
+        }
+        return records;
+    }
+
+    /**
+     * 按读取序号定位分段
+     */
+    private void seek() {
+        for (JournalSegment segment : segments) {
+            if (readSequence >= segment.getBaseSequence() && readSequence <= segment.getLastSequence()) {
+                readSegment = segment;
+                readPosition = segment.position(readSequence);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("journal sequence " + readSequence + " is not found");
+    }
+
+    /**
+     * 确认消息已被对端处理[之前的消息一并确认]
+     *
+     * @param sequence 序号
+     */
+    public synchronized void acknowledge(long sequence) {
+        if (closed || sequence <= ackedSequence) {
+            return;
+        }
+        acknowledgedCount += Math.min(sequence, lastSequence) - ackedSequence;
+        advanceQuietly(sequence);
+    }
+
+    /**
+     * 获取已读出未确认的消息数
+     *
+     * @return 消息数
+     */
+    public synchronized long getInFlightCount() {
+        return readSequence - 1 - ackedSequence;
+    }
+
+    /**
+     * 读取位置回到确认位置之后[未确认的消息重新读取]
+     */
+    public synchronized void rewind() {
+        readSequence = ackedSequence + 1;
+        readSegment = null;
+    }
+
+    private void advanceQuietly(long sequence) {
+        try {
+            advance(sequence);
+        } catch (IOException e) {
+            logger.error("journal[" + config.getDirectory() + "] delete segment error", e);
+        }
+    }
+
+    private void advance(long sequence) throws IOException {
+        ackedSequence = Math.min(sequence, lastSequence);
+        checkpoint.putLong(0, ackedSequence);
+        if (readSequence <= ackedSequence) {
+            readSequence = ackedSequence + 1;
+            readSegment = null;
+        }
+        deleteAcknowledged();
+    }
+
+    /**
+     * 删除全部确认的分段[保留写入分段]
+     */
+    private void deleteAcknowledged() throws IOException {
+        while (segments.size() > 1 && segments.get(0).getLastSequence() <= ackedSequence) {
+            JournalSegment segment = segments.remove(0);
+            if (segment == readSegment) {
+                readSegment = null;
+            }
+            segment.delete();
+        }
+    }
+
+    /**
+     * 是否有未确认的消息
+     *
+     * @return 是否有未确认的消息
+     */
+    public synchronized boolean hasPending() {
+        return lastSequence > ackedSequence;
+    }
+
+    /**
+     * 是否有未读取的消息
+     *
+     * @return 是否有未读取的消息
+     */
+    public synchronized boolean hasUnread() {
+        return !closed && readSequence <= lastSequence;
+    }
+
+    /**
+     * 获取未确认的消息数
+     *
+     * @return 消息数
+     */
+    public synchronized long getPendingCount() {
+        return lastSequence - ackedSequence;
+    }
+
+    /**
+     * 获取分段文件数
+     *
+     * @return 分段数
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 获取写入的消息数
+     *
+     * @return 消息数
+     */
+    public synchronized long getAppendedCount() {
+        return appendedCount;
+    }
+
+    /**
+     * 获取确认的消息数
+     *
+     * @return 消息数
+     */
+    public synchronized long getAcknowledgedCount() {
+        return acknowledgedCount;
+    }
+
+    /**
+     * 获取超过保留时间丢弃的消息数
+     *
+     * @return 消息数
+     */
+    public synchronized long getExpiredCount() {
+        return expiredCount;
+    }
+
+    /**
+     * 获取超过磁盘空间丢弃的消息数
+     *
+     * @return 消息数
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * 关闭[未确认的消息留在磁盘上，下次打开时恢复]
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        checkpoint.force();
+        PlatformDependent.freeDirectBuffer(checkpoint);
+        for (JournalSegment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+        readSegment = null;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "OutboundJournal{pending=" + (lastSequence - ackedSequence) + ", segments=" + segments.size() + ", appended=" + appendedCount
+                + ", acknowledged=" + acknowledgedCount + ", expired=" + expiredCount + ", dropped=" + droppedCount + "}";
+    }
+
+}
@@ -0,0 +1,135 @@
+package cn.emay.socket.monitor;
+
+import cn.emay.socket.server.EventLoopLagProbe;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.concurrent.EventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IO线程健康监控
+ * <p>
+ * 在IO线程延迟探测的基础上，探测任务等待超过卡顿阈值时，抓取该IO线程当时的线程栈写入日志[每次卡顿一次]，
+ * 用于找出在IO线程中阻塞的业务逻辑或编解码。同时统计每个IO线程上的链接数，线程间负载不均时可见。
+ * 可作为接入控制的负载探测，任一线程延迟超过卡顿阈值时视为过载
+ *
+ * @author Frank
+ */
+public class EventLoopMonitor extends EventLoopLagProbe {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventLoopMonitor.class);
+
+    /**
+     * 卡顿阈值[纳秒]
+     */
+    private final long stallNanos;
+
+    /**
+     * @param intervalMillis 探测间隔[毫秒]
+     * @param stallMillis    卡顿阈值[毫秒，探测任务等待超过此时间视为卡顿]
+     */
+    public EventLoopMonitor(long intervalMillis, long stallMillis) {
+        super(intervalMillis, stallMillis, 0);
+        if (stallMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis: " + intervalMillis + ", stallMillis: " + stallMillis + " (expected: > 0)");
+        }
+        this.stallNanos = TimeUnit.MILLISECONDS.toNanos(stallMillis);
+    }
+
+    @Override
+    protected Loop newLoop(EventExecutor executor) {
+        return new LoopState(executor);
+    }
+
+    @Override
+    protected void waiting(Loop loop, long waitedNanos) {
+        LoopState state = (LoopState) loop;
+        if (!state.stalled && waitedNanos > stallNanos) {
+            state.stall(waitedNanos);
+        }
+    }
+
+    /**
+     * 登记链接[按所属IO线程计数，链接关闭时自动减少]
+     *
+     * @param channel 链接
+     */
+    public void register(Channel channel) {
+        LoopState state = (LoopState) getLoop(channel.eventLoop());
+        if (state == null) {
+            return;
+        }
+        state.channels.incrementAndGet();
+        channel.closeFuture().addListener((ChannelFutureListener) future -> state.channels.decrementAndGet());
+    }
+
+    /**
+     * 获取各IO线程的健康状况
+     *
+     * @return 快照
+     */
+    public List<EventLoopStats> getStats() {
+        List<EventLoopStats> stats = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Loop loop : getLoops()) {
+            stats.add(((LoopState) loop).snapshot(now));
+        }
+        return stats;
+    }
+
+    /**
+     * 一个IO线程的状态[探测状态之外记录卡顿和链接数]
+     */
+    private static class LoopState extends Loop {
+
+        /**
+         * 当前探测任务是否已判定为卡顿
+         */
+        private volatile boolean stalled;
+
+        private volatile long stallCount;
+
+        private volatile String lastStallStack;
+
+        private final AtomicInteger channels = new AtomicInteger();
+
+        LoopState(EventExecutor executor) {
+            super(executor);
+        }
+
+        @Override
+        public void run() {
+            super.run();
+            stalled = false;
+        }
+
+        void stall(long waitedNanos) {
+            stalled = true;
+            stallCount++;
+            Thread current = getThread();
+            StringBuilder stack = new StringBuilder();
+            if (current != null) {
+                stack.append(current.getName()).append(" ").append(current.getState());
+                for (StackTraceElement element : current.getStackTrace()) {
+                    stack.append("\n\tat ").append(element);
+                }
+            }
+            lastStallStack = stack.toString();
+            logger.warn("event loop[" + getName() + "] stalled " + TimeUnit.NANOSECONDS.toMillis(waitedNanos) + "ms, pending tasks " + pendingTasks()
+                    + ", channels " + channels.get() + "\n" + lastStallStack);
+        }
+
+        EventLoopStats snapshot(long now) {
+            long lag = getLagNanos(now);
+            return new EventLoopStats(getName(), pendingTasks(), TimeUnit.NANOSECONDS.toMillis(lag), TimeUnit.NANOSECONDS.toMillis(Math.max(getMaxLagNanos(), lag)),
+                    channels.get(), stallCount, lastStallStack);
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package cn.emay.socket.monitor;
+
+/**
+ * 一个IO线程的健康状况快照
+ *
+ * @author Frank
+ */
+public class EventLoopStats {
+
+    /**
+     * 线程名
+     */
+    private final String name;
+
+    /**
+     * 待执行任务数
+     */
+    private final int pendingTasks;
+
+    /**
+     * 最近一次探测的调度延迟[毫秒，探测任务未执行时按已等待时间计]
+     */
+    private final long lagMillis;
+
+    /**
+     * 最大调度延迟[毫秒]
+     */
+    private final long maxLagMillis;
+
+    /**
+     * 链接数
+     */
+    private final int channelCount;
+
+    /**
+     * 卡顿次数
+     */
+    private final long stallCount;
+
+    /**
+     * 最近一次卡顿时的线程栈[没有卡顿为null]
+     */
+    private final String lastStallStack;
+
+    EventLoopStats(String name, int pendingTasks, long lagMillis, long maxLagMillis, int channelCount, long stallCount, String lastStallStack) {
+        this.name = name;
+        this.pendingTasks = pendingTasks;
+        this.lagMillis = lagMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.channelCount = channelCount;
+        this.stallCount = stallCount;
+        this.lastStallStack = lastStallStack;
+    }
+
+    /**
+     * 获取线程名
+     *
+     * @return 线程名
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取待执行任务数[线程组不支持时为-1]
+     *
+     * @return 任务数
+     */
+    public int getPendingTasks() {
+        return pendingTasks;
+    }
+
+    /**
+     * 获取最近一次探测的调度延迟[探测任务未执行时按已等待时间计]
+     *
+     * @return 毫秒
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * 获取最大调度延迟
+     *
+     * @return 毫秒
+     */
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    /**
+     * 获取线程上的链接数
+     *
+     * @return 链接数
+     */
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    /**
+     * 获取卡顿次数
+     *
+     * @return 次数
+     */
+    public long getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * 获取最近一次卡顿时的线程栈
+     *
+     * @return 线程栈[没有卡顿为null]
+     */
+    public String getLastStallStack() {
+        return lastStallStack;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{pendingTasks=" + pendingTasks + ", lagMillis=" + lagMillis + ", maxLagMillis=" + maxLagMillis + ", channels=" + channelCount
+                + ", stalls=" + stallCount + "}";
+    }
+
+}
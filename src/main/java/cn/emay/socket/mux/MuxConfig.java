@@ -0,0 +1,64 @@
+package cn.emay.socket.mux;
+
+/**
+ * 多路复用配置
+ *
+ * @author Frank
+ */
+public class MuxConfig {
+
+    /**
+     * 每个流的初始发送窗口[字节]
+     */
+    private int initialWindow = 256 * 1024;
+
+    /**
+     * 每个链接最多同时打开的流
+     */
+    private int maxStreams = 1024;
+
+    /**
+     * 设置每个流的初始发送窗口[两端需一致]
+     * <p>
+     * 对端处理完的数据累计达到半个窗口后归还窗口，窗口用完时该流的消息在本端排队，不影响其它流
+     *
+     * @param initialWindow 初始窗口[字节]
+     */
+    public void setInitialWindow(int initialWindow) {
+        if (initialWindow <= 0) {
+            throw new IllegalArgumentException("initial window must be positive");
+        }
+        this.initialWindow = initialWindow;
+    }
+
+    /**
+     * 获取每个流的初始发送窗口
+     *
+     * @return 初始窗口[字节]
+     */
+    public int getInitialWindow() {
+        return initialWindow;
+    }
+
+    /**
+     * 设置每个链接最多同时打开的流[超过时拒绝对端打开的流]
+     *
+     * @param maxStreams 最多流数
+     */
+    public void setMaxStreams(int maxStreams) {
+        if (maxStreams <= 0) {
+            throw new IllegalArgumentException("max streams must be positive");
+        }
+        this.maxStreams = maxStreams;
+    }
+
+    /**
+     * 获取每个链接最多同时打开的流
+     *
+     * @return 最多流数
+     */
+    public int getMaxStreams() {
+        return maxStreams;
+    }
+
+}
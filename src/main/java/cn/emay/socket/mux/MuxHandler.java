@@ -0,0 +1,396 @@
+package cn.emay.socket.mux;
+
+import cn.emay.socket.frame.FrameSupport;
+import cn.emay.socket.frame.MuxFrame;
+import cn.emay.socket.inbound.SerialExecutor;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 逻辑流多路复用[每个链接一个，位于框架帧编解码之后、发送队列之前]
+ * <p>
+ * 一个链接上同时承载多个流，每个流的数据独立累积解码，消息按流内顺序交付；
+ * 每个流有独立的发送窗口，接收端处理完一半窗口的数据后归还窗口，一个流的接收方处理慢只会阻塞该流的发送，不影响其他流。
+ * 设置了业务线程池时，每个流的消息在线程池中按流内顺序串行处理，处理完成后才归还窗口，IO线程和其他流不被阻塞
+ *
+ * @author Frank
+ */
+public class MuxHandler extends ChannelDuplexHandler {
+
+    /**
+     * 配置
+     */
+    private final MuxConfig config;
+
+    /**
+     * 解码与业务回调
+     */
+    private final MuxListener listener;
+
+    /**
+     * 业务线程池[为null在IO线程中处理]
+     */
+    private final Executor businessExecutor;
+
+    /**
+     * 打开的流
+     */
+    private final Map<Integer, MuxStream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * 下一个本端打开的流ID[客户端奇数，服务端偶数]
+     */
+    private final AtomicInteger nextStreamId;
+
+    /**
+     * 解码结果[只在IO线程中使用，复用]
+     */
+    private final List<Object> decoded = new ArrayList<>();
+
+    /**
+     * 是否有未flush的窗口帧
+     */
+    private boolean windowPending;
+
+    /**
+     * 链接上下文
+     */
+    private ChannelHandlerContext ctx;
+
+    /**
+     * @param config   配置
+     * @param listener 解码与业务回调
+     * @param client   是否客户端
+     */
+    public MuxHandler(MuxConfig config, MuxListener listener, boolean client) {
+        this(config, listener, client, null);
+    }
+
+    /**
+     * @param config           配置
+     * @param listener         解码与业务回调
+     * @param client           是否客户端
+     * @param businessExecutor 业务线程池[为null在IO线程中处理]
+     */
+    public MuxHandler(MuxConfig config, MuxListener listener, boolean client, Executor businessExecutor) {
+        this.config = config;
+        this.listener = listener;
+        this.businessExecutor = businessExecutor;
+        this.nextStreamId = new AtomicInteger(client ? 1 : 2);
+    }
+
+    /**
+     * 获取链接上的多路复用处理器
+     *
+     * @param channel 链接
+     * @return 处理器[未启用多路复用时为null]
+     */
+    public static MuxHandler of(Channel channel) {
+        return channel.pipeline().get(MuxHandler.class);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    /**
+     * 打开一个流[任意线程调用]
+     *
+     * @return 流
+     * @throws IllegalStateException 流数量超过上限
+     */
+    public MuxStream openStream() {
+        if (streams.size() >= config.getMaxStreams()) {
+            throw new IllegalStateException("stream count exceeds " + config.getMaxStreams());
+        }
+        int id = nextStreamId.getAndAdd(2);
+        MuxStream stream = newStream(id);
+        streams.put(id, stream);
+        ctx.channel().writeAndFlush(MuxFrame.open(id));
+        return stream;
+    }
+
+    /**
+     * 获取流
+     *
+     * @param streamId 流ID
+     * @return 流[不存在时为null]
+     */
+    public MuxStream getStream(int streamId) {
+        return streams.get(streamId);
+    }
+
+    /**
+     * 打开的流数量
+     *
+     * @return 流数量
+     */
+    public int getStreamCount() {
+        return streams.size();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof MuxFrame)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        MuxFrame frame = (MuxFrame) msg;
+        try {
+            switch (frame.getType()) {
+                case FrameSupport.TYPE_STREAM_OPEN:
+                    remoteOpen(ctx, frame.getStreamId());
+                    break;
+                case FrameSupport.TYPE_STREAM_DATA:
+                    data(ctx, frame);
+                    break;
+                case FrameSupport.TYPE_STREAM_CLOSE:
+                    MuxStream closed = streams.remove(frame.getStreamId());
+                    if (closed != null) {
+                        closed.terminate();
+                        listener.closed(ctx, closed);
+                    }
+                    break;
+                case FrameSupport.TYPE_STREAM_WINDOW:
+                    MuxStream stream = streams.get(frame.getStreamId());
+                    if (stream != null) {
+                        stream.sendWindow += frame.content().getInt(frame.content().readerIndex());
+                        drain(ctx, stream);
+                        ctx.flush();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            frame.release();
+        }
+    }
+
+    private MuxStream newStream(int streamId) {
+        SerialExecutor serial = businessExecutor == null ? null : new SerialExecutor(businessExecutor);
+        return new MuxStream(streamId, ctx.channel(), config.getInitialWindow(), serial);
+    }
+
+    private void remoteOpen(ChannelHandlerContext ctx, int streamId) throws Exception {
+        if (streams.containsKey(streamId)) {
+            return;
+        }
+        if (streams.size() >= config.getMaxStreams()) {
+            ctx.write(MuxFrame.close(streamId));
+            windowPending = true;
+            return;
+        }
+        MuxStream stream = newStream(streamId);
+        streams.put(streamId, stream);
+        listener.opened(ctx, stream);
+    }
+
+    private void data(ChannelHandlerContext ctx, MuxFrame frame) throws Exception {
+        MuxStream stream = streams.get(frame.getStreamId());
+        if (stream == null) {
+            return;
+        }
+        int size = frame.content().readableBytes();
+        ByteBuf in = stream.cumulate(frame.content().retain());
+        if (stream.serial != null) {
+            dispatch(ctx, stream, in, size);
+            return;
+        }
+        try {
+            listener.decode(ctx, in, decoded);
+            for (int i = 0; i < decoded.size(); i++) {
+                listener.message(ctx, stream, decoded.get(i));
+            }
+        } catch (Exception e) {
+            stream.close();
+            ctx.fireExceptionCaught(e);
+        } finally {
+            for (int i = 0; i < decoded.size(); i++) {
+                ReferenceCountUtil.release(decoded.get(i));
+            }
+            decoded.clear();
+            stream.compact();
+        }
+        if (consume(stream, size)) {
+            windowPending = true;
+        }
+    }
+
+    /**
+     * 在IO线程中解码，消息交给流的串行执行器处理，这一帧的消息处理完成后再归还窗口
+     *
+     * @param ctx    链接
+     * @param stream 流
+     * @param in     流已接收的数据
+     * @param size   帧的字节数
+     */
+    private void dispatch(ChannelHandlerContext ctx, MuxStream stream, ByteBuf in, int size) {
+        try {
+            listener.decode(ctx, in, decoded);
+            for (int i = 0; i < decoded.size(); i++) {
+                Object msg = decoded.get(i);
+                decoded.set(i, null);
+                try {
+                    stream.serial.execute(() -> process(ctx, stream, msg));
+                } catch (RejectedExecutionException e) {
+                    ReferenceCountUtil.release(msg);
+                    throw e;
+                }
+            }
+            stream.serial.execute(() -> ctx.executor().execute(() -> {
+                if (consume(stream, size)) {
+                    ctx.flush();
+                }
+            }));
+        } catch (Exception e) {
+            stream.close();
+            ctx.fireExceptionCaught(e);
+        } finally {
+            for (int i = 0; i < decoded.size(); i++) {
+                ReferenceCountUtil.release(decoded.get(i));
+            }
+            decoded.clear();
+            stream.compact();
+        }
+    }
+
+    /**
+     * 在业务线程中处理一条消息[异常时关闭流]
+     *
+     * @param ctx    链接
+     * @param stream 流
+     * @param msg    消息
+     */
+    private void process(ChannelHandlerContext ctx, MuxStream stream, Object msg) {
+        try {
+            listener.message(ctx, stream, msg);
+        } catch (Throwable e) {
+            stream.close();
+            ctx.fireExceptionCaught(e);
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    /**
+     * 记录处理完的字节数，累计超过半个窗口时归还[IO线程]
+     *
+     * @param stream 流
+     * @param size   字节数
+     * @return 是否写出了窗口帧[需要flush]
+     */
+    private boolean consume(MuxStream stream, int size) {
+        stream.consumed += size;
+        if (stream.consumed < config.getInitialWindow() / 2 || !stream.isOpen()) {
+            return false;
+        }
+        ctx.write(MuxFrame.window(stream.getId(), stream.consumed));
+        stream.consumed = 0;
+        return true;
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        if (windowPending) {
+            windowPending = false;
+            ctx.flush();
+        }
+        super.channelReadComplete(ctx);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof MuxFrame)) {
+            ctx.write(msg, promise);
+            return;
+        }
+        MuxFrame frame = (MuxFrame) msg;
+        if (frame.getType() != FrameSupport.TYPE_STREAM_DATA && frame.getType() != FrameSupport.TYPE_STREAM_CLOSE) {
+            ctx.write(msg, promise);
+            return;
+        }
+        MuxStream stream = streams.get(frame.getStreamId());
+        if (stream == null) {
+            frame.release();
+            if (frame.getType() == FrameSupport.TYPE_STREAM_CLOSE) {
+                promise.trySuccess();
+            } else {
+                promise.tryFailure(new ClosedChannelException());
+            }
+            return;
+        }
+        stream.pending.add(new Object[]{frame, promise});
+        drain(ctx, stream);
+    }
+
+    /**
+     * 在窗口内写出等待的帧，超过剩余窗口的帧拆分写出，关闭帧在之前的数据写出后写出
+     *
+     * @param ctx    链接
+     * @param stream 流
+     */
+    private void drain(ChannelHandlerContext ctx, MuxStream stream) throws Exception {
+        Object[] entry;
+        while ((entry = stream.pending.peek()) != null) {
+            MuxFrame frame = (MuxFrame) entry[0];
+            if (frame.getType() == FrameSupport.TYPE_STREAM_CLOSE) {
+                stream.pending.poll();
+                ctx.write(frame, (ChannelPromise) entry[1]);
+                if (streams.remove(stream.getId(), stream)) {
+                    stream.terminate();
+                    listener.closed(ctx, stream);
+                }
+                return;
+            }
+            int size = frame.content().readableBytes();
+            if (size > stream.sendWindow) {
+                if (stream.sendWindow <= 0) {
+                    return;
+                }
+                // 窗口不足时先写出窗口内的部分，接收端按流累积数据，拆分不影响解码；用满窗口保证接收端累计到半个窗口后归还
+                ctx.write(frame.replace(frame.content().readRetainedSlice(stream.sendWindow)));
+                stream.sendWindow = 0;
+                return;
+            }
+            stream.pending.poll();
+            stream.sendWindow -= size;
+            ctx.write(frame, (ChannelPromise) entry[1]);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        for (Integer id : new ArrayList<>(streams.keySet())) {
+            MuxStream stream = streams.remove(id);
+            if (stream != null) {
+                stream.terminate();
+                listener.closed(ctx, stream);
+            }
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        for (MuxStream stream : streams.values()) {
+            stream.terminate();
+        }
+        streams.clear();
+    }
+
+}
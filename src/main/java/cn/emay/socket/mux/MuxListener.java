@@ -0,0 +1,49 @@
+package cn.emay.socket.mux;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.List;
+
+/**
+ * 逻辑流的解码与业务回调[由SocketServer、SocketClient实现]
+ *
+ * @author Frank
+ */
+public interface MuxListener {
+
+    /**
+     * 解码流的数据[每个流独立累积，与链接上的decode相同]
+     *
+     * @param ctx 链接
+     * @param in  流已接收的数据
+     * @param out 输出列表
+     */
+    void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception;
+
+    /**
+     * 流打开
+     *
+     * @param ctx    链接
+     * @param stream 流
+     */
+    void opened(ChannelHandlerContext ctx, MuxStream stream) throws Exception;
+
+    /**
+     * 收到流的消息
+     *
+     * @param ctx    链接
+     * @param stream 流
+     * @param msg    消息
+     */
+    void message(ChannelHandlerContext ctx, MuxStream stream, Object msg) throws Exception;
+
+    /**
+     * 流关闭[任一端关闭或链接断开]
+     *
+     * @param ctx    链接
+     * @param stream 流
+     */
+    void closed(ChannelHandlerContext ctx, MuxStream stream) throws Exception;
+
+}
@@ -0,0 +1,47 @@
+package cn.emay.socket.mux;
+
+/**
+ * 发往逻辑流的消息[由EncodeHandler编码为逻辑流的数据帧]
+ *
+ * @author Frank
+ */
+public class MuxMessage {
+
+    /**
+     * 流ID
+     */
+    private final int streamId;
+
+    /**
+     * 消息
+     */
+    private final Object message;
+
+    /**
+     * @param streamId 流ID
+     * @param message  消息
+     */
+    public MuxMessage(int streamId, Object message) {
+        this.streamId = streamId;
+        this.message = message;
+    }
+
+    /**
+     * 获取流ID
+     *
+     * @return 流ID
+     */
+    public int getStreamId() {
+        return streamId;
+    }
+
+    /**
+     * 获取消息
+     *
+     * @return 消息
+     */
+    public Object getMessage() {
+        return message;
+    }
+
+}
@@ -0,0 +1,179 @@
+package cn.emay.socket.mux;
+
+import cn.emay.socket.frame.MuxFrame;
+import cn.emay.socket.inbound.SerialExecutor;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+
+/**
+ * 逻辑流
+ * <p>
+ * 一个链接上可以同时打开多个流，每个流有自己的ID、消息顺序、发送窗口和打开关闭过程，流之间互不阻塞
+ *
+ * @author Frank
+ */
+public class MuxStream {
+
+    /**
+     * 流ID[客户端打开的为奇数，服务端打开的为偶数]
+     */
+    private final int id;
+
+    /**
+     * 所在链接
+     */
+    private final Channel channel;
+
+    /**
+     * 是否打开
+     */
+    private volatile boolean open = true;
+
+    /**
+     * 发送窗口[字节，只在IO线程中使用]
+     */
+    int sendWindow;
+
+    /**
+     * 已处理但未归还窗口的字节数[只在IO线程中使用]
+     */
+    int consumed;
+
+    /**
+     * 等待窗口的帧[只在IO线程中使用]
+     */
+    final ArrayDeque<Object[]> pending = new ArrayDeque<>();
+
+    /**
+     * 已接收未解码的数据[只在IO线程中使用]
+     */
+    ByteBuf cumulation;
+
+    /**
+     * 按流内顺序在业务线程池中处理[未设置业务线程池为null]
+     */
+    final SerialExecutor serial;
+
+    /**
+     * @param id         流ID
+     * @param channel    所在链接
+     * @param sendWindow 初始发送窗口
+     * @param serial     串行执行器[未设置业务线程池为null]
+     */
+    MuxStream(int id, Channel channel, int sendWindow, SerialExecutor serial) {
+        this.id = id;
+        this.channel = channel;
+        this.sendWindow = sendWindow;
+        this.serial = serial;
+    }
+
+    /**
+     * 向流发送消息[消息由encode编码]
+     *
+     * @param message 消息
+     * @return 发送结果
+     */
+    public ChannelFuture write(Object message) {
+        if (!open) {
+            ReferenceCountUtil.release(message);
+            return channel.newFailedFuture(new ClosedChannelException());
+        }
+        return channel.writeAndFlush(new MuxMessage(id, message));
+    }
+
+    /**
+     * 关闭流[已发送的消息发出后通知对端关闭]
+     *
+     * @return 发送结果
+     */
+    public ChannelFuture close() {
+        if (!open) {
+            return channel.newSucceededFuture();
+        }
+        open = false;
+        return channel.writeAndFlush(MuxFrame.close(id));
+    }
+
+    /**
+     * 累积接收的数据
+     *
+     * @param content 数据
+     * @return 累积的数据
+     */
+    ByteBuf cumulate(ByteBuf content) {
+        if (cumulation == null) {
+            cumulation = content;
+        } else {
+            cumulation = ByteToMessageDecoder.MERGE_CUMULATOR.cumulate(channel.alloc(), cumulation, content);
+        }
+        return cumulation;
+    }
+
+    /**
+     * 解码后整理累积的数据
+     */
+    void compact() {
+        if (cumulation != null && !cumulation.isReadable()) {
+            cumulation.release();
+            cumulation = null;
+        } else if (cumulation != null) {
+            cumulation.discardSomeReadBytes();
+        }
+    }
+
+    /**
+     * 流结束，释放资源
+     */
+    void terminate() {
+        open = false;
+        if (cumulation != null) {
+            cumulation.release();
+            cumulation = null;
+        }
+        Object[] entry;
+        while ((entry = pending.poll()) != null) {
+            ReferenceCountUtil.release(entry[0]);
+            ((ChannelPromise) entry[1]).tryFailure(new ClosedChannelException());
+        }
+    }
+
+    /**
+     * 获取流ID
+     *
+     * @return 流ID
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * 获取所在链接
+     *
+     * @return 链接
+     */
+    public Channel getChannel() {
+        return channel;
+    }
+
+    /**
+     * 是否打开
+     *
+     * @return 是否打开
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public String toString() {
+        return "MuxStream{id=" + id + ", channel=" + channel.id() + ", open=" + open + "}";
+    }
+
+}
@@ -0,0 +1,71 @@
+package cn.emay.socket.outbound;
+
+/**
+ * 发送批量合并配置
+ * <p>
+ * 小消息先在链接上积攒，等待linger时间或达到批量上限后合并为一次写出；启用框架帧时一批消息封装为一个帧
+ *
+ * @author Frank
+ */
+public class LingerBatch {
+
+    /**
+     * 最长等待时间[微秒]
+     */
+    private final long lingerMicros;
+
+    /**
+     * 一批最大字节数
+     */
+    private final int maxBytes;
+
+    /**
+     * 一批最大消息数
+     */
+    private final int maxMessages;
+
+    /**
+     * @param lingerMicros 最长等待时间[微秒，从一批的第一次flush开始计算]
+     * @param maxBytes     一批最大字节数[达到后立即写出]
+     * @param maxMessages  一批最大消息数[达到后立即写出]
+     */
+    public LingerBatch(long lingerMicros, int maxBytes, int maxMessages) {
+        if (lingerMicros <= 0) {
+            throw new IllegalArgumentException("linger must be positive");
+        }
+        if (maxBytes <= 0 || maxMessages <= 0) {
+            throw new IllegalArgumentException("max bytes and max messages must be positive");
+        }
+        this.lingerMicros = lingerMicros;
+        this.maxBytes = maxBytes;
+        this.maxMessages = maxMessages;
+    }
+
+    /**
+     * 获取最长等待时间
+     *
+     * @return 微秒
+     */
+    public long getLingerMicros() {
+        return lingerMicros;
+    }
+
+    /**
+     * 获取一批最大字节数
+     *
+     * @return 最大字节数
+     */
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 获取一批最大消息数
+     *
+     * @return 最大消息数
+     */
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+}
@@ -0,0 +1,228 @@
+package cn.emay.socket.outbound;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.*;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送批量合并[每个链接一个，位于发送队列之后]
+ * <p>
+ * 编码后的消息先积攒在链接上，flush被推迟到linger时间结束，或一批达到字节数、消息数上限时立即写出；
+ * 一批消息组装为一个ByteBuf写出，启用框架帧时封装为一个帧[不合并时逐条写出，一批只flush一次]。每条消息的发送结果在所在批次写出后通知
+ *
+ * @author Frank
+ */
+public class LingerBatchHandler extends ChannelDuplexHandler {
+
+    /**
+     * 小于此长度的批次复制到一个缓冲区，否则组合
+     */
+    private static final int COPY_THRESHOLD = 1024;
+
+    /**
+     * 配置
+     */
+    private final LingerBatch config;
+
+    /**
+     * 是否将一批消息合并为一个ByteBuf
+     */
+    private final boolean merge;
+
+    /**
+     * 积攒的消息
+     */
+    private final List<ByteBuf> messages = new ArrayList<>();
+
+    /**
+     * 积攒的消息的发送结果
+     */
+    private final List<ChannelPromise> promises = new ArrayList<>();
+
+    /**
+     * 积攒的字节数
+     */
+    private int batchBytes;
+
+    /**
+     * 是否有推迟的flush
+     */
+    private boolean flushPending;
+
+    /**
+     * linger计时
+     */
+    private ScheduledFuture<?> lingerTimeout;
+
+    /**
+     * 链接上下文
+     */
+    private ChannelHandlerContext ctx;
+
+    /**
+     * linger结束
+     */
+    private final Runnable lingerTask = () -> {
+        lingerTimeout = null;
+        writeBatch();
+        flushNow();
+    };
+
+    /**
+     * @param config 配置
+     */
+    public LingerBatchHandler(LingerBatch config) {
+        this(config, true);
+    }
+
+    /**
+     * @param config 配置
+     * @param merge  是否将一批消息合并为一个ByteBuf[启用流控额度时每条消息需保持为一个帧]
+     */
+    public LingerBatchHandler(LingerBatch config, boolean merge) {
+        this.config = config;
+        this.merge = merge;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (!(msg instanceof ByteBuf)) {
+            writeBatch();
+            ctx.write(msg, promise);
+            return;
+        }
+        ByteBuf buf = (ByteBuf) msg;
+        if (batchBytes > 0 && batchBytes + buf.readableBytes() > config.getMaxBytes()) {
+            writeBatch();
+        }
+        messages.add(buf);
+        promises.add(promise);
+        batchBytes += buf.readableBytes();
+        if (messages.size() >= config.getMaxMessages() || batchBytes >= config.getMaxBytes()) {
+            writeBatch();
+            if (flushPending) {
+                flushNow();
+            }
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        if (messages.isEmpty()) {
+            flushNow();
+            return;
+        }
+        flushPending = true;
+        if (lingerTimeout == null) {
+            lingerTimeout = ctx.executor().schedule(lingerTask, config.getLingerMicros(), TimeUnit.MICROSECONDS);
+        }
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        writeBatch();
+        flushNow();
+        super.close(ctx, promise);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        failAll(new ClosedChannelException());
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        failAll(new ClosedChannelException());
+    }
+
+    /**
+     * 执行flush并取消linger计时
+     */
+    private void flushNow() {
+        flushPending = false;
+        if (lingerTimeout != null) {
+            lingerTimeout.cancel(false);
+            lingerTimeout = null;
+        }
+        ctx.flush();
+    }
+
+    /**
+     * 将积攒的消息组装为一次写出
+     */
+    private void writeBatch() {
+        int size = messages.size();
+        if (size == 0) {
+            return;
+        }
+        if (size == 1 || !merge) {
+            for (int i = 0; i < size; i++) {
+                ctx.write(messages.get(i), promises.get(i));
+            }
+            clear();
+            return;
+        }
+        ByteBuf batch;
+        if (batchBytes <= COPY_THRESHOLD) {
+            batch = ctx.alloc().ioBuffer(batchBytes);
+            for (ByteBuf message : messages) {
+                batch.writeBytes(message, message.readerIndex(), message.readableBytes());
+                message.release();
+            }
+        } else {
+            CompositeByteBuf composite = ctx.alloc().compositeBuffer(size);
+            for (ByteBuf message : messages) {
+                composite.addComponent(true, message);
+            }
+            batch = composite;
+        }
+        final ChannelPromise[] batchPromises = promises.toArray(new ChannelPromise[0]);
+        clear();
+        ctx.write(batch).addListener((ChannelFutureListener) future -> {
+            for (ChannelPromise promise : batchPromises) {
+                if (future.isSuccess()) {
+                    promise.trySuccess();
+                } else {
+                    promise.tryFailure(future.cause());
+                }
+            }
+        });
+    }
+
+    private void clear() {
+        messages.clear();
+        promises.clear();
+        batchBytes = 0;
+    }
+
+    /**
+     * 释放积攒的消息并通知失败
+     *
+     * @param cause 原因
+     */
+    private void failAll(Throwable cause) {
+        if (lingerTimeout != null) {
+            lingerTimeout.cancel(false);
+            lingerTimeout = null;
+        }
+        for (int i = 0; i < messages.size(); i++) {
+            ReferenceCountUtil.release(messages.get(i));
+            promises.get(i).tryFailure(cause);
+        }
+        clear();
+    }
+
+}
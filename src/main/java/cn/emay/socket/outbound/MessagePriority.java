@@ -0,0 +1,25 @@
+package cn.emay.socket.outbound;
+
+/**
+ * 发送优先级
+ *
+ * @author Frank
+ */
+public enum MessagePriority {
+
+    /**
+     * 控制消息[心跳、确认、取消等]
+     */
+    HIGH,
+
+    /**
+     * 普通消息
+     */
+    NORMAL,
+
+    /**
+     * 批量数据
+     */
+    LOW
+
+}
@@ -0,0 +1,138 @@
+package cn.emay.socket.outbound;
+
+/**
+ * 每个链接的发送积压上限
+ * <p>
+ * 积压 = 发送队列中的消息 + Netty发送缓冲区中未写入socket的数据
+ *
+ * @author Frank
+ */
+public class OutboundLimit {
+
+    /**
+     * 最大积压字节数[小于等于0不限制]
+     */
+    private final long maxBytes;
+
+    /**
+     * 发送队列最大消息数[小于等于0不限制]
+     */
+    private final int maxMessages;
+
+    /**
+     * 超过上限的处理策略
+     */
+    private final OverflowPolicy policy;
+
+    /**
+     * 链接持续不可写多久后断开[毫秒，仅DISCONNECT策略]
+     */
+    private final long unwritableTimeoutMillis;
+
+    /**
+     * Netty发送缓冲区低水位[字节，小于等于0使用默认值]
+     */
+    private int lowWaterMark;
+
+    /**
+     * Netty发送缓冲区高水位[字节，小于等于0使用默认值]
+     */
+    private int highWaterMark;
+
+    /**
+     * @param maxBytes                最大积压字节数[小于等于0不限制]
+     * @param maxMessages             发送队列最大消息数[小于等于0不限制]
+     * @param policy                  超过上限的处理策略
+     * @param unwritableTimeoutMillis 链接持续不可写多久后断开[毫秒，仅DISCONNECT策略，其他策略忽略]
+     */
+    public OutboundLimit(long maxBytes, int maxMessages, OverflowPolicy policy, long unwritableTimeoutMillis) {
+        if (policy == null) {
+            throw new NullPointerException();
+        }
+        if (policy == OverflowPolicy.DISCONNECT && unwritableTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("DISCONNECT policy need unwritable timeout");
+        }
+        this.maxBytes = maxBytes;
+        this.maxMessages = maxMessages;
+        this.policy = policy;
+        this.unwritableTimeoutMillis = unwritableTimeoutMillis;
+    }
+
+    /**
+     * 设置Netty发送缓冲区水位[超过高水位链接不可写，低于低水位恢复]
+     *
+     * @param lowWaterMark  低水位[字节]
+     * @param highWaterMark 高水位[字节]
+     */
+    public void setWaterMark(int lowWaterMark, int highWaterMark) {
+        if (lowWaterMark <= 0 || highWaterMark < lowWaterMark) {
+            throw new IllegalArgumentException("lowWaterMark: " + lowWaterMark + ", highWaterMark: " + highWaterMark);
+        }
+        this.lowWaterMark = lowWaterMark;
+        this.highWaterMark = highWaterMark;
+    }
+
+    /**
+     * 获取最大积压字节数
+     *
+     * @return 最大积压字节数
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 获取发送队列最大消息数
+     *
+     * @return 最大消息数
+     */
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    /**
+     * 获取超过上限的处理策略
+     *
+     * @return 处理策略
+     */
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 获取链接持续不可写多久后断开[毫秒]
+     *
+     * @return 毫秒
+     */
+    public long getUnwritableTimeoutMillis() {
+        return unwritableTimeoutMillis;
+    }
+
+    /**
+     * 获取Netty发送缓冲区低水位
+     *
+     * @return 低水位[字节]
+     */
+    public int getLowWaterMark() {
+        return lowWaterMark;
+    }
+
+    /**
+     * 获取Netty发送缓冲区高水位
+     *
+     * @return 高水位[字节]
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * 是否按字节数限制[设置了最大积压字节数或发送缓冲区水位]
+     *
+     * @return 是否按字节数限制
+     */
+    public boolean isByteLimited() {
+        return maxBytes > 0 || highWaterMark > 0;
+    }
+
+}
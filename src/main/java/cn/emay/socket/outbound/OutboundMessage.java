@@ -0,0 +1,98 @@
+package cn.emay.socket.outbound;
+
+/**
+ * 带优先级和截止时间的待发消息
+ *
+ * @author Frank
+ */
+public class OutboundMessage {
+
+    /**
+     * 消息[编码前为业务消息，编码后为字节]
+     */
+    private final Object message;
+
+    /**
+     * 优先级
+     */
+    private final MessagePriority priority;
+
+    /**
+     * 截止时间[System.nanoTime，0表示不过期]
+     */
+    private final long deadline;
+
+    /**
+     * @param message  消息
+     * @param priority 优先级
+     * @param deadline 截止时间[System.nanoTime，0表示不过期]
+     */
+    private OutboundMessage(Object message, MessagePriority priority, long deadline) {
+        this.message = message;
+        this.priority = priority;
+        this.deadline = deadline;
+    }
+
+    /**
+     * 包装消息[普通优先级且不过期时直接返回原消息]
+     *
+     * @param message       消息
+     * @param priority      优先级
+     * @param timeoutMillis 超过多少毫秒未写出则丢弃[小于等于0不过期]
+     * @return 待发消息
+     */
+    public static Object wrap(Object message, MessagePriority priority, long timeoutMillis) {
+        if (priority == null) {
+            priority = MessagePriority.NORMAL;
+        }
+        if (priority == MessagePriority.NORMAL && timeoutMillis <= 0) {
+            return message;
+        }
+        long deadline = 0;
+        if (timeoutMillis > 0) {
+            deadline = System.nanoTime() + timeoutMillis * 1000000L;
+            if (deadline == 0) {
+                deadline = 1;
+            }
+        }
+        return new OutboundMessage(message, priority, deadline);
+    }
+
+    /**
+     * 替换消息内容，保留优先级和截止时间
+     *
+     * @param message 新的消息内容
+     * @return 待发消息
+     */
+    public OutboundMessage replace(Object message) {
+        return new OutboundMessage(message, priority, deadline);
+    }
+
+    /**
+     * 获取消息
+     *
+     * @return 消息
+     */
+    public Object getMessage() {
+        return message;
+    }
+
+    /**
+     * 获取优先级
+     *
+     * @return 优先级
+     */
+    public MessagePriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * 获取截止时间
+     *
+     * @return 截止时间[System.nanoTime，0表示不过期]
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+}
@@ -0,0 +1,161 @@
+package cn.emay.socket.outbound;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 发送队列统计[所有链接汇总]
+ *
+ * @author Frank
+ */
+public class OutboundMetrics {
+
+    /**
+     * 排队中的消息数
+     */
+    private final LongAdder[] queued = newAdders();
+
+    /**
+     * 已写出的消息数
+     */
+    private final LongAdder[] written = newAdders();
+
+    /**
+     * 过期丢弃的消息数
+     */
+    private final LongAdder[] expired = newAdders();
+
+    /**
+     * 排队中的字节数
+     */
+    private final LongAdder queuedBytes = new LongAdder();
+
+    /**
+     * 超过积压上限被拒绝的消息数
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 超过积压上限被挤掉的消息数
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * 因持续不可写被断开的链接数
+     */
+    private final LongAdder disconnected = new LongAdder();
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[MessagePriority.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    void onEnqueue(MessagePriority priority, int size) {
+        queued[priority.ordinal()].increment();
+        queuedBytes.add(size);
+    }
+
+    void onDequeue(MessagePriority priority, int size) {
+        queued[priority.ordinal()].decrement();
+        queuedBytes.add(-size);
+    }
+
+    void onWritten(MessagePriority priority) {
+        written[priority.ordinal()].increment();
+    }
+
+    void onExpired(MessagePriority priority) {
+        expired[priority.ordinal()].increment();
+    }
+
+    void onRejected() {
+        rejected.increment();
+    }
+
+    void onDropped() {
+        dropped.increment();
+    }
+
+    void onDisconnected() {
+        disconnected.increment();
+    }
+
+    /**
+     * 获取排队中的消息数
+     *
+     * @param priority 优先级
+     * @return 消息数
+     */
+    public long getQueued(MessagePriority priority) {
+        return queued[priority.ordinal()].sum();
+    }
+
+    /**
+     * 获取排队中的字节数
+     *
+     * @return 字节数
+     */
+    public long getQueuedBytes() {
+        return queuedBytes.sum();
+    }
+
+    /**
+     * 获取已写出的消息数[写出成功后计数]
+     *
+     * @param priority 优先级
+     * @return 消息数
+     */
+    public long getWritten(MessagePriority priority) {
+        return written[priority.ordinal()].sum();
+    }
+
+    /**
+     * 获取过期丢弃的消息数
+     *
+     * @param priority 优先级
+     * @return 消息数
+     */
+    public long getExpired(MessagePriority priority) {
+        return expired[priority.ordinal()].sum();
+    }
+
+    /**
+     * 获取超过积压上限被拒绝的消息数
+     *
+     * @return 消息数
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 获取超过积压上限被挤掉的消息数
+     *
+     * @return 消息数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 获取因持续不可写被断开的链接数
+     *
+     * @return 链接数
+     */
+    public long getDisconnected() {
+        return disconnected.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("OutboundMetrics{");
+        for (MessagePriority priority : MessagePriority.values()) {
+            sb.append(priority).append("[queued=").append(getQueued(priority)).append(", written=").append(getWritten(priority)).append(", expired=").append(getExpired(priority)).append("], ");
+        }
+        sb.append("queuedBytes=").append(getQueuedBytes()).append(", rejected=").append(getRejected());
+        return sb.append(", dropped=").append(getDropped()).append(", disconnected=").append(getDisconnected()).append('}').toString();
+    }
+
+}
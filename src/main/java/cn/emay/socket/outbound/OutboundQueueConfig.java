@@ -0,0 +1,64 @@
+package cn.emay.socket.outbound;
+
+/**
+ * 发送队列配置
+ *
+ * @author Frank
+ */
+public class OutboundQueueConfig {
+
+    /**
+     * 各优先级的调度权重[积压时按权重交替写出]
+     */
+    private final int[] weights = {16, 4, 1};
+
+    /**
+     * 未指定优先级的消息[包括流式消息分块和文件]使用的优先级
+     */
+    private MessagePriority defaultPriority = MessagePriority.NORMAL;
+
+    /**
+     * 设置优先级的调度权重
+     *
+     * @param priority 优先级
+     * @param weight   权重[大于0]
+     */
+    public void setWeight(MessagePriority priority, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be positive");
+        }
+        weights[priority.ordinal()] = weight;
+    }
+
+    /**
+     * 获取优先级的调度权重
+     *
+     * @param priority 优先级
+     * @return 权重
+     */
+    public int getWeight(MessagePriority priority) {
+        return weights[priority.ordinal()];
+    }
+
+    /**
+     * 设置未指定优先级的消息使用的优先级
+     *
+     * @param defaultPriority 优先级
+     */
+    public void setDefaultPriority(MessagePriority defaultPriority) {
+        if (defaultPriority == null) {
+            throw new NullPointerException();
+        }
+        this.defaultPriority = defaultPriority;
+    }
+
+    /**
+     * 获取未指定优先级的消息使用的优先级
+     *
+     * @return 优先级
+     */
+    public MessagePriority getDefaultPriority() {
+        return defaultPriority;
+    }
+
+}
@@ -0,0 +1,539 @@
+package cn.emay.socket.outbound;
+
+import io.netty.channel.*;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 按优先级调度的发送队列[每个链接一个，位于EncodeHandler之前]
+ * <p>
+ * 编码后的消息先进入各优先级队列，只在Netty发送缓冲区未超过高水位时按权重交替写出，
+ * 控制消息最多排在一个高水位的数据之后；写出前已过截止时间的消息直接丢弃。
+ * <p>
+ * 设置了积压上限时，超过上限的新消息按策略拒绝或挤掉最早的消息，DISCONNECT策略下链接持续不可写超时后断开，并触发SlowConsumerEvent。
+ *
+ * @author Frank
+ */
+public class OutboundQueueHandler extends ChannelDuplexHandler {
+
+    /**
+     * 队列积压时占用的链接可写标记位
+     */
+    private static final int WRITABILITY_INDEX = 1;
+
+    /**
+     * 配置
+     */
+    private final OutboundQueueConfig config;
+
+    /**
+     * 积压上限[为null不限制]
+     */
+    private final OutboundLimit limit;
+
+    /**
+     * 统计
+     */
+    private final OutboundMetrics metrics;
+
+    /**
+     * 各优先级的队列
+     */
+    private final ArrayDeque<Entry>[] queues;
+
+    /**
+     * 各优先级本轮剩余的调度次数
+     */
+    private final int[] credits;
+
+    /**
+     * 各优先级写出成功后计数
+     */
+    private final ChannelFutureListener[] writtenListeners;
+
+    /**
+     * 排队中的字节数
+     */
+    private long queuedBytes;
+
+    /**
+     * 排队中的消息数
+     */
+    private int queuedMessages;
+
+    /**
+     * 是否有待执行的flush
+     */
+    private boolean flushPending;
+
+    /**
+     * 新消息是否会超过积压上限
+     */
+    private volatile boolean overLimit;
+
+    /**
+     * 是否处于超限状态[已触发事件]
+     */
+    private boolean slowConsumer;
+
+    /**
+     * 持续不可写断开任务
+     */
+    private ScheduledFuture<?> unwritableTimeout;
+
+    /**
+     * 链接上下文
+     */
+    private ChannelHandlerContext ctx;
+
+    /**
+     * 消息大小估算
+     */
+    private MessageSizeEstimator.Handle estimator;
+
+    /**
+     * 是否已提交调度任务
+     */
+    private boolean drainScheduled;
+
+    /**
+     * 调度任务
+     */
+    private final Runnable drainTask = () -> {
+        drainScheduled = false;
+        drain();
+    };
+
+    /**
+     * 写出完成后继续调度[完成通知早于发送缓冲区扣减，因此提交到事件循环稍后执行]
+     */
+    private final ChannelFutureListener drainListener = future -> {
+        if (!drainScheduled && flushPending) {
+            drainScheduled = true;
+            ctx.executor().execute(drainTask);
+        }
+    };
+
+    /**
+     * @param config  配置
+     * @param limit   积压上限[为null不限制]
+     * @param metrics 统计
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public OutboundQueueHandler(OutboundQueueConfig config, OutboundLimit limit, OutboundMetrics metrics) {
+        this.config = config;
+        this.limit = limit;
+        this.metrics = metrics;
+        int size = MessagePriority.values().length;
+        this.queues = new ArrayDeque[size];
+        this.credits = new int[size];
+        this.writtenListeners = new ChannelFutureListener[size];
+        for (int i = 0; i < size; i++) {
+            MessagePriority priority = MessagePriority.values()[i];
+            credits[i] = config.getWeight(priority);
+            writtenListeners[i] = future -> {
+                if (future.isSuccess()) {
+                    metrics.onWritten(priority);
+                }
+            };
+        }
+    }
+
+    /**
+     * 获取链接上的发送队列
+     *
+     * @param channel 链接
+     * @return 发送队列，未启用返回null
+     */
+    public static OutboundQueueHandler of(Channel channel) {
+        return channel.pipeline().get(OutboundQueueHandler.class);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+        this.estimator = ctx.channel().config().getMessageSizeEstimator().newHandle();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        MessagePriority priority = config.getDefaultPriority();
+        long deadline = 0;
+        Object content = msg;
+        if (msg instanceof OutboundMessage) {
+            OutboundMessage message = (OutboundMessage) msg;
+            priority = message.getPriority();
+            deadline = message.getDeadline();
+            content = message.getMessage();
+        }
+        int size = Math.max(estimator.size(content), 0);
+        if (limit != null && exceeds(1, size)) {
+            if (limit.getPolicy() == OverflowPolicy.DROP_OLDEST) {
+                while (exceeds(1, size) && dropOldest()) {
+                    metrics.onDropped();
+                }
+            }
+            if (exceeds(1, size)) {
+                metrics.onRejected();
+                ReferenceCountUtil.release(content);
+                promise.tryFailure(new RejectedExecutionException("outbound buffer is full"));
+                slowConsumer(SlowConsumerEvent.Type.REJECTED);
+                return;
+            }
+            slowConsumer(SlowConsumerEvent.Type.DROPPED);
+        }
+        int index = priority.ordinal();
+        if (queues[index] == null) {
+            queues[index] = new ArrayDeque<>();
+        }
+        queues[index].add(new Entry(content, promise, priority, deadline, size));
+        queuedBytes += size;
+        queuedMessages++;
+        metrics.onEnqueue(priority, size);
+        updateWritability();
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        flushPending = true;
+        drain();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        drain();
+        checkUnwritable();
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        cancelUnwritableTimeout();
+        failAll(new ClosedChannelException());
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        cancelUnwritableTimeout();
+        failAll(new ClosedChannelException());
+    }
+
+    /**
+     * 新消息是否会超过积压上限[可在任意线程调用，用于发送前快速拒绝]
+     *
+     * @return 是否超过
+     */
+    public boolean isOverLimit() {
+        return overLimit;
+    }
+
+    /**
+     * 加入新消息后是否超过积压上限
+     *
+     * @param messages 新消息数
+     * @param bytes    新消息字节数
+     * @return 是否超过
+     */
+    private boolean exceeds(int messages, long bytes) {
+        if (limit.getMaxMessages() > 0 && queuedMessages + messages > limit.getMaxMessages()) {
+            return true;
+        }
+        if (limit.getMaxBytes() > 0) {
+            ChannelOutboundBuffer buffer = ctx.channel().unsafe().outboundBuffer();
+            long pending = queuedBytes + (buffer == null ? 0 : buffer.totalPendingWriteBytes());
+            return pending + bytes > limit.getMaxBytes();
+        }
+        return false;
+    }
+
+    /**
+     * 积压是否已回落到上限的一半以下[退出超限状态，避免反复触发事件]
+     *
+     * @return 是否回落
+     */
+    private boolean isBelowHalf() {
+        if (limit.getMaxMessages() > 0 && queuedMessages > limit.getMaxMessages() / 2) {
+            return false;
+        }
+        if (limit.getMaxBytes() > 0) {
+            ChannelOutboundBuffer buffer = ctx.channel().unsafe().outboundBuffer();
+            long pending = queuedBytes + (buffer == null ? 0 : buffer.totalPendingWriteBytes());
+            return pending <= limit.getMaxBytes() / 2;
+        }
+        return true;
+    }
+
+    /**
+     * 丢弃最早排队的消息[从低优先级开始]
+     *
+     * @return 是否丢弃了消息
+     */
+    private boolean dropOldest() {
+        for (int i = queues.length - 1; i >= 0; i--) {
+            ArrayDeque<Entry> queue = queues[i];
+            if (queue != null && !queue.isEmpty()) {
+                Entry entry = dequeue(queue);
+                ReferenceCountUtil.release(entry.content);
+                entry.promise.tryFailure(new RejectedExecutionException("message dropped for newer message"));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 进入超限状态时触发一次慢消费者事件
+     *
+     * @param type 事件类型
+     */
+    private void slowConsumer(SlowConsumerEvent.Type type) {
+        if (slowConsumer) {
+            return;
+        }
+        slowConsumer = true;
+        fireSlowConsumer(type);
+    }
+
+    /**
+     * 触发慢消费者事件[从处理链头部开始，ConnectHandler可以收到]
+     *
+     * @param type 事件类型
+     */
+    private void fireSlowConsumer(SlowConsumerEvent.Type type) {
+        ChannelOutboundBuffer buffer = ctx.channel().unsafe().outboundBuffer();
+        long pending = queuedBytes + (buffer == null ? 0 : buffer.totalPendingWriteBytes());
+        ctx.pipeline().fireUserEventTriggered(new SlowConsumerEvent(type, pending, queuedMessages));
+    }
+
+    /**
+     * 链接不可写时开始计时，超时仍不可写则断开
+     */
+    private void checkUnwritable() {
+        if (limit == null || limit.getPolicy() != OverflowPolicy.DISCONNECT) {
+            return;
+        }
+        if (!ctx.channel().isWritable()) {
+            if (unwritableTimeout == null) {
+                unwritableTimeout = ctx.executor().schedule(this::evict, limit.getUnwritableTimeoutMillis(), TimeUnit.MILLISECONDS);
+            }
+        } else {
+            cancelUnwritableTimeout();
+        }
+    }
+
+    /**
+     * 取消断开计时
+     */
+    private void cancelUnwritableTimeout() {
+        if (unwritableTimeout != null) {
+            unwritableTimeout.cancel(false);
+            unwritableTimeout = null;
+        }
+    }
+
+    /**
+     * 断开持续不可写的链接
+     */
+    private void evict() {
+        unwritableTimeout = null;
+        if (!ctx.channel().isActive() || ctx.channel().isWritable()) {
+            return;
+        }
+        metrics.onDisconnected();
+        fireSlowConsumer(SlowConsumerEvent.Type.DISCONNECTED);
+        ctx.close();
+    }
+
+    /**
+     * 按权重写出排队的消息，直到发送缓冲区超过高水位
+     */
+    private void drain() {
+        if (!flushPending || ctx == null) {
+            return;
+        }
+        ChannelOutboundBuffer buffer = ctx.channel().unsafe().outboundBuffer();
+        if (buffer == null) {
+            return;
+        }
+        long highWaterMark = ctx.channel().config().getWriteBufferHighWaterMark();
+        boolean written = false;
+        long now = 0;
+        while (buffer.totalPendingWriteBytes() <= highWaterMark) {
+            Entry entry = poll();
+            if (entry == null) {
+                flushPending = false;
+                break;
+            }
+            if (entry.deadline != 0) {
+                if (now == 0) {
+                    now = System.nanoTime();
+                }
+                if (now - entry.deadline > 0) {
+                    expire(entry);
+                    continue;
+                }
+            }
+            ChannelPromise promise = entry.promise.unvoid();
+            promise.addListener(drainListener);
+            promise.addListener(writtenListeners[entry.priority.ordinal()]);
+            ctx.write(entry.content, promise);
+            written = true;
+        }
+        if (written) {
+            ctx.flush();
+        }
+        updateWritability();
+    }
+
+    /**
+     * 按权重取出下一条消息
+     *
+     * @return 消息，队列为空返回null
+     */
+    private Entry poll() {
+        if (queuedMessages == 0) {
+            return null;
+        }
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < queues.length; i++) {
+                ArrayDeque<Entry> queue = queues[i];
+                if (credits[i] > 0 && queue != null && !queue.isEmpty()) {
+                    credits[i]--;
+                    return dequeue(queue);
+                }
+            }
+            for (int i = 0; i < credits.length; i++) {
+                credits[i] = config.getWeight(MessagePriority.values()[i]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 出队
+     *
+     * @param queue 队列
+     * @return 消息
+     */
+    private Entry dequeue(ArrayDeque<Entry> queue) {
+        Entry entry = queue.poll();
+        queuedBytes -= entry.size;
+        queuedMessages--;
+        metrics.onDequeue(entry.priority, entry.size);
+        return entry;
+    }
+
+    /**
+     * 丢弃过期消息
+     *
+     * @param entry 消息
+     */
+    private void expire(Entry entry) {
+        metrics.onExpired(entry.priority);
+        ReferenceCountUtil.release(entry.content);
+        entry.promise.tryFailure(new TimeoutException("message expired before write"));
+    }
+
+    /**
+     * 丢弃所有排队的消息
+     *
+     * @param cause 原因
+     */
+    private void failAll(Throwable cause) {
+        for (ArrayDeque<Entry> queue : queues) {
+            if (queue == null) {
+                continue;
+            }
+            while (!queue.isEmpty()) {
+                Entry entry = dequeue(queue);
+                ReferenceCountUtil.release(entry.content);
+                entry.promise.tryFailure(cause);
+            }
+        }
+        flushPending = false;
+    }
+
+    /**
+     * 队列积压超过高水位时标记链接不可写[上游的流式发送随之暂停]，低于低水位时恢复；同时刷新超限状态
+     */
+    private void updateWritability() {
+        ChannelOutboundBuffer buffer = ctx.channel().unsafe().outboundBuffer();
+        if (buffer == null) {
+            return;
+        }
+        if (limit != null) {
+            overLimit = exceeds(1, 0);
+            if (slowConsumer && !overLimit && isBelowHalf()) {
+                slowConsumer = false;
+            }
+        }
+        ChannelConfig channelConfig = ctx.channel().config();
+        if (queuedBytes > channelConfig.getWriteBufferHighWaterMark()) {
+            buffer.setUserDefinedWritability(WRITABILITY_INDEX, false);
+        } else if (queuedBytes < channelConfig.getWriteBufferLowWaterMark()) {
+            buffer.setUserDefinedWritability(WRITABILITY_INDEX, true);
+        }
+    }
+
+    /**
+     * 获取排队中的消息数
+     *
+     * @param priority 优先级
+     * @return 消息数
+     */
+    public int getQueuedMessages(MessagePriority priority) {
+        ArrayDeque<Entry> queue = queues[priority.ordinal()];
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * 获取排队中的消息数
+     *
+     * @return 消息数
+     */
+    public int getQueuedMessages() {
+        return queuedMessages;
+    }
+
+    /**
+     * 获取排队中的字节数
+     *
+     * @return 字节数
+     */
+    public long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    /**
+     * 排队的消息
+     */
+    private static final class Entry {
+
+        private final Object content;
+
+        private final ChannelPromise promise;
+
+        private final MessagePriority priority;
+
+        private final long deadline;
+
+        private final int size;
+
+        Entry(Object content, ChannelPromise promise, MessagePriority priority, long deadline, int size) {
+            this.content = content;
+            this.promise = promise;
+            this.priority = priority;
+            this.deadline = deadline;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -0,0 +1,25 @@
+package cn.emay.socket.outbound;
+
+/**
+ * 发送积压超过上限时的处理策略
+ *
+ * @author Frank
+ */
+public enum OverflowPolicy {
+
+    /**
+     * 拒绝新消息
+     */
+    REJECT,
+
+    /**
+     * 丢弃最早排队的消息[优先丢弃低优先级]，为新消息腾出空间
+     */
+    DROP_OLDEST,
+
+    /**
+     * 拒绝新消息，链接持续不可写超过设定时间后断开
+     */
+    DISCONNECT
+
+}
@@ -0,0 +1,114 @@
+package cn.emay.socket.outbound;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * 分段编码结果的组装
+ * <p>
+ * 编码可以按消息头、消息体、消息尾分段输出，多段组装为CompositeByteBuf，不拼接复制，写出时按段聚集写(gathering write)；
+ * 总长度较小时直接复制到一个堆外缓冲区
+ *
+ * @author Frank
+ */
+public class SegmentSupport {
+
+    /**
+     * 总长度不超过此值时复制到一个缓冲区[小消息复制比组合更快]
+     */
+    private static final int COPY_THRESHOLD = 1024;
+
+    /**
+     * 组装分段[ByteBuf的所有权转移给返回结果]
+     *
+     * @param alloc    分配器
+     * @param segments 分段[byte[]、ByteBuffer或ByteBuf，null忽略]
+     * @return 组装结果
+     * @throws IllegalArgumentException 不支持的分段类型[已释放所有分段]
+     */
+    public static ByteBuf compose(ByteBufAllocator alloc, List<Object> segments) {
+        int size = segments.size();
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += sizeOf(segments, segments.get(i));
+        }
+        if (size == 0) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+        if (size == 1) {
+            return toByteBuf(segments.get(0));
+        }
+        if (total <= COPY_THRESHOLD) {
+            ByteBuf buf = alloc.ioBuffer(total);
+            for (int i = 0; i < size; i++) {
+                Object segment = segments.get(i);
+                if (segment instanceof byte[]) {
+                    buf.writeBytes((byte[]) segment);
+                } else if (segment instanceof ByteBuffer) {
+                    buf.writeBytes(((ByteBuffer) segment).duplicate());
+                } else if (segment instanceof ByteBuf) {
+                    ByteBuf segmentBuf = (ByteBuf) segment;
+                    buf.writeBytes(segmentBuf, segmentBuf.readerIndex(), segmentBuf.readableBytes());
+                    segmentBuf.release();
+                }
+            }
+            return buf;
+        }
+        CompositeByteBuf composite = alloc.compositeBuffer(size);
+        for (int i = 0; i < size; i++) {
+            composite.addComponent(true, toByteBuf(segments.get(i)));
+        }
+        return composite;
+    }
+
+    /**
+     * 释放分段中的ByteBuf[编码失败时]
+     *
+     * @param segments 分段
+     */
+    public static void release(List<Object> segments) {
+        for (Object segment : segments) {
+            ReferenceCountUtil.release(segment);
+        }
+    }
+
+    /**
+     * 分段长度，不支持的类型释放所有分段后报错
+     */
+    private static int sizeOf(List<Object> segments, Object segment) {
+        if (segment instanceof ByteBuf) {
+            return ((ByteBuf) segment).readableBytes();
+        }
+        if (segment instanceof byte[]) {
+            return ((byte[]) segment).length;
+        }
+        if (segment instanceof ByteBuffer) {
+            return ((ByteBuffer) segment).remaining();
+        }
+        if (segment == null) {
+            return 0;
+        }
+        release(segments);
+        throw new IllegalArgumentException("unsupported segment type " + segment.getClass().getName());
+    }
+
+    private static ByteBuf toByteBuf(Object segment) {
+        if (segment instanceof ByteBuf) {
+            return (ByteBuf) segment;
+        }
+        if (segment instanceof byte[]) {
+            return Unpooled.wrappedBuffer((byte[]) segment);
+        }
+        if (segment instanceof ByteBuffer) {
+            return Unpooled.wrappedBuffer((ByteBuffer) segment);
+        }
+        return Unpooled.EMPTY_BUFFER;
+    }
+
+}
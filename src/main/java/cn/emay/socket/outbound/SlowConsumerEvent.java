@@ -0,0 +1,90 @@
+package cn.emay.socket.outbound;
+
+/**
+ * 慢消费者事件[链接发送积压超过上限]
+ *
+ * @author Frank
+ */
+public class SlowConsumerEvent {
+
+    /**
+     * 事件类型
+     */
+    public enum Type {
+
+        /**
+         * 开始拒绝新消息
+         */
+        REJECTED,
+
+        /**
+         * 开始丢弃最早的消息
+         */
+        DROPPED,
+
+        /**
+         * 持续不可写，断开链接
+         */
+        DISCONNECTED
+
+    }
+
+    /**
+     * 事件类型
+     */
+    private final Type type;
+
+    /**
+     * 积压字节数
+     */
+    private final long pendingBytes;
+
+    /**
+     * 发送队列中的消息数
+     */
+    private final int queuedMessages;
+
+    /**
+     * @param type           事件类型
+     * @param pendingBytes   积压字节数
+     * @param queuedMessages 发送队列中的消息数
+     */
+    public SlowConsumerEvent(Type type, long pendingBytes, int queuedMessages) {
+        this.type = type;
+        this.pendingBytes = pendingBytes;
+        this.queuedMessages = queuedMessages;
+    }
+
+    /**
+     * 获取事件类型
+     *
+     * @return 事件类型
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * 获取积压字节数
+     *
+     * @return 积压字节数
+     */
+    public long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * 获取发送队列中的消息数
+     *
+     * @return 消息数
+     */
+    public int getQueuedMessages() {
+        return queuedMessages;
+    }
+
+    @Override
+    public String toString() {
+        return "SlowConsumerEvent{type=" + type + ", pendingBytes=" + pendingBytes + ", queuedMessages=" + queuedMessages + '}';
+    }
+
+}
@@ -0,0 +1,132 @@
+package cn.emay.socket.pool;
+
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.Recycler;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetectorFactory;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 消息对象池[线程本地回收]
+ * <p>
+ * 解码时通过get()获取消息实例，业务处理结束后框架自动回收。<br/>
+ * 调试模式下跟踪每个实例且不复用：未回收的实例被GC时输出泄露报告，重复释放时抛出引用计数异常，并统计未归还数量。
+ *
+ * @author Frank
+ */
+public class MessagePool<T extends PooledMessage> {
+
+    /**
+     * 名字
+     */
+    private final String name;
+
+    /**
+     * 回收器
+     */
+    private final Recycler<T> recycler;
+
+    /**
+     * 泄露检测[调试模式]
+     */
+    private final ResourceLeakDetector<PooledMessage> leakDetector;
+
+    /**
+     * 取出数量[调试模式]
+     */
+    private final LongAdder borrowed = new LongAdder();
+
+    /**
+     * 归还数量[调试模式]
+     */
+    private final LongAdder returned = new LongAdder();
+
+    /**
+     * @param name    名字
+     * @param factory 消息创建工厂
+     */
+    public MessagePool(String name, Supplier<T> factory) {
+        this(name, factory, 4096, false);
+    }
+
+    /**
+     * @param name                 名字
+     * @param factory              消息创建工厂
+     * @param maxCapacityPerThread 每个线程最多缓存的实例数
+     * @param debug                是否调试模式
+     */
+    public MessagePool(String name, Supplier<T> factory, int maxCapacityPerThread, boolean debug) {
+        if (name == null || factory == null) {
+            throw new NullPointerException();
+        }
+        this.name = name;
+        this.recycler = new Recycler<T>(maxCapacityPerThread) {
+            @Override
+            @SuppressWarnings("unchecked")
+            protected T newObject(Handle<T> handle) {
+                T message = factory.get();
+                message.bind((Handle<PooledMessage>) (Handle<?>) handle, MessagePool.this);
+                return message;
+            }
+        };
+        this.leakDetector = debug ? ResourceLeakDetectorFactory.instance().newResourceLeakDetector(PooledMessage.class, 1) : null;
+    }
+
+    /**
+     * 获取一个消息实例[引用计数为1]
+     *
+     * @return 消息实例
+     */
+    public T get() {
+        T message = recycler.get();
+        message.borrow(leakDetector == null ? null : leakDetector.track(message));
+        if (leakDetector != null) {
+            borrowed.increment();
+        }
+        return message;
+    }
+
+    /**
+     * 回收
+     *
+     * @param message 消息实例
+     */
+    void recycle(PooledMessage message) {
+        if (!message.giveBack(leakDetector == null)) {
+            throw new IllegalReferenceCountException("message of pool[" + name + "] released more than once");
+        }
+        if (leakDetector != null) {
+            returned.increment();
+        }
+    }
+
+    /**
+     * 获取名字
+     *
+     * @return 名字
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 是否调试模式
+     *
+     * @return 是否调试模式
+     */
+    public boolean isDebug() {
+        return leakDetector != null;
+    }
+
+    /**
+     * 获取未归还的实例数[仅调试模式统计]
+     *
+     * @return 未归还的实例数
+     */
+    public long getOutstanding() {
+        return borrowed.sum() - returned.sum();
+    }
+
+}
@@ -0,0 +1,99 @@
+package cn.emay.socket.pool;
+
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.Recycler;
+import io.netty.util.ResourceLeakTracker;
+
+/**
+ * 可回收的消息
+ * <p>
+ * 由MessagePool.get()获取，引用计数为1；业务处理结束后由框架release，计数归零时回收到池中。<br/>
+ * 业务需要异步使用时先retain，使用完毕后release。
+ *
+ * @author Frank
+ */
+public abstract class PooledMessage extends AbstractReferenceCounted {
+
+    /**
+     * 回收句柄
+     */
+    private Recycler.Handle<PooledMessage> handle;
+
+    /**
+     * 所属的池
+     */
+    private MessagePool<?> pool;
+
+    /**
+     * 泄露跟踪[调试模式]
+     */
+    private ResourceLeakTracker<PooledMessage> leak;
+
+    /**
+     * 是否在池中[调试模式]
+     */
+    private boolean pooled;
+
+    /**
+     * 回收前清理字段，避免持有业务对象
+     */
+    protected abstract void reset();
+
+    /**
+     * 创建时绑定回收句柄
+     *
+     * @param handle 回收句柄
+     * @param pool   所属的池
+     */
+    void bind(Recycler.Handle<PooledMessage> handle, MessagePool<?> pool) {
+        this.handle = handle;
+        this.pool = pool;
+    }
+
+    /**
+     * 从池中取出
+     *
+     * @param leak 泄露跟踪
+     */
+    void borrow(ResourceLeakTracker<PooledMessage> leak) {
+        this.leak = leak;
+        this.pooled = false;
+        setRefCnt(1);
+    }
+
+    /**
+     * 放回池中
+     *
+     * @param reuse 是否复用[调试模式不复用，释放过期引用时必然触发引用计数异常]
+     * @return 是否首次放回
+     */
+    boolean giveBack(boolean reuse) {
+        if (pooled) {
+            return false;
+        }
+        pooled = true;
+        reset();
+        if (leak != null) {
+            leak.close(this);
+            leak = null;
+        }
+        if (reuse) {
+            handle.recycle(this);
+        }
+        return true;
+    }
+
+    @Override
+    protected final void deallocate() {
+        pool.recycle(this);
+    }
+
+    @Override
+    public PooledMessage touch(Object hint) {
+        if (leak != null) {
+            leak.record(hint);
+        }
+        return this;
+    }
+
+}
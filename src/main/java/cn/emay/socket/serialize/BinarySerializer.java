@@ -0,0 +1,491 @@
+package cn.emay.socket.serialize;
+
+import cn.emay.socket.utils.ByteUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 紧凑二进制序列化器
+ * <p>
+ * 支持null、基本类型及其包装类、String、byte[]、List、Set、Map以及注册过的POJO和枚举；
+ * 整数使用zigzag变长编码，字符串直接按UTF-8写入ByteBuf，读写均不经过中间数组
+ * <p>
+ * POJO需有无参构造方法，按字段名顺序序列化所有非static、非transient字段(含父类)，字段访问器在注册时预先生成；
+ * 两端需以相同的编号注册相同的类。List解码为ArrayList，Set解码为LinkedHashSet，Map解码为LinkedHashMap
+ *
+ * @author Frank
+ */
+public class BinarySerializer implements Serializer {
+
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int BYTE = 3;
+    private static final int SHORT = 4;
+    private static final int CHAR = 5;
+    private static final int INT = 6;
+    private static final int LONG = 7;
+    private static final int FLOAT = 8;
+    private static final int DOUBLE = 9;
+    private static final int STRING = 10;
+    private static final int BYTES = 11;
+    private static final int LIST = 12;
+    private static final int SET = 13;
+    private static final int MAP = 14;
+    private static final int OBJECT = 15;
+    private static final int ENUM = 16;
+
+    /**
+     * 最大嵌套层数
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * 按类查找
+     */
+    private final Map<Class<?>, ClassSchema> schemas = new ConcurrentHashMap<>();
+
+    /**
+     * 按编号查找
+     */
+    private volatile ClassSchema[] schemasById = new ClassSchema[0];
+
+    /**
+     * 注册类，编号为已注册的类数[两端注册顺序需一致]
+     *
+     * @param type POJO或枚举
+     * @return 本序列化器
+     */
+    public synchronized BinarySerializer register(Class<?> type) {
+        return register(schemasById.length, type);
+    }
+
+    /**
+     * 以指定编号注册类
+     *
+     * @param id   编号[非负]
+     * @param type POJO或枚举
+     * @return 本序列化器
+     */
+    public synchronized BinarySerializer register(int id, Class<?> type) {
+        if (type == null) {
+            throw new NullPointerException();
+        }
+        if (id < 0) {
+            throw new IllegalArgumentException("class id must not be negative");
+        }
+        if (schemas.containsKey(type)) {
+            throw new IllegalArgumentException("class " + type.getName() + " has been registered");
+        }
+        if (id < schemasById.length && schemasById[id] != null) {
+            throw new IllegalArgumentException("class id " + id + " has been registered by " + schemasById[id].type.getName());
+        }
+        ClassSchema schema = new ClassSchema(id, type);
+        ClassSchema[] byId = Arrays.copyOf(schemasById, Math.max(schemasById.length, id + 1));
+        byId[id] = schema;
+        schemas.put(type, schema);
+        schemasById = byId;
+        return this;
+    }
+
+    @Override
+    public void writeObject(Object obj, ByteBuf out) throws Exception {
+        writeValue(obj, out, 0);
+    }
+
+    @Override
+    public Object readObject(ByteBuf in) throws Exception {
+        return readValue(in, 0);
+    }
+
+    private void writeValue(Object value, ByteBuf out, int depth) throws Exception {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("nesting depth exceeds " + MAX_DEPTH);
+        }
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String) value, out);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            ByteUtils.writeVarInt(out, ByteUtils.zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            ByteUtils.writeVarLong(out, ByteUtils.zigZag((Long) value));
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHAR);
+            out.writeChar((Character) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BYTES);
+            ByteUtils.writeVarInt(out, bytes.length);
+            out.writeBytes(bytes);
+        } else if (value instanceof List || value instanceof Set) {
+            Collection<?> collection = (Collection<?>) value;
+            out.writeByte(value instanceof List ? LIST : SET);
+            ByteUtils.writeVarInt(out, collection.size());
+            for (Object element : collection) {
+                writeValue(element, out, depth + 1);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(MAP);
+            ByteUtils.writeVarInt(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey(), out, depth + 1);
+                writeValue(entry.getValue(), out, depth + 1);
+            }
+        } else if (value instanceof Enum) {
+            ClassSchema schema = schemaOf(((Enum<?>) value).getDeclaringClass());
+            out.writeByte(ENUM);
+            ByteUtils.writeVarInt(out, schema.id);
+            ByteUtils.writeVarInt(out, ((Enum<?>) value).ordinal());
+        } else {
+            ClassSchema schema = schemaOf(value.getClass());
+            out.writeByte(OBJECT);
+            ByteUtils.writeVarInt(out, schema.id);
+            for (FieldAccessor accessor : schema.fields) {
+                accessor.write(value, out, depth + 1);
+            }
+        }
+    }
+
+    private Object readValue(ByteBuf in, int depth) throws Exception {
+        if (depth > MAX_DEPTH) {
+            throw new CorruptedFrameException("nesting depth exceeds " + MAX_DEPTH);
+        }
+        int tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case CHAR:
+                return in.readChar();
+            case INT:
+                return ByteUtils.unZigZag(ByteUtils.readVarInt(in));
+            case LONG:
+                return ByteUtils.unZigZag(ByteUtils.readVarLong(in));
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                return readString(in);
+            case BYTES: {
+                byte[] bytes = new byte[readLength(in)];
+                in.readBytes(bytes);
+                return bytes;
+            }
+            case LIST: {
+                int size = readLength(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, depth + 1));
+                }
+                return list;
+            }
+            case SET: {
+                int size = readLength(in);
+                Set<Object> set = new LinkedHashSet<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    set.add(readValue(in, depth + 1));
+                }
+                return set;
+            }
+            case MAP: {
+                int size = readLength(in);
+                Map<Object, Object> map = new LinkedHashMap<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in, depth + 1), readValue(in, depth + 1));
+                }
+                return map;
+            }
+            case ENUM: {
+                ClassSchema schema = schemaOf(ByteUtils.readVarInt(in));
+                int ordinal = ByteUtils.readVarInt(in);
+                if (schema.constants == null || ordinal < 0 || ordinal >= schema.constants.length) {
+                    throw new CorruptedFrameException("illegal enum " + schema.type.getName() + " ordinal " + ordinal);
+                }
+                return schema.constants[ordinal];
+            }
+            case OBJECT: {
+                ClassSchema schema = schemaOf(ByteUtils.readVarInt(in));
+                if (schema.constructor == null) {
+                    throw new CorruptedFrameException("class " + schema.type.getName() + " is not a pojo");
+                }
+                Object obj = schema.constructor.newInstance();
+                for (FieldAccessor accessor : schema.fields) {
+                    accessor.read(obj, in, depth + 1);
+                }
+                return obj;
+            }
+            default:
+                throw new CorruptedFrameException("unknown tag " + tag);
+        }
+    }
+
+    private ClassSchema schemaOf(Class<?> type) {
+        ClassSchema schema = schemas.get(type);
+        if (schema == null) {
+            throw new IllegalArgumentException("class " + type.getName() + " is not registered");
+        }
+        return schema;
+    }
+
+    private ClassSchema schemaOf(int id) {
+        ClassSchema[] byId = schemasById;
+        if (id < 0 || id >= byId.length || byId[id] == null) {
+            throw new CorruptedFrameException("unknown class id " + id);
+        }
+        return byId[id];
+    }
+
+    /**
+     * 读取长度，不超过剩余字节数[每个元素至少1字节，防止恶意长度导致大量分配]
+     */
+    private static int readLength(ByteBuf in) {
+        int length = ByteUtils.readVarInt(in);
+        if (length < 0 || length > in.readableBytes()) {
+            throw new CorruptedFrameException("illegal length " + length + ", readable " + in.readableBytes());
+        }
+        return length;
+    }
+
+    private static int capacity(int size) {
+        return size < 3 ? size + 1 : (int) (size / 0.75f + 1);
+    }
+
+    /**
+     * 写入字符串[长度字段按最大UTF-8长度预留宽度，写完后回填，只需遍历一次字符串]
+     */
+    private static void writeString(String value, ByteBuf out) {
+        int maxLength = ByteBufUtil.utf8MaxBytes(value);
+        int width = ByteUtils.varIntSize(maxLength);
+        out.ensureWritable(width + maxLength);
+        int start = out.writerIndex();
+        out.writerIndex(start + width);
+        ByteUtils.setVarInt(out, start, ByteBufUtil.reserveAndWriteUtf8(out, value, maxLength), width);
+    }
+
+    private static String readString(ByteBuf in) {
+        return in.readCharSequence(readLength(in), StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * 注册类的结构
+     */
+    private class ClassSchema {
+
+        private final int id;
+
+        private final Class<?> type;
+
+        /**
+         * 枚举常量[非枚举为null]
+         */
+        private final Object[] constants;
+
+        /**
+         * 无参构造方法[枚举为null]
+         */
+        private final Constructor<?> constructor;
+
+        private final FieldAccessor[] fields;
+
+        ClassSchema(int id, Class<?> type) {
+            this.id = id;
+            this.type = type;
+            if (type.isEnum()) {
+                this.constants = type.getEnumConstants();
+                this.constructor = null;
+                this.fields = new FieldAccessor[0];
+                return;
+            }
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isArray() || type.isPrimitive()) {
+                throw new IllegalArgumentException("class " + type.getName() + " is not a pojo");
+            }
+            this.constants = null;
+            try {
+                this.constructor = type.getDeclaredConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("class " + type.getName() + " has no default constructor", e);
+            }
+            this.constructor.setAccessible(true);
+            List<Field> list = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                        list.add(field);
+                    }
+                }
+            }
+            list.sort(Comparator.comparing(Field::getName).thenComparing(f -> f.getDeclaringClass().getName()));
+            this.fields = new FieldAccessor[list.size()];
+            for (int i = 0; i < fields.length; i++) {
+                Field field = list.get(i);
+                field.setAccessible(true);
+                fields[i] = accessorOf(field);
+            }
+        }
+    }
+
+    /**
+     * 字段访问器[基本类型字段不写类型标记，不装箱]
+     */
+    private abstract static class FieldAccessor {
+
+        final Field field;
+
+        FieldAccessor(Field field) {
+            this.field = field;
+        }
+
+        abstract void write(Object target, ByteBuf out, int depth) throws Exception;
+
+        abstract void read(Object target, ByteBuf in, int depth) throws Exception;
+    }
+
+    private FieldAccessor accessorOf(Field field) {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return new FieldAccessor(field) {
+                @Override
+                void write(Object target, ByteBuf out, int depth) throws Exception {
+                    ByteUtils.writeVarInt(out, ByteUtils.zigZag(field.getInt(target)));
+                }
+
+                @Override
+                void read(Object target, ByteBuf in, int depth) throws Exception {
+                    field.setInt(target, ByteUtils.unZigZag(ByteUtils.readVarInt(in)));
+                }
+            };
+        } else if (type == long.class) {
+            return new FieldAccessor(field) {
+                @Override
+                void write(Object target, ByteBuf out, int depth) throws Exception {
+                    ByteUtils.writeVarLong(out, ByteUtils.zigZag(field.getLong(target)));
+                }
+
+                @Override
+                void read(Object target, ByteBuf in, int depth) throws Exception {
+                    field.setLong(target, ByteUtils.unZigZag(ByteUtils.readVarLong(in)));
+                }
+            };
+        } else if (type == boolean.class) {
+            return new FieldAccessor(field) {
+                @Override
+                void write(Object target, ByteBuf out, int depth) throws Exception {
+                    out.writeBoolean(field.getBoolean(target));
+                }
+
+                @Override
+                void read(Object target, ByteBuf in, int depth) throws Exception {
+                    field.setBoolean(target, in.readBoolean());
+                }
+            };
+        } else if (type == byte.class) {
+            return new FieldAccessor(field) {
+                @Override
+                void write(Object target, ByteBuf out, int depth) throws Exception {
+                    out.writeByte(field.getByte(target));
+                }
+
+                @Override
+                void read(Object target, ByteBuf in, int depth) throws Exception {
+                    field.setByte(target, in.readByte());
+                }
+            };
+        } else if (type == short.class) {
+            return new FieldAccessor(field) {
+                @Override
+                void write(Object target, ByteBuf out, int depth) throws Exception {
+                    out.writeShort(field.getShort(target));
+                }
+
+                @Override
+                void read(Object target, ByteBuf in, int depth) throws Exception {
+                    field.setShort(target, in.readShort());
+                }
+            };
+        } else if (type == char.class) {
+            return new FieldAccessor(field) {
+                @Override
+                void write(Object target, ByteBuf out, int depth) throws Exception {
+                    out.writeChar(field.getChar(target));
+                }
+
+                @Override
+                void read(Object target, ByteBuf in, int depth) throws Exception {
+                    field.setChar(target, in.readChar());
+                }
+            };
+        } else if (type == float.class) {
+            return new FieldAccessor(field) {
+                @Override
+                void write(Object target, ByteBuf out, int depth) throws Exception {
+                    out.writeFloat(field.getFloat(target));
+                }
+
+                @Override
+                void read(Object target, ByteBuf in, int depth) throws Exception {
+                    field.setFloat(target, in.readFloat());
+                }
+            };
+        } else if (type == double.class) {
+            return new FieldAccessor(field) {
+                @Override
+                void write(Object target, ByteBuf out, int depth) throws Exception {
+                    out.writeDouble(field.getDouble(target));
+                }
+
+                @Override
+                void read(Object target, ByteBuf in, int depth) throws Exception {
+                    field.setDouble(target, in.readDouble());
+                }
+            };
+        }
+        return new FieldAccessor(field) {
+            @Override
+            void write(Object target, ByteBuf out, int depth) throws Exception {
+                writeValue(field.get(target), out, depth);
+            }
+
+            @Override
+            void read(Object target, ByteBuf in, int depth) throws Exception {
+                field.set(target, readValue(in, depth));
+            }
+        };
+    }
+
+}
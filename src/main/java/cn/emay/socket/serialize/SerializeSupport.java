@@ -0,0 +1,87 @@
+package cn.emay.socket.serialize;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.util.List;
+
+/**
+ * 序列化消息的分帧编解码
+ * <p>
+ * 帧格式：4字节长度(大端) + 序列化数据
+ *
+ * @author Frank
+ */
+public class SerializeSupport {
+
+    /**
+     * 默认最大帧长度[字节]
+     */
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * 长度字段字节数
+     */
+    private static final int LENGTH_FIELD = 4;
+
+    /**
+     * 编码一条消息
+     *
+     * @param alloc      分配器
+     * @param serializer 序列化器
+     * @param msg        消息
+     * @return 帧数据
+     * @throws Exception 序列化失败
+     */
+    public static ByteBuf encode(ByteBufAllocator alloc, Serializer serializer, Object msg) throws Exception {
+        ByteBuf out = alloc.ioBuffer();
+        try {
+            int start = out.writerIndex();
+            out.writeInt(0);
+            serializer.writeObject(msg, out);
+            out.setInt(start, out.writerIndex() - start - LENGTH_FIELD);
+            return out;
+        } catch (Exception | Error e) {
+            out.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 解码已接收数据中的完整消息[不完整的留在缓冲区等待后续数据]
+     * <p>
+     * 帧长度错误时丢弃已接收的数据后抛出异常，由调用方关闭链接
+     *
+     * @param serializer     序列化器
+     * @param in             已接收数据
+     * @param out            解码结果
+     * @param maxFrameLength 最大帧长度[字节]
+     * @throws Exception 数据错误
+     */
+    public static void decode(Serializer serializer, ByteBuf in, List<Object> out, int maxFrameLength) throws Exception {
+        while (in.readableBytes() >= LENGTH_FIELD) {
+            int length = in.getInt(in.readerIndex());
+            if (length < 0) {
+                in.skipBytes(in.readableBytes());
+                throw new CorruptedFrameException("negative frame length: " + length);
+            }
+            if (length > maxFrameLength) {
+                in.skipBytes(in.readableBytes());
+                throw new TooLongFrameException("frame length " + length + " exceeds " + maxFrameLength);
+            }
+            if (in.readableBytes() < LENGTH_FIELD + length) {
+                return;
+            }
+            in.skipBytes(LENGTH_FIELD);
+            ByteBuf frame = in.readSlice(length);
+            Object obj = serializer.readObject(frame);
+            if (frame.isReadable()) {
+                throw new CorruptedFrameException(frame.readableBytes() + " bytes left after readObject");
+            }
+            out.add(obj);
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package cn.emay.socket.serialize;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 序列化器
+ * <p>
+ * 设置到SocketServer/SocketClient后，消息由序列化器直接读写ByteBuf，不再调用encode/decode；
+ * 实现需线程安全，同一个序列化器会在多个IO线程中同时使用
+ *
+ * @author Frank
+ */
+public interface Serializer {
+
+    /**
+     * 序列化
+     *
+     * @param obj 消息
+     * @param out 输出[直接写入，不需要写长度]
+     * @throws Exception 不支持的类型
+     */
+    void writeObject(Object obj, ByteBuf out) throws Exception;
+
+    /**
+     * 反序列化
+     *
+     * @param in 一条完整消息的数据[需全部读取]
+     * @return 消息
+     * @throws Exception 数据错误
+     */
+    Object readObject(ByteBuf in) throws Exception;
+
+}
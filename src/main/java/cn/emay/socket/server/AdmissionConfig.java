@@ -0,0 +1,65 @@
+package cn.emay.socket.server;
+
+/**
+ * 接入控制配置
+ * <p>
+ * 在新链接建立处理链之前判断是否接入，拒绝的链接直接关闭socket，不分配任何处理器
+ *
+ * @author Frank
+ */
+public class AdmissionConfig {
+
+    /**
+     * 最大链接总数[小于等于0不限制]
+     */
+    private final int maxConnections;
+
+    /**
+     * 每秒最多接入的链接数[小于等于0不限制]
+     */
+    private final int maxAcceptsPerSecond;
+
+    /**
+     * 负载探测[为null不检查]
+     */
+    private final LoadProbe loadProbe;
+
+    /**
+     * @param maxConnections      最大链接总数[小于等于0不限制]
+     * @param maxAcceptsPerSecond 每秒最多接入的链接数[小于等于0不限制]
+     * @param loadProbe           负载探测[为null不检查]
+     */
+    public AdmissionConfig(int maxConnections, int maxAcceptsPerSecond, LoadProbe loadProbe) {
+        this.maxConnections = maxConnections;
+        this.maxAcceptsPerSecond = maxAcceptsPerSecond;
+        this.loadProbe = loadProbe;
+    }
+
+    /**
+     * 获取最大链接总数
+     *
+     * @return 最大链接总数
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * 获取每秒最多接入的链接数
+     *
+     * @return 每秒最多接入的链接数
+     */
+    public int getMaxAcceptsPerSecond() {
+        return maxAcceptsPerSecond;
+    }
+
+    /**
+     * 获取负载探测
+     *
+     * @return 负载探测
+     */
+    public LoadProbe getLoadProbe() {
+        return loadProbe;
+    }
+
+}
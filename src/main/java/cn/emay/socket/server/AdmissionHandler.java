@@ -0,0 +1,97 @@
+package cn.emay.socket.server;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 接入控制处理器[位于服务端监听链接上，每个服务端一个，只在监听链接的线程中执行]
+ * <p>
+ * 被拒绝的新链接不注册到IO线程，直接关闭socket
+ *
+ * @author Frank
+ */
+public class AdmissionHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * 配置
+     */
+    private final AdmissionConfig config;
+
+    /**
+     * 统计
+     */
+    private final AdmissionMetrics metrics;
+
+    /**
+     * 链接关闭时计数减一
+     */
+    private final ChannelFutureListener closeListener;
+
+    /**
+     * 当前速率窗口[秒]
+     */
+    private long rateWindow;
+
+    /**
+     * 当前速率窗口内接入的链接数
+     */
+    private int rateCount;
+
+    /**
+     * @param config  配置
+     * @param metrics 统计
+     */
+    public AdmissionHandler(AdmissionConfig config, AdmissionMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+        final AtomicInteger connections = metrics.connections();
+        this.closeListener = future -> connections.decrementAndGet();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        Channel child = (Channel) msg;
+        if (!admit()) {
+            child.unsafe().closeForcibly();
+            return;
+        }
+        metrics.onAccepted();
+        metrics.connections().incrementAndGet();
+        child.closeFuture().addListener(closeListener);
+        super.channelRead(ctx, msg);
+    }
+
+    /**
+     * 是否接入新链接[只在监听链接的线程上调用]
+     *
+     * @return 是否接入
+     */
+    private boolean admit() {
+        if (config.getMaxConnections() > 0 && metrics.getConnections() >= config.getMaxConnections()) {
+            metrics.onRejectedMaxConnections();
+            return false;
+        }
+        if (config.getLoadProbe() != null && config.getLoadProbe().isOverloaded()) {
+            metrics.onRejectedOverload();
+            return false;
+        }
+        if (config.getMaxAcceptsPerSecond() > 0) {
+            long window = System.nanoTime() / 1000000000L;
+            if (window != rateWindow) {
+                rateWindow = window;
+                rateCount = 0;
+            }
+            if (rateCount >= config.getMaxAcceptsPerSecond()) {
+                metrics.onRejectedRate();
+                return false;
+            }
+            rateCount++;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,109 @@
+package cn.emay.socket.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 接入统计
+ *
+ * @author Frank
+ */
+public class AdmissionMetrics {
+
+    /**
+     * 当前链接数
+     */
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /**
+     * 接入的链接数
+     */
+    private final LongAdder accepted = new LongAdder();
+
+    /**
+     * 因超过最大链接总数拒绝的链接数
+     */
+    private final LongAdder rejectedMaxConnections = new LongAdder();
+
+    /**
+     * 因超过接入速率拒绝的链接数
+     */
+    private final LongAdder rejectedRate = new LongAdder();
+
+    /**
+     * 因过载拒绝的链接数
+     */
+    private final LongAdder rejectedOverload = new LongAdder();
+
+    AtomicInteger connections() {
+        return connections;
+    }
+
+    void onAccepted() {
+        accepted.increment();
+    }
+
+    void onRejectedMaxConnections() {
+        rejectedMaxConnections.increment();
+    }
+
+    void onRejectedRate() {
+        rejectedRate.increment();
+    }
+
+    void onRejectedOverload() {
+        rejectedOverload.increment();
+    }
+
+    /**
+     * 获取当前链接数
+     *
+     * @return 当前链接数
+     */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * 获取接入的链接数
+     *
+     * @return 接入的链接数
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * 获取因超过最大链接总数拒绝的链接数
+     *
+     * @return 拒绝的链接数
+     */
+    public long getRejectedMaxConnections() {
+        return rejectedMaxConnections.sum();
+    }
+
+    /**
+     * 获取因超过接入速率拒绝的链接数
+     *
+     * @return 拒绝的链接数
+     */
+    public long getRejectedRate() {
+        return rejectedRate.sum();
+    }
+
+    /**
+     * 获取因过载拒绝的链接数
+     *
+     * @return 拒绝的链接数
+     */
+    public long getRejectedOverload() {
+        return rejectedOverload.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionMetrics{connections=" + getConnections() + ", accepted=" + getAccepted() + ", rejectedMaxConnections=" + getRejectedMaxConnections()
+                + ", rejectedRate=" + getRejectedRate() + ", rejectedOverload=" + getRejectedOverload() + '}';
+    }
+
+}
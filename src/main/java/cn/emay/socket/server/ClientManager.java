@@ -1,12 +1,15 @@
 package cn.emay.socket.server;
 
+import cn.emay.socket.transport.TransportSupport;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.AttributeKey;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 客户管理器
@@ -35,6 +38,16 @@ public class ClientManager {
      */
     private final Map<String, ChannelHandlerContext> contexts = new ConcurrentHashMap<>();
 
+    /**
+     * 是否使用短Session ID
+     */
+    private volatile boolean shortSessionId = false;
+
+    /**
+     * 短Session ID序号
+     */
+    private final AtomicLong sessionSequence = new AtomicLong();
+
     /**
      * @param maxConnectOneIp 每个IP最多几个链接[小于0不限制]
      */
@@ -42,6 +55,17 @@ public class ClientManager {
         this.maxConnectOneIp = maxConnectOneIp;
     }
 
+    /**
+     * 设置是否使用短Session ID[默认使用UUID]
+     * <p>
+     * 短Session ID为进程内递增序号的36进制表示，只在本进程内唯一，占用的内存约为UUID的一半
+     *
+     * @param shortSessionId 是否使用短Session ID
+     */
+    public void setShortSessionId(boolean shortSessionId) {
+        this.shortSessionId = shortSessionId;
+    }
+
     /**
      * 清空并关闭所有链接
      */
@@ -82,21 +106,16 @@ public class ClientManager {
         if (ctx == null) {
             return false;
         }
-        if (maxConnectOneIp < 0) {
-            return true;
-        }
-        String ip = ctx.channel().remoteAddress().toString().split(":")[0];
-        if (!ipManage.containsKey(ip)) {
-            ipManage.put(ip, 0);
-        }
-        int num = ipManage.get(ip);
-        num++;
-        if (num > maxConnectOneIp) {
-            return false;
+        if (maxConnectOneIp >= 0) {
+            String ip = TransportSupport.addressOf(ctx.channel()).split(":")[0];
+            int num = ipManage.getOrDefault(ip, 0) + 1;
+            if (num > maxConnectOneIp) {
+                return false;
+            }
+            ipManage.put(ip, num);
         }
         addSessionId(ctx);
         contexts.put(getSessionId(ctx), ctx);
-        ipManage.put(ip, num);
         return true;
     }
 
@@ -141,16 +160,16 @@ public class ClientManager {
         if (sessionId == null) {
             return;
         }
-        String ip = ctx.channel().remoteAddress().toString().split(":")[0];
-        contexts.remove(sessionId);
-        if (maxConnectOneIp < 0) {
+        if (contexts.remove(sessionId) == null || maxConnectOneIp < 0) {
             return;
         }
+        String ip = TransportSupport.addressOf(ctx.channel()).split(":")[0];
         if (!ipManage.containsKey(ip)) {
             return;
         }
         int num = ipManage.get(ip);
-        if (num <= 0) {
+        if (num <= 1) {
+            ipManage.remove(ip);
             return;
         }
         ipManage.put(ip, num - 1);
@@ -190,7 +209,17 @@ public class ClientManager {
      * @param ctx 链接
      */
     private void addSessionId(ChannelHandlerContext ctx) {
-        ctx.channel().attr(SESSION).setIfAbsent(UUID.randomUUID().toString().replace("-", ""));
+        String sessionId = shortSessionId ? Long.toString(sessionSequence.incrementAndGet(), Character.MAX_RADIX) : UUID.randomUUID().toString().replace("-", "");
+        ctx.channel().attr(SESSION).setIfAbsent(sessionId);
+    }
+
+    /**
+     * 获取所有链接
+     *
+     * @return 所有链接
+     */
+    Collection<ChannelHandlerContext> getChannelHandlerContexts() {
+        return contexts.values();
     }
 
 }
@@ -0,0 +1,295 @@
+package cn.emay.socket.server;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IO线程延迟探测
+ * <p>
+ * 由独立的定时线程向每个IO线程提交探测任务，任务从提交到执行的延迟(未执行时按已等待时间计)超过阈值，
+ * 或线程待执行任务数超过阈值时视为过载。对同一个线程组重复启动不会重新开始探测[同一实例既是IO线程监控又是接入控制的负载探测时]
+ *
+ * @author Frank
+ */
+public class EventLoopLagProbe implements LoadProbe {
+
+    /**
+     * 探测间隔[毫秒]
+     */
+    private final long intervalMillis;
+
+    /**
+     * 延迟阈值[毫秒，小于等于0不检查]
+     */
+    private final long maxLagMillis;
+
+    /**
+     * 待执行任务数阈值[小于等于0不检查]
+     */
+    private final int maxPendingTasks;
+
+    /**
+     * 定时线程
+     */
+    private ScheduledExecutorService timer;
+
+    /**
+     * 正在探测的线程组
+     */
+    private EventLoopGroup group;
+
+    /**
+     * 各IO线程的状态[启动后不变]
+     */
+    private volatile Map<EventExecutor, Loop> loops = Collections.emptyMap();
+
+    /**
+     * 是否过载
+     */
+    private volatile boolean overloaded;
+
+    /**
+     * 最近一轮的最大延迟[纳秒]
+     */
+    private volatile long lagNanos;
+
+    /**
+     * @param intervalMillis  探测间隔[毫秒]
+     * @param maxLagMillis    延迟阈值[毫秒，小于等于0不检查]
+     * @param maxPendingTasks 待执行任务数阈值[小于等于0不检查]
+     */
+    public EventLoopLagProbe(long intervalMillis, long maxLagMillis, int maxPendingTasks) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.intervalMillis = intervalMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.maxPendingTasks = maxPendingTasks;
+    }
+
+    @Override
+    public synchronized void start(EventLoopGroup workerGroup) {
+        if (timer != null && group == workerGroup) {
+            return;
+        }
+        stop();
+        Map<EventExecutor, Loop> states = new IdentityHashMap<>();
+        for (EventExecutor executor : workerGroup) {
+            states.put(executor, newLoop(executor));
+        }
+        loops = states;
+        group = workerGroup;
+        long now = System.nanoTime();
+        for (Loop loop : states.values()) {
+            loop.submit(now);
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("EventLoopLagProbe", true));
+        timer.scheduleWithFixedDelay(this::probe, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        group = null;
+        overloaded = false;
+    }
+
+    @Override
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * 获取最近一轮的最大延迟
+     *
+     * @return 延迟[毫秒]
+     */
+    public long getLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lagNanos);
+    }
+
+    /**
+     * 创建一个IO线程的状态[子类可扩展]
+     *
+     * @param executor IO线程
+     * @return 状态
+     */
+    protected Loop newLoop(EventExecutor executor) {
+        return new Loop(executor);
+    }
+
+    /**
+     * 探测任务还在等待执行[定时线程，子类可在此检查卡顿]
+     *
+     * @param loop        IO线程的状态
+     * @param waitedNanos 已等待时间[纳秒]
+     */
+    protected void waiting(Loop loop, long waitedNanos) {
+    }
+
+    /**
+     * 获取IO线程的状态
+     *
+     * @param executor IO线程
+     * @return 状态[不属于探测的线程组为null]
+     */
+    protected Loop getLoop(EventExecutor executor) {
+        return loops.get(executor);
+    }
+
+    /**
+     * 获取所有IO线程的状态
+     *
+     * @return 状态
+     */
+    protected Collection<Loop> getLoops() {
+        return loops.values();
+    }
+
+    /**
+     * 向已执行完探测任务的IO线程提交新的探测任务，统计最大延迟并判断是否过载[定时线程]
+     */
+    private void probe() {
+        long now = System.nanoTime();
+        long max = 0;
+        boolean over = false;
+        for (Loop loop : loops.values()) {
+            long since = loop.submitted;
+            if (since == 0) {
+                loop.submit(now);
+                max = Math.max(max, loop.lagNanos);
+            } else {
+                long waited = now - since;
+                loop.maxLagNanos = Math.max(loop.maxLagNanos, waited);
+                max = Math.max(max, waited);
+                waiting(loop, waited);
+            }
+            if (maxPendingTasks > 0 && loop.pendingTasks() > maxPendingTasks) {
+                over = true;
+            }
+        }
+        lagNanos = max;
+        overloaded = over || (maxLagMillis > 0 && max > TimeUnit.MILLISECONDS.toNanos(maxLagMillis));
+    }
+
+    /**
+     * 一个IO线程的探测状态[自身即探测任务]
+     */
+    protected static class Loop implements Runnable {
+
+        /**
+         * IO线程
+         */
+        private final EventExecutor executor;
+
+        /**
+         * 执行探测任务的线程[第一次探测时获得]
+         */
+        private volatile Thread thread;
+
+        /**
+         * 探测任务提交时间[0表示已执行]
+         */
+        private volatile long submitted;
+
+        /**
+         * 最近一次执行的延迟[纳秒]
+         */
+        private volatile long lagNanos;
+
+        /**
+         * 最大延迟[纳秒]
+         */
+        private volatile long maxLagNanos;
+
+        /**
+         * @param executor IO线程
+         */
+        protected Loop(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        /**
+         * 执行探测任务[IO线程]
+         */
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            lagNanos = System.nanoTime() - submitted;
+            maxLagNanos = Math.max(maxLagNanos, lagNanos);
+            submitted = 0;
+        }
+
+        private void submit(long now) {
+            submitted = now;
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                // 线程组已关闭
+                submitted = 0;
+            }
+        }
+
+        /**
+         * 获取执行探测任务的线程
+         *
+         * @return 线程[还未执行过探测任务为null]
+         */
+        public Thread getThread() {
+            return thread;
+        }
+
+        /**
+         * 获取线程名
+         *
+         * @return 线程名[还未执行过探测任务时为IO线程的描述]
+         */
+        public String getName() {
+            Thread current = thread;
+            return current == null ? executor.toString() : current.getName();
+        }
+
+        /**
+         * 获取待执行任务数
+         *
+         * @return 任务数[无法获取为-1]
+         */
+        public int pendingTasks() {
+            return executor instanceof SingleThreadEventExecutor ? ((SingleThreadEventExecutor) executor).pendingTasks() : -1;
+        }
+
+        /**
+         * 获取当前延迟[探测任务未执行时按已等待时间计]
+         *
+         * @param now 当前时间[纳秒]
+         * @return 延迟[纳秒]
+         */
+        public long getLagNanos(long now) {
+            long since = submitted;
+            return since == 0 ? lagNanos : Math.max(lagNanos, now - since);
+        }
+
+        /**
+         * 获取最大延迟
+         *
+         * @return 延迟[纳秒]
+         */
+        public long getMaxLagNanos() {
+            return maxLagNanos;
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+package cn.emay.socket.server;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有链接共用的空闲检测[低内存模式下代替每个链接一个的IdleStateHandler]
+ * <p>
+ * 每个链接只记录最近读、写的时间[秒]，由一个定时线程每秒扫描全部链接并触发与IdleStateHandler相同的空闲事件，
+ * 不为每个链接创建定时任务。精度为1秒，写时间在写入时记录而不是写出完成时
+ *
+ * @author Frank
+ */
+@ChannelHandler.Sharable
+public class IdleScanner extends ChannelDuplexHandler {
+
+    /**
+     * 链接的读写时间
+     */
+    private static final AttributeKey<IdleTimes> IDLE_TIMES = AttributeKey.newInstance("IDLE_TIMES");
+
+    /**
+     * 读超时时间[秒，小于等于0不检测]
+     */
+    private final int readerIdleSeconds;
+
+    /**
+     * 写超时时间[秒，小于等于0不检测]
+     */
+    private final int writerIdleSeconds;
+
+    /**
+     * 全部超时时间[秒，小于等于0不检测]
+     */
+    private final int allIdleSeconds;
+
+    /**
+     * 起始时间
+     */
+    private final long baseNanos = System.nanoTime();
+
+    /**
+     * 当前时间[秒，由扫描线程更新]
+     */
+    private volatile int now;
+
+    /**
+     * 扫描线程
+     */
+    private ScheduledExecutorService timer;
+
+    /**
+     * @param readerIdleSeconds 读超时时间[秒，小于等于0不检测]
+     * @param writerIdleSeconds 写超时时间[秒，小于等于0不检测]
+     * @param allIdleSeconds    全部超时时间[秒，小于等于0不检测]
+     */
+    public IdleScanner(int readerIdleSeconds, int writerIdleSeconds, int allIdleSeconds) {
+        this.readerIdleSeconds = readerIdleSeconds;
+        this.writerIdleSeconds = writerIdleSeconds;
+        this.allIdleSeconds = allIdleSeconds;
+    }
+
+    /**
+     * 开始每秒扫描
+     *
+     * @param contexts 全部链接[扫描时遍历]
+     */
+    public synchronized void start(Collection<ChannelHandlerContext> contexts) {
+        stop();
+        timer = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("IdleScanner", true));
+        timer.scheduleAtFixedRate(() -> scan(contexts), 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 停止扫描
+     */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        ctx.channel().attr(IDLE_TIMES).set(new IdleTimes(now));
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        IdleTimes times = ctx.channel().attr(IDLE_TIMES).get();
+        if (times != null) {
+            times.lastRead = now;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        IdleTimes times = ctx.channel().attr(IDLE_TIMES).get();
+        if (times != null) {
+            times.lastWrite = now;
+        }
+        ctx.write(msg, promise);
+    }
+
+    /**
+     * 扫描全部链接[扫描线程]
+     *
+     * @param contexts 全部链接
+     */
+    private void scan(Collection<ChannelHandlerContext> contexts) {
+        int current = (int) TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - baseNanos);
+        now = current;
+        for (ChannelHandlerContext ctx : contexts) {
+            Channel channel = ctx.channel();
+            IdleTimes times = channel.attr(IDLE_TIMES).get();
+            if (times == null || !channel.isActive()) {
+                continue;
+            }
+            int lastRead = times.lastRead;
+            int lastWrite = times.lastWrite;
+            if (readerIdleSeconds > 0 && current - Math.max(lastRead, times.readerFired) >= readerIdleSeconds) {
+                channel.pipeline().fireUserEventTriggered(times.readerFired > lastRead ? IdleStateEvent.READER_IDLE_STATE_EVENT : IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT);
+                times.readerFired = current;
+            }
+            if (writerIdleSeconds > 0 && current - Math.max(lastWrite, times.writerFired) >= writerIdleSeconds) {
+                channel.pipeline().fireUserEventTriggered(times.writerFired > lastWrite ? IdleStateEvent.WRITER_IDLE_STATE_EVENT : IdleStateEvent.FIRST_WRITER_IDLE_STATE_EVENT);
+                times.writerFired = current;
+            }
+            int lastAll = Math.max(lastRead, lastWrite);
+            if (allIdleSeconds > 0 && current - Math.max(lastAll, times.allFired) >= allIdleSeconds) {
+                channel.pipeline().fireUserEventTriggered(times.allFired > lastAll ? IdleStateEvent.ALL_IDLE_STATE_EVENT : IdleStateEvent.FIRST_ALL_IDLE_STATE_EVENT);
+                times.allFired = current;
+            }
+        }
+    }
+
+    /**
+     * 链接的读写时间[秒]
+     */
+    private static class IdleTimes {
+
+        private volatile int lastRead;
+
+        private volatile int lastWrite;
+
+        /**
+         * 最近一次触发事件的时间[只在扫描线程中使用]
+         */
+        private int readerFired = -1;
+
+        private int writerFired = -1;
+
+        private int allFired = -1;
+
+        IdleTimes(int now) {
+            lastRead = now;
+            lastWrite = now;
+        }
+    }
+
+}
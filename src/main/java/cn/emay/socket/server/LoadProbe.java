@@ -0,0 +1,31 @@
+package cn.emay.socket.server;
+
+import io.netty.channel.EventLoopGroup;
+
+/**
+ * 负载探测[用于接入控制时判断是否过载]
+ *
+ * @author Frank
+ */
+public interface LoadProbe {
+
+    /**
+     * 服务启动时开始探测
+     *
+     * @param workerGroup IO线程组
+     */
+    void start(EventLoopGroup workerGroup);
+
+    /**
+     * 服务关闭时停止探测
+     */
+    void stop();
+
+    /**
+     * 是否过载[在接入线程上调用，必须足够快]
+     *
+     * @return 是否过载
+     */
+    boolean isOverloaded();
+
+}
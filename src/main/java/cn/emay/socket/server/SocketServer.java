@@ -1,21 +1,62 @@
 package cn.emay.socket.server;
 
+import cn.emay.socket.blocking.BlockingChannel;
+import cn.emay.socket.blocking.SessionHandler;
+import cn.emay.socket.blocking.SessionThreads;
+import cn.emay.socket.capture.CaptureConfig;
+import cn.emay.socket.capture.CaptureHandler;
+import cn.emay.socket.capture.CaptureWriter;
+import cn.emay.socket.credit.CreditConfig;
+import cn.emay.socket.credit.CreditGrantHandler;
+import cn.emay.socket.frame.FrameSupport;
+import cn.emay.socket.frame.MuxFrame;
+import cn.emay.socket.heartbeat.HeartbeatConfig;
+import cn.emay.socket.heartbeat.HeartbeatHandler;
+import cn.emay.socket.heartbeat.HeartbeatTimeoutEvent;
+import cn.emay.socket.inbound.*;
+import cn.emay.socket.journal.JournalAck;
+import cn.emay.socket.journal.JournalAckHandler;
+import cn.emay.socket.monitor.EventLoopMonitor;
+import cn.emay.socket.mux.*;
+import cn.emay.socket.outbound.*;
+import cn.emay.socket.pool.MessagePool;
+import cn.emay.socket.serialize.SerializeSupport;
+import cn.emay.socket.serialize.Serializer;
+import cn.emay.socket.stream.StreamInbound;
+import cn.emay.socket.stream.StreamSupport;
+import cn.emay.socket.trace.*;
+import cn.emay.socket.transport.TransportSupport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.handler.codec.ByteToMessageDecoder;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedStream;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.ResourceLeakDetector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author frank
@@ -48,7 +89,7 @@ public abstract class SocketServer {
     /**
      * 服务端地址
      */
-    private final InetSocketAddress address;
+    private final SocketAddress address;
 
     /**
      * 读超时时间
@@ -63,6 +104,156 @@ public abstract class SocketServer {
      */
     private int allIdleTimeSeconds = 0;
 
+    /**
+     * 流式消息分块大小[字节]
+     */
+    private int streamChunkSize = 64 * 1024;
+
+    /**
+     * 发送文件是否允许零拷贝[sendfile]
+     */
+    private boolean fileZeroCopy = true;
+
+    /**
+     * JVM内通道是否直接传递消息对象[不经过encode/decode]
+     */
+    private boolean localPassThrough = false;
+
+    /**
+     * 是否启用框架帧[两端需同时启用]
+     */
+    private boolean framing = false;
+
+    /**
+     * 是否启用低内存模式
+     */
+    private boolean lowFootprint = false;
+
+    /**
+     * 共用的空闲检测[低内存模式启动后创建]
+     */
+    private IdleScanner idleScanner;
+
+    /**
+     * 共用的链接处理器
+     */
+    private final ConnectHandler connectHandler = new ConnectHandler();
+
+    /**
+     * 共用的编码处理器
+     */
+    private final EncodeHandler encodeHandler = new EncodeHandler();
+
+    /**
+     * 多路复用配置[为null不启用]
+     */
+    private MuxConfig muxConfig;
+
+    /**
+     * 心跳配置[为null不主动发送心跳]
+     */
+    private HeartbeatConfig heartbeatConfig;
+
+    /**
+     * 流控额度配置[为null不启用]
+     */
+    private CreditConfig creditConfig;
+
+    /**
+     * 业务线程池[为null在IO线程中处理]
+     */
+    private Executor businessExecutor;
+
+    /**
+     * 一个链接一个线程的业务处理[为null使用businessLogic回调]
+     */
+    private SessionHandler sessionHandler;
+
+    /**
+     * 阻塞式链接的接收队列容量
+     */
+    private int sessionCapacity = BlockingChannel.DEFAULT_CAPACITY;
+
+    /**
+     * 接收积压上限[为null不限制]
+     */
+    private InboundLimit inboundLimit;
+
+    /**
+     * 接收背压[启动后创建]
+     */
+    private InboundBackpressure backpressure;
+
+    /**
+     * 接收积压统计
+     */
+    private final InboundMetrics inboundMetrics = new InboundMetrics();
+
+    /**
+     * 业务线程健康监控[为null不启用]
+     */
+    private EventLoopMonitor eventLoopMonitor;
+
+    /**
+     * 消息耗时跟踪配置[为null不启用]
+     */
+    private TraceConfig traceConfig;
+
+    /**
+     * 消息耗时跟踪[启动后创建]
+     */
+    private volatile Tracer tracer;
+
+    /**
+     * 序列化器[为null使用encode/decode]
+     */
+    private Serializer serializer;
+
+    /**
+     * 序列化消息的最大帧长度[字节]
+     */
+    private int maxFrameLength = SerializeSupport.DEFAULT_MAX_FRAME_LENGTH;
+
+    /**
+     * 注册的消息对象池
+     */
+    private final List<MessagePool<?>> messagePools = new CopyOnWriteArrayList<>();
+
+    /**
+     * 发送队列配置[为null不启用]
+     */
+    private OutboundQueueConfig outboundQueueConfig;
+
+    /**
+     * 每个链接的发送积压上限[为null不限制]
+     */
+    private OutboundLimit outboundLimit;
+
+    /**
+     * 发送队列统计
+     */
+    private final OutboundMetrics outboundMetrics = new OutboundMetrics();
+
+    /**
+     * 接入控制配置[为null不启用]
+     */
+    private AdmissionConfig admissionConfig;
+
+    /**
+     * 流量抓取配置[为null不启用]
+     */
+    private CaptureConfig captureConfig;
+
+    /**
+     * 流量抓取[启动后创建]
+     */
+    private volatile CaptureWriter capture;
+
+    /**
+     * 接入统计
+     */
+    private final AdmissionMetrics admissionMetrics = new AdmissionMetrics();
+
     /**
      * 客户端管理器
      */
@@ -77,8 +268,24 @@ public abstract class SocketServer {
      * @param allIdleTimeSeconds    全部超时时间[秒]
      */
     public SocketServer(String name, int port, int maxConnectOneIp, int readerIdleTimeSeconds, int writerIdleTimeSeconds, int allIdleTimeSeconds) {
+        this(name, new InetSocketAddress(port), maxConnectOneIp, readerIdleTimeSeconds, writerIdleTimeSeconds, allIdleTimeSeconds);
+    }
+
+    /**
+     * @param name                  名字
+     * @param address               绑定地址[ip:port；unix:/path使用Unix domain socket(仅Linux)；local:name使用JVM内通道]
+     * @param maxConnectOneIp       每个IP最大连接数[Unix domain socket、JVM内通道的所有链接计为同一IP]
+     * @param readerIdleTimeSeconds 读超时时间[秒]
+     * @param writerIdleTimeSeconds 写超时时间[秒]
+     * @param allIdleTimeSeconds    全部超时时间[秒]
+     */
+    public SocketServer(String name, String address, int maxConnectOneIp, int readerIdleTimeSeconds, int writerIdleTimeSeconds, int allIdleTimeSeconds) {
+        this(name, TransportSupport.parse(address), maxConnectOneIp, readerIdleTimeSeconds, writerIdleTimeSeconds, allIdleTimeSeconds);
+    }
+
+    private SocketServer(String name, SocketAddress address, int maxConnectOneIp, int readerIdleTimeSeconds, int writerIdleTimeSeconds, int allIdleTimeSeconds) {
         assertNull(name);
-        this.address = new InetSocketAddress(port);
+        this.address = address;
         this.name = name;
         if (readerIdleTimeSeconds > 0) {
             this.readerIdleTimeSeconds = readerIdleTimeSeconds;
@@ -115,20 +322,83 @@ public abstract class SocketServer {
             logger.info("socket server[" + name + "] has start , not need start again");
             return;
         }
+        if (localPassThrough && TransportSupport.isLocal(address) && outboundLimit != null && outboundLimit.isByteLimited()) {
+            throw new IllegalArgumentException("socket server[" + name + "] outbound byte limits need encoded messages, can not work with local pass-through");
+        }
         ServerBootstrap bootStrap = new ServerBootstrap();
-        bootStrap.option(ChannelOption.SO_REUSEADDR, true);
-        bossGroup = new NioEventLoopGroup();
-        workerGroup = new NioEventLoopGroup();
+        if (TransportSupport.isDomainSocket(address)) {
+            deleteStaleSocketFile();
+        } else if (address instanceof InetSocketAddress) {
+            bootStrap.option(ChannelOption.SO_REUSEADDR, true);
+        }
+        bossGroup = TransportSupport.newGroup(address);
+        workerGroup = TransportSupport.newGroup(address);
         bootStrap.group(bossGroup, workerGroup);
-        bootStrap.channel(NioServerSocketChannel.class);
-        bootStrap.childHandler(new ChannelInitializer<NioSocketChannel>() {
+        if (eventLoopMonitor != null) {
+            eventLoopMonitor.start(workerGroup);
+        }
+        backpressure = inboundLimit == null ? null : new InboundBackpressure(inboundLimit, inboundMetrics);
+        tracer = traceConfig == null ? null : new Tracer(name, traceConfig);
+        final Tracer messageTracer = tracer;
+        if (captureConfig != null) {
+            try {
+                capture = new CaptureWriter(captureConfig);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("socket server[" + name + "] open capture error", e);
+            }
+        }
+        final CaptureWriter captureWriter = capture;
+        // 没有链接状态时所有链接共用一个业务处理器
+        final BusinessHandler sharedBusinessHandler = businessExecutor == null && messageTracer == null ? new BusinessHandler() : null;
+        if (lowFootprint) {
+            clientManager.setShortSessionId(true);
+            idleScanner = new IdleScanner(readerIdleTimeSeconds, writerIdleTimeSeconds, allIdleTimeSeconds);
+            idleScanner.start(clientManager.getChannelHandlerContexts());
+        }
+        final IdleScanner sharedIdleScanner = idleScanner;
+        if (admissionConfig != null) {
+            bootStrap.handler(new AdmissionHandler(admissionConfig, admissionMetrics));
+        }
+        bootStrap.channel(TransportSupport.serverChannelClass(address));
+        if (outboundLimit != null && outboundLimit.getHighWaterMark() > 0) {
+            bootStrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(outboundLimit.getLowWaterMark(), outboundLimit.getHighWaterMark()));
+        }
+        final OutboundQueueConfig queueConfig = outboundQueueConfig == null && outboundLimit != null ? new OutboundQueueConfig() : outboundQueueConfig;
+        bootStrap.childHandler(new ChannelInitializer<Channel>() {
             @Override
-            protected void initChannel(NioSocketChannel ch) {
-                ch.pipeline().addLast("IdleStateHandler", new IdleStateHandler(readerIdleTimeSeconds, writerIdleTimeSeconds, allIdleTimeSeconds));
-                ch.pipeline().addLast("ConnectHandler", new ConnectHandler());
-                ch.pipeline().addLast("EncodeHandler", new EncodeHandler());
+            protected void initChannel(Channel ch) {
+                if (eventLoopMonitor != null) {
+                    eventLoopMonitor.register(ch);
+                }
+                if (sharedIdleScanner != null) {
+                    ch.pipeline().addLast("IdleScanner", sharedIdleScanner);
+                } else {
+                    ch.pipeline().addLast("IdleStateHandler", new IdleStateHandler(readerIdleTimeSeconds, writerIdleTimeSeconds, allIdleTimeSeconds));
+                }
+                ch.pipeline().addLast("ConnectHandler", connectHandler);
+                if (captureWriter != null) {
+                    ch.pipeline().addLast("CaptureHandler", new CaptureHandler(captureWriter, clientManager::getSessionId));
+                }
+                if (messageTracer != null) {
+                    ch.pipeline().addLast("TraceReadHandler", new TraceReadHandler(messageTracer));
+                }
+                if (framing || muxConfig != null || heartbeatConfig != null || creditConfig != null) {
+                    FrameSupport.addFrameCodec(ch.pipeline(), FrameSupport.DEFAULT_MAX_FRAME_LENGTH);
+                    ch.pipeline().addLast("HeartbeatHandler", new HeartbeatHandler(heartbeatConfig));
+                    ch.pipeline().addLast("JournalAckHandler", new JournalAckHandler(null));
+                }
+                if (creditConfig != null) {
+                    ch.pipeline().addLast("CreditGrantHandler", new CreditGrantHandler(creditConfig));
+                }
+                if (muxConfig != null) {
+                    ch.pipeline().addLast("MuxHandler", new MuxHandler(muxConfig, new MuxCallback(), false, businessExecutor));
+                }
+                if (queueConfig != null) {
+                    ch.pipeline().addLast("OutboundQueueHandler", new OutboundQueueHandler(queueConfig, outboundLimit, outboundMetrics));
+                }
+                ch.pipeline().addLast("EncodeHandler", encodeHandler);
                 ch.pipeline().addLast("DecodeHandler", new DecodeHandler());
-                ch.pipeline().addLast("BusinessHandler", new BusinessHandler());
+                ch.pipeline().addLast("BusinessHandler", sharedBusinessHandler != null ? sharedBusinessHandler : new ChannelBusinessHandler());
             }
         });
         try {
@@ -136,12 +406,30 @@ public abstract class SocketServer {
         } catch (InterruptedException e) {
             throw new IllegalArgumentException(e);
         }
+        if (admissionConfig != null && admissionConfig.getLoadProbe() != null) {
+            admissionConfig.getLoadProbe().start(workerGroup);
+        }
         if (logger.isDebugEnabled()) {
             logger.debug("socket server[" + name + "] start success");
         }
         isStart = true;
     }
 
+    /**
+     * 删除上次未正常关闭时残留的socket文件
+     * <p>
+     * 只删除无人监听的socket文件；路径上仍有普通文件或其他服务在使用的socket时拒绝启动[绑定时会先删除路径上的文件]
+     */
+    private void deleteStaleSocketFile() {
+        DomainSocketAddress socketAddress = (DomainSocketAddress) address;
+        if (TransportSupport.deleteStaleSocketFile(socketAddress)) {
+            logger.info("socket server[" + name + "] delete stale socket file " + socketAddress.path());
+        }
+        if (Files.exists(Paths.get(socketAddress.path()), LinkOption.NOFOLLOW_LINKS)) {
+            throw new IllegalArgumentException("socket server[" + name + "] " + socketAddress.path() + " is in use or not a socket file");
+        }
+    }
+
     /**
      * 关闭
      */
@@ -156,9 +444,28 @@ public abstract class SocketServer {
             throw new IllegalArgumentException(e);
         }
         channelFuture.cancel(true);
+        if (TransportSupport.isDomainSocket(address)) {
+            // 监听已关闭，清理本服务的socket文件
+            TransportSupport.deleteStaleSocketFile((DomainSocketAddress) address);
+        }
+        if (admissionConfig != null && admissionConfig.getLoadProbe() != null) {
+            admissionConfig.getLoadProbe().stop();
+        }
+        if (eventLoopMonitor != null) {
+            eventLoopMonitor.stop();
+        }
+        if (idleScanner != null) {
+            idleScanner.stop();
+            idleScanner = null;
+        }
         bossGroup.shutdownGracefully();
         workerGroup.shutdownGracefully();
         clientManager.removeAndCloseAll();
+        if (capture != null) {
+            capture.close();
+            capture = null;
+        }
+        reportMessagePools();
         if (logger.isDebugEnabled()) {
             logger.debug("socket server[" + name + "] stoped");
         }
@@ -174,6 +481,20 @@ public abstract class SocketServer {
      * @return 是否发送成功
      */
     public boolean sendMessage(ChannelHandlerContext ctx, Object message, boolean wait) {
+        return sendMessage(ctx, message, MessagePriority.NORMAL, 0, wait);
+    }
+
+    /**
+     * 向客户端发送信息
+     *
+     * @param ctx           链接
+     * @param message       消息
+     * @param priority      优先级[未启用发送队列时忽略]
+     * @param timeoutMillis 超过多少毫秒未写出则丢弃[小于等于0不过期，未启用发送队列时忽略]
+     * @param wait          是否等待消息真实发送出去
+     * @return 是否发送成功
+     */
+    public boolean sendMessage(ChannelHandlerContext ctx, Object message, MessagePriority priority, long timeoutMillis, boolean wait) {
         if (!isStart) {
             logger.info("socket server[" + name + "]  is stopped");
             return false;
@@ -186,7 +507,17 @@ public abstract class SocketServer {
             logger.error("socket client[" + name + "] session [ " + clientManager.getSessionId(ctx) + " ] is stopped");
             return false;
         }
-        ChannelFuture result0 = ctx.channel().writeAndFlush(message);
+        if (isOutboundFull(ctx.channel())) {
+            logger.error("socket server[" + name + "] session [ " + clientManager.getSessionId(ctx) + " ] outbound buffer is full");
+            return false;
+        }
+        MessageTrace trace = tracer == null ? null : MessageTrace.current();
+        Object traced = trace == null ? message : new TracedMessage(message, trace);
+        Object outbound = outboundQueueConfig == null ? traced : OutboundMessage.wrap(traced, priority, timeoutMillis);
+        ChannelFuture result0 = ctx.channel().writeAndFlush(outbound);
+        if (trace != null) {
+            trace.track(result0);
+        }
         if (wait) {
             result0 = result0.awaitUninterruptibly();
             if (result0.isSuccess()) {
@@ -203,6 +534,34 @@ public abstract class SocketServer {
         }
     }
 
+    /**
+     * 向客户端发送信息,返回该消息的发送结果
+     *
+     * @param ctx     链接
+     * @param message 消息
+     * @return 发送结果
+     */
+    public ChannelFuture sendMessageAsync(ChannelHandlerContext ctx, Object message) {
+        Channel channel = ctx.channel();
+        if (!isStart) {
+            return channel.newFailedFuture(new IllegalStateException("socket server[" + name + "] is stopped"));
+        }
+        if (message == null) {
+            return channel.newFailedFuture(new NullPointerException("message is null"));
+        }
+        if (isOutboundFull(channel)) {
+            return channel.newFailedFuture(new RejectedExecutionException("outbound buffer is full"));
+        }
+        MessageTrace trace = tracer == null ? null : MessageTrace.current();
+        Object traced = trace == null ? message : new TracedMessage(message, trace);
+        Object outbound = outboundQueueConfig == null ? traced : OutboundMessage.wrap(traced, MessagePriority.NORMAL, 0);
+        ChannelFuture future = channel.writeAndFlush(outbound);
+        if (trace != null) {
+            trace.track(future);
+        }
+        return future;
+    }
+
     /**
      * 向客户端发送信息
      *
@@ -212,6 +571,20 @@ public abstract class SocketServer {
      * @return 是否发送成功
      */
     public boolean sendMessage(String sessionId, Object message, boolean wait) {
+        return sendMessage(sessionId, message, MessagePriority.NORMAL, 0, wait);
+    }
+
+    /**
+     * 向客户端发送信息
+     *
+     * @param sessionId     sessionId
+     * @param message       消息
+     * @param priority      优先级[未启用发送队列时忽略]
+     * @param timeoutMillis 超过多少毫秒未写出则丢弃[小于等于0不过期，未启用发送队列时忽略]
+     * @param wait          是否等待消息真实发送出去
+     * @return 是否发送成功
+     */
+    public boolean sendMessage(String sessionId, Object message, MessagePriority priority, long timeoutMillis, boolean wait) {
         if (!isStart) {
             logger.info("socket server[" + name + "]  is stopped");
             return false;
@@ -225,93 +598,809 @@ public abstract class SocketServer {
             logger.error("socket server sessionId[" + sessionId + "]  is unkonw");
             return false;
         }
-        return sendMessage(ctx, message, wait);
+        return sendMessage(ctx, message, priority, timeoutMillis, wait);
     }
 
     /**
-     * 获取server名字
+     * 向客户端发送流式消息
+     * <p>
+     * 消息头由encode编码，消息体按分块大小读取后直接写出，不经过encode，且只在链接可写时读取下一块，内存占用以分块大小为界
      *
-     * @return server名字
+     * @param ctx  链接
+     * @param head 消息头[需自行在编码中写入消息体长度]
+     * @param body 消息体[发送完毕后关闭]
+     * @param wait 是否等待消息真实发送出去
+     * @return 是否发送成功
      */
-    public String getName() {
-        return name;
+    public boolean sendStream(ChannelHandlerContext ctx, Object head, InputStream body, boolean wait) {
+        if (body == null) {
+            logger.error("stream body is null");
+            return false;
+        }
+        return sendStream(ctx, head, new ChunkedStream(body, streamChunkSize), wait);
     }
 
     /**
-     * 是否启动
+     * 向客户端发送流式消息
      *
-     * @return 是否启动
+     * @param ctx  链接
+     * @param head 消息头[需自行在编码中写入消息体长度]
+     * @param body 消息体
+     * @param wait 是否等待消息真实发送出去
+     * @return 是否发送成功
      */
-    public boolean isStart() {
-        return isStart;
+    public boolean sendStream(ChannelHandlerContext ctx, Object head, ChunkedInput<ByteBuf> body, boolean wait) {
+        if (!isStart) {
+            logger.info("socket server[" + name + "]  is stopped");
+            return false;
+        }
+        if (head == null || body == null) {
+            logger.error("stream head or body is null");
+            return false;
+        }
+        if (!ctx.channel().isActive()) {
+            logger.error("socket client[" + name + "] session [ " + clientManager.getSessionId(ctx) + " ] is stopped");
+            return false;
+        }
+        StreamSupport.ensureChunkedWriteHandler(ctx.channel().pipeline());
+        ctx.channel().write(head);
+        ChannelFuture result0 = ctx.channel().writeAndFlush(body);
+        if (wait) {
+            result0 = result0.awaitUninterruptibly();
+            if (result0.isSuccess()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("socket server[" + name + "]  send stream ok");
+                }
+                return true;
+            } else {
+                logger.error("socket server[" + name + "]  send stream error", result0.cause());
+                return false;
+            }
+        } else {
+            return true;
+        }
     }
 
     /**
-     * 获取客户管理器
+     * 向客户端发送流式消息
      *
-     * @return 客户管理器
+     * @param sessionId sessionId
+     * @param head      消息头[需自行在编码中写入消息体长度]
+     * @param body      消息体[发送完毕后关闭]
+     * @param wait      是否等待消息真实发送出去
+     * @return 是否发送成功
      */
-    public ClientManager getClientManager() {
-        return clientManager;
+    public boolean sendStream(String sessionId, Object head, InputStream body, boolean wait) {
+        ChannelHandlerContext ctx = clientManager.getChannelHandlerContext(sessionId);
+        if (ctx == null) {
+            logger.error("socket server sessionId[" + sessionId + "]  is unkonw");
+            return false;
+        }
+        return sendStream(ctx, head, body, wait);
     }
 
     /**
-     * 处理链接信息
+     * 向客户端发送文件
+     * <p>
+     * 普通TCP链接使用FileRegion零拷贝(sendfile)，处理链中有需要读取字节的处理器时使用内存映射分块发送，均不经过encode；
+     * 返回的future可添加ChannelProgressiveFutureListener获取进度
+     *
+     * @param ctx    链接
+     * @param head   消息头[可为null，需自行在编码中写入文件长度]
+     * @param file   文件
+     * @param offset 开始位置
+     * @param length 长度[小于0表示到文件末尾]
+     * @return 发送结果
      */
-    protected abstract void connectHandle(ChannelHandlerContext ctx, String address) throws Exception;
+    public ChannelProgressiveFuture sendFile(ChannelHandlerContext ctx, Object head, Path file, long offset, long length) {
+        Channel channel = ctx.channel();
+        ChannelProgressivePromise promise = channel.newProgressivePromise();
+        if (!isStart) {
+            return promise.setFailure(new IllegalStateException("socket server[" + name + "]  is stopped"));
+        }
+        if (file == null) {
+            return promise.setFailure(new NullPointerException("file is null"));
+        }
+        if (!channel.isActive()) {
+            return promise.setFailure(new IllegalStateException("socket server[" + name + "] session [ " + clientManager.getSessionId(ctx) + " ] is stopped"));
+        }
+        Object region;
+        try {
+            region = StreamSupport.openFile(channel, file, offset, length, streamChunkSize, fileZeroCopy);
+        } catch (Exception e) {
+            logger.error("socket server[" + name + "]  open file " + file + " error", e);
+            return promise.setFailure(e);
+        }
+        if (head != null) {
+            channel.write(head);
+        }
+        channel.writeAndFlush(region, promise);
+        return promise;
+    }
 
     /**
-     * 处理断开链接信息
+     * 向客户端发送文件
+     *
+     * @param sessionId sessionId
+     * @param file      文件
+     * @param offset    开始位置
+     * @param length    长度[小于0表示到文件末尾]
+     * @return 发送结果
+     * @throws IllegalArgumentException sessionId不存在
      */
-    protected abstract void closedHandle(ChannelHandlerContext ctx, String address) throws Exception;
+    public ChannelProgressiveFuture sendFile(String sessionId, Path file, long offset, long length) {
+        return sendFile(sessionId, null, file, offset, length);
+    }
 
     /**
-     * 链接异常处理
+     * 向客户端发送文件
+     *
+     * @param sessionId sessionId
+     * @param head      消息头[可为null，需自行在编码中写入文件长度]
+     * @param file      文件
+     * @param offset    开始位置
+     * @param length    长度[小于0表示到文件末尾]
+     * @return 发送结果
+     * @throws IllegalArgumentException sessionId不存在
      */
-    protected abstract void exceptionHandle(ChannelHandlerContext ctx, String address, Throwable cause) throws Exception;
+    public ChannelProgressiveFuture sendFile(String sessionId, Object head, Path file, long offset, long length) {
+        ChannelHandlerContext ctx = clientManager.getChannelHandlerContext(sessionId);
+        if (ctx == null) {
+            throw new IllegalArgumentException("socket server sessionId[" + sessionId + "]  is unkonw");
+        }
+        return sendFile(ctx, head, file, offset, length);
+    }
 
     /**
-     * 读空闲链接处理
+     * 启用按优先级调度的发送队列[启动前设置]
+     * <p>
+     * 启用后发送消息可指定优先级和截止时间，高优先级消息不再排在大量普通数据之后
+     *
+     * @param outboundQueueConfig 发送队列配置[为null不启用]
      */
-    protected abstract void readIdleHandle(ChannelHandlerContext ctx, String address) throws Exception;
+    public void setOutboundQueue(OutboundQueueConfig outboundQueueConfig) {
+        this.outboundQueueConfig = outboundQueueConfig;
+    }
 
     /**
-     * 全部空闲链接处理
+     * 启用低内存模式[启动前设置]
+     * <p>
+     * 用于承载大量空闲链接：空闲检测由所有链接共用的IdleScanner每秒扫描[精度1秒]，不再为每个链接创建IdleStateHandler及其定时任务；
+     * Session ID改为短序号。无状态的处理器在任何模式下都是共用的，读缓冲区由Netty按次分配、读完即释放，空闲链接不持有缓冲区
+     *
+     * @param lowFootprint 是否启用
      */
-    protected abstract void allIdleHandle(ChannelHandlerContext ctx, String address) throws Exception;
+    public void setLowFootprint(boolean lowFootprint) {
+        this.lowFootprint = lowFootprint;
+    }
 
     /**
-     * 写空闲链接处理
+     * 启用框架帧[启动前设置，两端需同时启用]
+     * <p>
+     * 链接上的数据按帧传输，一个帧可以承载一批消息，接收端解开帧后交给decode，业务编解码不变；启用后发送文件不再使用零拷贝。
+     * 客户端重放发送日志的消息在businessLogic处理完成后向客户端确认
+     *
+     * @param framing 是否启用
      */
-    protected abstract void writeIdleHandle(ChannelHandlerContext ctx, String address) throws Exception;
+    public void setFraming(boolean framing) {
+        this.framing = framing;
+    }
 
     /**
-     * 编码
+     * 是否启用框架帧
+     *
+     * @return 是否启用
      */
-    protected abstract byte[] encode(ChannelHandlerContext ctx, Object msg) throws Exception;
+    public boolean isFraming() {
+        return framing;
+    }
 
     /**
-     * 解码
+     * 启用逻辑流多路复用[启动前设置，两端需同时启用，自动启用框架帧]
+     * <p>
+     * 一个链接上可同时打开多个流，每个流独立解码、按序交付、独立流控，一个流的大消息或慢处理不阻塞其他流；
+     * 流上的消息不支持流式接收(StreamBegin)
+     *
+     * @param muxConfig 多路复用配置[为null不启用]
      */
-    protected abstract List<Object> decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception;
+    public void setMux(MuxConfig muxConfig) {
+        this.muxConfig = muxConfig;
+    }
 
     /**
-     * 数据处理
+     * 启用心跳[启动前设置，自动启用框架帧，对端需启用框架帧]
+     * <p>
+     * 框架按间隔发送PING并测量每个链接的RTT，连续多个PING未收到PONG时调用heartbeatTimeoutHandle并断开链接；
+     * 心跳对encode/decode透明，无需在空闲处理中自行实现保活
+     *
+     * @param heartbeatConfig 心跳配置[为null不主动发送心跳，启用框架帧时仍回复对端的心跳]
      */
-    protected abstract void businessLogic(ChannelHandlerContext ctx, Object msg) throws Exception;
+    public void setHeartbeat(HeartbeatConfig heartbeatConfig) {
+        this.heartbeatConfig = heartbeatConfig;
+    }
 
     /**
-     * @author frank
+     * 启用基于额度的流控[启动前设置，两端需同时启用，自动启用框架帧]
+     * <p>
+     * 按initialMessages、initialBytes给每个链接发放额度，业务处理完的数据归还额度，客户端没有额度时不再发送，
+     * 每个链接积压的未处理数据不超过额度。逻辑流的数据由流的窗口控制，不占用额度
+     *
+     * @param creditConfig 流控配置[为null不启用]
      */
-    class EncodeHandler extends MessageToByteEncoder<Object> {
-
-        @Override
-        protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) throws Exception {
-            byte[] bytes = SocketServer.this.encode(ctx, msg);
-            if (bytes != null) {
-                out.writeBytes(bytes);
-            }
-        }
+    public void setCredit(CreditConfig creditConfig) {
+        this.creditConfig = creditConfig;
+    }
+
+    /**
+     * 获取链接的平滑RTT[启用心跳]
+     *
+     * @param sessionId 会话ID
+     * @return RTT[微秒，未启用心跳、链接不存在或没有样本为-1]
+     */
+    public long getRttMicros(String sessionId) {
+        ChannelHandlerContext ctx = clientManager.getChannelHandlerContext(sessionId);
+        HeartbeatHandler handler = ctx == null ? null : HeartbeatHandler.of(ctx.channel());
+        return handler == null ? -1 : handler.getRttMicros();
+    }
+
+    /**
+     * 在链接上打开一个流
+     *
+     * @param ctx 链接
+     * @return 流
+     * @throws IllegalStateException 未启用多路复用或流数量超过上限
+     */
+    public MuxStream openStream(ChannelHandlerContext ctx) {
+        MuxHandler handler = MuxHandler.of(ctx.channel());
+        if (handler == null) {
+            throw new IllegalStateException("socket server[" + name + "] mux is not enabled");
+        }
+        return handler.openStream();
+    }
+
+    /**
+     * 向流发送信息
+     *
+     * @param stream  流
+     * @param message 消息
+     * @param wait    是否等待消息真实发送出去
+     * @return 是否发送成功
+     */
+    public boolean sendMessage(MuxStream stream, Object message, boolean wait) {
+        if (message == null) {
+            logger.error("message is null");
+            return false;
+        }
+        if (!stream.isOpen()) {
+            logger.error("socket server[" + name + "] stream [ " + stream.getId() + " ] is closed");
+            return false;
+        }
+        ChannelFuture result0 = stream.write(message);
+        if (!wait) {
+            return true;
+        }
+        result0 = result0.awaitUninterruptibly();
+        if (!result0.isSuccess()) {
+            logger.error("socket server[" + name + "]  send message error", result0.cause());
+        }
+        return result0.isSuccess();
+    }
+
+    /**
+     * 设置每个链接的发送积压上限[启动前设置]
+     * <p>
+     * 对端不读取数据时，积压超过上限的消息按策略拒绝或挤掉最早的消息，DISCONNECT策略下链接持续不可写超时后断开
+     *
+     * @param outboundLimit 发送积压上限[为null不限制]
+     */
+    public void setOutboundLimit(OutboundLimit outboundLimit) {
+        this.outboundLimit = outboundLimit;
+    }
+
+    /**
+     * 获取发送队列统计
+     *
+     * @return 发送队列统计
+     */
+    public OutboundMetrics getOutboundMetrics() {
+        return outboundMetrics;
+    }
+
+    /**
+     * 启用IO线程健康监控[启动前设置]
+     * <p>
+     * 监控每个IO线程的调度延迟、待执行任务数和链接数，卡顿超过阈值时把IO线程的线程栈写入日志；
+     * 同一个监控也可作为接入控制的负载探测，只启动一次
+     *
+     * @param eventLoopMonitor 监控[为null不启用]
+     */
+    public void setEventLoopMonitor(EventLoopMonitor eventLoopMonitor) {
+        this.eventLoopMonitor = eventLoopMonitor;
+    }
+
+    /**
+     * 获取IO线程健康监控
+     *
+     * @return 监控[未启用为null]
+     */
+    public EventLoopMonitor getEventLoopMonitor() {
+        return eventLoopMonitor;
+    }
+
+    /**
+     * 启用消息耗时跟踪[启动前设置]
+     * <p>
+     * 抽中的消息记录读取、解码、业务开始与结束、业务中发送的消息编码与写出的时间，超过阈值时写入慢消息日志；
+     * 业务中通过sendMessage发送的消息计入跟踪
+     *
+     * @param traceConfig 跟踪配置[为null不启用]
+     */
+    public void setTrace(TraceConfig traceConfig) {
+        this.traceConfig = traceConfig;
+    }
+
+    /**
+     * 获取消息耗时跟踪
+     *
+     * @return 跟踪[未启用或未启动为null]
+     */
+    public Tracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * 设置业务线程池[启动前设置]
+     * <p>
+     * 设置后解码出的消息交给线程池处理，IO线程不被业务阻塞；同一个链接的消息仍按接收顺序串行处理。
+     * 逻辑流的消息按流内顺序串行处理，由流的窗口限制积压[处理完成后才归还窗口]，不计入接收积压
+     *
+     * @param businessExecutor 业务线程池[为null在IO线程中处理]
+     */
+    public void setBusinessExecutor(Executor businessExecutor) {
+        this.businessExecutor = businessExecutor;
+    }
+
+    /**
+     * 设置一个链接一个线程的业务处理[启动前设置]
+     * <p>
+     * 每个链接建立后在独立的线程中以阻塞方式顺序收发[BlockingChannel]，不再调用businessLogic；Java 21及以上运行时为虚拟线程，
+     * 直线式的业务代码即可承载大量链接，否则为普通线程。业务线程池对该模式不起作用；逻辑流的消息仍交给businessLogic(ctx, stream, msg)
+     *
+     * @param sessionHandler 业务处理[为null使用businessLogic回调]
+     */
+    public void setSessionHandler(SessionHandler sessionHandler) {
+        setSessionHandler(sessionHandler, BlockingChannel.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 设置一个链接一个线程的业务处理[启动前设置]
+     *
+     * @param sessionHandler 业务处理[为null使用businessLogic回调]
+     * @param capacity       接收队列容量[积压达到容量时暂停读取该链接]
+     */
+    public void setSessionHandler(SessionHandler sessionHandler, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.sessionHandler = sessionHandler;
+        this.sessionCapacity = capacity;
+    }
+
+    /**
+     * 设置接收积压上限[启动前设置，配合业务线程池使用]
+     * <p>
+     * 交给业务线程池未处理完的消息超过高水位时暂停读取链接[或整个IO线程上的链接]，降到低水位时恢复，
+     * 由TCP流控使对端放慢发送，内存不随对端发送速度无限增长；同时启用流控额度时积压高于低水位期间暂缓归还额度
+     *
+     * @param inboundLimit 接收积压上限[为null不限制]
+     */
+    public void setInboundLimit(InboundLimit inboundLimit) {
+        this.inboundLimit = inboundLimit;
+    }
+
+    /**
+     * 获取接收积压统计
+     *
+     * @return 接收积压统计
+     */
+    public InboundMetrics getInboundMetrics() {
+        return inboundMetrics;
+    }
+
+    /**
+     * 链接的发送积压是否已满[挤掉最早消息的策略总是可以发送]
+     *
+     * @param channel 链接
+     * @return 是否已满
+     */
+    private boolean isOutboundFull(Channel channel) {
+        if (outboundLimit == null || outboundLimit.getPolicy() == OverflowPolicy.DROP_OLDEST) {
+            return false;
+        }
+        OutboundQueueHandler queue = OutboundQueueHandler.of(channel);
+        return queue != null && queue.isOverLimit();
+    }
+
+    /**
+     * 启用接入控制[启动前设置]
+     * <p>
+     * 新链接在构建处理链之前按最大链接总数、接入速率和负载判断是否接入，拒绝时直接关闭socket
+     *
+     * @param admissionConfig 接入控制配置[为null不启用]
+     */
+    public void setAdmission(AdmissionConfig admissionConfig) {
+        this.admissionConfig = admissionConfig;
+    }
+
+    /**
+     * 启用流量抓取[启动前设置]
+     * <p>
+     * 抽中的链接收到的原始字节[解码前]连同时间戳、Session ID写入内存映射的抓取文件，可由TrafficReplayer重放
+     *
+     * @param captureConfig 流量抓取配置[为null不启用]
+     */
+    public void setCapture(CaptureConfig captureConfig) {
+        this.captureConfig = captureConfig;
+    }
+
+    /**
+     * 获取流量抓取
+     *
+     * @return 流量抓取[未启用或未启动为null]
+     */
+    public CaptureWriter getCapture() {
+        return capture;
+    }
+
+    /**
+     * 获取接入统计
+     *
+     * @return 接入统计
+     */
+    public AdmissionMetrics getAdmissionMetrics() {
+        return admissionMetrics;
+    }
+
+    /**
+     * 设置序列化器[启动前设置]
+     * <p>
+     * 设置后消息按4字节长度+序列化数据分帧，由序列化器直接读写ByteBuf，不再调用encode/decode
+     *
+     * @param serializer 序列化器[为null使用encode/decode]
+     */
+    public void setSerializer(Serializer serializer) {
+        setSerializer(serializer, SerializeSupport.DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * 设置序列化器[启动前设置]
+     *
+     * @param serializer     序列化器[为null使用encode/decode]
+     * @param maxFrameLength 最大帧长度[字节，超过时断开链接]
+     */
+    public void setSerializer(Serializer serializer, int maxFrameLength) {
+        if (maxFrameLength <= 0) {
+            throw new IllegalArgumentException("max frame length must be positive");
+        }
+        this.serializer = serializer;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * 获取序列化器
+     *
+     * @return 序列化器
+     */
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * 注册消息对象池
+     * <p>
+     * 解码时从池中获取的消息在业务处理结束后自动回收；关闭时检查调试模式的池是否有未回收的消息
+     *
+     * @param pool 消息对象池
+     */
+    public void registerMessagePool(MessagePool<?> pool) {
+        if (pool == null) {
+            throw new NullPointerException();
+        }
+        messagePools.add(pool);
+    }
+
+    /**
+     * 获取注册的消息对象池
+     *
+     * @return 消息对象池
+     */
+    public List<MessagePool<?>> getMessagePools() {
+        return messagePools;
+    }
+
+    /**
+     * 输出调试模式的池中未回收的消息数
+     */
+    private void reportMessagePools() {
+        for (MessagePool<?> pool : messagePools) {
+            if (pool.isDebug() && pool.getOutstanding() > 0) {
+                logger.error("socket server[" + name + "] message pool[" + pool.getName() + "] has " + pool.getOutstanding() + " messages not released");
+            }
+        }
+    }
+
+    /**
+     * 设置JVM内通道是否直接传递消息对象[启动前设置，仅对local:地址生效]
+     * <p>
+     * 启用后发送的消息不经过encode，对象本身交给对端的处理链，对端的decode只处理字节数据，因此对象直接到达业务处理；
+     * 发送后不可再修改消息对象。流式消息和文件的消息头同样不编码，需要按字节解析消息头时不要启用；
+     * 未编码的对象没有字节大小，设置了按字节的发送上限时启动会失败
+     *
+     * @param localPassThrough 是否直接传递消息对象
+     */
+    public void setLocalPassThrough(boolean localPassThrough) {
+        this.localPassThrough = localPassThrough;
+    }
+
+    /**
+     * 设置发送文件是否允许零拷贝[默认允许，关闭后始终使用内存映射分块发送]
+     *
+     * @param fileZeroCopy 是否允许零拷贝
+     */
+    public void setFileZeroCopy(boolean fileZeroCopy) {
+        this.fileZeroCopy = fileZeroCopy;
+    }
+
+    /**
+     * 设置流式消息分块大小[启动前设置]
+     *
+     * @param streamChunkSize 分块大小[字节]
+     */
+    public void setStreamChunkSize(int streamChunkSize) {
+        if (streamChunkSize <= 0) {
+            throw new IllegalArgumentException("stream chunk size must be positive");
+        }
+        this.streamChunkSize = streamChunkSize;
+    }
+
+    /**
+     * 获取流式消息分块大小
+     *
+     * @return 分块大小[字节]
+     */
+    public int getStreamChunkSize() {
+        return streamChunkSize;
+    }
+
+    /**
+     * 获取server名字
+     *
+     * @return server名字
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 是否启动
+     *
+     * @return 是否启动
+     */
+    public boolean isStart() {
+        return isStart;
+    }
+
+    /**
+     * 获取客户管理器
+     *
+     * @return 客户管理器
+     */
+    public ClientManager getClientManager() {
+        return clientManager;
+    }
+
+    /**
+     * 处理链接信息
+     */
+    protected abstract void connectHandle(ChannelHandlerContext ctx, String address) throws Exception;
+
+    /**
+     * 处理断开链接信息
+     */
+    protected abstract void closedHandle(ChannelHandlerContext ctx, String address) throws Exception;
+
+    /**
+     * 链接异常处理
+     */
+    protected abstract void exceptionHandle(ChannelHandlerContext ctx, String address, Throwable cause) throws Exception;
+
+    /**
+     * 读空闲链接处理
+     */
+    protected abstract void readIdleHandle(ChannelHandlerContext ctx, String address) throws Exception;
+
+    /**
+     * 全部空闲链接处理
+     */
+    protected abstract void allIdleHandle(ChannelHandlerContext ctx, String address) throws Exception;
+
+    /**
+     * 写空闲链接处理
+     */
+    protected abstract void writeIdleHandle(ChannelHandlerContext ctx, String address) throws Exception;
+
+    /**
+     * 慢消费者处理[发送积压超过上限]
+     */
+    protected void slowConsumerHandle(ChannelHandlerContext ctx, String address, SlowConsumerEvent event) throws Exception {
+        logger.warn("socket server[" + name + "] session [ " + clientManager.getSessionId(ctx) + " ] from " + address + " is slow consumer : " + event);
+    }
+
+    /**
+     * 心跳超时处理[链接随后被断开]
+     */
+    protected void heartbeatTimeoutHandle(ChannelHandlerContext ctx, String address, HeartbeatTimeoutEvent event) throws Exception {
+        logger.warn("socket server[" + name + "] session [ " + clientManager.getSessionId(ctx) + " ] from " + address + " heartbeat timeout : " + event);
+    }
+
+    /**
+     * 编码
+     * <p>
+     * 覆盖encode(ctx, msg, out)或设置序列化器后不再被调用；三者都没有时抛出UnsupportedOperationException
+     */
+    protected byte[] encode(ChannelHandlerContext ctx, Object msg) throws Exception {
+        throw new UnsupportedOperationException("socket server[" + name + "] override encode(ctx, msg) or encode(ctx, msg, out)");
+    }
+
+    /**
+     * 分段编码
+     * <p>
+     * 默认调用encode(ctx, msg)；覆盖此方法可将消息头、消息体、消息尾分别放入out，框架组装为CompositeByteBuf写出，不拼接复制。
+     * 分段可以是byte[]、ByteBuffer或ByteBuf，ByteBuf由框架释放；消息本身在编码后会被释放，其中的ByteBuf作为分段时放入retainedDuplicate()
+     *
+     * @param ctx 链接
+     * @param msg 消息
+     * @param out 分段列表[只可添加，不可持有]
+     */
+    protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+        byte[] bytes = encode(ctx, msg);
+        if (bytes != null) {
+            out.add(bytes);
+        }
+    }
+
+    /**
+     * 解码
+     * <p>
+     * 如需流式接收大消息，读取完消息头后将StreamBegin作为最后一个对象返回，业务随后依次收到StreamChunk、StreamEnd
+     * <p>
+     * 覆盖decode(ctx, in, out)或设置序列化器后不再被调用；三者都没有时抛出UnsupportedOperationException
+     */
+    protected List<Object> decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        throw new UnsupportedOperationException("socket server[" + name + "] override decode(ctx, in) or decode(ctx, in, out)");
+    }
+
+    /**
+     * 解码[直接输出到处理链]
+     * <p>
+     * 默认调用decode(ctx, in)并复制其结果；覆盖此方法可将解码出的对象直接放入out，不再为每次读取分配中间List
+     *
+     * @param ctx 链接
+     * @param in  已接收数据
+     * @param out 处理链的输出列表[只可添加，不可持有]
+     */
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        List<Object> objs = decode(ctx, in);
+        if (objs != null) {
+            out.addAll(objs);
+        }
+    }
+
+    /**
+     * 数据处理
+     * <p>
+     * PooledMessage在处理结束后自动回收，异步使用需先retain
+     */
+    protected abstract void businessLogic(ChannelHandlerContext ctx, Object msg) throws Exception;
+
+    /**
+     * 流的数据处理[启用多路复用]
+     * <p>
+     * 默认调用businessLogic(ctx, msg)；同一个流的消息按发送顺序交付
+     */
+    protected void businessLogic(ChannelHandlerContext ctx, MuxStream stream, Object msg) throws Exception {
+        businessLogic(ctx, msg);
+    }
+
+    /**
+     * 流打开[对端打开流]
+     */
+    protected void streamOpenedHandle(ChannelHandlerContext ctx, MuxStream stream) throws Exception {
+    }
+
+    /**
+     * 流关闭[任一端关闭流或链接断开]
+     */
+    protected void streamClosedHandle(ChannelHandlerContext ctx, MuxStream stream) throws Exception {
+    }
+
+    /**
+     * @author frank
+     */
+    @ChannelHandler.Sharable
+    class EncodeHandler extends MessageToMessageEncoder<Object> {
+
+        /**
+         * 分段编码结果[每个IO线程一个，复用]
+         */
+        private final FastThreadLocal<List<Object>> segments = new FastThreadLocal<List<Object>>() {
+            @Override
+            protected List<Object> initialValue() {
+                return new ArrayList<>(4);
+            }
+        };
+
+        @Override
+        public boolean acceptOutboundMessage(Object msg) throws Exception {
+            if (localPassThrough && TransportSupport.isLocal(address)) {
+                return false;
+            }
+            return !(msg instanceof ChunkedInput) && !(msg instanceof FileRegion) && !(msg instanceof MuxFrame) && super.acceptOutboundMessage(msg);
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+            if (msg instanceof OutboundMessage) {
+                OutboundMessage message = (OutboundMessage) msg;
+                try {
+                    out.add(message.replace(encodeStream(ctx, message.getMessage())));
+                } finally {
+                    ReferenceCountUtil.release(message.getMessage());
+                }
+                return;
+            }
+            out.add(encodeStream(ctx, msg));
+        }
+
+        private Object encodeStream(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof TracedMessage) {
+                TracedMessage message = (TracedMessage) msg;
+                try {
+                    Object encoded = encodeStream(ctx, message.getMessage());
+                    message.getTrace().mark(TraceStage.ENCODED);
+                    return encoded;
+                } finally {
+                    ReferenceCountUtil.release(message.getMessage());
+                }
+            }
+            if (!(msg instanceof MuxMessage)) {
+                return encode0(ctx, msg);
+            }
+            MuxMessage message = (MuxMessage) msg;
+            try {
+                return new MuxFrame(FrameSupport.TYPE_STREAM_DATA, message.getStreamId(), encode0(ctx, message.getMessage()));
+            } finally {
+                ReferenceCountUtil.release(message.getMessage());
+            }
+        }
+
+        private ByteBuf encode0(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (serializer != null) {
+                return SerializeSupport.encode(ctx.alloc(), serializer, msg);
+            }
+            List<Object> segments = this.segments.get();
+            try {
+                try {
+                    SocketServer.this.encode(ctx, msg, segments);
+                } catch (Exception e) {
+                    SegmentSupport.release(segments);
+                    throw e;
+                }
+                return SegmentSupport.compose(ctx.alloc(), segments);
+            } finally {
+                segments.clear();
+            }
+        }
     }
 
     /**
@@ -319,18 +1408,97 @@ public abstract class SocketServer {
      */
     class DecodeHandler extends ByteToMessageDecoder {
 
+        /**
+         * 正在接收的流式消息
+         */
+        private StreamInbound stream;
+
+        /**
+         * 是否已解码失败[之后的数据直接丢弃]
+         */
+        private boolean failed;
+
         @Override
         protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-            List<Object> objs = SocketServer.this.decode(ctx, in);
-            if (objs != null) {
-                out.addAll(objs);
+            if (failed) {
+                in.skipBytes(in.readableBytes());
+                return;
+            }
+            if (stream != null) {
+                if (stream.read(in, out)) {
+                    stream = null;
+                }
+                return;
             }
+            if (serializer != null) {
+                SerializeSupport.decode(serializer, in, out, maxFrameLength);
+                return;
+            }
+            SocketServer.this.decode(ctx, in, out);
+            stream = StreamInbound.begin(out, streamChunkSize);
+        }
+
+        @Override
+        protected void decodeLast(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+            super.decodeLast(ctx, in, out);
+            if (stream != null) {
+                out.add(stream.abort());
+                stream = null;
+            }
+        }
+
+        /**
+         * 解码失败后数据已无法分帧，关闭链接，不再积累后续数据
+         */
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            if (!(cause instanceof DecoderException)) {
+                super.exceptionCaught(ctx, cause);
+                return;
+            }
+            if (!failed) {
+                failed = true;
+                logger.error("socket server[" + name + "] session [ " + clientManager.getSessionId(ctx) + " ] decode error, close it : " + cause.getMessage());
+                SocketServer.this.exceptionHandle(ctx, TransportSupport.addressOf(ctx.channel()), cause);
+            }
+            ctx.close();
         }
     }
 
     /**
      * @author frank
      */
+    class MuxCallback implements MuxListener {
+
+        @Override
+        public void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+            if (serializer != null) {
+                SerializeSupport.decode(serializer, in, out, maxFrameLength);
+                return;
+            }
+            SocketServer.this.decode(ctx, in, out);
+        }
+
+        @Override
+        public void opened(ChannelHandlerContext ctx, MuxStream stream) throws Exception {
+            SocketServer.this.streamOpenedHandle(ctx, stream);
+        }
+
+        @Override
+        public void message(ChannelHandlerContext ctx, MuxStream stream, Object msg) throws Exception {
+            SocketServer.this.businessLogic(ctx, stream, msg);
+        }
+
+        @Override
+        public void closed(ChannelHandlerContext ctx, MuxStream stream) throws Exception {
+            SocketServer.this.streamClosedHandle(ctx, stream);
+        }
+    }
+
+    /**
+     * @author frank
+     */
+    @ChannelHandler.Sharable
     class ConnectHandler extends ChannelInboundHandlerAdapter {
 
         /**
@@ -338,7 +1506,7 @@ public abstract class SocketServer {
          */
         @Override
         public void channelActive(ChannelHandlerContext ctx) throws Exception {
-            String address = ctx.channel().remoteAddress().toString();
+            String address = TransportSupport.addressOf(ctx.channel());
             boolean enable = clientManager.addChannelHandlerContext(ctx);
             if (!enable) {
                 ctx.close().sync();
@@ -354,7 +1522,7 @@ public abstract class SocketServer {
          */
         @Override
         public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-            String address = ctx.channel().remoteAddress().toString();
+            String address = TransportSupport.addressOf(ctx.channel());
             SocketServer.this.closedHandle(ctx, address);
             clientManager.removeAndClose(ctx);
             super.channelInactive(ctx);
@@ -365,7 +1533,7 @@ public abstract class SocketServer {
          */
         @Override
         public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-            String address = ctx.channel().remoteAddress().toString();
+            String address = TransportSupport.addressOf(ctx.channel());
             SocketServer.this.exceptionHandle(ctx, address, cause);
             super.exceptionCaught(ctx, cause);
         }
@@ -376,7 +1544,7 @@ public abstract class SocketServer {
         @Override
         public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
             if (evt instanceof IdleStateEvent) {
-                String address = ctx.channel().remoteAddress().toString();
+                String address = TransportSupport.addressOf(ctx.channel());
                 IdleStateEvent event = (IdleStateEvent) evt;
                 switch (event.state()) {
                     case WRITER_IDLE:
@@ -391,6 +1559,10 @@ public abstract class SocketServer {
                     default:
                         break;
                 }
+            } else if (evt instanceof SlowConsumerEvent) {
+                SocketServer.this.slowConsumerHandle(ctx, TransportSupport.addressOf(ctx.channel()), (SlowConsumerEvent) evt);
+            } else if (evt instanceof HeartbeatTimeoutEvent) {
+                SocketServer.this.heartbeatTimeoutHandle(ctx, TransportSupport.addressOf(ctx.channel()), (HeartbeatTimeoutEvent) evt);
             }
             super.userEventTriggered(ctx, evt);
         }
@@ -398,13 +1570,209 @@ public abstract class SocketServer {
     }
 
     /**
+     * 业务处理器的公共部分[阻塞式链接、发送日志确认、业务调用]
+     *
      * @author frank
      */
-    class BusinessHandler extends SimpleChannelInboundHandler<Object> {
+    abstract class AbstractBusinessHandler extends SimpleChannelInboundHandler<Object> {
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            if (sessionHandler != null) {
+                startSession(ctx);
+            }
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            BlockingChannel blocking = sessionHandler == null ? null : BlockingChannel.of(ctx.channel());
+            if (blocking != null) {
+                blocking.closed();
+            }
+            super.channelInactive(ctx);
+        }
 
         @Override
         protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
-            SocketServer.this.businessLogic(ctx, msg);
+            if (msg instanceof JournalAck) {
+                acknowledge((JournalAck) msg);
+                return;
+            }
+            BlockingChannel blocking = sessionHandler == null ? null : BlockingChannel.of(ctx.channel());
+            if (blocking != null) {
+                blocking.offer(ReferenceCountUtil.retain(msg));
+                return;
+            }
+            dispatch(ctx, msg);
+        }
+
+        /**
+         * 处理业务消息[IO线程]
+         *
+         * @param ctx 链接
+         * @param msg 消息[处理后由SimpleChannelInboundHandler释放]
+         */
+        protected abstract void dispatch(ChannelHandlerContext ctx, Object msg) throws Exception;
+
+        /**
+         * 之前的消息处理完成后确认发送日志的序号[阻塞式链接交给接收队列即确认]
+         *
+         * @param ack 确认标记
+         */
+        protected void acknowledge(JournalAck ack) {
+            ack.complete();
+        }
+
+        /**
+         * 在链接线程中运行业务处理，结束后关闭链接
+         */
+        private void startSession(ChannelHandlerContext ctx) {
+            BlockingChannel blocking = BlockingChannel.attach(ctx.channel(), message -> sendMessageAsync(ctx, message), sessionCapacity);
+            SessionHandler handler = sessionHandler;
+            SessionThreads.start("socket-session-" + clientManager.getSessionId(ctx), () -> {
+                try {
+                    handler.handle(blocking);
+                } catch (ClosedChannelException e) {
+                    // 链接已断开
+                } catch (Throwable e) {
+                    ctx.pipeline().fireExceptionCaught(e);
+                } finally {
+                    blocking.close();
+                }
+            });
+        }
+
+        /**
+         * 业务处理[抽中的消息记录业务开始和结束]
+         */
+        protected void invoke(ChannelHandlerContext ctx, Object msg, MessageTrace trace) throws Exception {
+            if (trace == null) {
+                SocketServer.this.businessLogic(ctx, msg);
+                return;
+            }
+            trace.begin();
+            try {
+                SocketServer.this.businessLogic(ctx, msg);
+            } finally {
+                trace.end();
+            }
+        }
+
+    }
+
+    /**
+     * 业务处理器[未设置业务线程池且未启用跟踪时使用，没有链接状态，所有链接共用一个]
+     *
+     * @author frank
+     */
+    @ChannelHandler.Sharable
+    class BusinessHandler extends AbstractBusinessHandler {
+
+        @Override
+        protected void dispatch(ChannelHandlerContext ctx, Object msg) throws Exception {
+            invoke(ctx, msg, null);
+        }
+
+    }
+
+    /**
+     * 有链接状态的业务处理器[设置业务线程池或启用跟踪时使用，每个链接一个]
+     *
+     * @author frank
+     */
+    class ChannelBusinessHandler extends AbstractBusinessHandler {
+
+        /**
+         * 按顺序在业务线程池中处理[未设置业务线程池为null]
+         */
+        private SerialExecutor serial;
+
+        /**
+         * 链接所属的接收积压
+         */
+        private InboundBacklog backlog;
+
+        /**
+         * 读取跟踪[未启用跟踪为null]
+         */
+        private TraceReadHandler traceRead;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            if (tracer != null) {
+                traceRead = TraceReadHandler.of(ctx.channel());
+            }
+            if (businessExecutor != null) {
+                serial = new SerialExecutor(businessExecutor);
+                if (backpressure != null) {
+                    backlog = backpressure.register(ctx.channel());
+                    CreditGrantHandler grant = CreditGrantHandler.of(ctx.channel());
+                    if (grant != null) {
+                        grant.setBacklog(backlog);
+                    }
+                }
+            }
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (backlog != null) {
+                backpressure.unregister(ctx.channel(), backlog);
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        protected void dispatch(ChannelHandlerContext ctx, Object msg) throws Exception {
+            MessageTrace trace = traceRead == null ? null : traceRead.start(clientManager.getSessionId(ctx));
+            if (serial == null) {
+                invoke(ctx, msg, trace);
+                return;
+            }
+            ReferenceCountUtil.retain(msg);
+            if (backlog != null) {
+                backlog.dispatched();
+            }
+            try {
+                serial.execute(() -> process(ctx, msg, trace));
+            } catch (RejectedExecutionException e) {
+                ReferenceCountUtil.release(msg);
+                if (backlog != null) {
+                    backlog.processed();
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        protected void acknowledge(JournalAck ack) {
+            if (serial == null) {
+                ack.complete();
+                return;
+            }
+            try {
+                serial.execute(ack::complete);
+            } catch (RejectedExecutionException e) {
+                // 业务线程池已关闭，不确认，对端重连后重放
+            }
+        }
+
+        /**
+         * 在业务线程中处理[异常交给exceptionHandle]
+         */
+        private void process(ChannelHandlerContext ctx, Object msg, MessageTrace trace) {
+            try {
+                invoke(ctx, msg, trace);
+            } catch (Throwable e) {
+                ctx.pipeline().fireExceptionCaught(e);
+            } finally {
+                ReferenceCountUtil.release(msg);
+                if (backlog != null) {
+                    backlog.processed();
+                }
+            }
         }
 
     }
@@ -0,0 +1,138 @@
+package cn.emay.socket.stream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * 内存映射文件分块读取
+ * <p>
+ * 按窗口映射文件，分块为窗口的切片，不经过堆内存拷贝；窗口映射由GC回收
+ *
+ * @author Frank
+ */
+public class MappedFileChunkedInput implements ChunkedInput<ByteBuf> {
+
+    /**
+     * 映射窗口大小[字节]
+     */
+    private static final int WINDOW_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * 文件
+     */
+    private final FileChannel file;
+
+    /**
+     * 开始位置
+     */
+    private final long startOffset;
+
+    /**
+     * 结束位置
+     */
+    private final long endOffset;
+
+    /**
+     * 分块大小
+     */
+    private final int chunkSize;
+
+    /**
+     * 当前位置
+     */
+    private long offset;
+
+    /**
+     * 当前映射窗口
+     */
+    private ByteBuf window;
+
+    /**
+     * 当前映射窗口的开始位置
+     */
+    private long windowOffset;
+
+    /**
+     * @param file      文件[读取完毕后关闭]
+     * @param offset    开始位置
+     * @param length    长度
+     * @param chunkSize 分块大小
+     */
+    public MappedFileChunkedInput(FileChannel file, long offset, long length, int chunkSize) {
+        if (file == null) {
+            throw new NullPointerException();
+        }
+        if (offset < 0 || length < 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("offset: " + offset + ", length: " + length + ", chunkSize: " + chunkSize);
+        }
+        this.file = file;
+        this.startOffset = offset;
+        this.endOffset = offset + length;
+        this.chunkSize = chunkSize;
+        this.offset = offset;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return offset >= endOffset || !file.isOpen();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (window != null) {
+            window.release();
+            window = null;
+        }
+        file.close();
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+        if (isEndOfInput()) {
+            return null;
+        }
+        if (window == null || offset >= windowOffset + window.capacity()) {
+            map();
+        }
+        int index = (int) (offset - windowOffset);
+        int length = Math.min(chunkSize, window.capacity() - index);
+        ByteBuf chunk = window.retainedSlice(index, length);
+        offset += length;
+        return chunk;
+    }
+
+    /**
+     * 映射下一个窗口
+     */
+    private void map() throws IOException {
+        if (window != null) {
+            window.release();
+        }
+        long size = Math.min(WINDOW_SIZE, endOffset - offset);
+        window = Unpooled.wrappedBuffer(file.map(FileChannel.MapMode.READ_ONLY, offset, size));
+        windowOffset = offset;
+    }
+
+    @Override
+    public long length() {
+        return endOffset - startOffset;
+    }
+
+    @Override
+    public long progress() {
+        return offset - startOffset;
+    }
+
+}
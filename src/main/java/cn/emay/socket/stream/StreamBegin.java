@@ -0,0 +1,53 @@
+package cn.emay.socket.stream;
+
+/**
+ * 流式消息开始
+ * <p>
+ * 解码时读取完大消息的头部后，将其作为最后一个对象放入解码结果，框架随后会把后续length个字节按分块交给业务处理：<br/>
+ * StreamBegin -> StreamChunk * N -> StreamEnd
+ *
+ * @author Frank
+ */
+public class StreamBegin {
+
+    /**
+     * 消息头[业务自定义]
+     */
+    private final Object head;
+
+    /**
+     * 消息体长度[字节]
+     */
+    private final long length;
+
+    /**
+     * @param head   消息头[业务自定义]
+     * @param length 消息体长度[字节]
+     */
+    public StreamBegin(Object head, long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("stream length must not be negative");
+        }
+        this.head = head;
+        this.length = length;
+    }
+
+    /**
+     * 获取消息头
+     *
+     * @return 消息头
+     */
+    public Object getHead() {
+        return head;
+    }
+
+    /**
+     * 获取消息体长度
+     *
+     * @return 消息体长度
+     */
+    public long getLength() {
+        return length;
+    }
+
+}
@@ -0,0 +1,43 @@
+package cn.emay.socket.stream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+/**
+ * 流式消息分块
+ * <p>
+ * 业务处理结束后由框架释放，如需异步使用内容请先retain
+ *
+ * @author Frank
+ */
+public class StreamChunk extends DefaultByteBufHolder {
+
+    /**
+     * 分块在消息体中的偏移量
+     */
+    private final long offset;
+
+    /**
+     * @param content 分块内容
+     * @param offset  分块在消息体中的偏移量
+     */
+    public StreamChunk(ByteBuf content, long offset) {
+        super(content);
+        this.offset = offset;
+    }
+
+    /**
+     * 获取分块在消息体中的偏移量
+     *
+     * @return 偏移量
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public StreamChunk replace(ByteBuf content) {
+        return new StreamChunk(content, offset);
+    }
+
+}
@@ -0,0 +1,63 @@
+package cn.emay.socket.stream;
+
+/**
+ * 流式消息结束
+ *
+ * @author Frank
+ */
+public class StreamEnd {
+
+    /**
+     * 消息头[业务自定义]
+     */
+    private final Object head;
+
+    /**
+     * 已接收的消息体长度[字节]
+     */
+    private final long length;
+
+    /**
+     * 是否完整接收[链接中途断开为false]
+     */
+    private final boolean complete;
+
+    /**
+     * @param head     消息头[业务自定义]
+     * @param length   已接收的消息体长度[字节]
+     * @param complete 是否完整接收
+     */
+    public StreamEnd(Object head, long length, boolean complete) {
+        this.head = head;
+        this.length = length;
+        this.complete = complete;
+    }
+
+    /**
+     * 获取消息头
+     *
+     * @return 消息头
+     */
+    public Object getHead() {
+        return head;
+    }
+
+    /**
+     * 获取已接收的消息体长度
+     *
+     * @return 已接收的消息体长度
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * 是否完整接收
+     *
+     * @return 是否完整接收
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+}
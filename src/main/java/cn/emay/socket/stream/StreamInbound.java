@@ -0,0 +1,99 @@
+package cn.emay.socket.stream;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.List;
+
+/**
+ * 流式消息接收状态[每个链接同一时刻最多一个]
+ * <p>
+ * 消息体不在解码缓冲区中累积，每次读到的数据直接切分为StreamChunk交给业务，内存占用以分块大小为界
+ *
+ * @author Frank
+ */
+public class StreamInbound {
+
+    /**
+     * 开始标记
+     */
+    private final StreamBegin begin;
+
+    /**
+     * 最大分块大小[字节]
+     */
+    private final int chunkSize;
+
+    /**
+     * 已接收长度
+     */
+    private long offset;
+
+    /**
+     * @param begin     开始标记
+     * @param chunkSize 最大分块大小[字节]
+     */
+    public StreamInbound(StreamBegin begin, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunk size must be positive");
+        }
+        this.begin = begin;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 检测解码结果是否开始了流式消息
+     * <p>
+     * 消息体长度为0时直接在解码结果中加入结束标记，不进入流式接收
+     *
+     * @param out       解码结果
+     * @param chunkSize 最大分块大小[字节]
+     * @return 流式消息接收状态，未开始或消息体为空返回null
+     */
+    public static StreamInbound begin(List<Object> out, int chunkSize) {
+        if (out.isEmpty()) {
+            return null;
+        }
+        Object last = out.get(out.size() - 1);
+        if (!(last instanceof StreamBegin)) {
+            return null;
+        }
+        StreamBegin begin = (StreamBegin) last;
+        if (begin.getLength() == 0) {
+            out.add(new StreamEnd(begin.getHead(), 0, true));
+            return null;
+        }
+        return new StreamInbound(begin, chunkSize);
+    }
+
+    /**
+     * 读取消息体
+     *
+     * @param in  已接收数据
+     * @param out 解码结果
+     * @return 消息体是否读取完毕
+     */
+    public boolean read(ByteBuf in, List<Object> out) {
+        long remaining = begin.getLength() - offset;
+        if (remaining > 0 && in.isReadable()) {
+            int length = (int) Math.min(Math.min(remaining, in.readableBytes()), chunkSize);
+            out.add(new StreamChunk(in.readRetainedSlice(length), offset));
+            offset += length;
+            remaining -= length;
+        }
+        if (remaining > 0) {
+            return false;
+        }
+        out.add(new StreamEnd(begin.getHead(), offset, true));
+        return true;
+    }
+
+    /**
+     * 中止接收[链接断开]
+     *
+     * @return 结束标记
+     */
+    public StreamEnd abort() {
+        return new StreamEnd(begin.getHead(), offset, false);
+    }
+
+}
@@ -0,0 +1,92 @@
+package cn.emay.socket.stream;
+
+import cn.emay.socket.frame.FrameSupport;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.socket.DuplexChannel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 流式发送工具
+ *
+ * @author Frank
+ */
+public class StreamSupport {
+
+    /**
+     * 分块写处理器名字
+     */
+    public static final String CHUNKED_WRITE_HANDLER = "ChunkedWriteHandler";
+
+    /**
+     * 确保链接上有分块写处理器[放在EncodeHandler之前，按需添加，空闲链接不占用]
+     *
+     * @param pipeline 链接的处理链
+     */
+    public static void ensureChunkedWriteHandler(ChannelPipeline pipeline) {
+        if (pipeline.get(CHUNKED_WRITE_HANDLER) != null) {
+            return;
+        }
+        synchronized (pipeline) {
+            if (pipeline.get(CHUNKED_WRITE_HANDLER) == null) {
+                pipeline.addBefore("EncodeHandler", CHUNKED_WRITE_HANDLER, new ChunkedWriteHandler());
+            }
+        }
+    }
+
+    /**
+     * 链接是否可以零拷贝发送文件[原生socket且处理链中没有需要读取字节的处理器，启用框架帧时文件需要分帧]
+     *
+     * @param channel 链接
+     * @return 是否可以零拷贝
+     */
+    public static boolean isZeroCopyAvailable(Channel channel) {
+        return channel instanceof DuplexChannel && channel.pipeline().get(SslHandler.class) == null && !FrameSupport.isFramed(channel.pipeline());
+    }
+
+    /**
+     * 打开文件的待发送区域
+     * <p>
+     * 可以零拷贝时返回FileRegion(sendfile)，否则返回内存映射的分块读取
+     *
+     * @param channel   链接
+     * @param path      文件
+     * @param offset    开始位置
+     * @param length    长度[小于0表示到文件末尾]
+     * @param chunkSize 分块大小
+     * @param zeroCopy  是否允许零拷贝
+     * @return FileRegion或ChunkedInput
+     * @throws IOException 文件打开失败
+     */
+    public static Object openFile(Channel channel, Path path, long offset, long length, int chunkSize, boolean zeroCopy) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = file.size();
+            if (offset < 0 || offset > size) {
+                throw new IllegalArgumentException("offset " + offset + " out of file size " + size);
+            }
+            if (length < 0) {
+                length = size - offset;
+            }
+            if (offset + length > size) {
+                throw new IllegalArgumentException("offset " + offset + " + length " + length + " out of file size " + size);
+            }
+            if (zeroCopy && isZeroCopyAvailable(channel)) {
+                return new DefaultFileRegion(file, offset, length);
+            }
+            ensureChunkedWriteHandler(channel.pipeline());
+            return new MappedFileChunkedInput(file, offset, length, chunkSize);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package cn.emay.socket.trace;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一条抽中消息的各阶段时间
+ * <p>
+ * 业务结束且业务中发送的消息全部写出后完成
+ *
+ * @author Frank
+ */
+public class MessageTrace {
+
+    /**
+     * 当前线程正在处理的抽中消息
+     */
+    private static final ThreadLocal<MessageTrace> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 所属跟踪
+     */
+    private final Tracer tracer;
+
+    /**
+     * 链接标识
+     */
+    private final String session;
+
+    /**
+     * 各阶段时间[System.nanoTime，0为未经过]
+     */
+    private final long[] stamps = new long[TraceStage.values().length];
+
+    /**
+     * 未完成的业务和写出
+     */
+    private final AtomicInteger outstanding = new AtomicInteger(1);
+
+    /**
+     * 写出完成
+     */
+    private final ChannelFutureListener flushListener = future -> {
+        mark(TraceStage.FLUSHED);
+        release();
+    };
+
+    /**
+     * @param tracer    所属跟踪
+     * @param session   链接标识
+     * @param readNanos 读取时间
+     */
+    MessageTrace(Tracer tracer, String session, long readNanos) {
+        this.tracer = tracer;
+        this.session = session;
+        stamps[TraceStage.READ.ordinal()] = readNanos;
+        mark(TraceStage.DECODED);
+    }
+
+    /**
+     * 获取当前线程正在处理的抽中消息
+     *
+     * @return 跟踪[当前线程不在处理抽中消息时为null]
+     */
+    public static MessageTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 记录经过一个阶段
+     *
+     * @param stage 阶段
+     */
+    public void mark(TraceStage stage) {
+        stamps[stage.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * 业务开始[在业务线程中调用]
+     */
+    public void begin() {
+        mark(TraceStage.BUSINESS_START);
+        CURRENT.set(this);
+    }
+
+    /**
+     * 业务结束[在业务线程中调用]
+     */
+    public void end() {
+        CURRENT.remove();
+        mark(TraceStage.BUSINESS_END);
+        release();
+    }
+
+    /**
+     * 跟踪业务中发送的一条消息的写出结果
+     *
+     * @param future 写出结果
+     */
+    public void track(ChannelFuture future) {
+        outstanding.incrementAndGet();
+        future.addListener(flushListener);
+    }
+
+    private void release() {
+        if (outstanding.decrementAndGet() == 0) {
+            tracer.complete(this);
+        }
+    }
+
+    /**
+     * 获取一个阶段的时间
+     *
+     * @param stage 阶段
+     * @return System.nanoTime[未经过为0]
+     */
+    public long getNanos(TraceStage stage) {
+        return stamps[stage.ordinal()];
+    }
+
+    /**
+     * 获取从读取到最后一个阶段的耗时
+     *
+     * @return 微秒
+     */
+    public long getTotalMicros() {
+        long last = 0;
+        for (long stamp : stamps) {
+            last = Math.max(last, stamp);
+        }
+        return (last - stamps[TraceStage.READ.ordinal()]) / 1000;
+    }
+
+    /**
+     * 获取链接标识
+     *
+     * @return Session ID或链接ID
+     */
+    public String getSession() {
+        return session;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("session[").append(session).append("] total=").append(getTotalMicros()).append("us");
+        long read = stamps[TraceStage.READ.ordinal()];
+        for (TraceStage stage : TraceStage.values()) {
+            if (stage == TraceStage.READ) {
+                continue;
+            }
+            long stamp = stamps[stage.ordinal()];
+            builder.append(' ').append(stage.name().toLowerCase()).append('=');
+            if (stamp == 0) {
+                builder.append('-');
+            } else {
+                builder.append('+').append((stamp - read) / 1000).append("us");
+            }
+        }
+        return builder.toString();
+    }
+
+}
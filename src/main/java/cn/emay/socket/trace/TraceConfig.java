@@ -0,0 +1,66 @@
+package cn.emay.socket.trace;
+
+/**
+ * 消息耗时跟踪配置
+ * <p>
+ * 按比例抽样读取，抽中的读取解码出的第一条消息记录各阶段的时间：读取、解码完成、业务开始、业务结束、
+ * 业务中发送的消息编码完成、写出完成。总耗时超过阈值的消息写入慢消息日志[logger名为cn.emay.socket.trace.slow]。
+ * 未启用时不添加任何处理器
+ *
+ * @author Frank
+ */
+public class TraceConfig {
+
+    /**
+     * 读取抽样比例
+     */
+    private double sampleRate = 0.01;
+
+    /**
+     * 慢消息阈值[微秒]
+     */
+    private long slowThresholdMicros = 10000;
+
+    /**
+     * 设置读取抽样比例[默认0.01]
+     *
+     * @param sampleRate 比例[0到1]
+     */
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate: " + sampleRate + " (expected: 0-1)");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * 获取读取抽样比例
+     *
+     * @return 比例
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 设置慢消息阈值[默认10000微秒]
+     *
+     * @param slowThresholdMicros 从读取到最后一次写出完成的微秒数
+     */
+    public void setSlowThresholdMicros(long slowThresholdMicros) {
+        if (slowThresholdMicros < 0) {
+            throw new IllegalArgumentException("slowThresholdMicros: " + slowThresholdMicros + " (expected: >= 0)");
+        }
+        this.slowThresholdMicros = slowThresholdMicros;
+    }
+
+    /**
+     * 获取慢消息阈值
+     *
+     * @return 微秒
+     */
+    public long getSlowThresholdMicros() {
+        return slowThresholdMicros;
+    }
+
+}
@@ -0,0 +1,67 @@
+package cn.emay.socket.trace;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * 记录抽中读取的时间[每个链接一个，位于解码之前]
+ * <p>
+ * 读取时间由之后解码出的第一条普通消息带走；多路复用的逻辑流消息不跟踪
+ *
+ * @author Frank
+ */
+public class TraceReadHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * 跟踪
+     */
+    private final Tracer tracer;
+
+    /**
+     * 等待解码的抽中读取时间[只在IO线程中使用，0为没有]
+     */
+    private long readNanos;
+
+    /**
+     * @param tracer 跟踪
+     */
+    public TraceReadHandler(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * 获取链接上的读取跟踪
+     *
+     * @param channel 链接
+     * @return 处理器[未启用跟踪为null]
+     */
+    public static TraceReadHandler of(Channel channel) {
+        return channel.pipeline().get(TraceReadHandler.class);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (readNanos == 0 && msg instanceof ByteBuf && tracer.sample()) {
+            readNanos = System.nanoTime();
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * 解码出一条消息时开始跟踪[IO线程]
+     *
+     * @param session 链接标识
+     * @return 跟踪[这条消息未抽中为null]
+     */
+    public MessageTrace start(String session) {
+        if (readNanos == 0) {
+            return null;
+        }
+        MessageTrace trace = tracer.start(session, readNanos);
+        readNanos = 0;
+        return trace;
+    }
+
+}
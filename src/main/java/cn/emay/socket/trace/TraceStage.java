@@ -0,0 +1,40 @@
+package cn.emay.socket.trace;
+
+/**
+ * 消息经过的阶段
+ *
+ * @author Frank
+ */
+public enum TraceStage {
+
+    /**
+     * 从socket读取
+     */
+    READ,
+
+    /**
+     * 解码完成[到达业务处理器]
+     */
+    DECODED,
+
+    /**
+     * 业务开始
+     */
+    BUSINESS_START,
+
+    /**
+     * 业务结束
+     */
+    BUSINESS_END,
+
+    /**
+     * 业务中发送的消息编码完成[多条时为最后一条]
+     */
+    ENCODED,
+
+    /**
+     * 业务中发送的消息写出完成[多条时为最后一条]
+     */
+    FLUSHED
+
+}
@@ -0,0 +1,47 @@
+package cn.emay.socket.trace;
+
+/**
+ * 抽中消息的业务中发送的消息[编码时记录编码完成]
+ *
+ * @author Frank
+ */
+public class TracedMessage {
+
+    /**
+     * 消息
+     */
+    private final Object message;
+
+    /**
+     * 跟踪
+     */
+    private final MessageTrace trace;
+
+    /**
+     * @param message 消息
+     * @param trace   跟踪
+     */
+    public TracedMessage(Object message, MessageTrace trace) {
+        this.message = message;
+        this.trace = trace;
+    }
+
+    /**
+     * 获取消息
+     *
+     * @return 消息
+     */
+    public Object getMessage() {
+        return message;
+    }
+
+    /**
+     * 获取跟踪
+     *
+     * @return 跟踪
+     */
+    public MessageTrace getTrace() {
+        return trace;
+    }
+
+}
@@ -0,0 +1,118 @@
+package cn.emay.socket.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 消息耗时跟踪[每个服务端或客户端一个，线程安全]
+ *
+ * @author Frank
+ */
+public class Tracer {
+
+    /**
+     * 慢消息日志
+     */
+    private static final Logger slowLogger = LoggerFactory.getLogger("cn.emay.socket.trace.slow");
+
+    /**
+     * 配置
+     */
+    private final TraceConfig config;
+
+    /**
+     * 名字[写入慢消息日志]
+     */
+    private final String name;
+
+    private final LongAdder sampled = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder slow = new LongAdder();
+
+    private final LongAdder totalMicros = new LongAdder();
+
+    /**
+     * @param name   名字
+     * @param config 配置
+     */
+    public Tracer(String name, TraceConfig config) {
+        this.name = name;
+        this.config = config;
+    }
+
+    /**
+     * 按比例决定是否抽中一次读取
+     *
+     * @return 是否抽中
+     */
+    public boolean sample() {
+        double rate = config.getSampleRate();
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    /**
+     * 开始跟踪一条消息[解码完成时调用]
+     *
+     * @param session   链接标识
+     * @param readNanos 读取时间
+     * @return 跟踪
+     */
+    public MessageTrace start(String session, long readNanos) {
+        sampled.increment();
+        return new MessageTrace(this, session, readNanos);
+    }
+
+    /**
+     * 一条消息完成
+     *
+     * @param trace 跟踪
+     */
+    void complete(MessageTrace trace) {
+        long total = trace.getTotalMicros();
+        completed.increment();
+        totalMicros.add(total);
+        if (total >= config.getSlowThresholdMicros()) {
+            slow.increment();
+            slowLogger.warn("[" + name + "] slow message " + trace);
+        }
+    }
+
+    /**
+     * 获取抽中的消息数
+     *
+     * @return 消息数
+     */
+    public long getSampledCount() {
+        return sampled.sum();
+    }
+
+    /**
+     * 获取慢消息数
+     *
+     * @return 消息数
+     */
+    public long getSlowCount() {
+        return slow.sum();
+    }
+
+    /**
+     * 获取完成的抽中消息的平均耗时
+     *
+     * @return 微秒
+     */
+    public long getAverageMicros() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalMicros.sum() / count;
+    }
+
+    @Override
+    public String toString() {
+        return "Tracer{sampled=" + sampled.sum() + ", slow=" + slow.sum() + ", averageMicros=" + getAverageMicros() + "}";
+    }
+
+}
@@ -0,0 +1,216 @@
+package cn.emay.socket.transport;
+
+import io.netty.channel.Channel;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.unix.Socket;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 传输方式的选择
+ * <p>
+ * 地址为ip:port时使用TCP(NIO)；地址为unix:/path时使用Unix domain socket(Linux epoll)，同机通信不经过TCP协议栈；
+ * 地址为local:name时使用JVM内的通道，消息在线程间直接传递，不经过内核。处理链与编解码完全相同
+ *
+ * @author Frank
+ */
+public class TransportSupport {
+
+    /**
+     * Unix domain socket地址前缀
+     */
+    public static final String UNIX_PREFIX = "unix:";
+
+    /**
+     * JVM内通道地址前缀
+     */
+    public static final String LOCAL_PREFIX = "local:";
+
+    /**
+     * 解析地址
+     *
+     * @param address ip:port、unix:/path 或 local:name
+     * @return 地址
+     * @throws IllegalArgumentException 地址格式错误或当前平台不支持Unix domain socket
+     */
+    public static SocketAddress parse(String address) {
+        if (address.startsWith(UNIX_PREFIX)) {
+            String path = address.substring(UNIX_PREFIX.length());
+            if (path.isEmpty()) {
+                throw new IllegalArgumentException("unix domain socket path is empty");
+            }
+            if (!Epoll.isAvailable()) {
+                throw new IllegalArgumentException("unix domain socket needs epoll on linux", Epoll.unavailabilityCause());
+            }
+            return new DomainSocketAddress(path);
+        }
+        if (address.startsWith(LOCAL_PREFIX)) {
+            String id = address.substring(LOCAL_PREFIX.length());
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("local address name is empty");
+            }
+            return new LocalAddress(id);
+        }
+        String[] addrs = address.split(":");
+        if (addrs.length != 2) {
+            throw new IllegalArgumentException("address is not be ip:port, unix:path or local:name  ");
+        }
+        return new InetSocketAddress(addrs[0], Integer.parseInt(addrs[1]));
+    }
+
+    /**
+     * 是否Unix domain socket地址
+     *
+     * @param address 地址
+     * @return 是否Unix domain socket
+     */
+    public static boolean isDomainSocket(SocketAddress address) {
+        return address instanceof DomainSocketAddress;
+    }
+
+    /**
+     * 是否JVM内通道地址
+     *
+     * @param address 地址
+     * @return 是否JVM内通道
+     */
+    public static boolean isLocal(SocketAddress address) {
+        return address instanceof LocalAddress;
+    }
+
+    /**
+     * 创建线程组
+     *
+     * @param address 地址
+     * @return 线程组
+     */
+    public static EventLoopGroup newGroup(SocketAddress address) {
+        if (isLocal(address)) {
+            return new DefaultEventLoopGroup();
+        }
+        return isDomainSocket(address) ? new EpollEventLoopGroup() : new NioEventLoopGroup();
+    }
+
+    /**
+     * 服务端通道类型
+     *
+     * @param address 地址
+     * @return 通道类型
+     */
+    public static Class<? extends ServerChannel> serverChannelClass(SocketAddress address) {
+        if (isLocal(address)) {
+            return LocalServerChannel.class;
+        }
+        return isDomainSocket(address) ? EpollServerDomainSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    /**
+     * 客户端通道类型
+     *
+     * @param address 地址
+     * @return 通道类型
+     */
+    public static Class<? extends Channel> channelClass(SocketAddress address) {
+        if (isLocal(address)) {
+            return LocalChannel.class;
+        }
+        return isDomainSocket(address) ? EpollDomainSocketChannel.class : NioSocketChannel.class;
+    }
+
+    /**
+     * 删除无人监听的socket文件
+     * <p>
+     * 只有路径是socket文件且连接被拒绝(监听它的进程已退出)时才删除；普通文件、目录或仍在服务的socket保持不动，由随后的绑定报告地址占用
+     *
+     * @param address Unix domain socket地址
+     * @return 是否删除了文件
+     */
+    public static boolean deleteStaleSocketFile(DomainSocketAddress address) {
+        Path path = Paths.get(address.path());
+        if (!isSocketFile(path)) {
+            return false;
+        }
+        Socket socket = Socket.newSocketDomain();
+        try {
+            socket.connect(address);
+            return false;
+        } catch (ConnectException e) {
+            // 连接被拒绝，文件已无人监听
+        } catch (IOException e) {
+            return false;
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 探测用的socket，关闭失败不影响结果
+            }
+        }
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 路径是否socket文件[不跟随符号链接]
+     *
+     * @param path 路径
+     * @return 是否socket文件
+     */
+    private static boolean isSocketFile(Path path) {
+        try {
+            int mode = (Integer) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            return (mode & 0170000) == 0140000;
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 链接对端地址的描述
+     * <p>
+     * Unix domain socket的客户端通常不绑定路径，对端地址为空，此时使用本端或服务端监听的路径
+     *
+     * @param channel 链接
+     * @return 对端地址的描述
+     */
+    public static String addressOf(Channel channel) {
+        SocketAddress remote = channel.remoteAddress();
+        if (remote instanceof InetSocketAddress) {
+            return remote.toString();
+        }
+        SocketAddress domain = remote;
+        if (!(domain instanceof DomainSocketAddress) || ((DomainSocketAddress) domain).path().isEmpty()) {
+            domain = channel.localAddress();
+        }
+        if (domain == null && channel.parent() != null) {
+            domain = channel.parent().localAddress();
+        }
+        if (domain instanceof DomainSocketAddress) {
+            return UNIX_PREFIX + ((DomainSocketAddress) domain).path();
+        }
+        return String.valueOf(remote);
+    }
+
+}
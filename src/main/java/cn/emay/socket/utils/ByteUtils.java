@@ -1,12 +1,26 @@
 package cn.emay.socket.utils;
 
+import io.netty.buffer.ByteBuf;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * 字节码转换工具
+ * <p>
+ * 基本类型直接按偏移读写byte[]和ByteBuffer，不分配新数组；不带LE后缀的为大端，带LE后缀的为小端。
+ * ByteBuf自带两种字节序的基本类型读写，这里只补充变长整数和UTF-8
  *
  * @author frank
  */
 public class ByteUtils {
 
+    /**
+     * 不成对的代理字符按'?'编码
+     */
+    private static final byte REPLACEMENT = '?';
+
     /**
      * int转换为4个字节
      *
@@ -15,10 +29,7 @@ public class ByteUtils {
      */
     public static byte[] intToBytes4(int value) {
         byte[] myBytes = new byte[4];
-        myBytes[3] = (byte) (0xff & value);
-        myBytes[2] = (byte) ((0xff00 & value) >> 8);
-        myBytes[1] = (byte) ((0xff0000 & value) >> 16);
-        myBytes[0] = (byte) ((0xff000000 & value) >> 24);
+        setInt(myBytes, 0, value);
         return myBytes;
     }
 
@@ -40,7 +51,7 @@ public class ByteUtils {
      * @return int
      */
     public static int bytes4ToInt(byte[] bytes, int startIndex) {
-        return (0xff & bytes[startIndex]) << 24 | (0xff & bytes[1 + startIndex]) << 16 | (0xff & bytes[2 + startIndex]) << 8 | 0xff & bytes[3 + startIndex];
+        return getInt(bytes, startIndex);
     }
 
     /**
@@ -59,4 +70,832 @@ public class ByteUtils {
         return result;
     }
 
+    /**
+     * 写入short[大端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value short
+     */
+    public static void setShort(byte[] bytes, int index, short value) {
+        bytes[index] = (byte) (value >>> 8);
+        bytes[index + 1] = (byte) value;
+    }
+
+    /**
+     * 写入short[小端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value short
+     */
+    public static void setShortLE(byte[] bytes, int index, short value) {
+        bytes[index] = (byte) value;
+        bytes[index + 1] = (byte) (value >>> 8);
+    }
+
+    /**
+     * 读取short[大端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return short
+     */
+    public static short getShort(byte[] bytes, int index) {
+        return (short) (bytes[index] << 8 | bytes[index + 1] & 0xff);
+    }
+
+    /**
+     * 读取short[小端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return short
+     */
+    public static short getShortLE(byte[] bytes, int index) {
+        return (short) (bytes[index] & 0xff | bytes[index + 1] << 8);
+    }
+
+    /**
+     * 写入int[大端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value int
+     */
+    public static void setInt(byte[] bytes, int index, int value) {
+        bytes[index] = (byte) (value >>> 24);
+        bytes[index + 1] = (byte) (value >>> 16);
+        bytes[index + 2] = (byte) (value >>> 8);
+        bytes[index + 3] = (byte) value;
+    }
+
+    /**
+     * 写入int[小端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value int
+     */
+    public static void setIntLE(byte[] bytes, int index, int value) {
+        bytes[index] = (byte) value;
+        bytes[index + 1] = (byte) (value >>> 8);
+        bytes[index + 2] = (byte) (value >>> 16);
+        bytes[index + 3] = (byte) (value >>> 24);
+    }
+
+    /**
+     * 读取int[大端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return int
+     */
+    public static int getInt(byte[] bytes, int index) {
+        return (bytes[index] & 0xff) << 24 | (bytes[index + 1] & 0xff) << 16 | (bytes[index + 2] & 0xff) << 8 | bytes[index + 3] & 0xff;
+    }
+
+    /**
+     * 读取int[小端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return int
+     */
+    public static int getIntLE(byte[] bytes, int index) {
+        return bytes[index] & 0xff | (bytes[index + 1] & 0xff) << 8 | (bytes[index + 2] & 0xff) << 16 | (bytes[index + 3] & 0xff) << 24;
+    }
+
+    /**
+     * 写入long[大端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value long
+     */
+    public static void setLong(byte[] bytes, int index, long value) {
+        setInt(bytes, index, (int) (value >>> 32));
+        setInt(bytes, index + 4, (int) value);
+    }
+
+    /**
+     * 写入long[小端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value long
+     */
+    public static void setLongLE(byte[] bytes, int index, long value) {
+        setIntLE(bytes, index, (int) value);
+        setIntLE(bytes, index + 4, (int) (value >>> 32));
+    }
+
+    /**
+     * 读取long[大端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return long
+     */
+    public static long getLong(byte[] bytes, int index) {
+        return (long) getInt(bytes, index) << 32 | getInt(bytes, index + 4) & 0xffffffffL;
+    }
+
+    /**
+     * 读取long[小端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return long
+     */
+    public static long getLongLE(byte[] bytes, int index) {
+        return getIntLE(bytes, index) & 0xffffffffL | (long) getIntLE(bytes, index + 4) << 32;
+    }
+
+    /**
+     * 写入float[大端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value float
+     */
+    public static void setFloat(byte[] bytes, int index, float value) {
+        setInt(bytes, index, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * 写入float[小端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value float
+     */
+    public static void setFloatLE(byte[] bytes, int index, float value) {
+        setIntLE(bytes, index, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * 读取float[大端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return float
+     */
+    public static float getFloat(byte[] bytes, int index) {
+        return Float.intBitsToFloat(getInt(bytes, index));
+    }
+
+    /**
+     * 读取float[小端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return float
+     */
+    public static float getFloatLE(byte[] bytes, int index) {
+        return Float.intBitsToFloat(getIntLE(bytes, index));
+    }
+
+    /**
+     * 写入double[大端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value double
+     */
+    public static void setDouble(byte[] bytes, int index, double value) {
+        setLong(bytes, index, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * 写入double[小端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value double
+     */
+    public static void setDoubleLE(byte[] bytes, int index, double value) {
+        setLongLE(bytes, index, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * 读取double[大端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return double
+     */
+    public static double getDouble(byte[] bytes, int index) {
+        return Double.longBitsToDouble(getLong(bytes, index));
+    }
+
+    /**
+     * 读取double[小端]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return double
+     */
+    public static double getDoubleLE(byte[] bytes, int index) {
+        return Double.longBitsToDouble(getLongLE(bytes, index));
+    }
+
+    /**
+     * 写入short[大端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @param value  short
+     */
+    public static void setShort(ByteBuffer buffer, int index, short value) {
+        buffer.putShort(index, isBigEndian(buffer) ? value : Short.reverseBytes(value));
+    }
+
+    /**
+     * 写入short[小端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @param value  short
+     */
+    public static void setShortLE(ByteBuffer buffer, int index, short value) {
+        buffer.putShort(index, isBigEndian(buffer) ? Short.reverseBytes(value) : value);
+    }
+
+    /**
+     * 读取short[大端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @return short
+     */
+    public static short getShort(ByteBuffer buffer, int index) {
+        short value = buffer.getShort(index);
+        return isBigEndian(buffer) ? value : Short.reverseBytes(value);
+    }
+
+    /**
+     * 读取short[小端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @return short
+     */
+    public static short getShortLE(ByteBuffer buffer, int index) {
+        short value = buffer.getShort(index);
+        return isBigEndian(buffer) ? Short.reverseBytes(value) : value;
+    }
+
+    /**
+     * 写入int[大端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @param value  int
+     */
+    public static void setInt(ByteBuffer buffer, int index, int value) {
+        buffer.putInt(index, isBigEndian(buffer) ? value : Integer.reverseBytes(value));
+    }
+
+    /**
+     * 写入int[小端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @param value  int
+     */
+    public static void setIntLE(ByteBuffer buffer, int index, int value) {
+        buffer.putInt(index, isBigEndian(buffer) ? Integer.reverseBytes(value) : value);
+    }
+
+    /**
+     * 读取int[大端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @return int
+     */
+    public static int getInt(ByteBuffer buffer, int index) {
+        int value = buffer.getInt(index);
+        return isBigEndian(buffer) ? value : Integer.reverseBytes(value);
+    }
+
+    /**
+     * 读取int[小端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @return int
+     */
+    public static int getIntLE(ByteBuffer buffer, int index) {
+        int value = buffer.getInt(index);
+        return isBigEndian(buffer) ? Integer.reverseBytes(value) : value;
+    }
+
+    /**
+     * 写入long[大端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @param value  long
+     */
+    public static void setLong(ByteBuffer buffer, int index, long value) {
+        buffer.putLong(index, isBigEndian(buffer) ? value : Long.reverseBytes(value));
+    }
+
+    /**
+     * 写入long[小端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @param value  long
+     */
+    public static void setLongLE(ByteBuffer buffer, int index, long value) {
+        buffer.putLong(index, isBigEndian(buffer) ? Long.reverseBytes(value) : value);
+    }
+
+    /**
+     * 读取long[大端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @return long
+     */
+    public static long getLong(ByteBuffer buffer, int index) {
+        long value = buffer.getLong(index);
+        return isBigEndian(buffer) ? value : Long.reverseBytes(value);
+    }
+
+    /**
+     * 读取long[小端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @return long
+     */
+    public static long getLongLE(ByteBuffer buffer, int index) {
+        long value = buffer.getLong(index);
+        return isBigEndian(buffer) ? Long.reverseBytes(value) : value;
+    }
+
+    /**
+     * 写入float[大端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @param value  float
+     */
+    public static void setFloat(ByteBuffer buffer, int index, float value) {
+        setInt(buffer, index, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * 写入float[小端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @param value  float
+     */
+    public static void setFloatLE(ByteBuffer buffer, int index, float value) {
+        setIntLE(buffer, index, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * 读取float[大端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @return float
+     */
+    public static float getFloat(ByteBuffer buffer, int index) {
+        return Float.intBitsToFloat(getInt(buffer, index));
+    }
+
+    /**
+     * 读取float[小端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @return float
+     */
+    public static float getFloatLE(ByteBuffer buffer, int index) {
+        return Float.intBitsToFloat(getIntLE(buffer, index));
+    }
+
+    /**
+     * 写入double[大端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @param value  double
+     */
+    public static void setDouble(ByteBuffer buffer, int index, double value) {
+        setLong(buffer, index, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * 写入double[小端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @param value  double
+     */
+    public static void setDoubleLE(ByteBuffer buffer, int index, double value) {
+        setLongLE(buffer, index, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * 读取double[大端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @return double
+     */
+    public static double getDouble(ByteBuffer buffer, int index) {
+        return Double.longBitsToDouble(getLong(buffer, index));
+    }
+
+    /**
+     * 读取double[小端]
+     *
+     * @param buffer 缓冲区
+     * @param index  偏移
+     * @return double
+     */
+    public static double getDoubleLE(ByteBuffer buffer, int index) {
+        return Double.longBitsToDouble(getLongLE(buffer, index));
+    }
+
+    private static boolean isBigEndian(ByteBuffer buffer) {
+        return buffer.order() == ByteOrder.BIG_ENDIAN;
+    }
+
+    /**
+     * zigzag编码[绝对值小的负数也只占很少字节]
+     *
+     * @param value int
+     * @return 编码后的值
+     */
+    public static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * zigzag编码
+     *
+     * @param value long
+     * @return 编码后的值
+     */
+    public static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * zigzag解码
+     *
+     * @param value 编码后的值
+     * @return int
+     */
+    public static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * zigzag解码
+     *
+     * @param value 编码后的值
+     * @return long
+     */
+    public static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 变长编码的字节数
+     *
+     * @param value int[按无符号]
+     * @return 字节数[1-5]
+     */
+    public static int varIntSize(int value) {
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    /**
+     * 变长编码的字节数
+     *
+     * @param value long[按无符号]
+     * @return 字节数[1-10]
+     */
+    public static int varLongSize(long value) {
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    /**
+     * 写入变长int[每字节7位，低位在前]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value int[按无符号，负数请先zigZag]
+     * @return 写入的字节数
+     */
+    public static int setVarInt(byte[] bytes, int index, int value) {
+        int start = index;
+        while ((value & ~0x7F) != 0) {
+            bytes[index++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[index++] = (byte) value;
+        return index - start;
+    }
+
+    /**
+     * 读取变长int[占用字节数为varIntSize(返回值)]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return int
+     * @throws IllegalArgumentException 超过5个字节
+     */
+    public static int getVarInt(byte[] bytes, int index) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = bytes[index++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * 写入变长long
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param value long[按无符号，负数请先zigZag]
+     * @return 写入的字节数
+     */
+    public static int setVarLong(byte[] bytes, int index, long value) {
+        int start = index;
+        while ((value & ~0x7FL) != 0) {
+            bytes[index++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[index++] = (byte) value;
+        return index - start;
+    }
+
+    /**
+     * 读取变长long[占用字节数为varLongSize(返回值)]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @return long
+     * @throws IllegalArgumentException 超过10个字节
+     */
+    public static long getVarLong(byte[] bytes, int index) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = bytes[index++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * 写入变长int
+     *
+     * @param buffer 缓冲区
+     * @param value  int[按无符号，负数请先zigZag]
+     */
+    public static void writeVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * 读取变长int
+     *
+     * @param buffer 缓冲区
+     * @return int
+     * @throws IllegalArgumentException 超过5个字节
+     */
+    public static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * 写入变长int
+     *
+     * @param buf   缓冲区
+     * @param value int[按无符号，负数请先zigZag]
+     */
+    public static void writeVarInt(ByteBuf buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+
+    /**
+     * 按固定宽度回填变长int[宽度不小于varIntSize(value)，多出的字节为0x80填充，读取结果不变]
+     *
+     * @param buf   缓冲区
+     * @param index 偏移
+     * @param value int[按无符号]
+     * @param width 宽度[1-5]
+     */
+    public static void setVarInt(ByteBuf buf, int index, int value, int width) {
+        if (width < varIntSize(value) || width > 5) {
+            throw new IllegalArgumentException("varint " + value + " can not fit in " + width + " bytes");
+        }
+        for (int i = 0; i < width - 1; i++) {
+            buf.setByte(index + i, (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.setByte(index + width - 1, value);
+    }
+
+    /**
+     * 读取变长int
+     *
+     * @param buf 缓冲区
+     * @return int
+     * @throws IllegalArgumentException 超过5个字节
+     */
+    public static int readVarInt(ByteBuf buf) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buf.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * 写入变长long
+     *
+     * @param buf   缓冲区
+     * @param value long[按无符号，负数请先zigZag]
+     */
+    public static void writeVarLong(ByteBuf buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.writeByte(((int) value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte((int) value);
+    }
+
+    /**
+     * 读取变长long
+     *
+     * @param buf 缓冲区
+     * @return long
+     * @throws IllegalArgumentException 超过10个字节
+     */
+    public static long readVarLong(ByteBuf buf) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buf.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * UTF-8编码后的字节数[不成对的代理字符按'?'计1个字节，与String.getBytes一致]
+     *
+     * @param seq 字符串
+     * @return 字节数
+     */
+    public static int utf8Length(CharSequence seq) {
+        int length = seq.length();
+        int i = 0;
+        while (i < length && seq.charAt(i) < 0x80) {
+            i++;
+        }
+        int bytes = i;
+        for (; i < length; i++) {
+            char c = seq.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (!Character.isSurrogate(c)) {
+                bytes += 3;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(seq.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes++;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 按UTF-8写入字符串[数组剩余空间需不小于utf8Length(seq)]
+     *
+     * @param bytes 字节数组
+     * @param index 偏移
+     * @param seq   字符串
+     * @return 写入的字节数
+     */
+    public static int setUtf8(byte[] bytes, int index, CharSequence seq) {
+        int start = index;
+        int length = seq.length();
+        int i = 0;
+        for (char c; i < length && (c = seq.charAt(i)) < 0x80; i++) {
+            bytes[index++] = (byte) c;
+        }
+        for (; i < length; i++) {
+            char c = seq.charAt(i);
+            if (c < 0x80) {
+                bytes[index++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[index++] = (byte) (0xc0 | (c >> 6));
+                bytes[index++] = (byte) (0x80 | (c & 0x3f));
+            } else if (!Character.isSurrogate(c)) {
+                bytes[index++] = (byte) (0xe0 | (c >> 12));
+                bytes[index++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[index++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(seq.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, seq.charAt(++i));
+                bytes[index++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[index++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[index++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[index++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else {
+                bytes[index++] = REPLACEMENT;
+            }
+        }
+        return index - start;
+    }
+
+    /**
+     * 按UTF-8写入字符串到position处
+     *
+     * @param buffer 缓冲区
+     * @param seq    字符串
+     * @return 写入的字节数
+     * @throws BufferOverflowException 剩余空间不足[不写入任何字节]
+     */
+    public static int writeUtf8(ByteBuffer buffer, CharSequence seq) {
+        int remaining = buffer.remaining();
+        if (remaining < seq.length() * 3 && remaining < utf8Length(seq)) {
+            throw new BufferOverflowException();
+        }
+        if (buffer.hasArray()) {
+            int written = setUtf8(buffer.array(), buffer.arrayOffset() + buffer.position(), seq);
+            buffer.position(buffer.position() + written);
+            return written;
+        }
+        int start = buffer.position();
+        int length = seq.length();
+        for (int i = 0; i < length; i++) {
+            char c = seq.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if (!Character.isSurrogate(c)) {
+                buffer.put((byte) (0xe0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(seq.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, seq.charAt(++i));
+                buffer.put((byte) (0xf0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+            } else {
+                buffer.put(REPLACEMENT);
+            }
+        }
+        return buffer.position() - start;
+    }
+
 }
@@ -0,0 +1,35 @@
+package cn.emay.socket.blocking;
+
+/**
+ * 链接线程
+ * <p>
+ * Java 21 版本[Multi-Release JAR 中的 META-INF/versions/21]，每个链接一个虚拟线程，阻塞时不占用载体线程
+ *
+ * @author Frank
+ */
+public final class SessionThreads {
+
+    private SessionThreads() {
+    }
+
+    /**
+     * 是否使用虚拟线程
+     *
+     * @return 是否使用虚拟线程
+     */
+    public static boolean isVirtual() {
+        return true;
+    }
+
+    /**
+     * 启动一个链接线程
+     *
+     * @param name 线程名
+     * @param task 任务
+     * @return 线程
+     */
+    public static Thread start(String name, Runnable task) {
+        return Thread.ofVirtual().name(name).start(task);
+    }
+
+}
@@ -8,7 +8,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 
 public class ChatClient extends SocketClient {
@@ -52,58 +51,23 @@ public class ChatClient extends SocketClient {
     @Override
     protected byte[] encode(ChannelHandlerContext ctx, Object msg) {
         String message = (String) msg;
-        byte[] mbyts = message.getBytes();
-        int length = mbyts.length;
-        byte[] lbyts = ByteUtils.intToBytes4(length);
-        return ByteUtils.mergeBytes(lbyts, mbyts);
+        int length = ByteUtils.utf8Length(message);
+        byte[] bytes = new byte[4 + length];
+        ByteUtils.setInt(bytes, 0, length);
+        ByteUtils.setUtf8(bytes, 4, message);
+        return bytes;
     }
 
     @Override
-    protected List<Object> decodeHandle(ChannelHandlerContext ctx, ByteBuf in) {
-        ArrayList<Object> list = new ArrayList<>();
-        int headLength = 4;
-        while (true) {
-            int waitLength = in.readableBytes();
-            if (waitLength > headLength) {
-                ByteBuf bb = null;
-                try {
-                    bb = in.readBytes(headLength);
-                    byte[] headbBytes = new byte[headLength];
-                    bb.getBytes(0, headbBytes);
-                    int bodyLength = ByteUtils.bytes4ToInt(headbBytes);
-                    if (headLength + bodyLength <= waitLength) {
-                        ByteBuf bbc = null;
-                        try {
-                            bbc = in.readBytes(bodyLength);
-                            byte[] bodyBytes = new byte[bodyLength];
-                            bbc.getBytes(0, bodyBytes);
-                            String message = new String(bodyBytes, StandardCharsets.UTF_8);
-                            list.add(message);
-                            in.discardReadBytes();
-                        } catch (Exception e) {
-                            log.error("read error", e);
-                        } finally {
-                            if (bbc != null) {
-                                bbc.release();
-                            }
-                        }
-                    } else {
-                        in.resetReaderIndex();
-                        break;
-                    }
-                } catch (Exception e) {
-                    log.error("read error", e);
-                } finally {
-                    if (bb != null) {
-                        bb.release();
-                    }
-                }
-            } else {
-                in.resetReaderIndex();
+    protected void decodeHandle(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        while (in.readableBytes() >= 4) {
+            int bodyLength = in.getInt(in.readerIndex());
+            if (in.readableBytes() < 4 + bodyLength) {
                 break;
             }
+            in.skipBytes(4);
+            out.add(in.readCharSequence(bodyLength, StandardCharsets.UTF_8).toString());
         }
-        return list;
     }
 
     @Override
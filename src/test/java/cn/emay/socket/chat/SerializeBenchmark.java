@@ -0,0 +1,137 @@
+package cn.emay.socket.chat;
+
+import cn.emay.socket.outbound.SegmentSupport;
+import cn.emay.socket.serialize.BinarySerializer;
+import cn.emay.socket.serialize.SerializeSupport;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ResourceLeakDetector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列化性能对比：ChatServer的字符串编解码 vs BinarySerializer
+ * <p>
+ * 同一条聊天消息，字符串方式按"发送者|接收者|时间|序号|内容"拼接后经ChatServer编解码，二进制方式直接序列化对象
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializeBenchmark {
+
+    public static class ChatMessage {
+        private String from;
+        private String to;
+        private long time;
+        private int seq;
+        private String content;
+    }
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+
+    private final List<Object> out = new ArrayList<>();
+
+    private ChatServer chatServer;
+
+    private BinarySerializer serializer;
+
+    private ChatMessage message;
+
+    private String text;
+
+    private byte[] textFrame;
+
+    private byte[] binaryFrame;
+
+    @Setup
+    public void setup() throws Exception {
+        chatServer = new ChatServer(0);
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.DISABLED);
+        serializer = new BinarySerializer().register(ChatMessage.class);
+        message = new ChatMessage();
+        message.from = "user-10086";
+        message.to = "room-42";
+        message.time = System.currentTimeMillis();
+        message.seq = 12345;
+        message.content = "你好，今天下午三点开会，请准时参加 hello world";
+        text = toText(message);
+        ByteBuf textBuf = encodeText(text);
+        textFrame = new byte[textBuf.readableBytes()];
+        textBuf.readBytes(textFrame);
+        textBuf.release();
+        ByteBuf frame = SerializeSupport.encode(alloc, serializer, message);
+        binaryFrame = new byte[frame.readableBytes()];
+        frame.readBytes(binaryFrame);
+        frame.release();
+    }
+
+    private ByteBuf encodeText(String text) {
+        out.clear();
+        chatServer.encode(null, text, out);
+        return SegmentSupport.compose(alloc, out);
+    }
+
+    private static String toText(ChatMessage message) {
+        return message.from + "|" + message.to + "|" + message.time + "|" + message.seq + "|" + message.content;
+    }
+
+    private static ChatMessage fromText(String text) {
+        String[] parts = text.split("\\|", 5);
+        ChatMessage message = new ChatMessage();
+        message.from = parts[0];
+        message.to = parts[1];
+        message.time = Long.parseLong(parts[2]);
+        message.seq = Integer.parseInt(parts[3]);
+        message.content = parts[4];
+        return message;
+    }
+
+    @Benchmark
+    public int stringEncode() {
+        ByteBuf buf = encodeText(toText(message));
+        int size = buf.readableBytes();
+        buf.release();
+        return size;
+    }
+
+    @Benchmark
+    public int binaryEncode() throws Exception {
+        ByteBuf buf = SerializeSupport.encode(alloc, serializer, message);
+        int size = buf.readableBytes();
+        buf.release();
+        return size;
+    }
+
+    @Benchmark
+    public Object stringDecode() {
+        ByteBuf in = alloc.ioBuffer(textFrame.length).writeBytes(textFrame);
+        out.clear();
+        chatServer.decode(null, in, out);
+        in.release();
+        return fromText((String) out.get(0));
+    }
+
+    @Benchmark
+    public Object binaryDecode() throws Exception {
+        ByteBuf in = alloc.ioBuffer(binaryFrame.length).writeBytes(binaryFrame);
+        out.clear();
+        SerializeSupport.decode(serializer, in, out, SerializeSupport.DEFAULT_MAX_FRAME_LENGTH);
+        in.release();
+        return out.get(0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SerializeBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
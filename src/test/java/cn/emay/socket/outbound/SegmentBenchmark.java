@@ -0,0 +1,91 @@
+package cn.emay.socket.outbound;
+
+import cn.emay.socket.utils.ByteUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ResourceLeakDetector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息头+消息体编码：mergeBytes拼接 vs 分段组装
+ * <p>
+ * 两种方式最后都复制到堆外内存，与NIO写出前的处理一致
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SegmentBenchmark {
+
+    @Param({"64", "65536"})
+    private int bodySize;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+
+    private final List<Object> segments = new ArrayList<>(4);
+
+    private byte[] body;
+
+    private ByteBuf directBody;
+
+    @Setup
+    public void setup() {
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.DISABLED);
+        body = new byte[bodySize];
+        directBody = alloc.directBuffer(bodySize).writeBytes(body);
+    }
+
+    @TearDown
+    public void tearDown() {
+        directBody.release();
+    }
+
+    private int writeOut(ByteBuf buf) {
+        ByteBuf direct = buf.isDirect() ? buf : alloc.directBuffer(buf.readableBytes()).writeBytes(buf);
+        if (direct != buf) {
+            buf.release();
+        }
+        int size = direct.readableBytes();
+        direct.release();
+        return size;
+    }
+
+    @Benchmark
+    public int merge() {
+        return writeOut(Unpooled.wrappedBuffer(ByteUtils.mergeBytes(ByteUtils.intToBytes4(body.length), body)));
+    }
+
+    @Benchmark
+    public int segments() {
+        segments.add(ByteUtils.intToBytes4(body.length));
+        segments.add(body);
+        ByteBuf buf = SegmentSupport.compose(alloc, segments);
+        segments.clear();
+        return writeOut(buf);
+    }
+
+    @Benchmark
+    public int segmentsDirectBody() {
+        segments.add(alloc.directBuffer(4).writeInt(directBody.readableBytes()));
+        segments.add(directBody.retainedDuplicate());
+        ByteBuf buf = SegmentSupport.compose(alloc, segments);
+        segments.clear();
+        return writeOut(buf);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SegmentBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
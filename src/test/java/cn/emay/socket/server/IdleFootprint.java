@@ -0,0 +1,147 @@
+package cn.emay.socket.server;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.ResourceLeakDetector;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 每个空闲链接占用的堆内存
+ * <p>
+ * 同一进程内打开N个客户端socket连到服务端，不收发数据，比较连接前后GC后的堆占用；
+ * raw为没有任何处理器的Netty服务端，作为基准[包含客户端socket本身的占用]，default、lowFootprint与它的差即SocketServer每个链接的开销
+ * <p>
+ * 用法：IdleFootprint [raw|default|lowFootprint] [链接数，默认8000，受文件句柄数限制]，每种模式单独一个进程运行
+ */
+public class IdleFootprint {
+
+    private static final int PORT = 29998;
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "lowFootprint";
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 8000;
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.DISABLED);
+        AtomicInteger accepted = new AtomicInteger();
+        Runnable stop;
+        if ("raw".equals(mode)) {
+            EventLoopGroup boss = new NioEventLoopGroup(1);
+            EventLoopGroup worker = new NioEventLoopGroup();
+            Channel server = new ServerBootstrap().group(boss, worker).channel(NioServerSocketChannel.class).childHandler(new ChannelInboundHandlerAdapter() {
+                @Override
+                public boolean isSharable() {
+                    return true;
+                }
+
+                @Override
+                public void channelActive(ChannelHandlerContext ctx) {
+                    accepted.incrementAndGet();
+                }
+            }).bind(PORT).sync().channel();
+            stop = () -> {
+                server.close().syncUninterruptibly();
+                boss.shutdownGracefully();
+                worker.shutdownGracefully();
+            };
+        } else {
+            IdleServer server = new IdleServer(accepted);
+            server.setLowFootprint("lowFootprint".equals(mode));
+            server.startup();
+            stop = server::shutdown;
+        }
+        long before = usedHeap();
+        List<SocketChannel> clients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            clients.add(SocketChannel.open(new InetSocketAddress("127.0.0.1", PORT)));
+            // 避免accept队列溢出
+            while (accepted.get() < i - 500) {
+                Thread.sleep(1);
+            }
+        }
+        while (accepted.get() < count) {
+            Thread.sleep(10);
+        }
+        // 等待一轮空闲扫描、链接全部进入空闲状态
+        Thread.sleep(2000);
+        long after = usedHeap();
+        System.out.println(mode + ": " + count + " idle connections, " + (after - before) / count + " bytes per connection");
+        for (SocketChannel client : clients) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+        stop.run();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    static class IdleServer extends SocketServer {
+
+        private final AtomicInteger accepted;
+
+        IdleServer(AtomicInteger accepted) {
+            super("footprint", "0.0.0.0:" + PORT, -1, 300, 300, 300);
+            this.accepted = accepted;
+        }
+
+        @Override
+        protected void connectHandle(ChannelHandlerContext ctx, String address) {
+            accepted.incrementAndGet();
+        }
+
+        @Override
+        protected void closedHandle(ChannelHandlerContext ctx, String address) {
+        }
+
+        @Override
+        protected void exceptionHandle(ChannelHandlerContext ctx, String address, Throwable cause) {
+        }
+
+        @Override
+        protected void readIdleHandle(ChannelHandlerContext ctx, String address) {
+        }
+
+        @Override
+        protected void allIdleHandle(ChannelHandlerContext ctx, String address) {
+        }
+
+        @Override
+        protected void writeIdleHandle(ChannelHandlerContext ctx, String address) {
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) {
+            out.add(msg);
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            in.skipBytes(in.readableBytes());
+        }
+
+        @Override
+        protected void businessLogic(ChannelHandlerContext ctx, Object msg) {
+        }
+    }
+
+}
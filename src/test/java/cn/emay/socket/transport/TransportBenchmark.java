@@ -0,0 +1,203 @@
+package cn.emay.socket.transport;
+
+import cn.emay.socket.client.SocketClient;
+import cn.emay.socket.server.SocketServer;
+import cn.emay.socket.utils.ByteUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelId;
+import io.netty.util.ResourceLeakDetector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同机通信：TCP回环 vs Unix domain socket vs JVM内通道[local编解码，localObject直接传递对象]
+ * <p>
+ * 客户端发送消息，服务端原样返回，测量一次往返的时间
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransportBenchmark {
+
+    @Param({"tcp", "unix", "local", "localObject"})
+    private String transport;
+
+    @Param({"128", "16384"})
+    private int messageSize;
+
+    private final BlockingQueue<Object> replies = new ArrayBlockingQueue<>(16);
+
+    private EchoServer server;
+
+    private EchoClient client;
+
+    private ChannelId channelId;
+
+    private byte[] message;
+
+    @Setup
+    public void setup() {
+        String address;
+        if ("unix".equals(transport)) {
+            address = TransportSupport.UNIX_PREFIX + new File(System.getProperty("java.io.tmpdir"), "transport-benchmark.sock").getPath();
+        } else if (transport.startsWith("local")) {
+            address = TransportSupport.LOCAL_PREFIX + "transport-benchmark";
+        } else {
+            address = "127.0.0.1:29999";
+        }
+        server = new EchoServer(address);
+        client = new EchoClient(address, replies);
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.DISABLED);
+        server.setLocalPassThrough("localObject".equals(transport));
+        client.setLocalPassThrough("localObject".equals(transport));
+        server.startup();
+        client.startup();
+        channelId = client.connect();
+        message = new byte[messageSize];
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.shutdown();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws InterruptedException {
+        client.sendMessage(channelId, message);
+        return replies.take();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransportBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static void encodeFrame(Object msg, List<Object> out) {
+        byte[] body = (byte[]) msg;
+        byte[] head = new byte[4];
+        ByteUtils.setInt(head, 0, body.length);
+        out.add(head);
+        out.add(body);
+    }
+
+    private static void decodeFrame(ByteBuf in, List<Object> out) {
+        while (in.readableBytes() >= 4) {
+            int bodyLength = in.getInt(in.readerIndex());
+            if (in.readableBytes() < 4 + bodyLength) {
+                break;
+            }
+            in.skipBytes(4);
+            byte[] body = new byte[bodyLength];
+            in.readBytes(body);
+            out.add(body);
+        }
+    }
+
+    static class EchoServer extends SocketServer {
+
+        EchoServer(String address) {
+            super("echo", address, -1, 0, 0, 0);
+        }
+
+        @Override
+        protected void connectHandle(ChannelHandlerContext ctx, String address) {
+        }
+
+        @Override
+        protected void closedHandle(ChannelHandlerContext ctx, String address) {
+        }
+
+        @Override
+        protected void exceptionHandle(ChannelHandlerContext ctx, String address, Throwable cause) {
+        }
+
+        @Override
+        protected void readIdleHandle(ChannelHandlerContext ctx, String address) {
+        }
+
+        @Override
+        protected void allIdleHandle(ChannelHandlerContext ctx, String address) {
+        }
+
+        @Override
+        protected void writeIdleHandle(ChannelHandlerContext ctx, String address) {
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) {
+            encodeFrame(msg, out);
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            decodeFrame(in, out);
+        }
+
+        @Override
+        protected void businessLogic(ChannelHandlerContext ctx, Object msg) {
+            sendMessage(ctx, msg, false);
+        }
+    }
+
+    static class EchoClient extends SocketClient {
+
+        private final BlockingQueue<Object> replies;
+
+        EchoClient(String address, BlockingQueue<Object> replies) {
+            super("echo", address, 5, 600, 600, 600);
+            this.replies = replies;
+        }
+
+        @Override
+        protected void connectHandle(ChannelHandlerContext ctx) {
+        }
+
+        @Override
+        protected void closedHandle(ChannelHandlerContext ctx) {
+        }
+
+        @Override
+        protected void exceptionHandle(ChannelHandlerContext ctx, Throwable cause) {
+        }
+
+        @Override
+        protected void readIdleHandle(ChannelHandlerContext ctx) {
+        }
+
+        @Override
+        protected void allIdleHandle(ChannelHandlerContext ctx) {
+        }
+
+        @Override
+        protected void writeIdleHandle(ChannelHandlerContext ctx) {
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) {
+            encodeFrame(msg, out);
+        }
+
+        @Override
+        protected void decodeHandle(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            decodeFrame(in, out);
+        }
+
+        @Override
+        protected void businessHandle(ChannelHandlerContext ctx, Object msg) {
+            replies.offer(msg);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package cn.emay.socket.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ByteUtils性能：原有的分配式写法 vs 按偏移读写
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteUtilsBenchmark {
+
+    private final byte[] bytes = new byte[256];
+
+    private final ByteBuffer heap = ByteBuffer.allocate(256);
+
+    private final ByteBuffer direct = ByteBuffer.allocateDirect(256).order(ByteOrder.LITTLE_ENDIAN);
+
+    private final String message = "你好，今天下午三点开会，请准时参加 hello world";
+
+    private int value = 123456789;
+
+    private long longValue = -1234567890123L;
+
+    @Benchmark
+    public byte[] frameMerge() {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        return ByteUtils.mergeBytes(ByteUtils.intToBytes4(body.length), body);
+    }
+
+    @Benchmark
+    public byte[] frameInPlace() {
+        int length = ByteUtils.utf8Length(message);
+        byte[] frame = new byte[4 + length];
+        ByteUtils.setInt(frame, 0, length);
+        ByteUtils.setUtf8(frame, 4, message);
+        return frame;
+    }
+
+    @Benchmark
+    public byte[] intToBytes4() {
+        return ByteUtils.intToBytes4(value);
+    }
+
+    @Benchmark
+    public int setGetInt() {
+        ByteUtils.setInt(bytes, 8, value);
+        return ByteUtils.getInt(bytes, 8);
+    }
+
+    @Benchmark
+    public long setGetLongLE() {
+        ByteUtils.setLongLE(bytes, 8, longValue);
+        return ByteUtils.getLongLE(bytes, 8);
+    }
+
+    @Benchmark
+    public long setGetLongBigEndianOnLittleEndianBuffer() {
+        ByteUtils.setLong(direct, 8, longValue);
+        return ByteUtils.getLong(direct, 8);
+    }
+
+    @Benchmark
+    public double setGetDoubleLE() {
+        ByteUtils.setDoubleLE(heap, 8, longValue);
+        return ByteUtils.getDoubleLE(heap, 8);
+    }
+
+    @Benchmark
+    public long varLongZigZag() {
+        ByteUtils.setVarLong(bytes, 0, ByteUtils.zigZag(longValue));
+        return ByteUtils.unZigZag(ByteUtils.getVarLong(bytes, 0));
+    }
+
+    @Benchmark
+    public int utf8Length() {
+        return ByteUtils.utf8Length(message);
+    }
+
+    @Benchmark
+    public int getBytesLength() {
+        return message.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public int writeUtf8Direct() {
+        direct.clear();
+        return ByteUtils.writeUtf8(direct, message);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ByteUtilsBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}